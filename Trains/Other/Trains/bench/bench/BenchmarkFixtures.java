@@ -0,0 +1,176 @@
+package bench;
+
+import map.City;
+import map.ColorTrains;
+import map.Coord;
+import map.Destination;
+import map.DirectConnection;
+import map.ExampleMap;
+import map.TrainsMap;
+import state.PlayerGameState;
+import state.PlayerHand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Maps, hands and player states shared by the JMH benchmarks. Everything is
+ * generated from fixed seeds so runs are comparable.
+ */
+final class BenchmarkFixtures {
+    static final int RAILS = 45;
+    private static final ColorTrains[] COLORS = ColorTrains.values();
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Gets a map by name: one of the ExampleMap maps, or "gridN" for a
+     * synthetic N by N grid of cities.
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static TrainsMap getMap(String name) {
+        if (name.startsWith("grid")) {
+            return createGridMap(Integer.parseInt(name.substring(4)));
+        }
+        switch (name) {
+            case "example":
+                return ExampleMap.createExampleMap();
+            case "multipleConnection":
+                return ExampleMap.createExampleMultipleConnectionMap();
+            case "complicated":
+                return ExampleMap.createComplicatedMap();
+            case "boston":
+                return ExampleMap.createBostonMap();
+            case "bigBoston":
+                return ExampleMap.createBigBostonMap();
+            case "california":
+                return ExampleMap.createCaliforniaMap();
+            case "edgeCities":
+                return ExampleMap.createEdgeCitiesMap();
+            default:
+                throw new IllegalArgumentException("Unknown map: " + name);
+        }
+    }
+
+    /**
+     * Creates an n by n grid of cities, each connected to its right and lower
+     * neighbours with lengths and colors that vary along the grid.
+     */
+    static TrainsMap createGridMap(int n) {
+        City[][] grid = new City[n][n];
+        Set<City> cities = new HashSet<>();
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                grid[row][col] = new City("c" + row + "x" + col,
+                        new Coord((col + .5f) / n, (row + .5f) / n));
+                cities.add(grid[row][col]);
+            }
+        }
+        Set<DirectConnection> connections = new HashSet<>();
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int i = row * n + col;
+                if (col + 1 < n) {
+                    connections.add(new DirectConnection(grid[row][col],
+                            grid[row][col + 1], 3 + i % 3,
+                            COLORS[i % COLORS.length]));
+                }
+                if (row + 1 < n) {
+                    connections.add(new DirectConnection(grid[row][col],
+                            grid[row + 1][col], 3 + (i + 1) % 3,
+                            COLORS[(i + 1) % COLORS.length]));
+                }
+            }
+        }
+        return TrainsMap.createTrainsMapWithDefaultSize(cities, connections);
+    }
+
+    /**
+     * Creates end of game hands for the given number of players. Each player
+     * owns a connected network grown at random from the connections nobody
+     * owns yet until it fills their rails, and has two destinations.
+     */
+    static List<PlayerHand> createFinalHands(TrainsMap map, int numPlayers,
+                                             long seed) {
+        Random random = new Random(seed);
+        List<DirectConnection> free =
+                new ArrayList<>(map.getDirectConnections());
+        List<Destination> destinations =
+                new ArrayList<>(map.getAllFeasibleDestinations());
+        List<PlayerHand> hands = new ArrayList<>();
+        for (int p = 0; p < numPlayers; p++) {
+            Set<DirectConnection> owned = growNetwork(free, random);
+            int rails = RAILS;
+            for (DirectConnection dc : owned) {
+                rails -= dc.getLength();
+            }
+            Collections.shuffle(destinations, random);
+            hands.add(new PlayerHand(owned, createCards(random), rails,
+                    new ArrayList<>(destinations.subList(0, 2))));
+        }
+        return hands;
+    }
+
+    /**
+     * Creates the game state of the first of the given players, seeing the
+     * connections owned by all of them.
+     */
+    static PlayerGameState createPlayerState(TrainsMap map,
+                                             List<PlayerHand> hands) {
+        List<Set<DirectConnection>> allOwned = new ArrayList<>();
+        for (PlayerHand hand : hands) {
+            allOwned.add(hand.getOwnedConnections());
+        }
+        return new PlayerGameState(map, hands.get(0), allOwned);
+    }
+
+    private static Map<ColorTrains, Integer> createCards(Random random) {
+        Map<ColorTrains, Integer> cards = new HashMap<>();
+        for (ColorTrains color : COLORS) {
+            cards.put(color, random.nextInt(8));
+        }
+        return cards;
+    }
+
+    /**
+     * Grows a connected set of the free connections from a random one until
+     * no further connection fits into the rails, removing them from free.
+     */
+    private static Set<DirectConnection> growNetwork(
+            List<DirectConnection> free, Random random) {
+        Set<DirectConnection> owned = new HashSet<>();
+        Set<City> reached = new HashSet<>();
+        if (free.isEmpty()) {
+            return owned;
+        }
+        int rails = RAILS;
+        DirectConnection next = free.get(random.nextInt(free.size()));
+        while (next != null) {
+            free.remove(next);
+            owned.add(next);
+            reached.add(next.getCity0());
+            reached.add(next.getCity1());
+            rails -= next.getLength();
+
+            List<DirectConnection> candidates = new ArrayList<>();
+            for (DirectConnection dc : free) {
+                if (dc.getLength() <= rails &&
+                    (reached.contains(dc.getCity0()) ||
+                     reached.contains(dc.getCity1()))) {
+                    candidates.add(dc);
+                }
+            }
+            next = candidates.isEmpty() ? null :
+                   candidates.get(random.nextInt(candidates.size()));
+        }
+        return owned;
+    }
+}
@@ -0,0 +1,92 @@
+package bench;
+
+import agent.IPlayer;
+import agent.PlayerAgent;
+import agent.RefereeAgent;
+import map.TrainsMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import replay.GameLogWriter;
+import state.ColorCard;
+import state.RefereeGameState;
+import strategy.BuyNowStrategy;
+import strategy.HoldTenStrategy;
+import strategy.RandomAdminStrategy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a complete RefereeAgent game between in-process players taking
+ * turns as Buy-Now and Hold-10, from setup to ranking. Every game is played
+ * with the same seed so each invocation plays the same game. playLoggedGame
+ * plays the same game writing its event log to a discarding stream, to
+ * measure what logging adds to a game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+    private static final String[] NAMES =
+            {"alice", "bob", "carol", "dave", "erin", "frank", "grace",
+             "heidi"};
+
+    @Param({"bigBoston", "california"})
+    public String mapName;
+
+    @Param({"2", "4", "8"})
+    public int numPlayers;
+
+    private TrainsMap map;
+    private List<ColorCard> cards;
+
+    @Setup
+    public void setup() {
+        this.map = BenchmarkFixtures.getMap(this.mapName);
+        this.cards = RefereeGameState.initializeShuffledColoredCards(
+                new SplittableRandom(4500));
+    }
+
+    @Benchmark
+    public Map<Integer, Set<IPlayer>> playGame() {
+        return this.createReferee().playGame();
+    }
+
+    @Benchmark
+    public Map<Integer, Set<IPlayer>> playLoggedGame() throws IOException {
+        RefereeAgent referee = this.createReferee();
+        try (GameLogWriter log = new GameLogWriter(
+                OutputStream.nullOutputStream())) {
+            referee.setGameLog(log);
+            return referee.playGame();
+        }
+    }
+
+    private RefereeAgent createReferee() {
+        LinkedList<IPlayer> players = new LinkedList<>();
+        for (int i = 0; i < this.numPlayers; i++) {
+            players.add(new PlayerAgent(NAMES[i], i % 2 == 0 ?
+                    new BuyNowStrategy() : new HoldTenStrategy()));
+        }
+        return new RefereeAgent(this.map, players, this.cards,
+                new RandomAdminStrategy(), RefereeAgent.DEFAULT_RAILS, 4500);
+    }
+}
@@ -0,0 +1,108 @@
+package bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import json.JsonCodec;
+import json.JsonConverter;
+import map.TrainsMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import state.PlayerGameState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting the maps and player states sent over the wire to and
+ * from JSON trees, and streaming them to and from bytes with JsonCodec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"bigBoston", "california", "grid10"})
+    public String mapName;
+
+    private TrainsMap map;
+    private JsonNode mapJson;
+    private PlayerGameState state;
+    private byte[] mapBytes;
+    private byte[] stateBytes;
+    private final JsonFactory factory = new JsonFactory(new ObjectMapper());
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setup() throws IOException {
+        this.map = BenchmarkFixtures.getMap(this.mapName);
+        this.mapJson = JsonConverter.mapToJson(this.map);
+        this.state = BenchmarkFixtures.createPlayerState(this.map,
+                BenchmarkFixtures.createFinalHands(this.map, 4, 4500));
+        this.mapBytes = this.streamMap();
+        this.stateBytes = this.streamPlayerState();
+    }
+
+    @Benchmark
+    public JsonNode mapToJson() {
+        return JsonConverter.mapToJson(this.map);
+    }
+
+    @Benchmark
+    public TrainsMap jsonToMap() {
+        return JsonConverter.jsonToMap(this.mapJson);
+    }
+
+    @Benchmark
+    public JsonNode playerStateToJson() {
+        return JsonConverter.playerStateToJson(this.state);
+    }
+
+    @Benchmark
+    public byte[] streamMap() throws IOException {
+        this.out.reset();
+        try (JsonGenerator gen = this.factory.createGenerator(this.out)) {
+            JsonCodec.writeMap(gen, this.map);
+        }
+        return this.out.toByteArray();
+    }
+
+    @Benchmark
+    public TrainsMap parseMap() throws IOException {
+        try (JsonParser in = this.factory.createParser(this.mapBytes)) {
+            in.nextToken();
+            return JsonCodec.readMap(in);
+        }
+    }
+
+    @Benchmark
+    public byte[] streamPlayerState() throws IOException {
+        this.out.reset();
+        try (JsonGenerator gen = this.factory.createGenerator(this.out)) {
+            JsonCodec.writePlayerState(gen, this.state);
+        }
+        return this.out.toByteArray();
+    }
+
+    @Benchmark
+    public PlayerGameState parsePlayerState() throws IOException {
+        try (JsonParser in = this.factory.createParser(this.stateBytes)) {
+            in.nextToken();
+            return JsonCodec.readPlayerState(in, this.map, null);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package bench;
+
+import map.CompactGraph;
+import map.DirectConnection;
+import map.ExampleMap;
+import map.Kruskal;
+import map.LongestPath;
+import map.TrainsMap;
+import map.WeightedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the exact LongestPath solver with the maximum spanning tree
+ * approximation on owned networks of at most 45 rails, grown at random from
+ * the connections of the example maps. Reports the time per network for each
+ * and how often the approximation undercounts.
+ * <p>
+ * Run with: mvn -P bench compile exec:java
+ */
+public class LongestPathBenchmark {
+    private static final int RAILS = 45;
+    private static final int NETWORKS = 2000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) :
+                4500);
+        List<TrainsMap> maps = List.of(ExampleMap.createBigBostonMap(),
+                ExampleMap.createCaliforniaMap(),
+                ExampleMap.createComplicatedMap());
+        List<CompactGraph> networks = new ArrayList<>();
+        for (int i = 0; i < NETWORKS; i++) {
+            networks.add(growNetwork(maps.get(i % maps.size()), random));
+        }
+
+        int undercounted = 0;
+        long missing = 0;
+        for (CompactGraph g : networks) {
+            int exact = LongestPath.findLongestPath(g, 0);
+            int approx = approximate(g);
+            if (approx < exact) {
+                undercounted++;
+                missing += exact - approx;
+            }
+        }
+
+        long exactNanos = Long.MAX_VALUE;
+        long approxNanos = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (CompactGraph g : networks) {
+                sink += LongestPath.findLongestPath(g, 0);
+            }
+            exactNanos = Math.min(exactNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (CompactGraph g : networks) {
+                sink += approximate(g);
+            }
+            approxNanos = Math.min(approxNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("networks: %d of at most %d rails%n", NETWORKS,
+                RAILS);
+        System.out.printf("exact:       %8.2f us/network%n",
+                exactNanos / 1000.0 / NETWORKS);
+        System.out.printf("approximate: %8.2f us/network%n",
+                approxNanos / 1000.0 / NETWORKS);
+        System.out.printf("approximation undercounts %d networks by %.2f " +
+                          "on average%n", undercounted,
+                undercounted == 0 ? 0.0 : (double) missing / undercounted);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    /**
+     * Longest path in the maximum spanning tree of the component of city 0,
+     * as scored before the exact solver.
+     */
+    private static int approximate(CompactGraph g) {
+        int n = g.getNumCities();
+        return WeightedGraph.findAbsoluteLongestPath(g, 0,
+                Kruskal.maximumSpanningForest(g), new int[n], new int[n]);
+    }
+
+    /**
+     * Grows a connected set of connections from a random connection of the
+     * map until no further connection fits into the remaining rails.
+     */
+    private static CompactGraph growNetwork(TrainsMap map, Random random) {
+        List<DirectConnection> all = new ArrayList<>(map.getDirectConnections());
+        List<DirectConnection> owned = new ArrayList<>();
+        owned.add(all.remove(random.nextInt(all.size())));
+        int rails = RAILS - owned.get(0).getLength();
+        while (true) {
+            List<DirectConnection> candidates = new ArrayList<>();
+            for (DirectConnection dc : all) {
+                if (dc.getLength() <= rails && touches(owned, dc)) {
+                    candidates.add(dc);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return CompactGraph.fromConnections(owned);
+            }
+            DirectConnection next =
+                    candidates.get(random.nextInt(candidates.size()));
+            all.remove(next);
+            owned.add(next);
+            rails -= next.getLength();
+        }
+    }
+
+    private static boolean touches(List<DirectConnection> owned,
+                                   DirectConnection dc) {
+        for (DirectConnection o : owned) {
+            if (o.getCity0().equals(dc.getCity0()) ||
+                o.getCity0().equals(dc.getCity1()) ||
+                o.getCity1().equals(dc.getCity0()) ||
+                o.getCity1().equals(dc.getCity1())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package bench;
+
+import map.City;
+import map.DirectConnection;
+import map.TrainsMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a TrainsMap, including its feasible destinations, from
+ * the cities and connections of the example maps and of synthetic grids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+    @Param({"example", "multipleConnection", "complicated", "boston",
+            "bigBoston", "california", "edgeCities", "grid10", "grid30"})
+    public String mapName;
+
+    private Set<City> cities;
+    private Set<DirectConnection> connections;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setup() {
+        TrainsMap map = BenchmarkFixtures.getMap(this.mapName);
+        this.cities = map.getCities();
+        this.connections = map.getDirectConnections();
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+    }
+
+    @Benchmark
+    public TrainsMap construct() {
+        return new TrainsMap(this.cities, this.connections, this.width,
+                this.height);
+    }
+}
@@ -0,0 +1,75 @@
+package bench;
+
+import map.DirectConnection;
+import map.TrainsMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import state.PlayerGameState;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the queries a strategy makes of its PlayerGameState every turn,
+ * in the middle of a game where four players own part of the map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerStateBenchmark {
+    @Param({"bigBoston", "california", "grid30"})
+    public String mapName;
+
+    private PlayerGameState state;
+    private List<DirectConnection> connections;
+
+    @Setup
+    public void setup() {
+        TrainsMap map = BenchmarkFixtures.getMap(this.mapName);
+        this.state = BenchmarkFixtures.createPlayerState(map,
+                BenchmarkFixtures.createFinalHands(map, 4, 4500));
+        this.connections = new ArrayList<>(map.getDirectConnections());
+    }
+
+    @Benchmark
+    public void canAcquireEveryConnection(Blackhole blackhole) {
+        for (DirectConnection dc : this.connections) {
+            blackhole.consume(this.state.canAcquire(dc));
+        }
+    }
+
+    @Benchmark
+    public Set<DirectConnection> determineAvailableConnections() {
+        return this.state.determineAvailableConnections();
+    }
+
+    @Benchmark
+    public BitSet acquirableConnectionIds() {
+        return this.state.getAcquirableConnectionIds();
+    }
+
+    /**
+     * Generates the legal moves of a state handed to a strategy, which has not
+     * computed them yet.
+     */
+    @Benchmark
+    public DirectConnection firstAcquirableConnection() {
+        return this.state.getCopy().getFirstAcquirableConnection();
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import map.TrainsMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import state.PlayerHand;
+import state.Scoring;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ranking end of game hands, each owning a network of up to 45
+ * rails grown at random on the map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+    @Param({"bigBoston", "california", "grid10"})
+    public String mapName;
+
+    @Param({"2", "8"})
+    public int numPlayers;
+
+    private List<PlayerHand> hands;
+
+    @Setup
+    public void setup() {
+        TrainsMap map = BenchmarkFixtures.getMap(this.mapName);
+        this.hands = BenchmarkFixtures.createFinalHands(map, this.numPlayers,
+                4500);
+    }
+
+    @Benchmark
+    public Map<Integer, Set<PlayerHand>> getRanking() {
+        return Scoring.getRanking(this.hands);
+    }
+}
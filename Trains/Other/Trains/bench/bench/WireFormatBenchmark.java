@@ -0,0 +1,129 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import json.JsonConverter;
+import map.TrainsMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import transport.Connection;
+import transport.NioTransport;
+import transport.WireFormat;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the play calls per second a connection makes to a client over
+ * loopback in each wire format, the client answering every call right away,
+ * and the cost of encoding and decoding the call on its own. The call
+ * carries the full state of a player at the end of a four player game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"json", "binary"})
+    public String formatName;
+
+    @Param({"bigBoston", "grid10"})
+    public String mapName;
+
+    private WireFormat format;
+    private JsonNode message;
+    private byte[] encoded;
+    private NioTransport transport;
+    private ServerSocketChannel server;
+    private Socket client;
+    private Connection connection;
+
+    @Setup
+    public void setup() throws Exception {
+        this.format = WireFormat.forName(this.formatName);
+        TrainsMap map = BenchmarkFixtures.getMap(this.mapName);
+        ArrayNode call = MAPPER.createArrayNode().add("play");
+        call.addArray().add(JsonConverter.playerStateToJson(
+                BenchmarkFixtures.createPlayerState(map,
+                        BenchmarkFixtures.createFinalHands(map, 4, 4500))));
+        this.message = call;
+        this.encoded = this.format.encode(this.message);
+
+        this.transport = new NioTransport(1);
+        this.server = ServerSocketChannel.open().bind(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0));
+        BlockingQueue<Connection> accepted = new LinkedBlockingQueue<>();
+        this.transport.listen(this.server, accepted::add);
+        this.client = new Socket(InetAddress.getLoopbackAddress(),
+                this.server.socket().getLocalPort());
+        this.client.setTcpNoDelay(true);
+        this.connection = accepted.poll(5, TimeUnit.SECONDS);
+        this.connection.setWireFormat(this.format);
+
+        WireFormat.Reader reader = this.format.newReader(
+                new BufferedInputStream(this.client.getInputStream()));
+        WireFormat.Writer writer = this.format.newWriter(
+                this.client.getOutputStream());
+        JsonNode answer = MAPPER.readTree("\"more cards\"");
+        Thread echo = new Thread(() -> {
+            try {
+                while (true) {
+                    reader.read();
+                    writer.write(answer);
+                }
+            } catch (IOException e) {
+                // closed at tear down
+            }
+        }, "bench-client");
+        echo.setDaemon(true);
+        echo.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.client.close();
+        this.server.close();
+        this.transport.close();
+    }
+
+    @Benchmark
+    public JsonNode playCall() throws Exception {
+        return this.connection.request(this.message, 10_000).get();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return this.format.encode(this.message);
+    }
+
+    @Benchmark
+    public Object decode() {
+        Object[] decoded = new Object[1];
+        this.format.newDecoder(NioTransport.DEFAULT_MAX_MESSAGE_BYTES).feed(
+                ByteBuffer.wrap(this.encoded), value -> decoded[0] = value);
+        return decoded[0];
+    }
+}
@@ -0,0 +1,67 @@
+package agent;
+
+import concurrent.Threads;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the checkpoints of a tournament to a file on a thread of its own,
+ * so games never wait on the disk. Checkpoints submitted while one is being
+ * written coalesce: only the latest is written next, as it supersedes the
+ * others. Checkpoints must be submitted in the order they were taken.
+ */
+final class CheckpointWriter {
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final Path file;
+    private final ExecutorService executor;
+    // the latest checkpoint not yet written, if any
+    private final AtomicReference<TournamentCheckpoint> pending =
+            new AtomicReference<>();
+
+    CheckpointWriter(Path file) {
+        this.file = file;
+        this.executor = Executors.newSingleThreadExecutor(
+                Threads.newThreadFactory("checkpoint", true));
+    }
+
+    /**
+     * Writes the checkpoint once the checkpoints before it are written.
+     */
+    void submit(TournamentCheckpoint checkpoint) {
+        if (this.pending.getAndSet(checkpoint) == null) {
+            this.executor.execute(this::writePending);
+        }
+    }
+
+    /**
+     * Waits for the submitted checkpoints to be written.
+     */
+    void close() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(CLOSE_TIMEOUT_SECONDS,
+                    TimeUnit.SECONDS)) {
+                System.err.println(
+                        "Gave up waiting for checkpoint " + this.file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writePending() {
+        TournamentCheckpoint checkpoint = this.pending.getAndSet(null);
+        try {
+            checkpoint.write(this.file);
+        } catch (IOException e) {
+            System.err.println(
+                    "Unable to write checkpoint " + this.file + ": " + e);
+        }
+    }
+}
@@ -1,25 +1,40 @@
 package agent;
 
+import concurrent.Threads;
+import json.JsonConverter;
 import map.TrainsMap;
+import metrics.MetricsSink;
+import metrics.PlayerCall;
+import replay.GameLogWriter;
 import state.ColorCard;
 import strategy.IAdminStrategy;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The purpose of the manager is to take players as input and run a tournament
  * until a set of winners is determined.
  */
 public class Manager {
-    static final int SINGLE_GAME_MIN_PLAYERS = 2;
-    static final int SINGLE_GAME_MAX_PLAYERS = 8;
+    public static final int SINGLE_GAME_MIN_PLAYERS = 2;
+    public static final int SINGLE_GAME_MAX_PLAYERS = 8;
+    static final int DEFAULT_MAX_CONCURRENT_GAMES = 16;
     private final IAdminStrategy strategy;
     private final List<ColorCard> colorCardList;
     private final Set<IPlayer> allInitialPlayers;
@@ -27,14 +42,46 @@ public class Manager {
     private final Set<IPlayer> allMisbehavingPlayers;
     private TrainsMap tournamentMap;
     private boolean chosenMap;
+    private final long seed;
+    // each game's seed is drawn from this stream in the order games are run
+    private final SplittableRandom tournamentRandom;
+    private int maxConcurrentGames = DEFAULT_MAX_CONCURRENT_GAMES;
+    private MetricsSink metrics = MetricsSink.NONE;
+    private Path gameLogDirectory; // null unless games are logged
+    private Path checkpointFile; // null unless the tournament is checkpointed
+    private boolean checkpointEachGame;
+    private CheckpointWriter checkpoints; // while checkpointed games run
+    private int round; // number of rounds finished
+    private int gameSeedsDrawn; // from tournamentRandom
+    // orders the standing players for allocation, by age unless resumed
+    private Comparator<IPlayer> allocationOrder = Manager::compareByAge;
+    // results by game of the first round of a resumed tournament, if its
+    // games are the checkpoint's
+    private Map<Integer, Map<Integer, Set<IPlayer>>> resumedResults =
+            new HashMap<>();
+    private List<TournamentCheckpoint.GameOutcome> resumedGames =
+            new ArrayList<>();
 
     /**
      * Main constructor for a Manager which creates a Manager given a list of
      * players sorted in descending order by age. Initializes a set of
-     * badPlayers to empty.
+     * badPlayers to empty. The tournament seed is chosen at random, see
+     * getSeed().
      */
     public Manager(List<IPlayer> allInitialPlayers, List<ColorCard> cards,
                    IAdminStrategy adminStrategy) {
+        this(allInitialPlayers, cards, adminStrategy,
+                new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor for a Manager whose games derive their randomness from the
+     * given tournament seed. Every game gets its own seed from the
+     * tournament's stream, so a tournament is replayable from its seed and a
+     * single game from its own seed.
+     */
+    public Manager(List<IPlayer> allInitialPlayers, List<ColorCard> cards,
+                   IAdminStrategy adminStrategy, long seed) {
         if (allInitialPlayers.size() < SINGLE_GAME_MIN_PLAYERS) {
             // if we tell players the tournament isn't starting then
             // informPlayersOfStart(false);
@@ -48,6 +95,8 @@ public class Manager {
         this.colorCardList = cards;
         this.strategy = adminStrategy;
         this.chosenMap = false;
+        this.seed = seed;
+        this.tournamentRandom = new SplittableRandom(seed);
     }
 
     /**
@@ -61,6 +110,79 @@ public class Manager {
         this.chosenMap = true;
     }
 
+    /**
+     * Constructor that uses the given map and tournament seed.
+     */
+    public Manager(List<IPlayer> allInitialPlayers, List<ColorCard> cards,
+                   IAdminStrategy adminStrategy, TrainsMap map, long seed) {
+        this(allInitialPlayers, cards, adminStrategy, seed);
+        this.tournamentMap = map;
+        this.chosenMap = true;
+    }
+
+    /**
+     * Gets the seed all of this tournament's randomness is derived from.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Sets the maximum number of games of a round that are played at the same
+     * time. Games mostly wait on their players, so this may exceed the number
+     * of processors.
+     *
+     * @throws IllegalArgumentException if maxConcurrentGames is less than 1
+     */
+    public void setMaxConcurrentGames(int maxConcurrentGames) {
+        if (maxConcurrentGames < 1) {
+            throw new IllegalArgumentException(
+                    "Must allow at least one game at a time, given " +
+                    maxConcurrentGames);
+        }
+        this.maxConcurrentGames = maxConcurrentGames;
+    }
+
+    /**
+     * Sets the sink that the latency of the start and end calls, and of
+     * every referee's player calls and own work, is recorded in.
+     * MetricsSink.NONE by default.
+     *
+     * @throws IllegalArgumentException if metrics is null
+     */
+    public void setMetricsSink(MetricsSink metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics sink cannot be null.");
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the directory every game of the tournament writes its event log
+     * to, named after the game's seed, see GameReplay. Games are not logged
+     * by default.
+     *
+     * @param directory an existing directory, or null to stop logging
+     */
+    public void setGameLogDirectory(Path directory) {
+        this.gameLogDirectory = directory;
+    }
+
+    /**
+     * Sets the file the tournament is checkpointed to after every round but
+     * the last, and also as each game ends if eachGame, so the tournament can
+     * be resumed with resumeTournament. Checkpoints are written on a thread
+     * of their own while the games go on. Tournaments are not checkpointed by
+     * default.
+     *
+     * @param file     the checkpoint file, or null to stop checkpointing
+     * @param eachGame whether to checkpoint as each game of a round ends
+     */
+    public void setCheckpointFile(Path file, boolean eachGame) {
+        this.checkpointFile = file;
+        this.checkpointEachGame = eachGame;
+    }
+
     /**
      * Primary public method to play a tournament after constructing a manager
      *
@@ -74,11 +196,148 @@ public class Manager {
         return runGames();
     }
 
+    /**
+     * Resumes the tournament of a checkpoint with the players of this
+     * manager, who reconnected under the names they played it with. This
+     * manager must have been created with the checkpoint's seed.
+     * <p>
+     * The players are told the tournament starts again, and it continues on
+     * the map with the checkpoint's fingerprint: the map this manager was
+     * given, or else one the players suggest. Players the checkpoint does not
+     * name are taken to have lost an earlier round, and misbehavers that do
+     * not reconnect are not reported again. Games of the checkpoint's round
+     * that finished are not played again, unless a standing player fails to
+     * start, which changes the round's games.
+     *
+     * @return Map of "winners"=[IPlayer] and "misbehavers"=[IPlayer]
+     *
+     * @throws IllegalArgumentException if the checkpoint is of a tournament
+     *                                  with another seed, player names are
+     *                                  not unique, a standing player has not
+     *                                  reconnected, or no map matches
+     */
+    public Map<String, Set<IPlayer>> resumeTournament(
+            TournamentCheckpoint checkpoint) {
+        if (checkpoint.getSeed() != this.seed) {
+            throw new IllegalArgumentException(
+                    "Checkpoint is of the tournament with seed " +
+                    checkpoint.getSeed() + ", not " + this.seed);
+        }
+        Map<String, IPlayer> playersByName = new HashMap<>();
+        for (IPlayer player : this.allInitialPlayers) {
+            if (playersByName.put(player.getName(), player) != null) {
+                throw new IllegalArgumentException(
+                        "Cannot resume with two players named " +
+                        player.getName());
+            }
+        }
+        List<IPlayer> standing = new ArrayList<>();
+        Map<IPlayer, Integer> order = new HashMap<>();
+        for (String name : checkpoint.getStandingPlayers()) {
+            IPlayer player = playersByName.get(name);
+            if (player == null) {
+                throw new IllegalArgumentException(
+                        "Standing player " + name + " has not reconnected.");
+            }
+            order.put(player, standing.size());
+            standing.add(player);
+        }
+        this.allMisbehavingPlayers.addAll(
+                getPlayers(checkpoint.getMisbehavingPlayers(), playersByName));
+        this.standingPlayers = new HashSet<>(standing);
+        this.allocationOrder = Comparator.comparingInt(order::get);
+
+        List<TrainsMap> suggestedMaps = informPlayersOfStart();
+        this.resumeMap(checkpoint.getMapFingerprint(), suggestedMaps);
+        for (int i = 0; i < checkpoint.getGameSeedsDrawn(); i++) {
+            this.nextGameSeed();
+        }
+        this.round = checkpoint.getRound();
+        if (this.standingPlayers.size() == standing.size()) {
+            this.resumedGames = new ArrayList<>(checkpoint.getFinishedGames());
+            for (TournamentCheckpoint.GameOutcome game : this.resumedGames) {
+                Map<Integer, Set<IPlayer>> result = new HashMap<>();
+                Set<IPlayer> winners =
+                        getPlayers(game.getWinners(), playersByName);
+                if (!winners.isEmpty()) {
+                    result.put(0, winners);
+                }
+                result.put(null,
+                        getPlayers(game.getMisbehavers(), playersByName));
+                this.resumedResults.put(game.getGame(), result);
+            }
+        }
+        return runGames();
+    }
+
+    /**
+     * Gets the players of the given names that reconnected.
+     */
+    private static Set<IPlayer> getPlayers(List<String> names,
+                                           Map<String, IPlayer> playersByName) {
+        Set<IPlayer> players = new HashSet<>();
+        for (String name : names) {
+            IPlayer player = playersByName.get(name);
+            if (player != null) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Sets the tournament map to the given map of this manager, or else the
+     * first suggested map, with the given fingerprint. Every map is hashed at
+     * most once, and keeps its hash for the checkpoints that follow.
+     *
+     * @throws IllegalArgumentException if no such map exists
+     */
+    private void resumeMap(String fingerprint, List<TrainsMap> suggestedMaps) {
+        List<TrainsMap> candidates = this.chosenMap ?
+                                     Collections.singletonList(
+                                             this.tournamentMap) :
+                                     suggestedMaps;
+        for (TrainsMap map : candidates) {
+            if (map != null &&
+                fingerprint.equals(JsonConverter.mapHash(map))) {
+                this.tournamentMap = map;
+                this.chosenMap = true;
+                return;
+            }
+        }
+        throw new IllegalArgumentException(
+                "No map has the fingerprint of the checkpoint, " +
+                fingerprint);
+    }
+
     /**
      * Method called by playTournament to run Games until we meet an end
      * tournament condition.
      */
     private Map<String, Set<IPlayer>> runGames() {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(this.maxConcurrentGames,
+                        this.standingPlayers.size() / SINGLE_GAME_MAX_PLAYERS +
+                        1), Threads.newThreadFactory("game", true));
+        if (this.checkpointFile != null) {
+            this.checkpoints = new CheckpointWriter(this.checkpointFile);
+        }
+        try {
+            return runGames(executor);
+        } finally {
+            executor.shutdownNow();
+            if (this.checkpoints != null) {
+                this.checkpoints.close();
+                this.checkpoints = null;
+            }
+        }
+    }
+
+    /**
+     * Runs the rounds of the tournament, the games of each round are played
+     * concurrently on the given executor.
+     */
+    private Map<String, Set<IPlayer>> runGames(ExecutorService executor) {
         Map<String, Set<IPlayer>> winnersAndMisbehavers = new HashMap<>();
 
         boolean finalRound = false;
@@ -89,8 +348,8 @@ public class Manager {
             Set<IPlayer> winnersThisRound = new HashSet<>();
             List<IPlayer> playersToAllocate =
                     new ArrayList<>(this.standingPlayers);
-            Collections.sort(
-                    playersToAllocate); // initially already sorted, not
+            playersToAllocate.sort(
+                    this.allocationOrder); // initially already sorted, not
             // sorted after a round
             List<LinkedList<IPlayer>> allocatedGameGroups =
                     allocateGameGroups(playersToAllocate);
@@ -99,10 +358,21 @@ public class Manager {
                 finalRound = true;
             }
 
-            for (LinkedList<IPlayer> gameGroup : allocatedGameGroups) { //
-                // run each game in a round
-                runGame(winnersThisRound, gameGroup);
+            RoundProgress progress = null;
+            if (this.checkpoints != null && this.checkpointEachGame) {
+                progress = new RoundProgress(
+                        this.takeCheckpoint(playersToAllocate,
+                                this.resumedGames));
+            }
+            // run the games of the round, then merge their results in
+            // allocation order on this thread
+            for (Map<Integer, Set<IPlayer>> gameResult : runRound(executor,
+                    allocatedGameGroups, progress)) {
+                mergeGameResult(winnersThisRound, gameResult);
             }
+            this.resumedResults.clear();
+            this.resumedGames.clear();
+            this.round++;
             // check if the previous standingPlayers is the same as the
             // winners this round
             if (winnersThisRound.equals(this.standingPlayers) ||
@@ -115,6 +385,11 @@ public class Manager {
                 winnersAndMisbehavers.put("winners", winnersThisRound);
                 winnersAndMisbehavers.put("misbehavers", this.allMisbehavingPlayers);
                 tournamentOver = true;
+            } else if (this.checkpoints != null) {
+                List<IPlayer> nextRound = new ArrayList<>(winnersThisRound);
+                nextRound.sort(this.allocationOrder);
+                this.checkpoints.submit(this.takeCheckpoint(nextRound,
+                        Collections.emptyList()));
             }
             this.standingPlayers = winnersThisRound;
         }
@@ -123,17 +398,162 @@ public class Manager {
     }
 
     /**
-     * Helper method to run a single game. Takes a list of winnersThisRound and
-     * a LinkedList of players to run the game with. It runs the game and
-     * mutates winnersThisRound
+     * Helper method to run the games of a single round. The referees are
+     * created in allocation order, so each game gets the same seed as if the
+     * games were played one after another, then all games are played
+     * concurrently. A round takes as long as its slowest game. Games of a
+     * resumed round that finished before are not played again.
+     *
+     * @param progress the round's games are checkpointed to as they end, or
+     *                 null
+     *
+     * @return the results of the games in allocation order
+     */
+    private List<Map<Integer, Set<IPlayer>>> runRound(ExecutorService executor,
+            List<LinkedList<IPlayer>> allocatedGameGroups,
+            RoundProgress progress) {
+        List<RefereeAgent> referees = new ArrayList<>();
+        for (LinkedList<IPlayer> gameGroup : allocatedGameGroups) {
+            RefereeAgent referee = new RefereeAgent(this.tournamentMap,
+                    gameGroup, this.colorCardList, this.strategy,
+                    RefereeAgent.DEFAULT_RAILS, this.nextGameSeed());
+            referee.setMetricsSink(this.metrics);
+            referees.add(referee);
+        }
+
+        List<Map<Integer, Set<IPlayer>>> results = new ArrayList<>();
+        if (referees.size() == 1) { // no need to hand off the final game
+            results.add(this.playGame(0, referees.get(0), progress));
+            return results;
+        }
+
+        List<Future<Map<Integer, Set<IPlayer>>>> games = new ArrayList<>();
+        for (int i = 0; i < referees.size(); i++) {
+            int game = i;
+            RefereeAgent referee = referees.get(i);
+            games.add(executor.submit(
+                    () -> this.playGame(game, referee, progress)));
+        }
+        try {
+            for (Future<Map<Integer, Set<IPlayer>>> game : games) {
+                results.add(game.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while playing round",
+                    e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Gets the seed of the next game from the tournament's source of
+     * randomness.
+     */
+    private long nextGameSeed() {
+        this.gameSeedsDrawn++;
+        return this.tournamentRandom.nextLong();
+    }
+
+    /**
+     * Plays the given game of a round, unless it finished before the
+     * tournament was resumed, and checkpoints its outcome if progress is not
+     * null.
+     */
+    private Map<Integer, Set<IPlayer>> playGame(int game, RefereeAgent referee,
+                                                RoundProgress progress) {
+        Map<Integer, Set<IPlayer>> resumed = this.resumedResults.get(game);
+        if (resumed != null) {
+            return resumed;
+        }
+        Map<Integer, Set<IPlayer>> result = this.playGame(referee);
+        if (progress != null) {
+            progress.finished(game, result);
+        }
+        return result;
+    }
+
+    /**
+     * Plays the game of a referee, writing its log if games are logged. A
+     * log that cannot be written is reported and the game played regardless.
+     */
+    private Map<Integer, Set<IPlayer>> playGame(RefereeAgent referee) {
+        if (this.gameLogDirectory == null) {
+            return referee.playGame();
+        }
+        Path file = this.gameLogDirectory.resolve(
+                "game-" + Long.toHexString(referee.getSeed()) + ".log");
+        final GameLogWriter log;
+        try {
+            log = GameLogWriter.create(file);
+        } catch (IOException e) {
+            System.err.println("Unable to log game to " + file + ": " + e);
+            return referee.playGame();
+        }
+        referee.setGameLog(log);
+        try {
+            return referee.playGame();
+        } finally {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Unable to log game to " + file + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Takes a checkpoint of the tournament before the next round.
+     *
+     * @param standing      the players of the round in allocation order
+     * @param finishedGames outcomes of the round's games that finished
+     */
+    private TournamentCheckpoint takeCheckpoint(List<IPlayer> standing,
+            List<TournamentCheckpoint.GameOutcome> finishedGames) {
+        List<String> standingNames = new ArrayList<>();
+        for (IPlayer player : standing) {
+            standingNames.add(player.getName());
+        }
+        return new TournamentCheckpoint(this.seed,
+                JsonConverter.mapHash(this.tournamentMap),
+                this.round, this.gameSeedsDrawn, standingNames,
+                getSortedNames(this.allMisbehavingPlayers), finishedGames);
+    }
+
+    private static List<String> getSortedNames(Set<IPlayer> players) {
+        List<String> names = new ArrayList<>();
+        if (players != null) {
+            for (IPlayer player : players) {
+                names.add(player.getName());
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Orders players by age, the order they are allocated to games in.
      */
-    private void runGame(Set<IPlayer> winnersThisRound, LinkedList<IPlayer> gameGroup) {
-        // create the referee and play this game
-        RefereeAgent referee = new RefereeAgent(this.tournamentMap, gameGroup,
-                this.colorCardList, this.strategy);
-        Map<Integer, Set<IPlayer>> finalScoresWithMisbehavers =
-                referee.playGame();
+    @SuppressWarnings("unchecked")
+    private static int compareByAge(IPlayer player, IPlayer other) {
+        return player.compareTo(other);
+    }
 
+    /**
+     * Helper method to merge the result of a single game into
+     * winnersThisRound and the tournament's misbehaving players. MUTATES
+     * winnersThisRound
+     */
+    private void mergeGameResult(Set<IPlayer> winnersThisRound,
+                                 Map<Integer, Set<IPlayer>> finalScoresWithMisbehavers) {
         // get the winners and misbehavers from this game
         Set<IPlayer> misbehavers = finalScoresWithMisbehavers.remove(null);
 
@@ -159,12 +579,19 @@ public class Manager {
         List<TrainsMap> suggestedMaps = new ArrayList<>();
 
         for (IPlayer player : this.allInitialPlayers) {
+            if (this.allMisbehavingPlayers.contains(player)) {
+                continue; // misbehaved before the tournament was resumed
+            }
+            long start = System.nanoTime();
             try {
                 TrainsMap suggestedMap = player.start();
                 suggestedMaps.add(suggestedMap);
             } catch (Exception e) {
                 this.allMisbehavingPlayers.add(player);
                 this.standingPlayers.remove(player);
+            } finally {
+                this.metrics.recordPlayerCall(player.getName(),
+                        PlayerCall.START, System.nanoTime() - start);
             }
         }
 
@@ -180,22 +607,30 @@ public class Manager {
     private void notifyAllPlayersTournamentEnd() {
         for (IPlayer player : this.allInitialPlayers) {
             if (this.standingPlayers.contains(player)) {
-                try {
-                    player.end(true);
-                } catch (Exception e) {
-                    this.allMisbehavingPlayers.add(player);
-                }
+                this.sendEnd(player, true);
             } else if (!this.allMisbehavingPlayers.contains(player)) {
-                try {
-                    player.end(false);
-                } catch (Exception e) {
-                    this.allMisbehavingPlayers.add(player);
-                }
+                this.sendEnd(player, false);
             }
             // don't notify misbehavers
         }
     }
 
+    /**
+     * Tells a player whether they won the tournament, moving them to the
+     * misbehaving players if the call fails.
+     */
+    private void sendEnd(IPlayer player, boolean winner) {
+        long start = System.nanoTime();
+        try {
+            player.end(winner);
+        } catch (Exception e) {
+            this.allMisbehavingPlayers.add(player);
+        } finally {
+            this.metrics.recordPlayerCall(player.getName(), PlayerCall.END,
+                    System.nanoTime() - start);
+        }
+    }
+
     /**
      * The allocation of players to games works as follows. The manager starts
      * by assigning them to games with the maximal number of participants
@@ -289,9 +724,8 @@ public class Manager {
         int mostFeas = 0;
         for (TrainsMap map : choices) {
             if (map != null) { // avoid choosing a null map
-                int numFeas = map
-                        .getAllFeasibleDestinations()
-                        .size(); // cached feasible
+                int numFeas =
+                        map.getNumFeasibleDestinations(); // closed form count
                 if (numFeas > mostFeas) {
                     mostFeas = numFeas;
                     this.tournamentMap = map;
@@ -306,7 +740,7 @@ public class Manager {
         }
 
         // check if map has enough destinations to accommodate all games in this tournament
-        int numDests = this.tournamentMap.getAllFeasibleDestinations().size();
+        int numDests = this.tournamentMap.getNumFeasibleDestinations();
         int playersToAccommodate = Math.min(this.allInitialPlayers.size(), 8);
         int minDestsRequired = playersToAccommodate * 2 + 3;
 
@@ -316,4 +750,47 @@ public class Manager {
                     minDestsRequired + " to run tournament");
         }
     }
+
+    /**
+     * The games of a round that finished, checkpointed as each game ends.
+     * Games end on the threads playing them, so the outcomes are collected
+     * under this object's lock, which also orders the checkpoints.
+     */
+    private final class RoundProgress {
+        private final TournamentCheckpoint start;
+        private final List<TournamentCheckpoint.GameOutcome> finishedGames;
+
+        /**
+         * @param start the checkpoint of the round before its games are
+         *              played
+         */
+        private RoundProgress(TournamentCheckpoint start) {
+            this.start = start;
+            this.finishedGames = new ArrayList<>(start.getFinishedGames());
+        }
+
+        /**
+         * Checkpoints the round with the result of the given game.
+         */
+        private synchronized void finished(int game,
+                                           Map<Integer, Set<IPlayer>> result) {
+            TreeMap<Integer, Set<IPlayer>> scores = new TreeMap<>();
+            result.forEach((score, players) -> {
+                if (score != null) {
+                    scores.put(score, players);
+                }
+            });
+            this.finishedGames.add(new TournamentCheckpoint.GameOutcome(game,
+                    scores.isEmpty() ? Collections.emptyList() :
+                    getSortedNames(scores.lastEntry().getValue()),
+                    getSortedNames(result.get(null))));
+            this.finishedGames.sort(Comparator.comparingInt(
+                    TournamentCheckpoint.GameOutcome::getGame));
+            Manager.this.checkpoints.submit(new TournamentCheckpoint(
+                    this.start.getSeed(), this.start.getMapFingerprint(),
+                    this.start.getRound(), this.start.getGameSeedsDrawn(),
+                    this.start.getStandingPlayers(),
+                    this.start.getMisbehavingPlayers(), this.finishedGames));
+        }
+    }
 }
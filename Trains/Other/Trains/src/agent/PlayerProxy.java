@@ -5,14 +5,19 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import concurrent.Threads;
+import json.JsonCodec;
 import json.JsonConverter;
 import map.ColorTrains;
 import map.Destination;
 import map.TrainsMap;
+import metrics.MetricsSink;
+import metrics.PlayerCall;
 import state.ColorCard;
 import state.PlayerGameState;
 import strategy.Move;
+import transport.Connection;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -21,12 +26,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -34,19 +37,44 @@ import java.util.stream.Collectors;
  * side. This player receives functions calls from the manager, serializes them to JSON
  * to be sent to players on the client side, receives their responses, and deserializes
  * the JSON responses to return to the caller.
+ * <p>
+ * A proxy talks to its client either over a transport Connection, whose event loop
+ * does the I/O and enforces the deadline so the caller is the only thread waiting,
+ * or over blocking streams, where each call runs on the shared executor.
+ * <p>
+ * With the map cache enabled, setup offers the client the content hash of the
+ * map as an extra argument. A client that caches the map answers with the
+ * hash, and the next setup with the same map sends only the hash. Clients
+ * that do not know the option ignore it and answer "void", so they keep
+ * getting the full map.
+ * <p>
+ * Likewise, with state deltas enabled setup offers the client to receive, in
+ * play calls after its first one of a game, only what changed since the
+ * previous one. The full state is still sent whenever the change is more than
+ * acquisitions, cards and rails.
+ * <p>
+ * Calls are written with the streaming JsonCodec, so no JSON tree is built
+ * for the maps and player states sent. Responses are small and read as trees.
  */
 public class PlayerProxy implements IPlayer {
 
-    public static final ExecutorService executor = Executors.newCachedThreadPool();
+    public static final ExecutorService executor = Threads.newTaskExecutor();
 
     private static final int TIMEOUT_MS = 2_000; // time to wait for player call & return
 
     private static final ObjectMapper mapper = new ObjectMapper();
     private final JsonParser jsonIn;
     private final JsonGenerator jsonOut;
+    private final Connection connection;
 
     private final String name;
     private final LocalDateTime birthday;
+    private volatile MetricsSink metrics = MetricsSink.NONE;
+    private volatile boolean mapCacheEnabled;
+    private volatile String clientMapHash; // last map the client has cached
+    private volatile boolean stateDeltaEnabled;
+    private volatile boolean clientStateDelta;
+    private volatile PlayerGameState lastState; // last state sent in a game
 
     public PlayerProxy(InputStream jsonIn, OutputStream jsonOut, String name) {
         this.name = name;
@@ -60,17 +88,28 @@ public class PlayerProxy implements IPlayer {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        this.connection = null;
     }
 
     public PlayerProxy(JsonParser jsonIn, JsonGenerator jsonOut, String name) {
         this.jsonIn = jsonIn;
         this.jsonOut = jsonOut;
-        this.name = name;
-        if (!name.matches("^[a-zA-Z]{1,50}$")) {
-            throw new IllegalArgumentException(
-                    "Name must consist of at least one and at most 50 " +
-                    "alphabetical ASCII chars.");
-        }
+        this.connection = null;
+        this.name = checkName(name);
+        this.birthday = LocalDateTime.now();
+    }
+
+    /**
+     * Constructor for a proxy whose calls are sent over the given transport
+     * connection.
+     *
+     * @throws IllegalArgumentException if the name is not 1 to 50 letters
+     */
+    public PlayerProxy(Connection connection, String name) {
+        this.jsonIn = null;
+        this.jsonOut = null;
+        this.connection = connection;
+        this.name = checkName(name);
         this.birthday = LocalDateTime.now();
     }
 
@@ -80,54 +119,96 @@ public class PlayerProxy implements IPlayer {
 
     @Override
     public void setup(TrainsMap map, int rails, List<ColorCard> cards) {
-        this.doCall(() -> {
-            this.sendFunctionCall("setup", JsonConverter.mapToJson(map), rails,
-                    cards
-                            .stream()
-                            .map(ColorCard::getColor)
-                            .map(ColorTrains::toString)
-                            .collect(Collectors.toList()));
-            return this.expectVoid();
-        });
+        final List<String> colors = cards
+                .stream()
+                .map(ColorCard::getColor)
+                .map(ColorTrains::toString)
+                .collect(Collectors.toList());
+        this.lastState = null;
+        if (!this.mapCacheEnabled && !this.stateDeltaEnabled) {
+            this.doCall(PlayerCall.SETUP, PlayerProxy::expectVoid,
+                    JsonCodec.map(map), rails, colors);
+            return;
+        }
+        final ObjectNode options = mapper.createObjectNode();
+        final Object mapArg;
+        final String hash;
+        if (this.mapCacheEnabled) {
+            hash = JsonConverter.mapHash(map); // computed once per map
+            mapArg = hash.equals(this.clientMapHash) ?
+                     JsonConverter.mapReference(hash) : JsonCodec.map(map);
+            options.put(JsonConverter.MAP_HASH, hash);
+        } else {
+            hash = null;
+            mapArg = JsonCodec.map(map);
+        }
+        if (this.stateDeltaEnabled) {
+            options.put(JsonConverter.STATE_DELTA, true);
+        }
+        this.doCall(PlayerCall.SETUP,
+                response -> this.acceptSetup(response, hash),
+                mapArg, rails, colors, options);
     }
 
     @Override
     public List<Destination> pick(List<Destination> destChoices) {
-        return this.doCall(() -> {
-            this.sendFunctionCall("pick", destChoices
-                    .stream()
-                    .map(JsonConverter::destinationToJson)
-                    .collect(Collectors.toList()));
-            return this.getResponse(JsonConverter::jsonToDestinations);
-        });
+        return this.doCall(PlayerCall.PICK,
+                node -> JsonConverter.jsonToDestinations(destChoices, node),
+                JsonCodec.destinations(destChoices));
     }
 
     @Override
     public Move play(PlayerGameState pgs) {
-        return this.doCall(() -> {
-            this.sendFunctionCall("play", JsonConverter.playerStateToJson(pgs));
-            return this.getResponse(node -> JsonConverter.jsonToMove(
-                    pgs.getTrainsMap().getCities(), node));
-        });
+        final PlayerGameState previous = this.lastState;
+        final Object delta = previous == null ? null :
+                             JsonCodec.playerStateDelta(previous, pgs);
+        this.lastState = this.clientStateDelta ? pgs : null;
+        return this.doCall(PlayerCall.PLAY, node -> JsonConverter.jsonToMove(
+                        pgs.getTrainsMap(), node),
+                delta != null ? delta : JsonCodec.playerState(pgs));
     }
 
     @Override
     public void more(List<ColorCard> more) {
-        this.doCall(() -> {
-            this.sendFunctionCall("more", more
-                    .stream()
-                    .map(colorCard -> colorCard.getColor().name().toLowerCase())
-                    .collect(Collectors.toList()));
-            return this.expectVoid();
-        });
+        this.doCall(PlayerCall.MORE, PlayerProxy::expectVoid, more
+                .stream()
+                .map(colorCard -> colorCard.getColor().name().toLowerCase())
+                .collect(Collectors.toList()));
     }
 
     @Override
     public void win(Boolean b) {
-        this.doCall(() -> {
-            this.sendFunctionCall("win", b);
-            return this.expectVoid();
-        });
+        this.doCall(PlayerCall.WIN, PlayerProxy::expectVoid, b);
+    }
+
+    /**
+     * Sets the sink the round trip of every call to the client is recorded
+     * in, MetricsSink.NONE by default.
+     *
+     * @throws IllegalArgumentException if metrics is null
+     */
+    public void setMetricsSink(MetricsSink metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics sink cannot be null.");
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets whether setup offers the client to cache the map and references
+     * maps the client has cached by their hash, false by default.
+     */
+    public void setMapCacheEnabled(boolean mapCacheEnabled) {
+        this.mapCacheEnabled = mapCacheEnabled;
+    }
+
+    /**
+     * Sets whether setup offers the client to receive player state deltas in
+     * play calls, and whether they are sent once the client accepts, false by
+     * default.
+     */
+    public void setStateDeltaEnabled(boolean stateDeltaEnabled) {
+        this.stateDeltaEnabled = stateDeltaEnabled;
     }
 
     @Override
@@ -142,18 +223,12 @@ public class PlayerProxy implements IPlayer {
 
     @Override
     public TrainsMap start() {
-        return this.doCall(() -> {
-            this.sendFunctionCall("start", true);
-            return this.getResponse(JsonConverter::jsonToMap);
-        });
+        return this.doCall(PlayerCall.START, JsonConverter::jsonToMap, true);
     }
 
     @Override
     public void end(boolean winner) {
-        this.doCall(() -> {
-            this.sendFunctionCall("end", winner);
-            return this.expectVoid();
-        });
+        this.doCall(PlayerCall.END, PlayerProxy::expectVoid, winner);
     }
 
     @Override
@@ -176,18 +251,62 @@ public class PlayerProxy implements IPlayer {
 
     /**
      * Sends a call to a client player and receives its response. Times out after
-     * two seconds.
+     * two seconds. Records the round trip, including a time out, as a remote
+     * call.
      *
-     * @param action the action to be executed (send a call, receive a response)
-     * @param <T>    the return type of the action, that matches the return type
-     *               of the call sent
+     * @param call      the IPlayer method being called
+     * @param converter the function to deserialize the JSON response
+     * @param args      the parameters of the method being called
+     * @param <T>       the return type of the call
+     */
+    private <T> T doCall(PlayerCall call, Function<JsonNode, T> converter,
+                         Object... args) {
+        final Object message = JsonCodec.call(call.getWireName(), args);
+
+        final long start = System.nanoTime();
+        final JsonNode response;
+        try {
+            response = this.connection != null ?
+                       this.callOverConnection(message) :
+                       this.callOverStreams(message);
+        } finally {
+            this.metrics.recordRemoteCall(this.name, call,
+                    System.nanoTime() - start);
+        }
+        return converter.apply(response);
+    }
+
+    /**
+     * Sends the message and waits for the response on the connection, whose
+     * event loop fails the call once the timeout passes.
      */
-    private <T> T doCall(Supplier<T> action) {
+    private JsonNode callOverConnection(Object message) {
+        try {
+            return this.connection.request(message, TIMEOUT_MS).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new RuntimeException("Player call and return timed out");
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Writes the message to the output stream and reads the response on the
+     * shared executor, giving up on it after the timeout.
+     */
+    private JsonNode callOverStreams(Object message) {
         final AtomicBoolean timedOut = new AtomicBoolean(false);
         try {
             return executor.submit(() -> {
                 try {
-                    return action.get();
+                    mapper.writeValue(this.jsonOut, message);
+                    this.jsonOut.flush();
+                    this.jsonIn.nextValue();
+                    return this.jsonIn.readValueAs(JsonNode.class);
                 } catch (Exception e) {
                     if (!timedOut.get()) {
                         throw e;
@@ -204,51 +323,45 @@ public class PlayerProxy implements IPlayer {
     }
 
     /**
-     * Writes the name and parameters of the next method to be called on
-     * a client player to the output stream
-     *
-     * @param command the name of the method to be called
-     * @param args    the parameters of the method to be called
+     * Ensures that the response from a method call was "void"
      */
-    private void sendFunctionCall(String command, Object... args) {
-        final ArrayNode node = PlayerProxy.mapper.createArrayNode();
-        node.add(command);
-        node.add(mapper.valueToTree(args));
-
-        try {
-            this.jsonOut.writeTree(node);
-            this.jsonOut.flush();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private static Void expectVoid(JsonNode response) {
+        if (!response.asText().equals("void")) {
+            throw new IllegalArgumentException("Expected void in response");
         }
+        return null;
     }
 
     /**
-     * Ensures that the response from a method call was "void"
+     * Ensures that the response to setup was "void", or an object accepting
+     * some of the options offered, and remembers which ones the client
+     * accepted.
+     *
+     * @param hash the hash of the map offered, or null if none was
      */
-    private Void expectVoid() {
-        final String response = this.getResponse(JsonNode::asText);
-        if (!response.equals("void")) {
-            throw new IllegalArgumentException("Expected void in response");
+    private Void acceptSetup(JsonNode response, String hash) {
+        final boolean cachedMap = hash != null &&
+                                  hash.equals(JsonConverter.getMapHash(response));
+        final boolean stateDelta = this.stateDeltaEnabled &&
+                                   response.path(JsonConverter.STATE_DELTA)
+                                           .asBoolean(false);
+        if (!cachedMap && !stateDelta) {
+            expectVoid(response);
         }
+        this.clientMapHash = cachedMap ? hash : null;
+        this.clientStateDelta = stateDelta;
         return null;
     }
 
     /**
-     * Uses the given function to convert the latest JSON response to its
-     * correct internal data representation
-     *
-     * @param converter the function to deserialize the JSON response
-     * @param <T>       the type of the deserialized response
+     * Checks that a player name consists of 1 to 50 letters.
      */
-    private <T> T getResponse(Function<JsonNode, T> converter) {
-        final JsonNode node;
-        try {
-            this.jsonIn.nextValue();
-            node = this.jsonIn.readValueAs(JsonNode.class);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private static String checkName(String name) {
+        if (!name.matches("^[a-zA-Z]{1,50}$")) {
+            throw new IllegalArgumentException(
+                    "Name must consist of at least one and at most 50 " +
+                    "alphabetical ASCII chars.");
         }
-        return converter.apply(node);
+        return name;
     }
 }
@@ -3,6 +3,10 @@ package agent;
 import map.Destination;
 import map.DirectConnection;
 import map.TrainsMap;
+import metrics.MetricsSink;
+import metrics.PlayerCall;
+import metrics.RefereeOperation;
+import replay.GameLog;
 import state.ColorCard;
 import state.PlayerGameState;
 import state.PlayerHand;
@@ -14,10 +18,13 @@ import strategy.Move;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
 
 /**
  * Class to represent our RefereeAgent which implements IReferee. IReferee does
@@ -43,8 +50,11 @@ public class RefereeAgent implements IReferee {
     private final Map<IPlayer, PlayerHand> iPlayerToPlayerHand;
     private final Map<PlayerHand, IPlayer> playerHandToIPlayer;
 
-    private int initialRails = 45;
+    public static final int DEFAULT_RAILS = 45;
+    private final int initialRails;
     private int numPlayersPlayedWithNoChange = 0;
+    private MetricsSink metrics = MetricsSink.NONE;
+    private GameLog log = GameLog.NONE;
 
     /**
      * Main constructor for a Referee Agent.
@@ -57,6 +67,35 @@ public class RefereeAgent implements IReferee {
      */
     public RefereeAgent(TrainsMap map, LinkedList<IPlayer> players,
                         List<ColorCard> cards, IAdminStrategy rulebook) {
+        this(map, players, cards, rulebook, DEFAULT_RAILS);
+    }
+
+    /**
+     * Secondary constructor for a Referee Agent with a specified number of rails for
+     * testing a shorter length game.
+     */
+    public RefereeAgent(TrainsMap map, LinkedList<IPlayer> players,
+                        List<ColorCard> cards, IAdminStrategy rulebook,
+                        int rails) {
+        this(map, players, cards, rulebook, rails,
+                new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor for a Referee Agent whose game draws all of its randomness
+     * from the given seed, so the game can be replayed from the seed.
+     *
+     * @param map      TrainsMap to play this game on
+     * @param players  given by the TournamentManager
+     * @param cards    to be sorted using some strategy
+     * @param rulebook to determine how cards and connections are ordered for
+     *                 distribution to players
+     * @param rails    number of rails each player starts with
+     * @param seed     seed of this game's source of randomness
+     */
+    public RefereeAgent(TrainsMap map, LinkedList<IPlayer> players,
+                        List<ColorCard> cards, IAdminStrategy rulebook,
+                        int rails, long seed) {
         if (map == null || players == null || cards == null ||
             rulebook == null) {
             throw new IllegalArgumentException(
@@ -69,17 +108,17 @@ public class RefereeAgent implements IReferee {
                     " <= players.size() " + "<= " +
                     Manager.SINGLE_GAME_MAX_PLAYERS);
         }
-        if (map.getAllFeasibleDestinations().size() <
-            (players.size() * 2) + 3) {
+        if (map.getNumFeasibleDestinations() < (players.size() * 2) + 3) {
             throw new IllegalArgumentException(
                     "Not enough destinations on given map for given number " +
                     "of players, given " + players.size() + " and map has " +
-                    map.getAllFeasibleDestinations().size() + " dests avail");
+                    map.getNumFeasibleDestinations() + " dests avail");
         }
         LinkedList<IPlayer> sortedPlayers = new LinkedList<>(players);
         Collections.sort(sortedPlayers); // sorted by birthday
         this.map = map;
-        this.gameState = new RefereeGameState(map, cards, rulebook);
+        this.gameState = new RefereeGameState(map, cards, rulebook, seed);
+        this.initialRails = rails;
         this.players = sortedPlayers;
         this.iPlayerToPlayerHand = new HashMap<>();
         this.playerHandToIPlayer = new HashMap<>();
@@ -87,14 +126,37 @@ public class RefereeAgent implements IReferee {
     }
 
     /**
-     * Secondary constructor for a Referee Agent with a specified number of rails for
-     * testing a shorter length game.
+     * Gets the seed this game's randomness is drawn from.
      */
-    public RefereeAgent(TrainsMap map, LinkedList<IPlayer> players,
-                        List<ColorCard> cards, IAdminStrategy rulebook,
-                        int rails) {
-        this(map, players, cards, rulebook);
-        this.initialRails = rails;
+    public long getSeed() {
+        return this.gameState.getSeed();
+    }
+
+    /**
+     * Sets the sink that the latency of every player call and of this
+     * referee's own work is recorded in, MetricsSink.NONE by default.
+     *
+     * @throws IllegalArgumentException if metrics is null
+     */
+    public void setMetricsSink(MetricsSink metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics sink cannot be null.");
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the log that every change to this referee's game state is written
+     * to, GameLog.NONE by default. The caller owns the log and closes it
+     * after the game.
+     *
+     * @throws IllegalArgumentException if log is null
+     */
+    public void setGameLog(GameLog log) {
+        if (log == null) {
+            throw new IllegalArgumentException("Game log cannot be null.");
+        }
+        this.log = log;
     }
 
     /**
@@ -102,11 +164,31 @@ public class RefereeAgent implements IReferee {
      * RefereeAgent.
      */
     public Map<Integer, Set<IPlayer>> playGame() {
+        // only a log that keeps the game copies the order of the decks
+        this.log.start(this.map, this.initialRails, this.gameState);
         this.setupPlayers();
         this.handleDestinationChoices();
         this.runTurns();
         this.sendGameResult();
-        return this.getFinalScoresAndMisbehavers();
+        Map<Integer, Set<IPlayer>> result =
+                this.getFinalScoresAndMisbehavers();
+        this.logScores(result);
+        return result;
+    }
+
+    /**
+     * Writes the final score of every player still in the game to the log.
+     */
+    private void logScores(Map<Integer, Set<IPlayer>> result) {
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        for (IPlayer p : this.players) {
+            for (Map.Entry<Integer, Set<IPlayer>> score : result.entrySet()) {
+                if (score.getKey() != null && score.getValue().contains(p)) {
+                    scores.put(p.getName(), score.getKey());
+                }
+            }
+        }
+        this.log.scores(scores);
     }
 
     /**
@@ -114,11 +196,16 @@ public class RefereeAgent implements IReferee {
      */
     void setupPlayers() {
         for (IPlayer p : this.players) {
-            List<ColorCard> cards =
-                    this.gameState.initializePlayerWithRailsAndDraw(
-                            this.initialRails);
+            List<ColorCard> cards = this.runReferee(
+                    RefereeOperation.SETUP_PLAYER,
+                    () -> this.gameState.initializePlayerWithRailsAndDraw(
+                            this.initialRails));
+            this.log.setup(p.getName());
             try {
-                p.setup(this.map, this.initialRails, cards);
+                this.callPlayer(p, PlayerCall.SETUP, () -> {
+                    p.setup(this.map, this.initialRails, cards);
+                    return null;
+                });
             } catch (Exception e) {
                 // TODO this.players.remove(p); ??
             }
@@ -135,12 +222,19 @@ public class RefereeAgent implements IReferee {
         LinkedList<IPlayer> playersCopy = new LinkedList<>(this.players);
         for (IPlayer p : playersCopy) {
 
-            List<Destination> choices =
-                    this.gameState.getFirstFiveDestinations();
+            List<Destination> choices = this.runReferee(
+                    RefereeOperation.OFFER_DESTINATIONS,
+                    this.gameState::getFirstFiveDestinations);
 
             try {
-                List<Destination> rejected = p.pick(choices);
-                this.gameState.handleDestinationSelection(choices, rejected);
+                List<Destination> rejected = this.callPlayer(p,
+                        PlayerCall.PICK, () -> p.pick(choices));
+                this.runReferee(RefereeOperation.CHOOSE_DESTINATIONS, () -> {
+                    this.gameState.handleDestinationSelection(choices,
+                            rejected);
+                    this.log.pick(rejected);
+                    return null;
+                });
             } catch (Exception e) {
                 this.eliminatePlayer(p);
                 if (this.players.size() == 1) {
@@ -188,10 +282,12 @@ public class RefereeAgent implements IReferee {
      * the game.
      */
     void playTurn() {
-        PlayerGameState PGS = this.gameState.getCurrentPlayerGameState();
+        PlayerGameState PGS = this.runReferee(RefereeOperation.PLAYER_STATE,
+                this.gameState::getCurrentPlayerGameState);
         IPlayer currPlayer = this.players.remove();
         try {
-            Move moveResponse = currPlayer.play(PGS);
+            Move moveResponse = this.callPlayer(currPlayer, PlayerCall.PLAY,
+                    () -> currPlayer.play(PGS));
 
             if (moveResponse.getMove() instanceof Boolean) {
 
@@ -213,7 +309,11 @@ public class RefereeAgent implements IReferee {
      * this Referee Agent's list of players
      */
     void eliminatePlayer(IPlayer player) {
-        this.gameState.removePlayer(); //Move is invalid
+        this.runReferee(RefereeOperation.ELIMINATE, () -> {
+            this.gameState.removePlayer(); //Move is invalid
+            this.log.eliminate(player.getName());
+            return null;
+        });
         this.players.remove(player);
         // after removing the player we add them to this ref's list of
         // badPlayers
@@ -232,8 +332,12 @@ public class RefereeAgent implements IReferee {
     private void handleConnectionMove(IPlayer currPlayer, Move moveResponse) {
         DirectConnection dc = (DirectConnection) moveResponse.getMove();
         try {
-            this.gameState.addAcquiredConnectionMove(
-                    dc);   //throws if the connection is invalid
+            this.runReferee(RefereeOperation.ACQUIRE, () -> {
+                this.gameState.addAcquiredConnectionMove(
+                        dc);   //throws if the connection is invalid
+                this.log.acquire(dc);
+                return null;
+            });
             this.players.addLast(currPlayer);   //continue ture
         } catch (IllegalArgumentException e) {
             this.eliminatePlayer(currPlayer);
@@ -251,12 +355,17 @@ public class RefereeAgent implements IReferee {
      * @param currPlayer that made the move
      */
     private void handleAdditionalCards(IPlayer currPlayer) {
-        List<ColorCard> giveList = this.gameState.drawTwoColoredCardsMove();
+        List<ColorCard> giveList = this.runReferee(RefereeOperation.DRAW,
+                this.gameState::drawTwoColoredCardsMove);
+        this.log.draw();
         if (giveList.isEmpty()) {
             this.numPlayersPlayedWithNoChange++;
         }
 
-        currPlayer.more(giveList);
+        this.callPlayer(currPlayer, PlayerCall.MORE, () -> {
+            currPlayer.more(giveList);
+            return null;
+        });
         this.players.addLast(currPlayer);
     }
 
@@ -266,11 +375,15 @@ public class RefereeAgent implements IReferee {
     void sendGameResult() {
         this.buildBiDirectionalMaps();
         List<PlayerHand> allPH = this.gameState.getAllPlayerHands();
-        Set<PlayerHand> winners = Scoring.getWinner(allPH);
+        Set<PlayerHand> winners = this.runReferee(RefereeOperation.SCORING,
+                () -> Scoring.getWinner(allPH));
         for (IPlayer p : this.players) {
             PlayerHand player = this.iPlayerToPlayerHand.get(p);
             boolean won = winners.contains(player);
-            p.win(won);
+            this.callPlayer(p, PlayerCall.WIN, () -> {
+                p.win(won);
+                return null;
+            });
         }
     }
 
@@ -293,7 +406,8 @@ public class RefereeAgent implements IReferee {
      */
     Map<Integer, Set<PlayerHand>> getFinalScoresToPlayers() {
         List<PlayerHand> allPH = this.gameState.getAllPlayerHands();
-        return Scoring.getRanking(allPH);
+        return this.runReferee(RefereeOperation.SCORING,
+                () -> Scoring.getRanking(allPH));
     }
 
     /**
@@ -342,7 +456,7 @@ public class RefereeAgent implements IReferee {
      * purposes. This does not leak a mutable copy of the game state because
      * DirectConnections are final.
      */
-    LinkedList<HashSet<DirectConnection>> getAllOwnedConnections() {
+    LinkedList<Set<DirectConnection>> getAllOwnedConnections() {
         return new LinkedList<>(this.gameState.getAllOwnedConnections());
         // shallow copy, getAllOwnedConns returns another copy
     }
@@ -353,6 +467,47 @@ public class RefereeAgent implements IReferee {
      * TODO: fix if rules change
      */
     private void sendLastRemainingPlayerWin() {
-        this.players.get(0).win(true);
+        IPlayer last = this.players.get(0);
+        this.callPlayer(last, PlayerCall.WIN, () -> {
+            last.win(true);
+            return null;
+        });
+    }
+
+    /**
+     * Calls a player and records how long the call took, whether or not it
+     * succeeded.
+     *
+     * @param player the player called
+     * @param call   the IPlayer method called
+     * @param action makes the call
+     * @param <T>    the return type of the call
+     */
+    private <T> T callPlayer(IPlayer player, PlayerCall call,
+                             Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            this.metrics.recordPlayerCall(player.getName(), call,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs part of this referee's own work, a game state transition or
+     * scoring, and records how long it took.
+     *
+     * @param operation what the action does
+     * @param action    the work to time
+     * @param <T>       the result type of the action
+     */
+    private <T> T runReferee(RefereeOperation operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            this.metrics.recordReferee(operation, System.nanoTime() - start);
+        }
     }
 }
@@ -0,0 +1,243 @@
+package agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The progress of a tournament between rounds, or between the games of a
+ * round, from which a Manager resumes the tournament with the same players
+ * after a restart, see Manager.resumeTournament.
+ * <p>
+ * Players are recorded by name. The standing players are in the order they
+ * are allocated to games, since players that reconnect get a new age. The
+ * state of the tournament's source of randomness is the number of game
+ * seeds drawn from it, as the stream is replayable from the tournament
+ * seed. A checkpoint taken during a round also holds the outcomes of the
+ * round's finished games, by their index in the round's allocation.
+ * <p>
+ * Checkpoints are stored as JSON.
+ */
+public final class TournamentCheckpoint {
+    private static final int VERSION = 1;
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final long seed;
+    private final String mapFingerprint;
+    private final int round;
+    private final int gameSeedsDrawn;
+    private final List<String> standingPlayers;
+    private final List<String> misbehavingPlayers;
+    private final List<GameOutcome> finishedGames;
+
+    /**
+     * @param seed               seed of the tournament
+     * @param mapFingerprint     content hash of the tournament map, see
+     *                           JsonConverter.mapHash
+     * @param round              number of rounds finished
+     * @param gameSeedsDrawn     number of game seeds drawn before the round
+     * @param standingPlayers    names of the players in the round, in the
+     *                           order they are allocated to games
+     * @param misbehavingPlayers names of the players that misbehaved before
+     *                           the round
+     * @param finishedGames      outcomes of the finished games of the round
+     */
+    TournamentCheckpoint(long seed, String mapFingerprint, int round,
+                         int gameSeedsDrawn, List<String> standingPlayers,
+                         List<String> misbehavingPlayers,
+                         List<GameOutcome> finishedGames) {
+        this.seed = seed;
+        this.mapFingerprint = mapFingerprint;
+        this.round = round;
+        this.gameSeedsDrawn = gameSeedsDrawn;
+        this.standingPlayers = List.copyOf(standingPlayers);
+        this.misbehavingPlayers = List.copyOf(misbehavingPlayers);
+        this.finishedGames = List.copyOf(finishedGames);
+    }
+
+    /**
+     * Reads the checkpoint in the given file.
+     *
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a checkpoint
+     */
+    public static TournamentCheckpoint read(Path file) throws IOException {
+        JsonNode json = mapper.readTree(file.toFile());
+        if (json == null || !json.path("version").isInt()) {
+            throw new IllegalArgumentException(
+                    "Not a tournament checkpoint: " + file);
+        }
+        if (json.get("version").asInt() != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported checkpoint version " + json.get("version"));
+        }
+        List<GameOutcome> games = new ArrayList<>();
+        for (JsonNode game : json.path("games")) {
+            games.add(new GameOutcome(game.path("game").asInt(),
+                    readNames(game.path("winners")),
+                    readNames(game.path("misbehavers"))));
+        }
+        return new TournamentCheckpoint(json.path("seed").asLong(),
+                json.path("map").asText(), json.path("round").asInt(),
+                json.path("seeds-drawn").asInt(),
+                readNames(json.path("standing")),
+                readNames(json.path("misbehavers")), games);
+    }
+
+    /**
+     * Writes this checkpoint to the given file, replacing it atomically: the
+     * checkpoint is written and synced to a temporary file next to it, which
+     * is then renamed over it. A crash leaves either the previous or this
+     * checkpoint in place.
+     *
+     * @throws IOException if the checkpoint cannot be written, or the file
+     *                     system cannot rename atomically
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(
+                    mapper.writeValueAsBytes(this.toJson()));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private JsonNode toJson() {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("version", VERSION);
+        json.put("seed", this.seed);
+        json.put("map", this.mapFingerprint);
+        json.put("round", this.round);
+        json.put("seeds-drawn", this.gameSeedsDrawn);
+        json.set("standing", writeNames(this.standingPlayers));
+        json.set("misbehavers", writeNames(this.misbehavingPlayers));
+        ArrayNode games = json.putArray("games");
+        for (GameOutcome game : this.finishedGames) {
+            ObjectNode gameJson = games.addObject();
+            gameJson.put("game", game.game);
+            gameJson.set("winners", writeNames(game.winners));
+            gameJson.set("misbehavers", writeNames(game.misbehavers));
+        }
+        return json;
+    }
+
+    private static List<String> readNames(JsonNode names) {
+        List<String> result = new ArrayList<>();
+        for (JsonNode name : names) {
+            result.add(name.asText());
+        }
+        return result;
+    }
+
+    private static ArrayNode writeNames(List<String> names) {
+        ArrayNode json = mapper.createArrayNode();
+        names.forEach(json::add);
+        return json;
+    }
+
+    /**
+     * @return the seed of the tournament
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @return the content hash of the tournament map
+     */
+    public String getMapFingerprint() {
+        return this.mapFingerprint;
+    }
+
+    /**
+     * @return the number of rounds finished
+     */
+    public int getRound() {
+        return this.round;
+    }
+
+    /**
+     * @return the number of game seeds drawn from the tournament's source of
+     * randomness before the round
+     */
+    public int getGameSeedsDrawn() {
+        return this.gameSeedsDrawn;
+    }
+
+    /**
+     * @return names of the players in the round, in allocation order
+     */
+    public List<String> getStandingPlayers() {
+        return this.standingPlayers;
+    }
+
+    /**
+     * @return names of the players that misbehaved before the round
+     */
+    public List<String> getMisbehavingPlayers() {
+        return this.misbehavingPlayers;
+    }
+
+    /**
+     * @return outcomes of the games of the round that finished, empty for a
+     * checkpoint taken between rounds
+     */
+    public List<GameOutcome> getFinishedGames() {
+        return this.finishedGames;
+    }
+
+    /**
+     * The winners and misbehavers of one finished game of a round.
+     */
+    public static final class GameOutcome {
+        private final int game;
+        private final List<String> winners;
+        private final List<String> misbehavers;
+
+        GameOutcome(int game, List<String> winners, List<String> misbehavers) {
+            this.game = game;
+            this.winners = Collections.unmodifiableList(winners);
+            this.misbehavers = Collections.unmodifiableList(misbehavers);
+        }
+
+        /**
+         * @return index of the game in the round's allocation
+         */
+        public int getGame() {
+            return this.game;
+        }
+
+        /**
+         * @return names of the players with the highest score
+         */
+        public List<String> getWinners() {
+            return this.winners;
+        }
+
+        /**
+         * @return names of the players that misbehaved in the game
+         */
+        public List<String> getMisbehavers() {
+            return this.misbehavers;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package client;
+
+import map.TrainsMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of parsed maps keyed by their content hash, evicting the
+ * least recently used map once full. Safe to share between the executors of
+ * several players in one process.
+ */
+public final class MapCache {
+
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final int capacity;
+    private final LinkedHashMap<String, TrainsMap> maps;
+
+    /**
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public MapCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.maps = new LinkedHashMap<>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, TrainsMap> eldest) {
+                return this.size() > MapCache.this.capacity;
+            }
+        };
+    }
+
+    public MapCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Gets the map with the given hash, or null if it is not cached.
+     */
+    public synchronized TrainsMap get(String hash) {
+        return this.maps.get(hash);
+    }
+
+    /**
+     * Caches the map under its hash, evicting the least recently used map if
+     * the cache is full.
+     *
+     * @throws IllegalArgumentException if the hash or map is null
+     */
+    public synchronized void put(String hash, TrainsMap map) {
+        if (hash == null || map == null) {
+            throw new IllegalArgumentException(
+                    "Hash and map cannot be null.");
+        }
+        this.maps.put(hash, map);
+    }
+
+    public synchronized boolean contains(String hash) {
+        return this.maps.containsKey(hash);
+    }
+
+    public synchronized int size() {
+        return this.maps.size();
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+}
@@ -1,13 +1,19 @@
 package client;
 
 import agent.IPlayer;
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import json.JsonCodec;
 import json.JsonConverter;
 import map.TrainsMap;
+import state.PlayerGameState;
+import transport.WireFormat;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,25 +21,40 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 /**
  * Receives commands from a server, interprets them, and calls methods on a
  * player to play a game.
+ * <p>
+ * A server may offer the content hash of the map it sends with setup. The
+ * executor then keeps the parsed map in its cache and answers with the hash
+ * in place of "void", after which the server may send the hash in place of
+ * the map.
+ * <p>
+ * A server may also offer player state deltas. The executor then accepts them
+ * in its answer to setup, and keeps the state of its last play call to apply
+ * the deltas of the following ones to.
+ * <p>
+ * Commands are parsed token by token with the streaming JsonCodec, and the
+ * responses written with it. Only the arguments of setup are read as a tree,
+ * since the hash of the map offered follows the map.
  */
 public final class PlayerCommandExecutor {
 
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
-    private static final JsonFactory JSON_FACTORY = new JsonFactory(JSON_MAPPER)
-            .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false)
-            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    private static final MapCache SHARED_MAPS = new MapCache();
+    private static final JsonNode VOID = TextNode.valueOf("void");
 
     private final IPlayer player;
-    private final JsonGenerator out;
     private final InputStream is;
+    private final OutputStream os;
+    private final MapCache maps;
+    private final WireFormat format;
+    private WireFormat.Writer out;
     private boolean done;
     private TrainsMap map;
-    private final Map<String, Function<List<JsonNode>, JsonNode>> commandMap =
+    private PlayerGameState state; // of the last play call in this game
+    private final Map<String, Command> commandMap =
             Map.of("start", this::onStart,
                     "setup", this::onSetup,
                     "pick", this::onPick,
@@ -44,78 +65,214 @@ public final class PlayerCommandExecutor {
 
     public PlayerCommandExecutor(IPlayer player, InputStream in,
                                  OutputStream out) throws IOException {
-        this.player = player;
-        this.is = in;
-        this.out = JSON_FACTORY.createGenerator(out);
+        this(player, in, out, SHARED_MAPS, WireFormat.JSON);
     }
 
-    private static JsonNode createVoidNode() {
-        try {
-            return JSON_MAPPER.readTree("\"void\"");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Constructor for an executor that keeps the maps it is set up with in
+     * the given cache, by default one shared by all executors.
+     */
+    public PlayerCommandExecutor(IPlayer player, InputStream in,
+                                 OutputStream out, MapCache maps)
+            throws IOException {
+        this(player, in, out, maps, WireFormat.JSON);
+    }
+
+    public PlayerCommandExecutor(IPlayer player, InputStream in,
+                                 OutputStream out, WireFormat format)
+            throws IOException {
+        this(player, in, out, SHARED_MAPS, format);
+    }
+
+    /**
+     * Constructor for an executor that requests the given wire format when
+     * it registers, by default JSON. Only servers that know about wire
+     * formats accept a request for another.
+     */
+    public PlayerCommandExecutor(IPlayer player, InputStream in,
+                                 OutputStream out, MapCache maps,
+                                 WireFormat format) throws IOException {
+        this.player = player;
+        this.is = in;
+        this.os = out;
+        this.maps = maps;
+        this.format = format;
     }
 
     /**
      * Starts a command executor and blocks until it receives an 'end' command.
      */
     public void start() throws IOException {
-        this.out.writeString(this.player.getName());
-        this.out.flush();
-        final JsonParser in = JSON_FACTORY.createParser(this.is);
+        final JsonNode name = JSON_MAPPER.valueToTree(this.player.getName());
+        if (this.format == WireFormat.JSON) {
+            this.out = WireFormat.JSON.newWriter(this.os);
+            this.out.write(name);
+        } else {
+            WireFormat.JSON.newWriter(this.os).write(JSON_MAPPER
+                    .createObjectNode()
+                    .put(JsonConverter.NAME, name.asText())
+                    .put(JsonConverter.WIRE_FORMAT, this.format.getName()));
+            this.out = this.format.newWriter(this.os);
+        }
+        final WireFormat.Reader in = this.format.newReader(this.is);
         while (!this.done) {
-            in.nextValue();
-            this.execute(in.readValueAs(JsonNode.class));
+            this.execute(in.next());
+        }
+    }
+
+    /**
+     * Executes the appropriate method on the player given a parser on the
+     * first token of a command.
+     *
+     * @throws IllegalArgumentException if there is no such command
+     */
+    private void execute(JsonParser in) throws IOException {
+        expect(in, JsonToken.START_ARRAY);
+        in.nextToken();
+        final String command = in.getText();
+        final Command handler = this.commandMap.get(command);
+        if (handler == null) {
+            throw new IllegalArgumentException("Unknown command: " + command);
         }
+        in.nextToken();
+        expect(in, JsonToken.START_ARRAY);
+        final JsonStreamContext args = in.getParsingContext();
+        final Object response = handler.apply(in);
+        if (in.getParsingContext() == args) {
+            // skip the arguments the handler did not read
+            while (in.nextToken() != JsonToken.END_ARRAY) {
+                in.skipChildren();
+            }
+        }
+        in.nextToken(); // the end of the command
+        expect(in, JsonToken.END_ARRAY);
+        this.out.write(response);
     }
 
     /**
-     * Executes the appropriate method on the player given a command JSON node.
+     * Advances to the next argument of a command.
      */
-    private void execute(JsonNode node) throws IOException {
-        final String command = node.get(0).asText();
+    private static JsonParser nextArg(JsonParser in) throws IOException {
+        if (in.nextToken() == JsonToken.END_ARRAY) {
+            throw new JsonParseException(in, "Missing argument");
+        }
+        return in;
+    }
+
+    /**
+     * Reads every remaining argument of a command as a tree, leaving the
+     * parser on the end of their array.
+     */
+    private static List<JsonNode> readArgs(JsonParser in) throws IOException {
         final List<JsonNode> args = new ArrayList<>();
-        node.get(1).elements().forEachRemaining(args::add);
-        final JsonNode response = this.commandMap.get(command).apply(args);
-        this.out.writeTree(response);
-        this.out.flush();
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            args.add(in.readValueAsTree());
+        }
+        return args;
+    }
+
+    private static void expect(JsonParser in, JsonToken expected)
+            throws IOException {
+        if (in.getCurrentToken() != expected) {
+            throw new JsonParseException(in, "Expected " + expected +
+                                             ", found " +
+                                             in.getCurrentToken());
+        }
     }
 
-    private JsonNode onStart(List<JsonNode> args) {
-        return JsonConverter.mapToJson(this.player.start());
+    private Object onStart(JsonParser in) throws IOException {
+        nextArg(in);
+        return JsonCodec.map(this.player.start());
     }
 
-    private JsonNode onSetup(List<JsonNode> args) {
-        this.map = JsonConverter.jsonToMap(args.get(0));
+    private Object onSetup(JsonParser in) throws IOException {
+        final List<JsonNode> args = readArgs(in);
+        final JsonNode options = args.size() > 3 ? args.get(3) :
+                                 JSON_MAPPER.createObjectNode();
+        final String offered = JsonConverter.getMapHash(options);
+        this.map = this.resolveMap(args.get(0), offered);
+        this.state = null;
         this.player.setup(this.map, args.get(1).asInt(),
                 JsonConverter.jsonToCards(args.get(2)));
-        return createVoidNode();
+
+        final ObjectNode accepted = JSON_MAPPER.createObjectNode();
+        if (offered != null && this.maps.contains(offered)) {
+            accepted.put(JsonConverter.MAP_HASH, offered);
+        }
+        if (options.path(JsonConverter.STATE_DELTA).asBoolean(false)) {
+            accepted.put(JsonConverter.STATE_DELTA, true);
+        }
+        return accepted.size() > 0 ? accepted : VOID;
+    }
+
+    /**
+     * Gets the map a setup call is about, either from the cache when it is
+     * referenced by hash, or by parsing it. A parsed map whose content
+     * matches the offered hash is cached under it.
+     *
+     * @throws IllegalArgumentException if the referenced map is not cached
+     */
+    private TrainsMap resolveMap(JsonNode mapArg, String offered) {
+        final String referenced = JsonConverter.getMapHash(mapArg);
+        if (referenced != null) {
+            final TrainsMap cached = this.maps.get(referenced);
+            if (cached == null) {
+                throw new IllegalArgumentException(
+                        "Map " + referenced + " is not cached.");
+            }
+            return cached;
+        }
+        if (offered == null) {
+            return JsonConverter.jsonToMap(mapArg);
+        }
+        final TrainsMap cached = this.maps.get(offered);
+        if (cached != null) {
+            return cached;
+        }
+        final TrainsMap parsed = JsonConverter.jsonToMap(mapArg);
+        if (offered.equals(JsonConverter.mapHash(mapArg))) {
+            this.maps.put(offered, parsed);
+        }
+        return parsed;
     }
 
-    private JsonNode onPick(List<JsonNode> args) {
-        return JsonConverter.destinationsToJson(this.player.pick(
-                JsonConverter.jsonToDestinations(args.get(0))));
+    private Object onPick(JsonParser in) throws IOException {
+        return JsonCodec.destinations(this.player.pick(
+                JsonCodec.readDestinations(nextArg(in), this.map)));
     }
 
-    private JsonNode onPlay(List<JsonNode> args) {
-        return JsonConverter.moveToJson(this.player.play(
-                JsonConverter.jsonToPlayerState(this.map, args.get(0))));
+    /**
+     * @throws IllegalArgumentException if given a player state delta before
+     *                                  any full state in this game
+     */
+    private Object onPlay(JsonParser in) throws IOException {
+        this.state = JsonCodec.readPlayerState(nextArg(in), this.map,
+                this.state);
+        return JsonCodec.move(this.player.play(this.state));
     }
 
-    private JsonNode onMore(List<JsonNode> args) {
-        this.player.more(JsonConverter.jsonToCards(args.get(0)));
-        return createVoidNode();
+    private Object onMore(JsonParser in) throws IOException {
+        this.player.more(JsonCodec.readCards(nextArg(in)));
+        return VOID;
     }
 
-    private JsonNode onWin(List<JsonNode> args) {
-        this.player.win(args.get(0).asBoolean());
-        return createVoidNode();
+    private Object onWin(JsonParser in) throws IOException {
+        this.player.win(nextArg(in).getValueAsBoolean());
+        return VOID;
     }
 
-    private JsonNode onEnd(List<JsonNode> args) {
-        this.player.end(args.get(0).asBoolean());
+    private Object onEnd(JsonParser in) throws IOException {
+        this.player.end(nextArg(in).getValueAsBoolean());
         this.done = true;
-        return createVoidNode();
+        return VOID;
+    }
+
+    /**
+     * Reads the arguments of a command from a parser on the start of their
+     * array, and calls the player. Arguments left unread are skipped.
+     */
+    @FunctionalInterface
+    private interface Command {
+        Object apply(JsonParser in) throws IOException;
     }
 }
@@ -0,0 +1,143 @@
+package concurrent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads the server, player proxies, referees and clients run
+ * on. Platform threads are the default; setting the system property
+ * trains.virtualThreads=true switches all of them to virtual threads, so
+ * tens of thousands of connected players and bots each waiting on a socket
+ * do not each hold a platform thread stack.
+ * <p>
+ * The project still targets Java 11, so virtual threads are created through
+ * reflection and need a Java 21 or later runtime (see the jdk21 build
+ * profile). Asking for them on an older runtime fails rather than quietly
+ * falling back to platform threads.
+ */
+public final class Threads {
+    /**
+     * System property that enables virtual threads when "true".
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY =
+            "trains.virtualThreads";
+
+    private static final boolean VIRTUAL =
+            Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY);
+
+    private Threads() {
+    }
+
+    /**
+     * @return whether threads are created as virtual threads
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    /**
+     * @return whether this runtime can create virtual threads
+     */
+    public static boolean isVirtualSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates an executor running each task on its own thread: a virtual
+     * thread per task, or a cached pool of platform threads.
+     *
+     * @throws IllegalStateException if virtual threads are enabled but not
+     *                               supported by this runtime
+     */
+    public static ExecutorService newTaskExecutor() {
+        if (!VIRTUAL) {
+            return Executors.newCachedThreadPool();
+        }
+        return (ExecutorService) invoke(
+                method(Executors.class, "newVirtualThreadPerTaskExecutor"),
+                null);
+    }
+
+    /**
+     * Creates a factory of threads named prefix-1, prefix-2 and so on.
+     * Virtual threads are always daemons.
+     *
+     * @param prefix of the thread names
+     * @param daemon whether platform threads are daemons
+     *
+     * @throws IllegalStateException if virtual threads are enabled but not
+     *                               supported by this runtime
+     */
+    public static ThreadFactory newThreadFactory(String prefix,
+                                                 boolean daemon) {
+        if (VIRTUAL) {
+            return virtualThreadFactory(prefix);
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable,
+                    prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+
+    /**
+     * Starts the task on a new thread with the given name.
+     *
+     * @throws IllegalStateException if virtual threads are enabled but not
+     *                               supported by this runtime
+     */
+    public static Thread start(String name, Runnable task) {
+        Thread thread = VIRTUAL ? virtualThreadFactory(name).newThread(task) :
+                        new Thread(task, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Creates a factory of virtual threads named prefix-1, prefix-2 and so
+     * on, regardless of the system property.
+     *
+     * @throws IllegalStateException if this runtime has no virtual threads
+     */
+    static ThreadFactory virtualThreadFactory(String prefix) {
+        Object builder = invoke(method(Thread.class, "ofVirtual"), null);
+        Class<?> builderType = method(Thread.class, "ofVirtual")
+                .getReturnType();
+        builder = invoke(method(builderType, "name", String.class,
+                long.class), builder, prefix + "-", 1L);
+        return (ThreadFactory) invoke(method(builderType, "factory"),
+                builder);
+    }
+
+    private static Method method(Class<?> type, String name,
+                                 Class<?>... parameters) {
+        try {
+            return type.getMethod(name, parameters);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(
+                    "Virtual threads need Java 21 or later, running " +
+                    System.getProperty("java.version"), e);
+        }
+    }
+
+    private static Object invoke(Method method, Object target,
+                                 Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(
+                    "Could not call " + method.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,868 @@
+package json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import map.City;
+import map.ColorTrains;
+import map.CompactGraph;
+import map.Coord;
+import map.Destination;
+import map.DirectConnection;
+import map.TrainsMap;
+import state.ColorCard;
+import state.PlayerGameState;
+import state.PlayerHand;
+import strategy.Move;
+import strategy.Pair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Streaming conversion of the protocol messages to and from JSON. Values are
+ * written straight to a JsonGenerator and read token by token from a
+ * JsonParser, so no JsonNode tree is built for them, and the cities they name
+ * are resolved through the name index of the map's CompactGraph.
+ * <p>
+ * Every read method expects the parser on the first token of the value, as
+ * left by nextToken, and leaves it on the last token of the value. The
+ * methods returning a JsonSerializable wrap a write method for values that go
+ * through an ObjectMapper, such as the arguments of a call.
+ * <p>
+ * JsonConverter converts JSON trees through these methods, so both produce
+ * and accept the same JSON.
+ */
+public final class JsonCodec {
+
+    private static final String MORE_CARDS = "more cards";
+    private static final String DELTA = "delta";
+
+    private static final ColorTrains[] COLORS = ColorTrains.values();
+    private static final String[] COLOR_NAMES = new String[COLORS.length];
+
+    static {
+        for (ColorTrains color : COLORS) {
+            COLOR_NAMES[color.ordinal()] = color.toString();
+        }
+    }
+
+    private JsonCodec() {
+    }
+
+    /**
+     * Writes a value to a JsonGenerator.
+     */
+    @FunctionalInterface
+    private interface Writing {
+        void writeTo(JsonGenerator out) throws IOException;
+    }
+
+    private static JsonSerializable serializable(Writing writing) {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator out,
+                                  SerializerProvider provider)
+                    throws IOException {
+                writing.writeTo(out);
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator out,
+                                          SerializerProvider provider,
+                                          TypeSerializer typeSerializer)
+                    throws IOException {
+                writing.writeTo(out);
+            }
+        };
+    }
+
+    /**
+     * Creates a call to a player: the name of the method and the array of its
+     * arguments, each written by the ObjectMapper serializing the call.
+     */
+    public static JsonSerializable call(String method, Object... args) {
+        return serializable(out -> {
+            out.writeStartArray();
+            out.writeString(method);
+            out.writeStartArray();
+            for (Object arg : args) {
+                out.writeObject(arg);
+            }
+            out.writeEndArray();
+            out.writeEndArray();
+        });
+    }
+
+    /**
+     * @return the map as a value that writes itself with writeMap
+     */
+    public static JsonSerializable map(TrainsMap map) {
+        return serializable(out -> writeMap(out, map));
+    }
+
+    /**
+     * @return the player state as a value that writes itself with
+     * writePlayerState
+     */
+    public static JsonSerializable playerState(PlayerGameState state) {
+        return serializable(out -> writePlayerState(out, state));
+    }
+
+    /**
+     * @return the move as a value that writes itself with writeMove
+     */
+    public static JsonSerializable move(Move move) {
+        return serializable(out -> writeMove(out, move));
+    }
+
+    /**
+     * @return the destinations as a value that writes itself with
+     * writeDestinations
+     */
+    public static JsonSerializable destinations(List<Destination> dests) {
+        return serializable(out -> writeDestinations(out, dests));
+    }
+
+    /**
+     * Creates the delta from the previous to the current game state of a
+     * player: the connections acquired since, and the rails and cards that
+     * changed. Returns null if the change is more than that, that is if the
+     * destinations changed, a player left the game, or a connection is no
+     * longer owned, in which case the full state has to be sent.
+     */
+    public static JsonSerializable playerStateDelta(PlayerGameState previous,
+                                                    PlayerGameState current) {
+        List<Set<DirectConnection>> previousAll =
+                previous.getAllOwnedConnections();
+        List<Set<DirectConnection>> currentAll =
+                current.getAllOwnedConnections();
+        if (!previous.getDestinations().equals(current.getDestinations()) ||
+            previousAll.size() != currentAll.size() ||
+            !current.getOwnedConnections().containsAll(
+                    previous.getOwnedConnections())) {
+            return null;
+        }
+        List<List<DirectConnection>> acquired = new ArrayList<>();
+        for (int i = 0; i < currentAll.size(); i++) {
+            if (!currentAll.get(i).containsAll(previousAll.get(i))) {
+                return null;
+            }
+            acquired.add(added(previousAll.get(i), currentAll.get(i)));
+        }
+        List<DirectConnection> thisAcquired = added(
+                previous.getOwnedConnections(), current.getOwnedConnections());
+
+        return serializable(out -> {
+            out.writeStartObject();
+            out.writeObjectFieldStart(DELTA);
+            out.writeObjectFieldStart("this");
+            if (previous.getRails() != current.getRails()) {
+                out.writeNumberField("rails", current.getRails());
+            }
+            boolean anyCards = false;
+            for (ColorTrains color : COLORS) {
+                int count = current.getCardCount(color);
+                if (count != previous.getCardCount(color)) {
+                    if (!anyCards) {
+                        out.writeObjectFieldStart("cards");
+                        anyCards = true;
+                    }
+                    out.writeNumberField(COLOR_NAMES[color.ordinal()], count);
+                }
+            }
+            if (anyCards) {
+                out.writeEndObject();
+            }
+            out.writeFieldName("acquired");
+            writeConnections(out, thisAcquired);
+            out.writeEndObject();
+            out.writeArrayFieldStart("acquired");
+            for (List<DirectConnection> player : acquired) {
+                writeConnections(out, player);
+            }
+            out.writeEndArray();
+            out.writeEndObject();
+            out.writeEndObject();
+        });
+    }
+
+    /**
+     * Writes a Trains game map, its cities sorted by name and its connections
+     * grouped by their cities.
+     */
+    public static void writeMap(JsonGenerator out, TrainsMap map)
+            throws IOException {
+        out.writeStartObject();
+        out.writeNumberField("width", map.getWidth());
+        out.writeNumberField("height", map.getHeight());
+        out.writeArrayFieldStart("cities");
+        List<City> cities = new ArrayList<>(map.getCities());
+        cities.sort(Comparator.comparing(City::getName));
+        for (City city : cities) {
+            Coord loc = city.getLocation();
+            out.writeStartArray();
+            out.writeString(city.getName());
+            out.writeStartArray();
+            // widened as the locations of maps have always been sent
+            out.writeNumber((double) loc.getX());
+            out.writeNumber((double) loc.getY());
+            out.writeEndArray();
+            out.writeEndArray();
+        }
+        out.writeEndArray();
+
+        out.writeObjectFieldStart("connections");
+        // grouped in the order the map iterates them, which decides the
+        // order the receiver adds them to its map in
+        Map<String, Map<String, List<DirectConnection>>> grouped =
+                new LinkedHashMap<>();
+        for (DirectConnection dc : map.getDirectConnections()) {
+            DirectConnection sorted = toSortedConnection(dc);
+            grouped.computeIfAbsent(sorted.getCity0().getName(),
+                            name -> new LinkedHashMap<>())
+                    .computeIfAbsent(sorted.getCity1().getName(),
+                            name -> new ArrayList<>())
+                    .add(sorted);
+        }
+        for (Map.Entry<String, Map<String, List<DirectConnection>>> from :
+                grouped.entrySet()) {
+            out.writeObjectFieldStart(from.getKey());
+            for (Map.Entry<String, List<DirectConnection>> to :
+                    from.getValue().entrySet()) {
+                out.writeObjectFieldStart(to.getKey());
+                for (DirectConnection dc : to.getValue()) {
+                    out.writeNumberField(COLOR_NAMES[dc.getColor().ordinal()],
+                            dc.getLength());
+                }
+                out.writeEndObject();
+            }
+            out.writeEndObject();
+        }
+        out.writeEndObject();
+        out.writeEndObject();
+    }
+
+    /**
+     * Writes the full game state of a player.
+     */
+    public static void writePlayerState(JsonGenerator out,
+                                        PlayerGameState state)
+            throws IOException {
+        List<Destination> destinations = state.getDestinations();
+        Destination first = destinations.get(0);
+        Destination second = destinations.get(1);
+        if (first.compareTo(second) > 0) {
+            first = destinations.get(1);
+            second = destinations.get(0);
+        }
+        out.writeStartObject();
+        out.writeObjectFieldStart("this");
+        out.writeFieldName("destination1");
+        writeDestination(out, first);
+        out.writeFieldName("destination2");
+        writeDestination(out, second);
+        out.writeNumberField("rails", state.getRails());
+        out.writeObjectFieldStart("cards");
+        for (ColorTrains color : COLORS) {
+            out.writeNumberField(COLOR_NAMES[color.ordinal()],
+                    state.getCardCount(color));
+        }
+        out.writeEndObject();
+        out.writeFieldName("acquired");
+        writeConnections(out, state.getOwnedConnections());
+        out.writeEndObject();
+        out.writeArrayFieldStart("acquired");
+        for (Set<DirectConnection> player : state.getAllOwnedConnections()) {
+            writeConnections(out, player);
+        }
+        out.writeEndArray();
+        out.writeEndObject();
+    }
+
+    /**
+     * Writes a move, either "more cards" or the connection to acquire.
+     */
+    public static void writeMove(JsonGenerator out, Move move)
+            throws IOException {
+        if (move.getMove().equals(true)) {
+            out.writeString(MORE_CARDS);
+        } else {
+            writeConnection(out, (DirectConnection) move.getMove());
+        }
+    }
+
+    /**
+     * Writes a list of destinations, the cities of each in name order.
+     */
+    public static void writeDestinations(JsonGenerator out,
+                                         List<Destination> dests)
+            throws IOException {
+        out.writeStartArray();
+        for (Destination dest : dests) {
+            writeDestination(out, dest);
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Writes a destination, its cities in name order.
+     */
+    public static void writeDestination(JsonGenerator out, Destination dest)
+            throws IOException {
+        Pair<City> cities = dest.getVertices();
+        String name0 = cities.getFirst().getName();
+        String name1 = cities.getSecond().getName();
+        out.writeStartArray();
+        if (name0.compareTo(name1) < 0) {
+            out.writeString(name0);
+            out.writeString(name1);
+        } else {
+            out.writeString(name1);
+            out.writeString(name0);
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Writes the connections of a player.
+     */
+    private static void writeConnections(JsonGenerator out,
+                                         Iterable<DirectConnection> conns)
+            throws IOException {
+        out.writeStartArray();
+        for (DirectConnection dc : conns) {
+            writeConnection(out, dc);
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Writes a connection, its cities in name order.
+     */
+    private static void writeConnection(JsonGenerator out, DirectConnection dc)
+            throws IOException {
+        String name0 = dc.getCity0().getName();
+        String name1 = dc.getCity1().getName();
+        out.writeStartArray();
+        if (name0.compareTo(name1) < 0) {
+            out.writeString(name0);
+            out.writeString(name1);
+        } else {
+            out.writeString(name1);
+            out.writeString(name0);
+        }
+        out.writeString(COLOR_NAMES[dc.getColor().ordinal()]);
+        out.writeNumber(dc.getLength());
+        out.writeEndArray();
+    }
+
+    /**
+     * Reads a Trains game map. Locations greater than 1 are normalized by the
+     * width or height of the map.
+     */
+    public static TrainsMap readMap(JsonParser in) throws IOException {
+        expect(in, JsonToken.START_OBJECT);
+        int width = 0;
+        int height = 0;
+        List<String> names = new ArrayList<>();
+        List<double[]> locations = new ArrayList<>();
+        List<Segment> segments = new ArrayList<>();
+        while (nextField(in)) {
+            String field = in.getCurrentName();
+            in.nextToken();
+            switch (field) {
+                case "width":
+                    width = in.getValueAsInt();
+                    break;
+                case "height":
+                    height = in.getValueAsInt();
+                    break;
+                case "cities":
+                    expect(in, JsonToken.START_ARRAY);
+                    while (nextElement(in)) {
+                        expect(in, JsonToken.START_ARRAY);
+                        names.add(readString(in));
+                        nextToken(in, JsonToken.START_ARRAY);
+                        in.nextToken();
+                        double x = in.getValueAsDouble();
+                        in.nextToken();
+                        double y = in.getValueAsDouble();
+                        nextToken(in, JsonToken.END_ARRAY);
+                        nextToken(in, JsonToken.END_ARRAY);
+                        locations.add(new double[]{x, y});
+                    }
+                    break;
+                case "connections":
+                    readSegments(in, segments);
+                    break;
+                default:
+                    in.skipChildren();
+            }
+        }
+
+        Map<String, City> cities = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            float x = (float) locations.get(i)[0];
+            float y = (float) locations.get(i)[1];
+            float cityX = x > 1 ? x / width : x; // normalize x if necessary
+            float cityY = y > 1 ? y / height : y; // normalize y if necessary
+            cities.put(names.get(i),
+                    new City(names.get(i), new Coord(cityX, cityY)));
+        }
+        Set<DirectConnection> connections = new HashSet<>();
+        for (Segment segment : segments) {
+            connections.add(new DirectConnection(
+                    cityNamed(cities, segment.name0),
+                    cityNamed(cities, segment.name1), segment.length,
+                    segment.color));
+        }
+        return new TrainsMap(new HashSet<>(cities.values()), connections,
+                width, height);
+    }
+
+    /**
+     * Reads the connections object of a map, from city to city to color to
+     * length.
+     */
+    private static void readSegments(JsonParser in, List<Segment> segments)
+            throws IOException {
+        expect(in, JsonToken.START_OBJECT);
+        while (nextField(in)) {
+            String name0 = in.getCurrentName();
+            nextToken(in, JsonToken.START_OBJECT);
+            while (nextField(in)) {
+                String name1 = in.getCurrentName();
+                nextToken(in, JsonToken.START_OBJECT);
+                while (nextField(in)) {
+                    ColorTrains color = colorOf(in.getCurrentName());
+                    in.nextToken();
+                    segments.add(new Segment(name0, name1, color,
+                            in.getValueAsInt()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the game state of a player on the given map, either in full or as
+     * a delta to the given previous state. Connections, cards and rails a
+     * delta does not mention are those of the previous state.
+     *
+     * @param previous the state a delta applies to, or null if only a full
+     *                 state is accepted
+     * @throws IllegalArgumentException if given a delta without a previous
+     *                                  state, or one that does not list the
+     *                                  acquisitions of every player in it
+     */
+    public static PlayerGameState readPlayerState(JsonParser in, TrainsMap map,
+                                                  PlayerGameState previous)
+            throws IOException {
+        expect(in, JsonToken.START_OBJECT);
+        ThisPlayer thisPlayer = null;
+        List<List<DirectConnection>> acquired = null;
+        boolean delta = false;
+        while (nextField(in)) {
+            String field = in.getCurrentName();
+            in.nextToken();
+            if (field.equals(DELTA)) {
+                if (previous == null) {
+                    throw new IllegalArgumentException(
+                            "Player state delta without a previous state.");
+                }
+                delta = true;
+                expect(in, JsonToken.START_OBJECT);
+                while (nextField(in)) {
+                    String deltaField = in.getCurrentName();
+                    in.nextToken();
+                    if (deltaField.equals("this")) {
+                        thisPlayer = readThisPlayer(in, map);
+                    } else if (deltaField.equals("acquired")) {
+                        acquired = readPlayers(in, map);
+                    } else {
+                        in.skipChildren();
+                    }
+                }
+            } else if (field.equals("this")) {
+                thisPlayer = readThisPlayer(in, map);
+            } else if (field.equals("acquired")) {
+                acquired = readPlayers(in, map);
+            } else {
+                in.skipChildren();
+            }
+        }
+        if (thisPlayer == null || acquired == null) {
+            throw new JsonParseException(in,
+                    "Player state needs \"this\" and \"acquired\"");
+        }
+        return delta ? applyDelta(previous, thisPlayer, acquired) :
+               toFullState(map, thisPlayer, acquired);
+    }
+
+    private static PlayerGameState toFullState(
+            TrainsMap map, ThisPlayer thisPlayer,
+            List<List<DirectConnection>> acquired) {
+        if (thisPlayer.destination1 == null ||
+            thisPlayer.destination2 == null) {
+            throw new IllegalArgumentException(
+                    "Player state needs two destinations.");
+        }
+        LinkedList<HashSet<DirectConnection>> all = new LinkedList<>();
+        for (List<DirectConnection> player : acquired) {
+            all.add(new HashSet<>(player));
+        }
+        return new PlayerGameState(map, new PlayerHand(
+                new HashSet<>(thisPlayer.acquired), thisPlayer.cards,
+                thisPlayer.rails, List.of(thisPlayer.destination1,
+                thisPlayer.destination2)), all);
+    }
+
+    private static PlayerGameState applyDelta(
+            PlayerGameState previous, ThisPlayer thisPlayer,
+            List<List<DirectConnection>> acquired) {
+        List<Set<DirectConnection>> previousAll =
+                previous.getAllOwnedConnections();
+        if (acquired.size() != previousAll.size()) {
+            throw new IllegalArgumentException(
+                    "Delta must list acquisitions for " + previousAll.size() +
+                    " players.");
+        }
+        Map<ColorTrains, Integer> cards = new HashMap<>(previous.getCardsMap());
+        cards.putAll(thisPlayer.cards);
+        int rails = thisPlayer.hasRails ? thisPlayer.rails :
+                    previous.getRails();
+        List<Set<DirectConnection>> all = new LinkedList<>();
+        for (int i = 0; i < previousAll.size(); i++) {
+            all.add(withConnections(previousAll.get(i), acquired.get(i)));
+        }
+        return new PlayerGameState(previous.getTrainsMap(),
+                new PlayerHand(withConnections(previous.getOwnedConnections(),
+                        thisPlayer.acquired), cards, rails,
+                        previous.getDestinations()), all);
+    }
+
+    /**
+     * Reads the "this" object of a full player state or of a delta, which
+     * lacks the destinations and any rails or cards that did not change.
+     */
+    private static ThisPlayer readThisPlayer(JsonParser in, TrainsMap map)
+            throws IOException {
+        expect(in, JsonToken.START_OBJECT);
+        ThisPlayer thisPlayer = new ThisPlayer();
+        while (nextField(in)) {
+            String field = in.getCurrentName();
+            in.nextToken();
+            switch (field) {
+                case "destination1":
+                    thisPlayer.destination1 = readDestination(in, map);
+                    break;
+                case "destination2":
+                    thisPlayer.destination2 = readDestination(in, map);
+                    break;
+                case "rails":
+                    thisPlayer.rails = in.getValueAsInt();
+                    thisPlayer.hasRails = true;
+                    break;
+                case "cards":
+                    expect(in, JsonToken.START_OBJECT);
+                    while (nextField(in)) {
+                        ColorTrains color = colorOf(in.getCurrentName());
+                        in.nextToken();
+                        thisPlayer.cards.put(color,
+                                Math.abs((int) in.getValueAsLong()));
+                    }
+                    break;
+                case "acquired":
+                    thisPlayer.acquired = readConnections(in, map);
+                    break;
+                default:
+                    in.skipChildren();
+            }
+        }
+        return thisPlayer;
+    }
+
+    /**
+     * Reads the connections of every player.
+     */
+    private static List<List<DirectConnection>> readPlayers(JsonParser in,
+                                                            TrainsMap map)
+            throws IOException {
+        expect(in, JsonToken.START_ARRAY);
+        List<List<DirectConnection>> players = new ArrayList<>();
+        while (nextElement(in)) {
+            players.add(readConnections(in, map));
+        }
+        return players;
+    }
+
+    /**
+     * Reads the connections of a player.
+     */
+    private static List<DirectConnection> readConnections(JsonParser in,
+                                                          TrainsMap map)
+            throws IOException {
+        expect(in, JsonToken.START_ARRAY);
+        List<DirectConnection> connections = new ArrayList<>();
+        while (nextElement(in)) {
+            connections.add(readConnection(in, map));
+        }
+        return connections;
+    }
+
+    /**
+     * Reads a connection between cities of the given map: the canonical
+     * instance of the map if it has such a connection, otherwise a new
+     * connection between its canonical cities.
+     *
+     * @throws NoSuchElementException if the map has no city it names
+     */
+    public static DirectConnection readConnection(JsonParser in,
+                                                  TrainsMap map)
+            throws IOException {
+        expect(in, JsonToken.START_ARRAY);
+        CompactGraph graph = map.getCompactGraph();
+        int city0 = findCityId(graph, readString(in));
+        int city1 = findCityId(graph, readString(in));
+        ColorTrains color = colorOf(readString(in));
+        in.nextToken();
+        int length = in.getValueAsInt();
+        nextToken(in, JsonToken.END_ARRAY);
+        int id = graph.findConnectionId(city0, city1, color, length);
+        if (id != -1) {
+            return graph.getConnection(id);
+        }
+        return new DirectConnection(graph.getCity(city0),
+                graph.getCity(city1), length, color);
+    }
+
+    /**
+     * Reads a move on the given map.
+     *
+     * @throws IllegalArgumentException if the value is neither "more cards"
+     *                                  nor a connection
+     */
+    public static Move readMove(JsonParser in, TrainsMap map)
+            throws IOException {
+        final Move move = new Move();
+        if (in.getCurrentToken() == JsonToken.VALUE_STRING &&
+            in.getText().equals(MORE_CARDS)) {
+            move.setMove(true);
+            return move;
+        }
+        if (in.getCurrentToken() == JsonToken.START_ARRAY) {
+            move.setMove(readConnection(in, map));
+            return move;
+        }
+        throw new IllegalArgumentException("Unknown action: " + in.getText());
+    }
+
+    /**
+     * Reads a list of destinations between cities of the given map.
+     */
+    public static List<Destination> readDestinations(JsonParser in,
+                                                     TrainsMap map)
+            throws IOException {
+        expect(in, JsonToken.START_ARRAY);
+        List<Destination> destinations = new ArrayList<>();
+        while (nextElement(in)) {
+            destinations.add(readDestination(in, map));
+        }
+        return destinations;
+    }
+
+    private static Destination readDestination(JsonParser in, TrainsMap map)
+            throws IOException {
+        expect(in, JsonToken.START_ARRAY);
+        CompactGraph graph = map.getCompactGraph();
+        int city0 = findCityId(graph, readString(in));
+        int city1 = findCityId(graph, readString(in));
+        nextToken(in, JsonToken.END_ARRAY);
+        return graph.getDestination(city0, city1);
+    }
+
+    /**
+     * Reads a list of color cards.
+     */
+    public static List<ColorCard> readCards(JsonParser in) throws IOException {
+        expect(in, JsonToken.START_ARRAY);
+        List<ColorCard> cards = new ArrayList<>();
+        while (nextElement(in)) {
+            cards.add(ColorCard.of(colorOf(in.getText())));
+        }
+        return cards;
+    }
+
+    /**
+     * Finds a city by name on the given map, in constant time through its
+     * CompactGraph.
+     *
+     * @throws NoSuchElementException if the map has no such city
+     */
+    private static int findCityId(CompactGraph graph, String name) {
+        int id = graph.getCityIdByName(name);
+        if (id == -1) {
+            throw new NoSuchElementException("No city named " + name);
+        }
+        return id;
+    }
+
+    private static City cityNamed(Map<String, City> cities, String name) {
+        City city = cities.get(name);
+        if (city == null) {
+            throw new NoSuchElementException("No city named " + name);
+        }
+        return city;
+    }
+
+    /**
+     * Gets the color with the given name, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such color
+     */
+    private static ColorTrains colorOf(String name) {
+        for (ColorTrains color : COLORS) {
+            if (COLOR_NAMES[color.ordinal()].equalsIgnoreCase(name)) {
+                return color;
+            }
+        }
+        throw new IllegalArgumentException("No color named " + name);
+    }
+
+    /**
+     * Gets the connections of current that are not in previous.
+     */
+    private static List<DirectConnection> added(
+            Set<DirectConnection> previous, Set<DirectConnection> current) {
+        List<DirectConnection> added = new ArrayList<>();
+        for (DirectConnection dc : current) {
+            if (!previous.contains(dc)) {
+                added.add(dc);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Gets the given connections plus the added ones, or the given
+     * connections themselves if none are added.
+     */
+    private static Set<DirectConnection> withConnections(
+            Set<DirectConnection> connections, List<DirectConnection> added) {
+        if (added.isEmpty()) {
+            return connections;
+        }
+        Set<DirectConnection> result = new HashSet<>(connections);
+        result.addAll(added);
+        return result;
+    }
+
+    /**
+     * Converts a connection into its sorted equivalent. That is, the same
+     * connection but with city0 and city1 in lexicographic order.
+     */
+    private static DirectConnection toSortedConnection(DirectConnection conn) {
+        City city0 = conn.getCity0();
+        City city1 = conn.getCity1();
+
+        if (city0.compareTo(city1) < 0) {
+            return conn;
+        }
+        return new DirectConnection(city1, city0, conn.getLength(),
+                conn.getColor());
+    }
+
+    private static String readString(JsonParser in) throws IOException {
+        nextToken(in, JsonToken.VALUE_STRING);
+        return in.getText();
+    }
+
+    /**
+     * Advances to the next field of an object.
+     *
+     * @return false at the end of the object
+     */
+    private static boolean nextField(JsonParser in) throws IOException {
+        JsonToken token = in.nextToken();
+        if (token == JsonToken.FIELD_NAME) {
+            return true;
+        }
+        if (token == JsonToken.END_OBJECT) {
+            return false;
+        }
+        throw new JsonParseException(in, "Expected a field, found " + token);
+    }
+
+    /**
+     * Advances to the next element of an array.
+     *
+     * @return false at the end of the array
+     */
+    private static boolean nextElement(JsonParser in) throws IOException {
+        JsonToken token = in.nextToken();
+        if (token == null) {
+            throw new JsonParseException(in, "Unexpected end of input");
+        }
+        return token != JsonToken.END_ARRAY;
+    }
+
+    private static void nextToken(JsonParser in, JsonToken expected)
+            throws IOException {
+        in.nextToken();
+        expect(in, expected);
+    }
+
+    private static void expect(JsonParser in, JsonToken expected)
+            throws IOException {
+        if (in.getCurrentToken() != expected) {
+            throw new JsonParseException(in, "Expected " + expected +
+                                             ", found " +
+                                             in.getCurrentToken());
+        }
+    }
+
+    /**
+     * A connection of a map being read, before its cities are.
+     */
+    private static final class Segment {
+        private final String name0;
+        private final String name1;
+        private final ColorTrains color;
+        private final int length;
+
+        private Segment(String name0, String name1, ColorTrains color,
+                        int length) {
+            this.name0 = name0;
+            this.name1 = name1;
+            this.color = color;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The "this" object of a player state being read.
+     */
+    private static final class ThisPlayer {
+        private Destination destination1;
+        private Destination destination2;
+        private int rails;
+        private boolean hasRails;
+        private final Map<ColorTrains, Integer> cards =
+                new EnumMap<>(ColorTrains.class);
+        private List<DirectConnection> acquired = List.of();
+    }
+}
@@ -1,66 +1,68 @@
 package json;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.FloatNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import map.City;
-import map.ColorTrains;
 import map.Coord;
 import map.Destination;
-import map.DirectConnection;
 import map.TrainsMap;
 import state.ColorCard;
 import state.PlayerGameState;
-import state.PlayerHand;
 import strategy.Move;
 import strategy.Pair;
 
 import java.io.IOException;
-import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
- * Utility methods for converting to and from JSON.
+ * Utility methods for converting to and from JSON trees. The messages of the
+ * protocol are converted through the streaming JsonCodec.
  */
 public final class JsonConverter {
 
+    /**
+     * The field of the object that stands in for a map its receiver already
+     * has, and of the setup option offering the hash of the map sent.
+     */
+    public static final String MAP_HASH = "map-hash";
+
+    /**
+     * The setup option, and field of the answer to setup, that marks support
+     * for player state deltas in play calls.
+     */
+    public static final String STATE_DELTA = "state-delta";
+
+    /**
+     * The fields of the object a client registers with in place of its name
+     * to request a wire format other than JSON.
+     */
+    public static final String NAME = "name";
+    public static final String WIRE_FORMAT = "wire-format";
+
+    private static final String DELTA = "delta";
+
     private static final ObjectMapper mapper = new ObjectMapper();
 
     /**
      * Converts JSON to a deck of cards.
      */
     public static List<ColorCard> jsonToCards(JsonNode node) {
-        List<ColorCard> cards = new ArrayList<>();
-        node.elements().forEachRemaining(card -> {
-            cards.add(new ColorCard(
-                    ColorTrains.valueOf(card.asText().toUpperCase())));
-        });
-        return cards;
+        return read(node, JsonCodec::readCards);
     }
 
     /**
-     * Converts JSON to a move object.
+     * Converts JSON to a move on the given map.
      */
-    public static Move jsonToMove(Collection<City> cities, JsonNode node) {
-        final Move move = new Move();
-        if (node.isTextual() && node.asText().equals("more cards")) {
-            move.setMove(true);
-            return move;
-        }
-        if (node.isArray()) {
-            final String city0Name = node.get(0).asText();
-            final String city1Name = node.get(1).asText();
-            final ColorTrains color =
-                    ColorTrains.valueOf(node.get(2).asText().toUpperCase());
-            final int length = node.get(3).asInt();
-            final City city0 = findCityByName(cities, city0Name);
-            final City city1 = findCityByName(cities, city1Name);
-            move.setMove(new DirectConnection(city0, city1, length, color));
-            return move;
-        }
-        throw new IllegalArgumentException("Unknown action: " + node);
+    public static Move jsonToMove(TrainsMap map, JsonNode node) {
+        return read(node, in -> JsonCodec.readMove(in, map));
     }
 
     /**
@@ -68,101 +70,71 @@ public final class JsonConverter {
      */
     public static PlayerGameState jsonToPlayerState(TrainsMap map,
                                                     JsonNode node) {
-        JsonNode destination1Node = node.get("this").get("destination1");
-        JsonNode destination2Node = node.get("this").get("destination2");
-        Destination destination1 = new Destination(findCityByName(map.getCities(),
-                destination1Node.get(0).asText()),
-                findCityByName(map.getCities(),
-                        destination1Node.get(1).asText()));
-        Destination destination2 = new Destination(findCityByName(map.getCities(),
-                destination2Node.get(0).asText()),
-                findCityByName(map.getCities(),
-                        destination2Node.get(1).asText()));
-        int rails = node.get("this").get("rails").asInt();
-        Map<ColorTrains, Integer> cards = new HashMap<>();
-        node.get("this").get("cards").fields().forEachRemaining(field -> {
-            cards.put(ColorTrains.valueOf(field.getKey().toUpperCase()),
-                    Math.abs(BigInteger.valueOf(field.getValue().asLong()).intValue()));
-        });
-        Set<DirectConnection> thisAcquired = new HashSet<>();
-        node.get("this").get("acquired").elements().forEachRemaining(conn -> {
-            thisAcquired.add(new DirectConnection(
-                    findCityByName(map.getCities(), conn.get(0).asText()),
-                    findCityByName(map.getCities(), conn.get(1).asText()),
-                    conn.get(3).asInt(),
-                    ColorTrains.valueOf(conn.get(2).asText().toUpperCase())));
-        });
-        LinkedList<HashSet<DirectConnection>> acquired = new LinkedList<>();
-        node.get("acquired").elements().forEachRemaining(player -> {
-            HashSet<DirectConnection> playerAcquired = new HashSet<>();
-            player.elements().forEachRemaining(conn -> {
-                playerAcquired.add(new DirectConnection(
-                        findCityByName(map.getCities(), conn.get(0).asText()),
-                        findCityByName(map.getCities(), conn.get(1).asText()),
-                        conn.get(3).asInt(), ColorTrains.valueOf(
-                        conn.get(2).asText().toUpperCase())));
-            });
-            acquired.add(playerAcquired);
-        });
-        return new PlayerGameState(map,
-                new PlayerHand(thisAcquired, cards, rails,
-                        List.of(destination1, destination2)), acquired);
+        return read(node, in -> JsonCodec.readPlayerState(in, map, null));
+    }
+
+    /**
+     * Converts what changed from the previous to the current game state of a
+     * player to JSON, or returns null if the full state has to be sent, see
+     * JsonCodec.playerStateDelta.
+     */
+    public static JsonNode playerStateDeltaToJson(PlayerGameState previous,
+                                                  PlayerGameState current) {
+        JsonSerializable delta = JsonCodec.playerStateDelta(previous, current);
+        return delta == null ? null : mapper.valueToTree(delta);
+    }
+
+    /**
+     * Determines whether the given JSON is a player state delta rather than a
+     * full player state.
+     */
+    public static boolean isPlayerStateDelta(JsonNode node) {
+        return node.isObject() && node.has(DELTA);
+    }
+
+    /**
+     * Applies a player state delta to the previous game state of a player.
+     * Connections, cards and rails the delta does not mention are those of
+     * the previous state.
+     *
+     * @throws IllegalArgumentException if the delta does not list the
+     *                                  acquisitions of every player in the
+     *                                  previous state
+     */
+    public static PlayerGameState applyPlayerStateDelta(
+            PlayerGameState previous, JsonNode node) {
+        return read(node, in -> JsonCodec.readPlayerState(in,
+                previous.getTrainsMap(), previous));
     }
 
     /**
      * Converts a player game state to JSON.
      */
     public static JsonNode playerStateToJson(PlayerGameState state) {
-        ObjectNode node = mapper.createObjectNode();
-        ObjectNode thisObj = mapper.createObjectNode();
-        List<List<String>> destinations = state
-                .getDestinations()
-                .stream()
-                .map(JsonConverter::toSortedDestination)
-                .sorted()
-                .map(destination -> {
-                    final Pair<City> verts = destination.getVertices();
-                    return List.of(verts.getFirst().getName(),
-                            verts.getSecond().getName());
-                })
-                .collect(Collectors.toList());
-        thisObj.set("destination1", mapper.valueToTree(destinations.get(0)));
-        thisObj.set("destination2", mapper.valueToTree(destinations.get(1)));
-        thisObj.put("rails", state.getRails());
-        thisObj.set("cards", mapper.valueToTree(state
-                .getCardsMap()
-                .entrySet()
-                .stream()
-                .collect(
-                        Collectors.<Map.Entry<ColorTrains, Integer>, String,
-                                Integer>toMap(
-                                e -> e.getKey().name().toLowerCase(),
-                                Map.Entry::getValue))));
-        thisObj.set("acquired", createPlayer(state.getOwnedConnections()));
-        node.set("this", thisObj);
-        ArrayNode acquired = mapper.createArrayNode();
-        state
-                .getAllOwnedConnections()
-                .forEach(conns -> acquired.add(createPlayer(conns)));
-        node.set("acquired", acquired);
-        return node;
+        return mapper.valueToTree(JsonCodec.playerState(state));
     }
 
     /**
-     * Creates a Player given their connections.
+     * Converts JSON to a list of destinations between cities of the given
+     * map, its canonical instances.
      */
-    private static JsonNode createPlayer(Collection<DirectConnection> conns) {
-        ArrayNode player = mapper.createArrayNode();
-        conns.forEach(conn -> {
-            conn = toSortedConnection(conn);
-            player.add(mapper
-                    .createArrayNode()
-                    .add(conn.getCity0().getName())
-                    .add(conn.getCity1().getName())
-                    .add(conn.getColor().name().toLowerCase())
-                    .add(conn.getLength()));
-        });
-        return player;
+    public static List<Destination> jsonToDestinations(TrainsMap map,
+                                                       JsonNode node) {
+        return read(node, in -> JsonCodec.readDestinations(in, map));
+    }
+
+    /**
+     * Converts JSON to a list of destinations picked out of the given
+     * choices. A destination that is one of the choices is that instance.
+     */
+    public static List<Destination> jsonToDestinations(
+            List<Destination> choices, JsonNode node) {
+        List<Destination> destinations = new ArrayList<>();
+        for (Destination picked : jsonToDestinations(node)) {
+            int i = choices.indexOf(picked);
+            destinations.add(i == -1 ? picked : choices.get(i));
+        }
+        return destinations;
     }
 
     /**
@@ -184,34 +156,14 @@ public final class JsonConverter {
      * Converts a list of destinations to JSON.
      */
     public static JsonNode destinationsToJson(List<Destination> dest) {
-        ArrayNode dests = mapper.createArrayNode();
-        dest.forEach(d -> dests.add(destinationToJson(d)));
-        return dests;
+        return mapper.valueToTree(JsonCodec.destinations(dest));
     }
 
     /**
      * Converts a move to JSON.
      */
     public static JsonNode moveToJson(Move move) {
-        if (move.getMove().equals(true)) {
-            try {
-                return mapper.readTree("\"more cards\"");
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        } else {
-            DirectConnection conn = (DirectConnection) move.getMove();
-            String city0 = conn.getCity0().getName();
-            String city1 = conn.getCity1().getName();
-            List<String> cities = new ArrayList<>(List.of(city0, city1));
-            Collections.sort(cities);
-            return mapper
-                    .createArrayNode()
-                    .add(cities.get(0))
-                    .add(cities.get(1))
-                    .add(conn.getColor().name().toLowerCase())
-                    .add(conn.getLength());
-        }
+        return mapper.valueToTree(JsonCodec.move(move));
     }
 
     /**
@@ -233,39 +185,7 @@ public final class JsonConverter {
      * Converts JSON to a Trains game map.
      */
     public static TrainsMap jsonToMap(JsonNode node) {
-        int width = node.get("width").asInt();
-        int height = node.get("height").asInt();
-        Set<City> cities = new HashSet<>();
-        node.get("cities").elements().forEachRemaining(city -> {
-            String name = city.get(0).asText();
-            JsonNode posn = city.get(1);
-            float x = (float) posn.get(0).asDouble();
-            float y = (float) posn.get(1).asDouble();
-            float cityX = x > 1 ? x / width : x; // normalize x if necessary
-            float cityY = y > 1 ? y / height : y; // normalize y if necessary
-            cities.add(new City(name, new Coord(cityX, cityY)));
-        });
-        Set<DirectConnection> connections = new HashSet<>();
-        node.get("connections").fields().forEachRemaining((connsField) -> {
-            String name0 = connsField.getKey();
-            connsField.getValue().fields().forEachRemaining((targetField) -> {
-                String name1 = targetField.getKey();
-                targetField
-                        .getValue()
-                        .fields()
-                        .forEachRemaining((segmentField) -> {
-                            String color = segmentField.getKey();
-                            int length = segmentField.getValue().asInt();
-                            City city0 = findCityByName(cities, name0);
-                            City city1 = findCityByName(cities, name1);
-                            connections.add(
-                                    new DirectConnection(city0, city1, length,
-                                            ColorTrains.valueOf(
-                                                    color.toUpperCase())));
-                        });
-            });
-        });
-        return new TrainsMap(cities, connections, width, height);
+        return read(node, JsonCodec::readMap);
     }
 
     /**
@@ -283,89 +203,107 @@ public final class JsonConverter {
      * Converts a Trains game map to JSON.
      */
     public static JsonNode mapToJson(TrainsMap map) {
-        ObjectNode node = mapper.createObjectNode();
-        node.put("width", map.getWidth());
-        node.put("height", map.getHeight());
-        List<ArrayNode> cities = map.getCities().stream().sorted().map(city -> {
-            ArrayNode arr = mapper.createArrayNode();
-            arr.add(city.getName());
-            Coord loc = city.getLocation();
-            arr.add(mapper.createArrayNode().add(loc.getX()).add(loc.getY()));
-            return arr;
-        }).collect(Collectors.toList());
-        node.set("cities", mapper.valueToTree(cities));
-        ObjectNode conns = mapper.createObjectNode();
-        map
-                .getDirectConnections()
-                .forEach((conn) -> mergeConnections(conns,
-                        toSortedConnection(conn)));
-        node.set("connections", conns);
-        return node;
+        return mapper.valueToTree(JsonCodec.map(map));
     }
 
     /**
-     * Merges a direction connection into the existing connections object.
+     * Gets the content hash of a map, see mapHash(JsonNode). The hash is
+     * computed once per map and kept by the map.
      */
-    private static void mergeConnections(ObjectNode connections,
-                                         DirectConnection conn) {
-        City city0 = conn.getCity0();
-        if (connections.has(city0.getName())) {
-            mergeTargets((ObjectNode) connections.get(city0.getName()), conn);
-        } else {
-            connections.set(city0.getName(),
-                    mergeTargets(mapper.createObjectNode(), conn));
-        }
+    public static String mapHash(TrainsMap map) {
+        return map.getContentHash(m -> mapHash(mapToJson(m)));
     }
 
     /**
-     * Merges the given direct connection into the existing target object.
+     * Computes the content hash of a map in JSON: the SHA-256, in lower case
+     * hex, of the JSON with the fields of every object sorted by name and
+     * numbers that are not integers rounded to float, the precision of city
+     * locations. Maps that are equal hash the same regardless of the order
+     * their cities and connections were added in, or of whether their
+     * locations went over the wire as float or double.
      */
-    private static ObjectNode mergeTargets(ObjectNode target,
-                                           DirectConnection conn) {
-        City city1 = conn.getCity1();
-        if (target.has(city1.getName())) {
-            mergeSegments((ObjectNode) target.get(city1.getName()), conn);
-        } else {
-            target.set(city1.getName(),
-                    mergeSegments(mapper.createObjectNode(), conn));
+    public static String mapHash(JsonNode mapJson) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return target;
+        byte[] hash = digest.digest(toCanonical(mapJson).toString()
+                .getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+                    .append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
     }
 
     /**
-     * Merges the given direct connection into an existing segment object.
+     * Creates the object that references a map by its content hash in place
+     * of the map itself.
      */
-    private static ObjectNode mergeSegments(ObjectNode segment,
-                                            DirectConnection conn) {
-        segment.put(conn.getColor().name().toLowerCase(), conn.getLength());
-        return segment;
+    public static JsonNode mapReference(String hash) {
+        return mapper.createObjectNode().put(MAP_HASH, hash);
     }
 
     /**
-     * Converts a destination into its sorted equivalent. That is, the same
-     * destination but with city0 and city1 in lexicographic order.
+     * Gets the map hash of a map reference or setup option, or null if the
+     * node is neither.
      */
-    private static Destination toSortedDestination(Destination destination) {
-        City city0 = destination.getVertices().getFirst();
-        City city1 = destination.getVertices().getSecond();
-
-        if (city0.compareTo(city1) < 0) {
-            return destination;
+    public static String getMapHash(JsonNode node) {
+        if (node == null || !node.isObject() ||
+            !node.path(MAP_HASH).isTextual()) {
+            return null;
         }
-        return new Destination(city1, city0);
+        return node.get(MAP_HASH).asText();
     }
 
     /**
-     * Converts a connection into its sorted equivalent. That is, the same
-     * connection but with city0 and city1 in lexicographic order.
+     * Copies a JSON value with the fields of every object in it sorted by
+     * name and its floating point numbers rounded to float.
      */
-    private static DirectConnection toSortedConnection(DirectConnection conn) {
-        City city0 = conn.getCity0();
-        City city1 = conn.getCity1();
+    private static JsonNode toCanonical(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode sorted = mapper.createObjectNode();
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            for (String name : names) {
+                sorted.set(name, toCanonical(node.get(name)));
+            }
+            return sorted;
+        }
+        if (node.isArray()) {
+            ArrayNode copy = mapper.createArrayNode();
+            node.forEach(element -> copy.add(toCanonical(element)));
+            return copy;
+        }
+        if (node.isFloatingPointNumber()) {
+            return FloatNode.valueOf(node.floatValue());
+        }
+        return node;
+    }
 
-        if (city0.compareTo(city1) < 0) {
-            return conn;
+    /**
+     * Reads a value out of JSON with a JsonCodec read method.
+     *
+     * @throws IllegalArgumentException if the JSON is not such a value
+     */
+    private static <T> T read(JsonNode node, Reading<T> reading) {
+        try (JsonParser in = mapper.treeAsTokens(node)) {
+            in.nextToken();
+            return reading.read(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
         }
-        return new DirectConnection(city1, city0, conn.getLength(), conn.getColor());
+    }
+
+    /**
+     * Reads a value from a JsonParser.
+     */
+    @FunctionalInterface
+    private interface Reading<T> {
+        T read(JsonParser in) throws IOException;
     }
 }
@@ -8,10 +8,17 @@ package map;
  * the gameboard as [0-1],[0-1] Equality is determined by the string name and
  * coordinate, relies on the assumption that a city is uniquely identified by
  * the name and coordinate
+ * <p>
+ * The CompactGraph of a TrainsMap holds a canonical instance of each of its
+ * cities, which knows its dense id there. Canonical cities of the same map
+ * are equal only if they are the same instance.
  */
 public class City implements Comparable {
     private final String name;
     private final Coord coord;
+    private final int hash;
+    final CompactGraph graph; // that this is the canonical instance of
+    final int id; // in graph, or -1
 
     /**
      * @param name  String name of city
@@ -32,14 +39,31 @@ public class City implements Comparable {
         }
         this.name = name;
         this.coord = coord;
+        this.hash = Hashing.mix(name.hashCode());
+        this.graph = null;
+        this.id = -1;
+    }
+
+    /**
+     * Constructor for the canonical instance of a city in a CompactGraph.
+     */
+    City(City city, CompactGraph graph, int id) {
+        this.name = city.name;
+        this.coord = city.coord;
+        this.hash = city.hash;
+        this.graph = graph;
+        this.id = id;
     }
 
     public String getName() {
         return this.name;
     }
 
+    /**
+     * @return the location of this city, which is immutable and shared
+     */
     public Coord getLocation() {
-        return new Coord(this.coord.getX(), this.coord.getY());
+        return this.coord;
     }
 
     @Override
@@ -59,25 +83,33 @@ public class City implements Comparable {
      */
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o instanceof City) {
             City c = (City) o;
-            return this.name.equals(c.name) && this.coord.equals(c.coord);
+            if (this.graph != null && this.graph == c.graph) {
+                return false; // distinct canonical cities of one map
+            }
+            return this.hash == c.hash && this.name.equals(c.name) &&
+                   this.coord.equals(c.coord);
         }
         return false;
     }
 
     /**
-     * Hashcode override as we also override equals, assumes TrainsMap.City
-     * uniquely identified by name and coord
+     * Hashcode override as we also override equals. Only the name is hashed,
+     * as locations that are equal may differ slightly, and the hash is
+     * computed once.
      *
      * @return integer hashcde to identify TrainsMap.City
      */
     @Override
     public int hashCode() {
-        return 7 * name.hashCode() * coord.hashCode();
+        return this.hash;
     }
 
-    private boolean isValidCoord(Coord c) {
+    private static boolean isValidCoord(Coord c) {
         float x = c.getX();
         float y = c.getY();
         return x >= 0f && x <= 1f && y >= 0f && y <= 1f;
@@ -87,8 +119,19 @@ public class City implements Comparable {
      * city’s Name satisfies the regular expression "[a-zA-Z0-9\\ \\.\\,]+" and
      * has at most 25 ASCII characters
      */
-    private boolean isValidCityName(String s) {
-        return s.matches("[a-zA-Z0-9\\ \\.\\,]+") && s.length() <= 25;
+    private static boolean isValidCityName(String s) {
+        if (s.isEmpty() || s.length() > 25) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' ||
+                  c >= '0' && c <= '9' || c == ' ' || c == '.' ||
+                  c == ',')) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
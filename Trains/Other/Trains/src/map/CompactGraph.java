@@ -0,0 +1,408 @@
+package map;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable integer-indexed representation of a set of cities and the direct
+ * connections between them, stored in compressed-sparse-row (CSR) form.
+ * <p>
+ * Cities are given dense ids 0..V-1 in lexicographic order of their names and
+ * connections are given dense ids 0..E-1 in the natural (lexicographic) order
+ * of DirectConnection. For each edge id the endpoints, length and color
+ * ordinal are stored in parallel int arrays. The adjacency of city v is the
+ * slice adjEdges[adjOffsets[v] .. adjOffsets[v + 1]) which holds the ids of
+ * every edge incident to v.
+ * <p>
+ * Traversals over a CompactGraph only touch primitive arrays, so they do not
+ * hash City objects or box distances. The arrays are never mutated after
+ * construction; the caches of destinations and of connections by color and
+ * length are filled lazily and are safe to publish, so instances are safe to
+ * share between threads.
+ * <p>
+ * An interning graph, the one of a TrainsMap, holds canonical copies of its
+ * cities and connections that know their ids, so looking them up takes no
+ * hashing and comparing them is an identity check. It also hands out a
+ * canonical destination for every pair of its cities.
+ */
+public final class CompactGraph {
+    private static final int MAX_LENGTH = 5; // of any connection
+
+    private final City[] cities;
+    private final Map<City, Integer> cityIds;
+    private final Map<String, Integer> cityIdsByName;
+
+    private final DirectConnection[] connections;
+    private final Map<DirectConnection, Integer> connectionIds;
+    private final int[] edgeCity0;
+    private final int[] edgeCity1;
+    private final int[] edgeLength;
+    private final int[] edgeColor;
+
+    private final int[] adjOffsets;
+    private final int[] adjEdges;
+
+    // canonical destinations by packed pair of city ids, created on first
+    // use, so only the destinations asked for take memory
+    private final ConcurrentHashMap<Long, Destination> destinations;
+
+    // edge ids by color ordinal * (MAX_LENGTH + 1) + length, created on first
+    // use
+    private volatile BitSet[] edgesByColorAndLength;
+
+    /**
+     * Builds the CSR arrays for the given cities and connections. Every
+     * connection must be between two of the given cities.
+     *
+     * @param allCities      vertices of the graph
+     * @param allConnections edges of the graph
+     * @param intern         whether to store canonical copies of the cities
+     *                       and connections
+     */
+    private CompactGraph(Collection<City> allCities,
+                         Collection<DirectConnection> allConnections,
+                         boolean intern) {
+        this.cities = allCities.toArray(new City[0]);
+        Arrays.sort(this.cities);
+        if (intern) {
+            for (int id = 0; id < this.cities.length; id++) {
+                this.cities[id] = new City(this.cities[id], this, id);
+            }
+        }
+        this.cityIds = new HashMap<>();
+        this.cityIdsByName = new HashMap<>();
+        for (int id = 0; id < this.cities.length; id++) {
+            this.cityIds.put(this.cities[id], id);
+            this.cityIdsByName.put(this.cities[id].getName(), id);
+        }
+
+        this.connections = allConnections.toArray(new DirectConnection[0]);
+        Arrays.sort(this.connections);
+        int numEdges = this.connections.length;
+        this.connectionIds = new HashMap<>();
+        this.edgeCity0 = new int[numEdges];
+        this.edgeCity1 = new int[numEdges];
+        this.edgeLength = new int[numEdges];
+        this.edgeColor = new int[numEdges];
+        int[] degree = new int[this.cities.length];
+        for (int e = 0; e < numEdges; e++) {
+            DirectConnection dc = this.connections[e];
+            Integer c0 = this.cityIds.get(dc.getCity0());
+            Integer c1 = this.cityIds.get(dc.getCity1());
+            if (c0 == null || c1 == null) {
+                throw new IllegalArgumentException(
+                        "Connections must be between cities in given set");
+            }
+            if (intern) {
+                dc = new DirectConnection(this.cities[c0], this.cities[c1],
+                        dc, this, e);
+                this.connections[e] = dc;
+            }
+            this.connectionIds.put(dc, e);
+            this.edgeCity0[e] = c0;
+            this.edgeCity1[e] = c1;
+            this.edgeLength[e] = dc.getLength();
+            this.edgeColor[e] = dc.getColor().ordinal();
+            degree[c0]++;
+            degree[c1]++;
+        }
+
+        // prefix sums of the degrees give the start of each adjacency slice
+        this.adjOffsets = new int[this.cities.length + 1];
+        for (int v = 0; v < this.cities.length; v++) {
+            this.adjOffsets[v + 1] = this.adjOffsets[v] + degree[v];
+        }
+        this.adjEdges = new int[2 * numEdges];
+        int[] fill = Arrays.copyOf(this.adjOffsets, this.cities.length);
+        for (int e = 0; e < numEdges; e++) {
+            this.adjEdges[fill[this.edgeCity0[e]]++] = e;
+            this.adjEdges[fill[this.edgeCity1[e]]++] = e;
+        }
+
+        this.destinations = intern ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Creates a CompactGraph over the given cities and connections.
+     *
+     * @throws IllegalArgumentException if a connection references a city that
+     *                                  is not in allCities
+     */
+    public static CompactGraph of(Collection<City> allCities,
+                                  Collection<DirectConnection> allConnections) {
+        return new CompactGraph(allCities, allConnections, false);
+    }
+
+    /**
+     * Creates a CompactGraph over the given cities and connections that holds
+     * canonical copies of them, see getCity and getConnection.
+     *
+     * @throws IllegalArgumentException if a connection references a city that
+     *                                  is not in allCities
+     */
+    public static CompactGraph interning(
+            Collection<City> allCities,
+            Collection<DirectConnection> allConnections) {
+        return new CompactGraph(allCities, allConnections, true);
+    }
+
+    /**
+     * Creates a CompactGraph over the given connections, using the endpoints
+     * of the connections as the set of cities.
+     */
+    public static CompactGraph fromConnections(
+            Collection<DirectConnection> allConnections) {
+        Map<City, City> endpoints = new HashMap<>();
+        for (DirectConnection dc : allConnections) {
+            endpoints.putIfAbsent(dc.getCity0(), dc.getCity0());
+            endpoints.putIfAbsent(dc.getCity1(), dc.getCity1());
+        }
+        return new CompactGraph(endpoints.keySet(), allConnections, false);
+    }
+
+    /**
+     * @return number of cities (vertices) in this graph
+     */
+    public int getNumCities() {
+        return this.cities.length;
+    }
+
+    /**
+     * @return number of direct connections (edges) in this graph
+     */
+    public int getNumConnections() {
+        return this.connections.length;
+    }
+
+    /**
+     * @return the City with the given id, its canonical instance if this
+     * graph interns
+     */
+    public City getCity(int cityId) {
+        return this.cities[cityId];
+    }
+
+    /**
+     * @return the dense id of the given city, or -1 if it is not in this graph
+     */
+    public int getCityId(City c) {
+        if (c.graph == this) {
+            return c.id;
+        }
+        Integer id = this.cityIds.get(c);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the dense id of the city with the given name, or -1 if there is
+     * no such city in this graph
+     */
+    public int getCityIdByName(String name) {
+        Integer id = this.cityIdsByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the DirectConnection with the given id, its canonical instance
+     * if this graph interns
+     */
+    public DirectConnection getConnection(int edgeId) {
+        return this.connections[edgeId];
+    }
+
+    /**
+     * @return the dense id of the given connection, or -1 if it is not in this
+     * graph
+     */
+    public int getConnectionId(DirectConnection dc) {
+        if (dc.graph == this) {
+            return dc.id;
+        }
+        Integer id = this.connectionIds.get(dc);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the dense id of the connection of the given color and length
+     * between the given cities, or -1 if there is no such connection in this
+     * graph
+     */
+    public int findConnectionId(int cityId0, int cityId1, ColorTrains color,
+                                int length) {
+        for (int i = this.adjOffsets[cityId0]; i < this.adjOffsets[cityId0 + 1];
+             i++) {
+            int e = this.adjEdges[i];
+            if (this.getOtherCity(e, cityId0) == cityId1 &&
+                this.edgeColor[e] == color.ordinal() &&
+                this.edgeLength[e] == length) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the next connection of the given color and length, in id (and so
+     * lexicographic) order. Every connection of a color and length is found
+     * by starting at 0 and continuing one past the last id found.
+     *
+     * @param color  ColorTrains ordinal of the connections
+     * @param length length of the connections
+     * @param fromId id to start searching at
+     *
+     * @return id of the first such connection at or after fromId, or -1 if
+     * there is none
+     */
+    public int nextConnectionOf(int color, int length, int fromId) {
+        if (length < 0 || length > MAX_LENGTH) {
+            return -1;
+        }
+        BitSet[] buckets = this.edgesByColorAndLength;
+        if (buckets == null) {
+            buckets = new BitSet[ColorTrains.values().length *
+                                 (MAX_LENGTH + 1)];
+            for (int b = 0; b < buckets.length; b++) {
+                buckets[b] = new BitSet();
+            }
+            for (int e = 0; e < this.connections.length; e++) {
+                buckets[this.edgeColor[e] * (MAX_LENGTH + 1) +
+                        this.edgeLength[e]].set(e);
+            }
+            this.edgesByColorAndLength = buckets;
+        }
+        return buckets[color * (MAX_LENGTH + 1) + length].nextSetBit(fromId);
+    }
+
+    /**
+     * Gets the destination between the cities with the given ids, the same
+     * canonical instance on every call if this graph interns.
+     *
+     * @throws IllegalArgumentException if the ids are the same
+     */
+    public Destination getDestination(int cityId0, int cityId1) {
+        if (cityId0 == cityId1) {
+            throw new IllegalArgumentException(
+                    "Cities in a destination cannot be equal.");
+        }
+        int lo = Math.min(cityId0, cityId1);
+        int hi = Math.max(cityId0, cityId1);
+        if (this.destinations == null) {
+            return new Destination(this.cities[lo], this.cities[hi]);
+        }
+        // ids follow name order, so lo is the first city by name
+        return this.destinations.computeIfAbsent((long) hi << 32 | lo,
+                key -> new Destination(this.cities[lo], this.cities[hi],
+                        this));
+    }
+
+    /**
+     * @return id of the lexicographically first city of the given edge
+     */
+    public int getCity0(int edgeId) {
+        return this.edgeCity0[edgeId];
+    }
+
+    /**
+     * @return id of the lexicographically second city of the given edge
+     */
+    public int getCity1(int edgeId) {
+        return this.edgeCity1[edgeId];
+    }
+
+    /**
+     * @return the endpoint of the given edge that is not the given city
+     */
+    public int getOtherCity(int edgeId, int cityId) {
+        int c0 = this.edgeCity0[edgeId];
+        return c0 == cityId ? this.edgeCity1[edgeId] : c0;
+    }
+
+    /**
+     * @return the length (number of segments) of the given edge
+     */
+    public int getLength(int edgeId) {
+        return this.edgeLength[edgeId];
+    }
+
+    /**
+     * @return the ColorTrains ordinal of the given edge
+     */
+    public int getColor(int edgeId) {
+        return this.edgeColor[edgeId];
+    }
+
+    /**
+     * @return index into the adjacency array of the first edge of the given
+     * city, see {@link #getAdjacentEdge(int)}
+     */
+    public int getAdjacencyStart(int cityId) {
+        return this.adjOffsets[cityId];
+    }
+
+    /**
+     * @return index into the adjacency array one past the last edge of the
+     * given city
+     */
+    public int getAdjacencyEnd(int cityId) {
+        return this.adjOffsets[cityId + 1];
+    }
+
+    /**
+     * @return the edge id stored at the given index of the adjacency array
+     */
+    public int getAdjacentEdge(int adjacencyIndex) {
+        return this.adjEdges[adjacencyIndex];
+    }
+
+    /**
+     * @return number of edges incident to the given city
+     */
+    public int getDegree(int cityId) {
+        return this.adjOffsets[cityId + 1] - this.adjOffsets[cityId];
+    }
+
+    /**
+     * Breadth first search over the edges accepted by edgeMask (or every edge
+     * if edgeMask is null) from the given city. Fills dist with the summed
+     * edge length from the source to every reached city and -1 for unreached
+     * cities. On a tree the distances are path lengths.
+     *
+     * @param source   id of the city to start from
+     * @param edgeMask edges that may be traversed, null for all edges
+     * @param dist     buffer of at least getNumCities() ints, overwritten
+     * @param queue    buffer of at least getNumCities() ints, overwritten
+     *
+     * @return id of the reached city with the largest distance
+     */
+    public int weightedBFS(int source, boolean[] edgeMask, int[] dist,
+                           int[] queue) {
+        Arrays.fill(dist, 0, this.cities.length, -1);
+        dist[source] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        int farthest = source;
+        while (head < tail) {
+            int v = queue[head++];
+            if (dist[v] > dist[farthest]) {
+                farthest = v;
+            }
+            for (int i = this.adjOffsets[v]; i < this.adjOffsets[v + 1]; i++) {
+                int e = this.adjEdges[i];
+                if (edgeMask != null && !edgeMask[e]) {
+                    continue;
+                }
+                int to = this.getOtherCity(e, v);
+                if (dist[to] == -1) {
+                    dist[to] = dist[v] + this.edgeLength[e];
+                    queue[tail++] = to;
+                }
+            }
+        }
+        return farthest;
+    }
+}
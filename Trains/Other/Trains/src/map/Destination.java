@@ -11,10 +11,15 @@ import java.util.List;
  * Class to represent a TrainsMap.Destination in TrainsMap.Trains
  * TrainsMap.Destination - a pair of cities on the game map, not necessary
  * connected with a direct connection but guaranteed to be connected by a path.
+ * <p>
+ * CompactGraph.getDestination hands out a canonical instance of each
+ * destination between the cities of a map.
  */
 public class Destination implements Comparable {
     private final City city0;
     private final City city1;
+    private final int hash;
+    private final CompactGraph graph; // that this is the canonical instance of
 
     /**
      * @param c1 one of the cities in the destination pair
@@ -32,6 +37,20 @@ public class Destination implements Comparable {
             this.city0 = c2;
             this.city1 = c1;
         }
+        this.hash = Hashing.combine(this.city0.hashCode(),
+                this.city1.hashCode());
+        this.graph = null;
+    }
+
+    /**
+     * Constructor for the canonical instance of a destination in a
+     * CompactGraph, between two of its canonical cities in order.
+     */
+    Destination(City city0, City city1, CompactGraph graph) {
+        this.city0 = city0;
+        this.city1 = city1;
+        this.hash = Hashing.combine(city0.hashCode(), city1.hashCode());
+        this.graph = graph;
     }
 
     /**
@@ -69,19 +88,15 @@ public class Destination implements Comparable {
 
     /**
      * This function was overriden because we use a Set of destinations in our
-     * getFeasibleDestinations in TrainsMap.TrainsMap. This will produce the
-     * same hashcode for a TrainsMap.Destination where the cities are switched.
+     * getFeasibleDestinations in TrainsMap.TrainsMap. The cities are ordered
+     * by name, so this produces the same hashcode for a
+     * TrainsMap.Destination where the cities are switched.
      *
      * @return int - hashCode of this TrainsMap.Destination
      */
     @Override
     public int hashCode() {
-        int result = 7;
-
-        result = result * this.city0.hashCode();
-        result = result * this.city1.hashCode();
-
-        return result;
+        return this.hash;
     }
 
     /**
@@ -95,10 +110,17 @@ public class Destination implements Comparable {
      */
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (!(o instanceof Destination)) {
             return false;
         }
         Destination other = (Destination) o;
+        if (this.graph != null && this.graph == other.graph ||
+            this.hash != other.hash) {
+            return false;
+        }
         boolean result = true;
         Pair<City> otherCities = other.getVertices();
         result = result && (otherCities.getFirst().getName().equals(this.city0.getName()) ||
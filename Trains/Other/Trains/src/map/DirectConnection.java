@@ -6,6 +6,9 @@ import java.util.Arrays;
  * Class representing a direct connection, two cities directly connected by a
  * path. Provides a constructor which takes two TrainsMap.City objects, a length
  * and a color
+ * <p>
+ * The CompactGraph of a TrainsMap holds a canonical instance of each of its
+ * connections, between its canonical cities, which knows its dense id there.
  */
 public class DirectConnection implements Comparable {
 
@@ -13,6 +16,9 @@ public class DirectConnection implements Comparable {
     private final City city1;
     private final int length;
     private final ColorTrains connectionColor;
+    private final int hash;
+    final CompactGraph graph; // that this is the canonical instance of
+    final int id; // in graph, or -1
 
     /**
      * Constructor to make direct connection with two cities and a length.
@@ -36,6 +42,9 @@ public class DirectConnection implements Comparable {
             }
             this.length = length;
             this.connectionColor = colorTrains;
+            this.hash = hash(this.city0, this.city1, length, colorTrains);
+            this.graph = null;
+            this.id = -1;
         } else {
             throw new IllegalArgumentException(
                     "Invalid arguments, cities cannot be equal" +
@@ -43,6 +52,28 @@ public class DirectConnection implements Comparable {
         }
     }
 
+    /**
+     * Constructor for the canonical instance of a connection in a
+     * CompactGraph, between the canonical instances of its cities.
+     */
+    DirectConnection(City city0, City city1, DirectConnection connection,
+                     CompactGraph graph, int id) {
+        this.city0 = city0;
+        this.city1 = city1;
+        this.length = connection.length;
+        this.connectionColor = connection.connectionColor;
+        this.hash = connection.hash;
+        this.graph = graph;
+        this.id = id;
+    }
+
+    private static int hash(City city0, City city1, int length,
+                            ColorTrains color) {
+        int result = Hashing.combine(city0.hashCode(), city1.hashCode());
+        result = Hashing.combine(result, length);
+        return Hashing.combine(result, color.ordinal());
+    }
+
     /**
      * Constructor to create Destination given the names of cities for use with
      * thew testing tasks. Creates cities at .1, .1
@@ -120,8 +151,15 @@ public class DirectConnection implements Comparable {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o instanceof DirectConnection) {
             DirectConnection other = (DirectConnection) o;
+            if (this.graph != null && this.graph == other.graph ||
+                this.hash != other.hash) {
+                return false;
+            }
             boolean result = true;
             DirectConnection otherDirectConnection = (DirectConnection) o;
             City thisCity0 = this.city0;
@@ -141,11 +179,12 @@ public class DirectConnection implements Comparable {
         return false;
     }
 
+    /**
+     * The hash of the ordered cities, length and color, computed once.
+     */
     @Override
     public int hashCode() {
-        int result = 7 * city0.hashCode() * city1.hashCode();
-        result = result * this.length * this.connectionColor.hashCode();
-        return result;
+        return this.hash;
     }
 
     /**
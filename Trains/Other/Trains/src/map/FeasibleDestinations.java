@@ -0,0 +1,198 @@
+package map;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only Set of every feasible Destination on a map (two cities connected
+ * by a path on the gameboard), backed by a component label per city instead of
+ * by materialized Destination objects.
+ * <p>
+ * The labels are computed with a single union-find pass over the edges of the
+ * map's CompactGraph. Two cities form a feasible destination exactly when they
+ * share a label, so contains is O(1) and size is the closed form sum of
+ * s * (s - 1) / 2 over the component sizes s. Destinations are only created
+ * while iterating, one pair of cities at a time, component by component and
+ * without duplicates.
+ */
+public final class FeasibleDestinations extends AbstractSet<Destination> {
+    private final CompactGraph graph;
+    private final int[] componentOf;
+    // city ids grouped by component, component c occupies
+    // members[componentStart[c] .. componentStart[c + 1])
+    private final int[] componentStart;
+    private final int[] members;
+    private final int numDestinations;
+
+    /**
+     * Labels every city of the given graph with its connected component.
+     *
+     * @param graph CompactGraph of a map
+     */
+    public FeasibleDestinations(CompactGraph graph) {
+        this.graph = graph;
+        int numCities = graph.getNumCities();
+
+        UnionFind components = new UnionFind(numCities);
+        for (int e = 0; e < graph.getNumConnections(); e++) {
+            components.union(graph.getCity0(e), graph.getCity1(e));
+        }
+
+        // dense labels in order of each component's smallest city id
+        this.componentOf = new int[numCities];
+        int[] labelOfRep = new int[numCities];
+        int numComponents = 0;
+        for (int v = 0; v < numCities; v++) {
+            int rep = components.findRep(v);
+            if (labelOfRep[rep] == 0) { // first city seen in this component
+                labelOfRep[rep] = ++numComponents;
+            }
+            this.componentOf[v] = labelOfRep[rep] - 1;
+        }
+
+        this.componentStart = new int[numComponents + 1];
+        for (int v = 0; v < numCities; v++) {
+            this.componentStart[this.componentOf[v] + 1]++;
+        }
+        long pairs = 0;
+        for (int c = 0; c < numComponents; c++) {
+            long s = this.componentStart[c + 1];
+            pairs += s * (s - 1) / 2;
+            this.componentStart[c + 1] += this.componentStart[c];
+        }
+        this.members = new int[numCities];
+        int[] fill = new int[numComponents];
+        for (int v = 0; v < numCities; v++) {
+            int c = this.componentOf[v];
+            this.members[this.componentStart[c] + fill[c]++] = v;
+        }
+        this.numDestinations = (int) Math.min(pairs, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the component label of the city with the given id
+     */
+    public int getComponent(int cityId) {
+        return this.componentOf[cityId];
+    }
+
+    /**
+     * @return number of connected components on the map
+     */
+    public int getNumComponents() {
+        return this.componentStart.length - 1;
+    }
+
+    /**
+     * @return number of cities in the given component
+     */
+    public int getComponentSize(int component) {
+        return this.componentStart[component + 1] -
+               this.componentStart[component];
+    }
+
+    /**
+     * @return id of the first city (in id order) of the given component
+     */
+    public int getComponentCity(int component) {
+        return this.members[this.componentStart[component]];
+    }
+
+    /**
+     * @return true if the two distinct cities with the given ids are connected
+     * by a path
+     */
+    public boolean isFeasible(int cityId0, int cityId1) {
+        return cityId0 != cityId1 &&
+               this.componentOf[cityId0] == this.componentOf[cityId1];
+    }
+
+    /**
+     * Returns true if the given object is a Destination between two cities of
+     * the map that are connected by a path. Like Destination.equals, cities are
+     * identified by name.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Destination)) {
+            return false;
+        }
+        Destination d = (Destination) o;
+        int id0 = this.graph.getCityIdByName(
+                d.getVertices().getFirst().getName());
+        int id1 = this.graph.getCityIdByName(
+                d.getVertices().getSecond().getName());
+        return id0 != -1 && id1 != -1 && this.isFeasible(id0, id1);
+    }
+
+    /**
+     * @return number of feasible destinations, computed on construction
+     */
+    @Override
+    public int size() {
+        return this.numDestinations;
+    }
+
+    /**
+     * @return iterator which creates each feasible Destination on demand
+     */
+    @Override
+    public Iterator<Destination> iterator() {
+        return new PairIterator();
+    }
+
+    /**
+     * Iterates over the pairs (members[i], members[j]) with i < j inside each
+     * component in turn.
+     */
+    private final class PairIterator implements Iterator<Destination> {
+        private int component = 0;
+        private int i = 0;
+        private int j = 1;
+
+        private PairIterator() {
+            this.seek();
+        }
+
+        /**
+         * Moves (i, j) forward to the first valid pair at or after its current
+         * position, skipping components of a single city.
+         */
+        private void seek() {
+            int[] starts = FeasibleDestinations.this.componentStart;
+            while (this.component < starts.length - 1) {
+                int end = starts[this.component + 1];
+                if (this.j >= end) {
+                    this.i++;
+                    this.j = this.i + 1;
+                }
+                if (this.j < end) {
+                    return;
+                }
+                this.component++;
+                this.i = end;
+                this.j = this.i + 1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.component <
+                   FeasibleDestinations.this.componentStart.length - 1;
+        }
+
+        @Override
+        public Destination next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CompactGraph g = FeasibleDestinations.this.graph;
+            int[] m = FeasibleDestinations.this.members;
+            Destination next = g.getDestination(m[this.i], m[this.j]);
+            this.j++;
+            this.seek();
+            return next;
+        }
+    }
+}
@@ -78,6 +78,40 @@ public class Graph {
         }
     }
 
+    /**
+     * Iterative traversal of a CompactGraph. Marks every city
+     * reachable from root in visited and writes their ids into component.
+     *
+     * @param graph     - CompactGraph to be traversed
+     * @param root      - id of the city to start the traversal from
+     * @param visited   - per city flags of cities we have visited already
+     * @param component - buffer of at least graph.getNumCities() ints which
+     *                  receives the ids of the reached cities
+     *
+     * @return number of city ids written into component
+     */
+    public static int getConnectedCityIds(CompactGraph graph, int root,
+                                          boolean[] visited,
+                                          int[] component) {
+        // component doubles as the work queue, ids below size are finished
+        int size = 0;
+        int top = 0;
+        visited[root] = true;
+        component[top++] = root;
+        while (size < top) {
+            int v = component[size++];
+            for (int i = graph.getAdjacencyStart(v);
+                 i < graph.getAdjacencyEnd(v); i++) {
+                int to = graph.getOtherCity(graph.getAdjacentEdge(i), v);
+                if (!visited[to]) {
+                    visited[to] = true;
+                    component[top++] = to;
+                }
+            }
+        }
+        return size;
+    }
+
     /**
      * Function to add a vertex with no connected vertices to this graph.
      *
@@ -0,0 +1,30 @@
+package map;
+
+/**
+ * Hash functions for the cities, connections and destinations of a map,
+ * whose hashes are computed once and stored.
+ */
+final class Hashing {
+    private Hashing() {
+    }
+
+    /**
+     * Spreads the bits of a hash so that hashes differing in few bits end up
+     * in different buckets (the MurmurHash3 finalizer).
+     */
+    static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Mixes a value into a hash. The order values are combined in matters.
+     */
+    static int combine(int hash, int value) {
+        return mix(hash * 31 + value);
+    }
+}
@@ -1,6 +1,7 @@
 package map;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -41,6 +42,9 @@ public class Kruskal {
 
         List<DirectConnection> noDuplicateEdges =
                 takeMaximumWeightEdges(allConnections);
+        // natural order first so edges of equal length are visited in the
+        // same order whatever their hashes
+        Collections.sort(noDuplicateEdges);
         Collections.sort(noDuplicateEdges, Comparator
                 .comparing(DirectConnection::getLength)
                 .reversed()); //sort dc by
@@ -140,6 +144,38 @@ public class Kruskal {
         }
     }
 
+    /**
+     * Runs Kruskal's MAXimum spanning forest directly on the primitive edge
+     * arrays of a CompactGraph. Parallel edges between two cities are handled
+     * implicitly, the longest one is always considered first.
+     *
+     * @param graph CompactGraph to span
+     *
+     * @return flags indexed by edge id, true for edges in the spanning forest
+     */
+    public static boolean[] maximumSpanningForest(CompactGraph graph) {
+        int numEdges = graph.getNumConnections();
+        // sort edge ids by descending length, ties broken by edge id
+        long[] order = new long[numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            order[e] = ((long) -graph.getLength(e) << 32) | e;
+        }
+        Arrays.sort(order);
+
+        int numCities = graph.getNumCities();
+        UnionFind trees = new UnionFind(numCities);
+        boolean[] inForest = new boolean[numEdges];
+        int numTreeEdges = 0;
+        for (int i = 0; i < numEdges && numTreeEdges < numCities - 1; i++) {
+            int e = (int) order[i];
+            if (trees.union(graph.getCity0(e), graph.getCity1(e))) {
+                inForest[e] = true;
+                numTreeEdges++;
+            }
+        }
+        return inForest;
+    }
+
     /**
      * Method to derive the list of cities that are connected in the given list
      * of edges.
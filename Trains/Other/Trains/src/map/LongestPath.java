@@ -0,0 +1,238 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * Exact solver for the longest path (a sequence of direct connections that
+ * never visits a city twice) in a connected component of a CompactGraph. Used
+ * for longest path scoring in place of the maximum spanning tree
+ * approximation, which undercounts on networks that contain cycles.
+ * <p>
+ * The component is copied into primitive arrays with local city ids so the
+ * set of visited cities is a single long bitmask. The search is a depth first
+ * search over (visited cities, current city) states:
+ * <ul>
+ *     <li>what can still be appended to a path only depends on its state, so
+ *     a state is skipped when it was already reached with a path at least as
+ *     long (memoized in a primitive open addressing map)</li>
+ *     <li>a state is pruned when its length plus, for every unvisited city
+ *     still reachable over unvisited cities, the longest connection into
+ *     that city cannot beat the best path</li>
+ *     <li>the search stops as soon as a path reaches the same bound for the
+ *     whole component</li>
+ * </ul>
+ * A state key packs the city mask above 6 bits of local city id, which limits
+ * the solver to components of at most {@link #MAX_CITIES} cities. With at most
+ * 45 rails and connections of length 3 or more a player owns at most 15
+ * connections, so at most 16 cities.
+ */
+public class LongestPath {
+    public static final int MAX_CITIES = 58;
+    private static final int CITY_BITS = 6;
+
+    private final int[] adjStart; // local CSR adjacency of the component
+    private final int[] adjCity;
+    private final int[] adjLength;
+    private final long[] neighbors; // bitmask of the adjacent cities
+    private final int[] maxIn; // longest connection incident to each city
+    private final int bound;
+    private final LongIntHashMap reached;
+    private int best;
+
+    /**
+     * Copies the component containing root into local primitive arrays.
+     */
+    private LongestPath(CompactGraph graph, int root) {
+        int n = graph.getNumCities();
+        int[] cities = new int[n];
+        int numCities = Graph.getConnectedCityIds(graph, root,
+                new boolean[n], cities);
+        if (numCities > MAX_CITIES) {
+            throw new IllegalArgumentException(
+                    "Component has " + numCities + " cities, at most " +
+                    MAX_CITIES + " are supported");
+        }
+        int[] localId = new int[n];
+        for (int i = 0; i < numCities; i++) {
+            localId[cities[i]] = i;
+        }
+
+        this.adjStart = new int[numCities + 1];
+        this.neighbors = new long[numCities];
+        this.maxIn = new int[numCities];
+        for (int i = 0; i < numCities; i++) {
+            this.adjStart[i + 1] = this.adjStart[i] +
+                                   graph.getDegree(cities[i]);
+        }
+        this.adjCity = new int[this.adjStart[numCities]];
+        this.adjLength = new int[this.adjStart[numCities]];
+        for (int i = 0; i < numCities; i++) {
+            int v = cities[i];
+            int k = this.adjStart[i];
+            for (int a = graph.getAdjacencyStart(v);
+                 a < graph.getAdjacencyEnd(v); a++, k++) {
+                int e = graph.getAdjacentEdge(a);
+                this.adjCity[k] = localId[graph.getOtherCity(e, v)];
+                this.adjLength[k] = graph.getLength(e);
+                this.neighbors[i] |= 1L << this.adjCity[k];
+                this.maxIn[i] = Math.max(this.maxIn[i], this.adjLength[k]);
+            }
+        }
+
+        // every city but the first is entered by exactly one connection
+        int sum = 0;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < numCities; i++) {
+            sum += this.maxIn[i];
+            min = Math.min(min, this.maxIn[i]);
+        }
+        this.bound = sum - min;
+        this.reached = new LongIntHashMap();
+        this.best = 0;
+    }
+
+    /**
+     * Determines the length of the longest path in the connected component of
+     * the given city.
+     *
+     * @param graph CompactGraph of a player's owned connections
+     * @param root  id of any city in the component
+     *
+     * @return summed length of the connections on the longest path
+     *
+     * @throws IllegalArgumentException if the component has more than
+     *                                  MAX_CITIES cities
+     */
+    public static int findLongestPath(CompactGraph graph, int root) {
+        LongestPath solver = new LongestPath(graph, root);
+        for (int v = 0; v < solver.maxIn.length; v++) {
+            if (solver.best == solver.bound) {
+                break;
+            }
+            solver.search(v, 1L << v, 0);
+        }
+        return solver.best;
+    }
+
+    /**
+     * @return number of cities in the connected component of the given city
+     */
+    public static int getComponentSize(CompactGraph graph, int root) {
+        int n = graph.getNumCities();
+        return Graph.getConnectedCityIds(graph, root, new boolean[n],
+                new int[n]);
+    }
+
+    /**
+     * Extends the path that visited the cities in visited and ended at city v.
+     */
+    private void search(int v, long visited, int length) {
+        if (length > this.best) {
+            this.best = length;
+        }
+        if (this.best == this.bound ||
+            !this.reached.putIfLonger(visited << CITY_BITS | v, length) ||
+            length + this.reachableBound(v, visited) <= this.best) {
+            return;
+        }
+        for (int k = this.adjStart[v]; k < this.adjStart[v + 1]; k++) {
+            int to = this.adjCity[k];
+            if ((visited & 1L << to) == 0) {
+                this.search(to, visited | 1L << to, length + this.adjLength[k]);
+            }
+        }
+    }
+
+    /**
+     * Sums the longest incident connection of every unvisited city reachable
+     * from city v over unvisited cities, an upper bound on how much longer the
+     * path can get.
+     */
+    private int reachableBound(int v, long visited) {
+        long reachable = 0L;
+        long frontier = this.neighbors[v] & ~visited;
+        while (frontier != 0) {
+            reachable |= frontier;
+            long grown = 0L;
+            while (frontier != 0) {
+                grown |= this.neighbors[Long.numberOfTrailingZeros(frontier)];
+                frontier &= frontier - 1;
+            }
+            frontier = grown & ~visited & ~reachable;
+        }
+        int sum = 0;
+        while (reachable != 0) {
+            sum += this.maxIn[Long.numberOfTrailingZeros(reachable)];
+            reachable &= reachable - 1;
+        }
+        return sum;
+    }
+
+    /**
+     * Minimal open addressing map from long keys to the longest length seen,
+     * with linear probing. A key has a city id below 63 in its low bits so it
+     * is never -1, which marks an empty slot.
+     */
+    private static final class LongIntHashMap {
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        private LongIntHashMap() {
+            this.keys = new long[1 << 10];
+            this.values = new int[1 << 10];
+            Arrays.fill(this.keys, -1L);
+        }
+
+        /**
+         * Stores length for key unless a length at least as long is stored.
+         *
+         * @return true if the given length was stored
+         */
+        private boolean putIfLonger(long key, int length) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                this.grow();
+            }
+            int mask = this.keys.length - 1;
+            int i = mix(key) & mask;
+            while (this.keys[i] != -1L) {
+                if (this.keys[i] == key) {
+                    if (this.values[i] >= length) {
+                        return false;
+                    }
+                    this.values[i] = length;
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            this.keys[i] = key;
+            this.values[i] = length;
+            this.size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] oldKeys = this.keys;
+            int[] oldValues = this.values;
+            this.keys = new long[oldKeys.length * 2];
+            this.values = new int[oldKeys.length * 2];
+            Arrays.fill(this.keys, -1L);
+            int mask = this.keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != -1L) {
+                    int i = mix(oldKeys[j]) & mask;
+                    while (this.keys[i] != -1L) {
+                        i = (i + 1) & mask;
+                    }
+                    this.keys[i] = oldKeys[j];
+                    this.values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return (int) (key ^ (key >>> 32));
+        }
+    }
+}
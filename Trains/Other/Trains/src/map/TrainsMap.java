@@ -1,9 +1,10 @@
 package map;
 
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Represents a single gameboard map in 'TrainsMap.Trains' Provides constructor
@@ -21,7 +22,12 @@ public class TrainsMap {
             // set of connections on map
     private final int height;
     private final int width;
-    private Set<Destination> availableDestinations;
+    private final CompactGraph graph;
+            // integer indexed adjacency of cities and connections on map
+    private final FeasibleDestinations availableDestinations;
+            // component labelled index of destinations on map
+    private volatile String contentHash;
+            // set on first call to getContentHash
 
     /**
      * Main constructor for TrainsMap.TrainsMap, verifies that connections are
@@ -37,19 +43,22 @@ public class TrainsMap {
             throw new IllegalArgumentException(
                     "Map must be have height and width of at least 10 pixels");
         }
-        for (DirectConnection currConn : connections) {
-            City city0 = currConn.getCity0();
-            City city1 = currConn.getCity1();
-            if (!(cities.contains(city0) && cities.contains(city1))) {
-                throw new IllegalArgumentException(
-                        "Connections must be between cities in given set");
-            }
+        // throws if a connection is not between two cities in the given set
+        this.graph = CompactGraph.interning(cities, connections);
+        City[] canonicalCities = new City[this.graph.getNumCities()];
+        for (int id = 0; id < canonicalCities.length; id++) {
+            canonicalCities[id] = this.graph.getCity(id);
+        }
+        DirectConnection[] canonicalConnections =
+                new DirectConnection[this.graph.getNumConnections()];
+        for (int id = 0; id < canonicalConnections.length; id++) {
+            canonicalConnections[id] = this.graph.getConnection(id);
         }
-        this.cities = Set.copyOf(cities);
-        this.directConnections = Set.copyOf(connections);
+        this.cities = Set.of(canonicalCities);
+        this.directConnections = Set.of(canonicalConnections);
         this.width = width;
         this.height = height;
-        buildAllFeasibleDestinations();
+        this.availableDestinations = new FeasibleDestinations(this.graph);
     }
 
     public static TrainsMap createTrainsMapWithDefaultSize(Set<City> cities,
@@ -128,9 +137,11 @@ public class TrainsMap {
     }
 
     /**
-     * Method to calculate all feasible destinations (two cities connected by a
-     * path on the gameboard). Converts TrainMap into TrainsMap.Graph object and
-     * uses getFeasibleDestinationDFSUtil
+     * Method to get all feasible destinations (two cities connected by a path
+     * on the gameboard). The returned Set is a read-only view over the
+     * component labels of this map: contains and size are constant time and
+     * iterating hands out the canonical destinations of the CompactGraph,
+     * created the first time they are needed.
      *
      * @return Set of destinations which represent pairs of cities that are
      * connected by a path
@@ -140,55 +151,44 @@ public class TrainsMap {
     }
 
     /**
-     * Method to calculate all feasible destinations (two cities connected by a
-     * path on the gameboard). Converts TrainMap into TrainsMap.Graph object and
-     * uses getFeasibleDestinationDFSUtil
-     *
-     * @return Set of destinations which represent pairs of cities that are
-     * connected by a path
+     * @return number of feasible destinations on this map, without creating
+     * any of them
      */
-    private void buildAllFeasibleDestinations() {
-        Graph graph = convertToGraph();
-        Set<Destination> feasibleDestinations = new HashSet<>();
-
-        for (City c : this.cities) { // call recursive DFS Util on each city
-            Set<City> visited = new LinkedHashSet<>();
-            Graph.getFeasibleDestinationsDFSUtil(graph, c, visited,
-                    feasibleDestinations); // mutates feasibles
-        }
-        this.availableDestinations = feasibleDestinations;
+    public int getNumFeasibleDestinations() {
+        return this.availableDestinations.size();
     }
 
     /**
-     * Private method in order to create TrainsMap.Graph object from TrainMap
-     * object
+     * Getter for the immutable integer indexed graph of this map's cities and
+     * connections, shared by all users of this map.
      *
-     * @return graph representation of this map
+     * @return CompactGraph of this map
      */
-    private Graph convertToGraph() {
-        // construct an adjacency list of cities (length of connection is
-        // irrelevant here)
-        Graph graph = new Graph();
-        City root = null;
-        for (City c : this.cities) { // add a vertex for each city
-            if (root == null) {
-                root =
-                        c;                               // store the first
-                // city as root
-            }
-            graph.addDisconnectedCity(c);
-        }
+    public CompactGraph getCompactGraph() {
+        return this.graph;
+    }
 
-        for (DirectConnection conn : this.directConnections) { // add an edge
-            // for each direct connection
-            graph.addEdge(conn.getCity0(), conn.getCity1());
+    /**
+     * Gets the content hash of this map, computing it with the given function
+     * on first use only, since maps are immutable. The hash is computed
+     * outside this package (see JsonConverter.mapHash), so every caller must
+     * pass the same function.
+     *
+     * @param hash computes the content hash of a map
+     */
+    public String getContentHash(Function<TrainsMap, String> hash) {
+        String result = this.contentHash;
+        if (result == null) {
+            result = hash.apply(this);
+            this.contentHash = result;
         }
-        return graph;
+        return result;
     }
 
     /**
      * Function to return whether two cities are connected by a path on this
-     * map.
+     * map. Answered in constant time from the component labels computed when
+     * the map was constructed.
      *
      * @param city0 - City 1 object
      * @param city1 - City 2 object
@@ -196,17 +196,65 @@ public class TrainsMap {
      * @return boolean representing whether cities are connected
      */
     public boolean areCitiesConnected(City city0, City city1) {
-        if (city0 == null || city1 == null || city0.equals(city1)) {
+        if (city0 == null || city1 == null) {
             return false;
         }
-        // get a graph representation of this map
-        Graph map = this.convertToGraph();
+        int id0 = this.graph.getCityId(city0);
+        if (id0 == -1) {
+            throw new IllegalArgumentException(
+                    "Unable to find one of the provided city " + city0 +
+                    " in the map");
+        }
+        int id1 = this.graph.getCityId(city1);
+        return id1 != -1 && this.availableDestinations.isFeasible(id0, id1);
+    }
 
-        // call graph function to return whether edges are connected
-        Set<City> visited = new HashSet<>();
-        Graph.getConnectedCitiesDFSUtil(map, city0, visited);
+    /**
+     * Function to return whether the two cities with the given names are
+     * connected by a path on this map.
+     *
+     * @param city0Name name of the first city, must be on this map
+     * @param city1Name name of the second city
+     *
+     * @return false if the names are equal or the second city is not on this
+     * map, otherwise whether the cities are connected
+     */
+    public boolean areCitiesConnected(String city0Name, String city1Name) {
+        int id0 = this.graph.getCityIdByName(city0Name);
+        if (id0 == -1) {
+            throw new IllegalArgumentException(
+                    "Unable to find one of the provided city " + city0Name +
+                    " in the map");
+        }
+        int id1 = this.graph.getCityIdByName(city1Name);
+        return id1 != -1 && this.availableDestinations.isFeasible(id0, id1);
+    }
 
-        return visited.contains(city1);
+    /**
+     * Answers many connectivity queries at once. Bit i of the result is set
+     * exactly when both cities of cityNamePairs[i] are on this map, are
+     * distinct, and are connected by a path.
+     *
+     * @param cityNamePairs array of [city0Name, city1Name] pairs
+     *
+     * @return BitSet of the connected pairs
+     */
+    public BitSet areCitiesConnected(String[][] cityNamePairs) {
+        BitSet connected = new BitSet(cityNamePairs.length);
+        for (int i = 0; i < cityNamePairs.length; i++) {
+            String[] pair = cityNamePairs[i];
+            if (pair == null || pair.length != 2) {
+                throw new IllegalArgumentException(
+                        "Each connectivity query must be a pair of city names");
+            }
+            int id0 = this.graph.getCityIdByName(pair[0]);
+            int id1 = this.graph.getCityIdByName(pair[1]);
+            if (id0 != -1 && id1 != -1 &&
+                this.availableDestinations.isFeasible(id0, id1)) {
+                connected.set(i);
+            }
+        }
+        return connected;
     }
 
     /**
@@ -219,10 +267,9 @@ public class TrainsMap {
      * @return Coord corresponding to the given city
      */
     public Coord getCoordGivenCityName(String cityName) {
-        for (City city : this.cities) {
-            if (city.getName().equals(cityName)) {
-                return city.getLocation();
-            }
+        int id = this.graph.getCityIdByName(cityName);
+        if (id != -1) {
+            return this.graph.getCity(id).getLocation();
         }
         throw new IllegalArgumentException(
                 "Unable to getCoordOnMapGivenCityName. The given city " +
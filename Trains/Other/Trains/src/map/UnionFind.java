@@ -0,0 +1,56 @@
+package map;
+
+/**
+ * Disjoint sets of the city ids of a CompactGraph, for the union-find passes
+ * over its edges. Sets are merged by size and finding a representative
+ * halves the path to it.
+ */
+final class UnionFind {
+    private final int[] parents;
+    private final int[] sizes;
+
+    /**
+     * Puts each of the given number of city ids in a set of its own.
+     */
+    UnionFind(int numCities) {
+        this.parents = new int[numCities];
+        this.sizes = new int[numCities];
+        for (int v = 0; v < numCities; v++) {
+            this.parents[v] = v; // initialize each city's rep with itself
+            this.sizes[v] = 1;
+        }
+    }
+
+    /**
+     * Finds the representative of the given city id, halving the path to it
+     * along the way.
+     */
+    int findRep(int v) {
+        while (this.parents[v] != v) {
+            this.parents[v] = this.parents[this.parents[v]];
+            v = this.parents[v];
+        }
+        return v;
+    }
+
+    /**
+     * Merges the sets of the two given city ids.
+     *
+     * @return false if they were already in the same set
+     */
+    boolean union(int v, int w) {
+        int rep0 = this.findRep(v);
+        int rep1 = this.findRep(w);
+        if (rep0 == rep1) {
+            return false;
+        }
+        if (this.sizes[rep0] < this.sizes[rep1]) {
+            int tmp = rep0;
+            rep0 = rep1;
+            rep1 = tmp;
+        }
+        this.parents[rep1] = rep0;
+        this.sizes[rep0] += this.sizes[rep1];
+        return true;
+    }
+}
@@ -1,9 +1,9 @@
 package map;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -118,24 +118,27 @@ public class WeightedGraph {
      */
     public DistHolder getLongestPathFromCity(City c) {
         List<City> cities = new ArrayList<>(this.adjVertices.keySet());
+        Map<City, Integer> cityIndices = new HashMap<>();
+        for (int i = 0; i < cities.size(); i++) {
+            cityIndices.put(cities.get(i), i);
+        }
 
-        Integer[] dis = new Integer[this.adjVertices.keySet().size()];
+        int[] dis = new int[cities.size()];
 
         // mark all distance with -1
         Arrays.fill(dis, -1);
-        dis[cities.indexOf(c)] = 0;
+        dis[cityIndices.get(c)] = 0;
 
-        Queue<City> q = new LinkedList<>();
+        Queue<City> q = new ArrayDeque<>();
         q.add(c);
 
         while (q.peek() != null) {
 
             City currCity = q.poll();
-            int fromCityIndex = cities.indexOf(currCity);
+            int fromCityIndex = cityIndices.get(currCity);
             // iterate through adjacent vertices and update distances
-            for (int i = 0; i < this.adjVertices.get(currCity).size(); i++) {
-                ToEdge toVert = this.adjVertices.get(currCity).get(i);
-                int toCityIndex = cities.indexOf(toVert.destination);
+            for (ToEdge toVert : this.adjVertices.get(currCity)) {
+                int toCityIndex = cityIndices.get(toVert.destination);
                 if (dis[toCityIndex] == -1) {
                     // if this hasn't been visited update distance to current
                     // node's distance plus weight of edge between them
@@ -169,6 +172,27 @@ public class WeightedGraph {
         return absoluteLongestPath.getDistance();
     }
 
+    /**
+     * Two calls to BFS longest path on the tree formed by the edges of graph
+     * accepted by treeEdges, starting from the given city. Runs on the
+     * primitive arrays of the CompactGraph with the given distance buffers.
+     *
+     * @param graph     CompactGraph containing the tree
+     * @param start     id of any city in the tree
+     * @param treeEdges edges of graph that form the tree
+     * @param dist      buffer of at least graph.getNumCities() ints
+     * @param queue     buffer of at least graph.getNumCities() ints
+     *
+     * @return length of the longest path in the tree containing start
+     */
+    public static int findAbsoluteLongestPath(CompactGraph graph, int start,
+                                              boolean[] treeEdges, int[] dist,
+                                              int[] queue) {
+        int farthest = graph.weightedBFS(start, treeEdges, dist, queue);
+        int otherEnd = graph.weightedBFS(farthest, treeEdges, dist, queue);
+        return dist[otherEnd];
+    }
+
     /**
      * Static class to package a city and it's distance from a given city to
      * getLongestPathFromCity
@@ -0,0 +1,148 @@
+package metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MetricsSink that keeps a LatencyHistogram per player and call, per remote
+ * player and call, and per referee operation in memory. A player's
+ * histograms are created on their first call; every later record is a map
+ * lookup and a few atomic increments.
+ */
+public final class InMemoryMetricsSink implements MetricsSink {
+    /**
+     * Name players without a name are recorded under.
+     */
+    public static final String UNNAMED = "";
+
+    private static final PlayerCall[] CALLS = PlayerCall.values();
+    private static final RefereeOperation[] OPERATIONS =
+            RefereeOperation.values();
+
+    private final Map<String, LatencyHistogram[]> playerCalls =
+            new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram[]> remoteCalls =
+            new ConcurrentHashMap<>();
+    private final LatencyHistogram[] referee =
+            createHistograms(OPERATIONS.length);
+
+    @Override
+    public void recordPlayerCall(String player, PlayerCall call, long nanos) {
+        histogramsOf(this.playerCalls, player)[call.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordRemoteCall(String player, PlayerCall call, long nanos) {
+        histogramsOf(this.remoteCalls, player)[call.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordReferee(RefereeOperation operation, long nanos) {
+        this.referee[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * @return names of all players with a recorded call, in order
+     */
+    public Set<String> getPlayers() {
+        Set<String> players = new TreeSet<>(this.playerCalls.keySet());
+        players.addAll(this.remoteCalls.keySet());
+        return players;
+    }
+
+    /**
+     * Gets the latencies of the given call to the given player as seen by
+     * its caller, empty if none were recorded.
+     */
+    public LatencyHistogram getPlayerCallLatency(String player,
+                                                 PlayerCall call) {
+        return getOrEmpty(this.playerCalls, player, call);
+    }
+
+    /**
+     * Gets the latencies of the given call to any player as seen by the
+     * caller.
+     */
+    public LatencyHistogram getPlayerCallLatency(PlayerCall call) {
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram[] histograms : this.playerCalls.values()) {
+            total.add(histograms[call.ordinal()]);
+        }
+        return total;
+    }
+
+    /**
+     * Gets the round trips of the given call to the given remote player,
+     * empty if none were recorded.
+     */
+    public LatencyHistogram getRemoteCallLatency(String player,
+                                                 PlayerCall call) {
+        return getOrEmpty(this.remoteCalls, player, call);
+    }
+
+    /**
+     * Gets the latencies of the given referee operation over all games.
+     */
+    public LatencyHistogram getRefereeLatency(RefereeOperation operation) {
+        return this.referee[operation.ordinal()];
+    }
+
+    /**
+     * A report of every non empty histogram, one per line.
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        for (RefereeOperation operation : OPERATIONS) {
+            appendLine(report, "referee " + operation,
+                    this.getRefereeLatency(operation));
+        }
+        for (String player : this.getPlayers()) {
+            for (PlayerCall call : CALLS) {
+                appendLine(report, player + " " + call.getWireName(),
+                        this.getPlayerCallLatency(player, call));
+                appendLine(report, player + " " + call.getWireName() +
+                                   " (remote)",
+                        this.getRemoteCallLatency(player, call));
+            }
+        }
+        return report.toString();
+    }
+
+    private static void appendLine(StringBuilder report, String label,
+                                   LatencyHistogram histogram) {
+        if (histogram.getCount() > 0) {
+            report.append(label).append(": ").append(histogram).append('\n');
+        }
+    }
+
+    private static LatencyHistogram[] histogramsOf(
+            Map<String, LatencyHistogram[]> histograms, String player) {
+        String key = player == null ? UNNAMED : player;
+        LatencyHistogram[] ofPlayer = histograms.get(key);
+        if (ofPlayer == null) {
+            ofPlayer = histograms.computeIfAbsent(key,
+                    k -> createHistograms(CALLS.length));
+        }
+        return ofPlayer;
+    }
+
+    private static LatencyHistogram getOrEmpty(
+            Map<String, LatencyHistogram[]> histograms, String player,
+            PlayerCall call) {
+        LatencyHistogram[] ofPlayer =
+                histograms.get(player == null ? UNNAMED : player);
+        return ofPlayer == null ? new LatencyHistogram() :
+               ofPlayer[call.ordinal()];
+    }
+
+    private static LatencyHistogram[] createHistograms(int n) {
+        LatencyHistogram[] histograms = new LatencyHistogram[n];
+        for (int i = 0; i < n; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
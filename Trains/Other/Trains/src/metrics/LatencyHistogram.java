@@ -0,0 +1,149 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of latencies in nanoseconds. Values are counted in
+ * buckets of eight per power of two, so a percentile is reported to within
+ * 12.5% while recording is a few atomic increments and never allocates.
+ * Recording and reading may happen on any number of threads at once; reads
+ * are not a consistent snapshot while values are being recorded.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // values below SUB_BUCKETS are exact, then SUB_BUCKETS per power of two
+    private static final int NUM_BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one latency, negative values count as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.buckets.incrementAndGet(bucketOf(value));
+        this.count.increment();
+        this.totalNanos.add(value);
+        if (value > this.maxNanos.get()) {
+            this.maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * @return number of latencies recorded
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * @return sum of all latencies recorded
+     */
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    /**
+     * @return largest latency recorded, 0 if none
+     */
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * @return mean latency, 0 if none recorded
+     */
+    public double getMeanNanos() {
+        long n = this.getCount();
+        return n == 0 ? 0 : (double) this.getTotalNanos() / n;
+    }
+
+    /**
+     * Gets an upper bound of the given percentile of the latencies recorded,
+     * never more than the maximum.
+     *
+     * @param percentile in [0, 100]
+     *
+     * @return the upper end of the bucket holding the percentile, 0 if none
+     * recorded
+     *
+     * @throws IllegalArgumentException if percentile is outside [0, 100]
+     */
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(
+                    "Percentile must be in [0, 100], given " + percentile);
+        }
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += this.buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), this.getMaxNanos());
+            }
+        }
+        return this.getMaxNanos();
+    }
+
+    /**
+     * Adds every latency recorded by the other histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long n = other.buckets.get(i);
+            if (n != 0) {
+                this.buckets.addAndGet(i, n);
+            }
+        }
+        this.count.add(other.getCount());
+        this.totalNanos.add(other.getTotalNanos());
+        this.maxNanos.accumulateAndGet(other.getMaxNanos(), Math::max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%.1fus p99=%.1fus " +
+                             "max=%.1fus", this.getCount(),
+                this.getMeanNanos() / 1e3, this.getPercentileNanos(50) / 1e3,
+                this.getPercentileNanos(99) / 1e3, this.getMaxNanos() / 1e3);
+    }
+
+    /**
+     * Gets the bucket of a non negative value: the value itself below
+     * SUB_BUCKETS, otherwise its power of two and the SUB_BITS bits below
+     * its highest bit.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the largest value counted in the given bucket.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,45 @@
+package metrics;
+
+/**
+ * Receives latencies recorded by the referee, the manager and player proxies.
+ * Implementations are called from every game of a round at once and must be
+ * thread safe and cheap, as they are called on every turn.
+ * <p>
+ * A player call is timed by the caller (RefereeAgent or Manager) and covers
+ * everything the player does, in process or remote. A remote call is timed
+ * by a PlayerProxy and covers writing the call, waiting for the client and
+ * reading its response. Referee operations cover the referee's own work, so
+ * a slow player and slow referee logic show up in different histograms.
+ */
+public interface MetricsSink {
+    /**
+     * Sink that discards everything, the default of every recorder.
+     */
+    MetricsSink NONE = new NoopMetricsSink();
+
+    /**
+     * Records the time the caller waited on the given call of a player.
+     *
+     * @param player name of the player called, may be null
+     * @param call   the IPlayer method called
+     * @param nanos  elapsed time in nanoseconds
+     */
+    void recordPlayerCall(String player, PlayerCall call, long nanos);
+
+    /**
+     * Records the round trip of the given call to a remote player.
+     *
+     * @param player name of the player called, may be null
+     * @param call   the IPlayer method called
+     * @param nanos  elapsed time in nanoseconds
+     */
+    void recordRemoteCall(String player, PlayerCall call, long nanos);
+
+    /**
+     * Records the time the referee spent on the given operation.
+     *
+     * @param operation what the referee did
+     * @param nanos     elapsed time in nanoseconds
+     */
+    void recordReferee(RefereeOperation operation, long nanos);
+}
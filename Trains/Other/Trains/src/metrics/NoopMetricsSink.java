@@ -0,0 +1,18 @@
+package metrics;
+
+/**
+ * MetricsSink that discards everything it is given.
+ */
+final class NoopMetricsSink implements MetricsSink {
+    @Override
+    public void recordPlayerCall(String player, PlayerCall call, long nanos) {
+    }
+
+    @Override
+    public void recordRemoteCall(String player, PlayerCall call, long nanos) {
+    }
+
+    @Override
+    public void recordReferee(RefereeOperation operation, long nanos) {
+    }
+}
@@ -0,0 +1,27 @@
+package metrics;
+
+/**
+ * The IPlayer methods whose latency is recorded, named as on the wire.
+ */
+public enum PlayerCall {
+    SETUP("setup"),
+    PICK("pick"),
+    PLAY("play"),
+    MORE("more"),
+    WIN("win"),
+    START("start"),
+    END("end");
+
+    private final String wireName;
+
+    PlayerCall(String wireName) {
+        this.wireName = wireName;
+    }
+
+    /**
+     * @return the name of this call in the remote protocol
+     */
+    public String getWireName() {
+        return this.wireName;
+    }
+}
@@ -0,0 +1,24 @@
+package metrics;
+
+/**
+ * The referee's own work whose latency is recorded: RefereeGameState
+ * transitions and scoring, as opposed to time spent waiting on players.
+ */
+public enum RefereeOperation {
+    /** Dealing a player their rails and initial cards. */
+    SETUP_PLAYER,
+    /** Taking the destinations offered to a player from the deck. */
+    OFFER_DESTINATIONS,
+    /** Applying a player's choice of destinations. */
+    CHOOSE_DESTINATIONS,
+    /** Building the PlayerGameState sent to the player on turn. */
+    PLAYER_STATE,
+    /** Validating and applying a connection acquisition. */
+    ACQUIRE,
+    /** Drawing cards for a player who asked for more. */
+    DRAW,
+    /** Removing a misbehaving player from the game state. */
+    ELIMINATE,
+    /** Scoring and ranking the players at the end of the game. */
+    SCORING
+}
@@ -0,0 +1,68 @@
+package replay;
+
+import map.Destination;
+import map.DirectConnection;
+import map.TrainsMap;
+import state.RefereeGameState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the events of a game from its referee, in the order they change
+ * the referee's game state. Each event stands for one RefereeGameState
+ * transition, so replaying the events in order against a game state built
+ * from the start event reproduces the game, see GameReplay.
+ * <p>
+ * A game log belongs to the game that writes it and is only called from the
+ * thread playing that game. Logging must not fail a game: implementations do
+ * not throw from these methods.
+ */
+public interface GameLog {
+    /**
+     * Log that discards everything, the default of every referee.
+     */
+    GameLog NONE = new NoopGameLog();
+
+    /**
+     * Starts the game, before any player is set up. A log that keeps the
+     * game reads its seed and the order of its cards and destinations from
+     * the state, which only changes once the players are set up.
+     *
+     * @param map   the map the game is played on
+     * @param rails number of rails each player starts with
+     * @param state the state of the game before any player is set up
+     */
+    void start(TrainsMap map, int rails, RefereeGameState state);
+
+    /**
+     * A player was set up and dealt their initial cards.
+     */
+    void setup(String player);
+
+    /**
+     * The current player picked their destinations, rejecting the given
+     * ones of the five offered.
+     */
+    void pick(List<Destination> rejected);
+
+    /**
+     * The current player drew cards, or asked for cards when none were left.
+     */
+    void draw();
+
+    /**
+     * The current player acquired the given connection.
+     */
+    void acquire(DirectConnection connection);
+
+    /**
+     * The current player was eliminated.
+     */
+    void eliminate(String player);
+
+    /**
+     * The game ended with the given scores of the players still in it.
+     */
+    void scores(Map<String, Integer> scores);
+}
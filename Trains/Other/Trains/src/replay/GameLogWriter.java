@@ -0,0 +1,196 @@
+package replay;
+
+import json.JsonConverter;
+import map.CompactGraph;
+import map.Destination;
+import map.DirectConnection;
+import map.TrainsMap;
+import state.ColorCard;
+import state.RefereeGameState;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the events of a game to a compact binary log through a buffer, so
+ * the game only ever appends to it sequentially.
+ * <p>
+ * A log is a header followed by events, big-endian. The header is the magic
+ * number, the format version, the seed, the content hash of the map (see
+ * JsonConverter.mapHash), the rails, the color cards as ordinal bytes and
+ * the destinations as pairs of city ids of the map's CompactGraph. Every
+ * event is a type byte followed by its arguments: a player name, the
+ * rejected destinations, a connection id, or the final scores. Strings are
+ * written as a short length and UTF-8 bytes.
+ * <p>
+ * Writes never throw: the first IOException stops the log and is thrown by
+ * close(), so a full disk loses the log rather than the game.
+ */
+public final class GameLogWriter implements GameLog, Closeable {
+    static final int MAGIC = 0x5454524c; // "TTRL"
+    static final byte VERSION = 1;
+
+    static final byte SETUP = 1;
+    static final byte PICK = 2;
+    static final byte DRAW = 3;
+    static final byte ACQUIRE = 4;
+    static final byte ELIMINATE = 5;
+    static final byte SCORES = 6;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private CompactGraph graph; // of the game's map, set on start
+    private IOException error;
+
+    /**
+     * Creates a writer appending the log to the given stream, which it
+     * closes on close().
+     */
+    public GameLogWriter(OutputStream out) {
+        this.out = new DataOutputStream(
+                new BufferedOutputStream(out, BUFFER_SIZE));
+    }
+
+    /**
+     * Creates a writer of a new log file, replacing any file at the path.
+     */
+    public static GameLogWriter create(Path file) throws IOException {
+        return new GameLogWriter(Files.newOutputStream(file));
+    }
+
+    @Override
+    public void start(TrainsMap map, int rails, RefereeGameState state) {
+        this.graph = map.getCompactGraph();
+        long seed = state.getSeed();
+        List<ColorCard> cards = state.getRemainingCards();
+        List<Destination> destinations = state.getAvailableDestinations();
+        this.write(() -> {
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            this.out.writeLong(seed);
+            this.writeString(JsonConverter.mapHash(map));
+            this.out.writeInt(rails);
+            this.out.writeInt(cards.size());
+            for (ColorCard card : cards) {
+                this.out.writeByte(card.getColor().ordinal());
+            }
+            this.out.writeInt(destinations.size());
+            for (Destination destination : destinations) {
+                this.writeDestination(destination);
+            }
+        });
+    }
+
+    @Override
+    public void setup(String player) {
+        this.write(() -> {
+            this.out.writeByte(SETUP);
+            this.writeString(player);
+        });
+    }
+
+    @Override
+    public void pick(List<Destination> rejected) {
+        this.write(() -> {
+            this.out.writeByte(PICK);
+            this.out.writeByte(rejected.size());
+            for (Destination destination : rejected) {
+                this.writeDestination(destination);
+            }
+        });
+    }
+
+    @Override
+    public void draw() {
+        this.write(() -> this.out.writeByte(DRAW));
+    }
+
+    @Override
+    public void acquire(DirectConnection connection) {
+        this.write(() -> {
+            this.out.writeByte(ACQUIRE);
+            this.out.writeInt(this.graph.getConnectionId(connection));
+        });
+    }
+
+    @Override
+    public void eliminate(String player) {
+        this.write(() -> {
+            this.out.writeByte(ELIMINATE);
+            this.writeString(player);
+        });
+    }
+
+    @Override
+    public void scores(Map<String, Integer> scores) {
+        this.write(() -> {
+            this.out.writeByte(SCORES);
+            this.out.writeShort(scores.size());
+            for (Map.Entry<String, Integer> score : scores.entrySet()) {
+                this.writeString(score.getKey());
+                this.out.writeInt(score.getValue());
+            }
+        });
+    }
+
+    /**
+     * Flushes and closes the log.
+     *
+     * @throws IOException the first error writing the log, if there was one
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.error == null) {
+                this.out.flush();
+            }
+        } finally {
+            this.out.close();
+        }
+        if (this.error != null) {
+            throw this.error;
+        }
+    }
+
+    private void writeDestination(Destination destination) throws IOException {
+        this.out.writeShort(this.graph.getCityId(
+                destination.getVertices().getFirst()));
+        this.out.writeShort(this.graph.getCityId(
+                destination.getVertices().getSecond()));
+    }
+
+    private void writeString(String s) throws IOException {
+        String text = s == null ? "" : s;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        this.out.writeShort(bytes.length);
+        this.out.write(bytes);
+    }
+
+    private void write(Writing writing) {
+        if (this.error != null) {
+            return;
+        }
+        try {
+            writing.write();
+        } catch (IOException e) {
+            this.error = e;
+        }
+    }
+
+    /**
+     * Writes an event to the log.
+     */
+    @FunctionalInterface
+    private interface Writing {
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,289 @@
+package replay;
+
+import json.JsonConverter;
+import map.ColorTrains;
+import map.CompactGraph;
+import map.Destination;
+import map.TrainsMap;
+import state.ColorCard;
+import state.RefereeGameState;
+import strategy.IAdminStrategy;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds the RefereeGameState of a logged game at any point, by applying
+ * the logged events to a game state built from the logged cards and
+ * destinations, without any of the players. See GameLogWriter for the
+ * format.
+ * <p>
+ * The log is read through a read-only memory mapping. Opening a log indexes
+ * where each of its events starts, so rebuilding a state only decodes the
+ * events before it.
+ */
+public final class GameReplay {
+    private static final ColorTrains[] COLORS = ColorTrains.values();
+
+    private final ByteBuffer log;
+    private final TrainsMap map;
+    private final long seed;
+    private final int rails;
+    private final List<ColorCard> cards;
+    private final List<Destination> destinations;
+    private final int[] eventStarts; // offset of every event in log
+    private final int[] moveEvents; // index of every draw and acquire event
+    private final List<String> players;
+    private final Map<String, Integer> scores;
+
+    private GameReplay(ByteBuffer log, TrainsMap map) {
+        this.log = log;
+        this.map = map;
+        CompactGraph graph = map.getCompactGraph();
+        if (log.getInt() != GameLogWriter.MAGIC) {
+            throw new IllegalArgumentException("Not a game log.");
+        }
+        byte version = log.get();
+        if (version != GameLogWriter.VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported game log version " + version);
+        }
+        this.seed = log.getLong();
+        String fingerprint = readString(log);
+        if (!fingerprint.equals(JsonConverter.mapHash(map))) {
+            throw new IllegalArgumentException(
+                    "Game log was written for a different map, " +
+                    fingerprint);
+        }
+        this.rails = log.getInt();
+        ColorCard[] cardArray = new ColorCard[log.getInt()];
+        for (int i = 0; i < cardArray.length; i++) {
+            cardArray[i] = ColorCard.of(COLORS[log.get()]);
+        }
+        this.cards = List.of(cardArray);
+        Destination[] destinationArray = new Destination[log.getInt()];
+        for (int i = 0; i < destinationArray.length; i++) {
+            destinationArray[i] = readDestination(log, graph);
+        }
+        this.destinations = List.of(destinationArray);
+
+        int[] starts = new int[16];
+        int[] moves = new int[16];
+        int numEvents = 0;
+        int numMoves = 0;
+        List<String> setUp = new ArrayList<>();
+        Map<String, Integer> finalScores = new LinkedHashMap<>();
+        while (log.hasRemaining()) {
+            if (numEvents == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * numEvents);
+            }
+            starts[numEvents] = log.position();
+            byte type = log.get();
+            switch (type) {
+                case GameLogWriter.SETUP:
+                    setUp.add(readString(log));
+                    break;
+                case GameLogWriter.PICK:
+                    int numRejected = log.get() & 0xff;
+                    if (4 * numRejected > log.remaining()) {
+                        throw new BufferUnderflowException();
+                    }
+                    log.position(log.position() + 4 * numRejected);
+                    break;
+                case GameLogWriter.DRAW:
+                case GameLogWriter.ACQUIRE:
+                    if (numMoves == moves.length) {
+                        moves = Arrays.copyOf(moves, 2 * numMoves);
+                    }
+                    moves[numMoves++] = numEvents;
+                    if (type == GameLogWriter.ACQUIRE) {
+                        log.getInt();
+                    }
+                    break;
+                case GameLogWriter.ELIMINATE:
+                    readString(log);
+                    break;
+                case GameLogWriter.SCORES:
+                    for (int n = log.getShort(); n > 0; n--) {
+                        finalScores.put(readString(log), log.getInt());
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown game log event " + type);
+            }
+            numEvents++;
+        }
+        this.eventStarts = Arrays.copyOf(starts, numEvents);
+        this.moveEvents = Arrays.copyOf(moves, numMoves);
+        this.players = Collections.unmodifiableList(setUp);
+        this.scores = Collections.unmodifiableMap(finalScores);
+    }
+
+    /**
+     * Opens the log of a game played on the given map.
+     *
+     * @throws IOException              if the log cannot be read
+     * @throws IllegalArgumentException if the file is not a game log, or is
+     *                                  the log of a game on another map
+     */
+    public static GameReplay open(Path file, TrainsMap map)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new GameReplay(channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size()), map);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Game log is truncated.", e);
+        }
+    }
+
+    /**
+     * @return the seed of the game's source of randomness
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @return names of the players in the order they were set up
+     */
+    public List<String> getPlayers() {
+        return this.players;
+    }
+
+    /**
+     * @return the final score of every player still in the game at its end,
+     * empty if the log ends before the game did
+     */
+    public Map<String, Integer> getScores() {
+        return this.scores;
+    }
+
+    /**
+     * @return number of events in the log
+     */
+    public int getNumEvents() {
+        return this.eventStarts.length;
+    }
+
+    /**
+     * @return number of turns in the log in which a player drew cards or
+     * acquired a connection
+     */
+    public int getNumMoves() {
+        return this.moveEvents.length;
+    }
+
+    /**
+     * Rebuilds the game state after the first numEvents events.
+     *
+     * @throws IndexOutOfBoundsException if numEvents is negative or more than
+     *                                   the log holds
+     */
+    public RefereeGameState getStateAfterEvents(int numEvents) {
+        if (numEvents < 0 || numEvents > this.eventStarts.length) {
+            throw new IndexOutOfBoundsException(
+                    "Log holds " + this.eventStarts.length + " events, given " +
+                    numEvents);
+        }
+        RefereeGameState state = new RefereeGameState(this.map, this.cards,
+                new LoggedOrder(this.destinations), this.seed);
+        CompactGraph graph = this.map.getCompactGraph();
+        ByteBuffer events = this.log.duplicate();
+        for (int i = 0; i < numEvents; i++) {
+            events.position(this.eventStarts[i]);
+            switch (events.get()) {
+                case GameLogWriter.SETUP:
+                    state.initializePlayerWithRailsAndDraw(this.rails);
+                    break;
+                case GameLogWriter.PICK:
+                    List<Destination> rejected = new ArrayList<>();
+                    for (int n = events.get() & 0xff; n > 0; n--) {
+                        rejected.add(readDestination(events, graph));
+                    }
+                    state.handleDestinationSelection(
+                            state.getFirstFiveDestinations(), rejected);
+                    break;
+                case GameLogWriter.DRAW:
+                    state.drawTwoColoredCardsMove();
+                    break;
+                case GameLogWriter.ACQUIRE:
+                    state.addAcquiredConnectionMove(
+                            graph.getConnection(events.getInt()));
+                    break;
+                case GameLogWriter.ELIMINATE:
+                    state.removePlayer();
+                    break;
+                default:
+                    break; // scores do not change the state
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Rebuilds the game state right before the given move, the state the
+     * player making it was shown. Move getNumMoves() is the state after the
+     * last move.
+     *
+     * @throws IndexOutOfBoundsException if there is no such move
+     */
+    public RefereeGameState getStateBeforeMove(int move) {
+        if (move < 0 || move > this.moveEvents.length) {
+            throw new IndexOutOfBoundsException(
+                    "Log holds " + this.moveEvents.length + " moves, given " +
+                    move);
+        }
+        return this.getStateAfterEvents(move == this.moveEvents.length ?
+                                        this.eventStarts.length :
+                                        this.moveEvents[move]);
+    }
+
+    private static Destination readDestination(ByteBuffer in,
+                                               CompactGraph graph) {
+        int city0 = in.getShort() & 0xffff;
+        return graph.getDestination(city0, in.getShort() & 0xffff);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xffff];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rulebook that deals the logged cards and destinations in the order
+     * they were logged.
+     */
+    private static final class LoggedOrder implements IAdminStrategy {
+        private final List<Destination> destinations;
+
+        private LoggedOrder(List<Destination> destinations) {
+            this.destinations = destinations;
+        }
+
+        @Override
+        public List<Destination> orderDestinations(
+                List<Destination> allFeasible) {
+            return new ArrayList<>(this.destinations);
+        }
+
+        @Override
+        public List<ColorCard> orderColorCards(List<ColorCard> allCards) {
+            return allCards;
+        }
+    }
+}
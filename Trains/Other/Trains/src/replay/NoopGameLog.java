@@ -0,0 +1,42 @@
+package replay;
+
+import map.Destination;
+import map.DirectConnection;
+import map.TrainsMap;
+import state.RefereeGameState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GameLog that discards everything it is given.
+ */
+final class NoopGameLog implements GameLog {
+    @Override
+    public void start(TrainsMap map, int rails, RefereeGameState state) {
+    }
+
+    @Override
+    public void setup(String player) {
+    }
+
+    @Override
+    public void pick(List<Destination> rejected) {
+    }
+
+    @Override
+    public void draw() {
+    }
+
+    @Override
+    public void acquire(DirectConnection connection) {
+    }
+
+    @Override
+    public void eliminate(String player) {
+    }
+
+    @Override
+    public void scores(Map<String, Integer> scores) {
+    }
+}
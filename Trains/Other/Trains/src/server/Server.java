@@ -3,19 +3,21 @@ package server;
 import agent.IPlayer;
 import agent.Manager;
 import agent.PlayerProxy;
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import concurrent.Threads;
+import json.JsonConverter;
+import metrics.MetricsSink;
 import state.ColorCard;
 import strategy.OrderedDestSameCards;
+import transport.Connection;
+import transport.NioTransport;
+import transport.WireFormat;
 import xtasks.XManager;
 
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -26,19 +28,23 @@ import java.util.concurrent.atomic.AtomicReference;
  * implementations whose jobs are to listen for timer expirations (to indicate a
  * tournament may start) or new client connections (to register a player for a
  * tournament).
+ * <p>
+ * Clients are served by a NioTransport: registration and every call to a
+ * player run on a handful of event loop threads, however many players are
+ * connected.
  */
 public class Server {
 
     private static final int NAME_TIMEOUT_MS = 3_000;
     private static final int WAITING_PERIOD_MS = 20_000;
-    private static final JsonFactory JSON_FACTORY =
-            new JsonFactory(new ObjectMapper())
-                    .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false)
-                    .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    private static final int TRANSPORT_THREADS =
+            Math.min(4, Runtime.getRuntime().availableProcessors());
 
-    protected final ExecutorService executor = Executors.newCachedThreadPool();
+    protected final ExecutorService executor = Threads.newTaskExecutor();
 
-    private final ServerSocket socket;
+    private final ServerSocketChannel socket;
+    private final NioTransport transport;
+    private final CountDownLatch stopped = new CountDownLatch(1);
     private final Object lock = new Object();
     private final AtomicReference<TimerTask> timer = new AtomicReference<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
@@ -48,16 +54,33 @@ public class Server {
 
     private volatile boolean inSecondRound = false;
     private volatile boolean isTournamentRunning = false;
+    private volatile MetricsSink metrics = MetricsSink.NONE;
 
     public Server(String host, int port, List<ColorCard> cards) {
         this.cards = cards;
 
         try {
-            this.socket =
-                    new ServerSocket(port, 64, InetAddress.getByName(host));
+            this.socket = ServerSocketChannel.open().bind(
+                    new InetSocketAddress(InetAddress.getByName(host), port),
+                    64);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        this.transport = new NioTransport(TRANSPORT_THREADS);
+    }
+
+    /**
+     * Sets the sink the latencies of the tournament and of every player
+     * proxy are recorded in, MetricsSink.NONE by default. Must be set
+     * before {@link #start()}.
+     *
+     * @throws IllegalArgumentException if metrics is null
+     */
+    public void setMetricsSink(MetricsSink metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics sink cannot be null.");
+        }
+        this.metrics = metrics;
     }
 
     /**
@@ -66,26 +89,14 @@ public class Server {
      */
     public void start() {
         this.running.set(true);
-        final Future<?> registrationTask = this.executor.submit(() -> {
-            while (true) {
-                try {
-                    final Socket clientSocket = this.socket.accept();
-                    this.executor.submit(new RegistrationListener(clientSocket));
-                } catch (IOException e) {
-                    if (this.running.get()) {
-                        throw new RuntimeException(e);
-                    }
-                    return;
-                }
-            }
-        });
+        this.transport.listen(this.socket, this::onConnect);
         this.startTimer();
         try {
-            registrationTask.get();
+            this.stopped.await();
             if (!this.executor.awaitTermination(5, TimeUnit.SECONDS)) {
                 System.err.println("Executor didn't shut down properly.");
             }
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (InterruptedException e) {
             throw new RuntimeException(e);
         } finally {
             this.cancelAll();
@@ -113,6 +124,9 @@ public class Server {
             this.socket.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            this.transport.close();
+            this.stopped.countDown();
         }
     }
 
@@ -172,6 +186,7 @@ public class Server {
         this.isTournamentRunning = true;
         this.executor.submit(() -> {
             Manager manager = new Manager(this.players, this.cards, new OrderedDestSameCards());
+            manager.setMetricsSink(this.metrics);
             XManager.runTournamentAndDisplayResults(manager);
             this.cancelAll();
         });
@@ -207,67 +222,59 @@ public class Server {
     }
 
     /**
-     * Listens for registration from connected client sockets.
+     * Called on an event loop for every new client connection. Registers the
+     * client as a player once it sends its name, and disconnects it if the
+     * name does not arrive within the timeout, is invalid or no players are
+     * accepted anymore.
      */
-    private final class RegistrationListener implements Runnable {
-
-        private final Socket clientSocket;
-        private final AtomicBoolean didSendName = new AtomicBoolean(false);
-
-        private RegistrationListener(Socket clientSocket) {
-            this.clientSocket = clientSocket;
-        }
+    private void onConnect(Connection connection) {
+        connection.receive(NAME_TIMEOUT_MS).whenComplete((node, error) -> {
+            if (error != null) {
+                return; // timed out or disconnected, already closed
+            }
+            this.register(connection, node);
+        });
+    }
 
-        @Override
-        public void run() {
-            // Ensure that they send their name within the timeout period.
-            new Timer(true).schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    if (!RegistrationListener.this.didSendName.get()) {
-                        try {
-                            RegistrationListener.this.clientSocket.close();
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                }
-            }, NAME_TIMEOUT_MS);
+    /**
+     * Registers the client of a connection under the name it sent. A client
+     * may instead send an object with its "name" and the "wire-format" it
+     * requests, in which case everything after is exchanged in that format.
+     */
+    private void register(Connection connection, JsonNode registration) {
+        JsonNode nameNode = registration;
+        WireFormat format = WireFormat.JSON;
+        if (registration.isObject()) {
+            nameNode = registration.path(JsonConverter.NAME);
             try {
-                final JsonParser in = Server.JSON_FACTORY.createParser(
-                        this.clientSocket.getInputStream());
-                final JsonGenerator out = Server.JSON_FACTORY.createGenerator(
-                        this.clientSocket.getOutputStream());
-                in.nextValue();
-                String name = in.getValueAsString();
-                this.didSendName.set(true);
-                // locks access to Server fields, blocking other threads until completion
-                synchronized (Server.this.lock) {
-                    if (Server.this.running.get() &&
-                        Server.this.isNotTournamentRunning()) {
-                        while (Server.this.isDuplicatePlayerName(name)) {
-                            name = addPlayerNameSuffix(name);
-                        }
-                        final PlayerProxy player = new PlayerProxy(in, out, name);
-                        Server.this.onNewPlayer(player);
-                    } else {
-                        this.clientSocket.close();
-                    }
-                }
-            } catch (JsonParseException | IllegalArgumentException e) {
-                try {
-                    this.clientSocket.close();
-                } catch (IOException ignored) {
-                    //
+                format = WireFormat.forName(
+                        registration.path(JsonConverter.WIRE_FORMAT).asText());
+            } catch (IllegalArgumentException e) {
+                connection.close(); // unknown format
+                return;
+            }
+        }
+        // locks access to Server fields, blocking other threads until completion
+        synchronized (this.lock) {
+            if (nameNode.isTextual() && this.running.get() &&
+                this.isNotTournamentRunning()) {
+                String name = nameNode.asText();
+                while (this.isDuplicatePlayerName(name)) {
+                    name = addPlayerNameSuffix(name);
                 }
-            } catch (IOException e) {
                 try {
-                    this.clientSocket.close();
-                } catch (IOException ignored) {
-                    //
+                    final PlayerProxy player = new PlayerProxy(connection, name);
+                    player.setMetricsSink(this.metrics);
+                    player.setMapCacheEnabled(true);
+                    player.setStateDeltaEnabled(true);
+                    connection.setWireFormat(format);
+                    this.onNewPlayer(player);
+                    return;
+                } catch (IllegalArgumentException e) {
+                    // invalid name, disconnect below
                 }
-                throw new RuntimeException(e);
             }
         }
+        connection.close();
     }
 }
@@ -0,0 +1,267 @@
+package sim;
+
+import agent.Manager;
+import map.CompactGraph;
+import map.Destination;
+import map.DirectConnection;
+import map.TrainsMap;
+import state.ColorCard;
+import state.LegalMoves;
+import state.PlayerHand;
+import state.RefereeGameState;
+import state.Scoring;
+import strategy.IAdminStrategy;
+import strategy.IPlayerStrategy;
+import strategy.Move;
+import strategy.Pair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Plays complete games between in-process strategies directly on a
+ * RefereeGameState, skipping the IPlayer, PlayerAgent and protocol layers of
+ * a RefereeAgent game. The turn structure, the end of game conditions and
+ * the handling of misbehaving strategies are those of RefereeAgent, and all
+ * moves are validated by the RefereeGameState, so a simulated game has the
+ * same outcome as a RefereeAgent game with the same seed and players seated
+ * in the same order.
+ * <p>
+ * A GameSimulator resets a single RefereeGameState for every game it plays
+ * and is not thread safe; use one per thread, each with its own strategies.
+ * It keeps the legal moves of every seat up to date with each move, so the
+ * state it shows a strategy every turn copies them instead of rebuilding
+ * them from the owned connections.
+ */
+public final class GameSimulator {
+    private final List<IPlayerStrategy> strategies; // strategy of each seat
+    private final int rails;
+    private final RefereeGameState state;
+    private final CompactGraph graph;
+
+    // seats still in the game, in the order of the state's player hands
+    private final ArrayDeque<Integer> turnOrder;
+    private final boolean[] misbehaved;
+    private final LegalMoves[] legalMoves; // of each seat still in the game
+    private int numPlayersPlayedWithNoChange;
+    private int turns;
+
+    /**
+     * Creates a simulator for games between the given strategies.
+     *
+     * @param map        TrainsMap to play on
+     * @param cards      color cards of every game
+     * @param rulebook   to order cards and destinations
+     * @param strategies strategy of each seat, seat 0 is the oldest player
+     * @param rails      number of rails each player starts with
+     *
+     * @throws IllegalArgumentException if an argument is null, the number of
+     *                                  strategies is not allowed in a game or
+     *                                  the map has too few destinations
+     */
+    public GameSimulator(TrainsMap map, List<ColorCard> cards,
+                         IAdminStrategy rulebook,
+                         List<IPlayerStrategy> strategies, int rails) {
+        if (map == null || cards == null || rulebook == null ||
+            strategies == null) {
+            throw new IllegalArgumentException(
+                    "Arguments to GameSimulator cannot be null.");
+        }
+        for (IPlayerStrategy strategy : strategies) {
+            if (strategy == null) {
+                throw new IllegalArgumentException(
+                        "Strategies of a GameSimulator cannot be null.");
+            }
+        }
+        if (strategies.size() < Manager.SINGLE_GAME_MIN_PLAYERS ||
+            strategies.size() > Manager.SINGLE_GAME_MAX_PLAYERS) {
+            throw new IllegalArgumentException(
+                    "Invalid strategies: " + Manager.SINGLE_GAME_MIN_PLAYERS +
+                    " <= strategies.size() <= " +
+                    Manager.SINGLE_GAME_MAX_PLAYERS);
+        }
+        if (map.getNumFeasibleDestinations() < (strategies.size() * 2) + 3) {
+            throw new IllegalArgumentException(
+                    "Not enough destinations on given map for " +
+                    strategies.size() + " players");
+        }
+        this.strategies = new ArrayList<>(strategies);
+        this.rails = rails;
+        this.state = new RefereeGameState(map, cards, rulebook, 0L);
+        this.graph = map.getCompactGraph();
+        this.turnOrder = new ArrayDeque<>(strategies.size());
+        this.misbehaved = new boolean[strategies.size()];
+        this.legalMoves = new LegalMoves[strategies.size()];
+    }
+
+    /**
+     * @return number of seats in every game
+     */
+    public int getNumSeats() {
+        return this.strategies.size();
+    }
+
+    /**
+     * Plays a complete game drawing its randomness from the given seed and
+     * adds its outcome to the given report.
+     *
+     * @param seed   seed of the game's source of randomness
+     * @param report to record the outcome in, must have getNumSeats() seats
+     */
+    public void playGame(long seed, SimulationReport report) {
+        this.state.reset(seed);
+        this.turnOrder.clear();
+        Arrays.fill(this.misbehaved, false);
+        this.numPlayersPlayedWithNoChange = 0;
+        this.turns = 0;
+
+        for (int seat = 0; seat < this.strategies.size(); seat++) {
+            this.state.initializePlayerWithRailsAndDraw(this.rails);
+            this.turnOrder.addLast(seat);
+        }
+        this.handleDestinationChoices();
+        this.resetLegalMoves();
+        this.runTurns();
+        this.recordOutcome(report);
+    }
+
+    /**
+     * Offers the first five available destinations to each seat in turn, the
+     * same as RefereeAgent.handleDestinationChoices.
+     */
+    private void handleDestinationChoices() {
+        for (Integer seat : new ArrayList<>(this.turnOrder)) {
+            List<Destination> choices = this.state.getFirstFiveDestinations();
+            try {
+                Pair<Destination> chosen = this.strategies.get(seat)
+                        .chooseTwoDestinations(new HashSet<>(choices));
+                List<Destination> rejected = new ArrayList<>(choices);
+                rejected.remove(chosen.getFirst());
+                rejected.remove(chosen.getSecond());
+                this.state.handleDestinationSelection(choices, rejected);
+            } catch (Exception e) {
+                this.eliminate(seat);
+                if (this.turnOrder.size() == 1) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Plays turns until the game is over, the same as RefereeAgent.runTurns.
+     */
+    private void runTurns() {
+        while (!this.turnOrder.isEmpty() && !this.state.isNextRoundFinal() &&
+               this.numPlayersPlayedWithNoChange != this.turnOrder.size()) {
+            this.playTurn();
+        }
+        if (this.state.getNumRemainingAvailConnections() != 0 &&
+            this.state.getNumRemainingCards() > 0) {
+            for (int i = 0; i < this.turnOrder.size() - 1; i++) {
+                this.playTurn();
+                if (this.turnOrder.size() == 1) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Asks the current seat's strategy for a move and applies it, eliminating
+     * the seat if the strategy fails or the move is illegal.
+     */
+    private void playTurn() {
+        this.turns++;
+        int seat = this.turnOrder.removeFirst();
+        try {
+            Move<?> move = this.strategies.get(seat).makeMove(
+                    this.state.getCurrentPlayerGameState(
+                            this.legalMoves[seat]));
+            Object chosen = move.getMove();
+            if (chosen instanceof Boolean) {
+                List<ColorCard> drawn = this.state.drawTwoColoredCardsMove();
+                if (drawn.isEmpty()) {
+                    this.numPlayersPlayedWithNoChange++;
+                }
+                this.legalMoves[seat].addCards(drawn);
+                this.turnOrder.addLast(seat);
+            } else if (chosen instanceof DirectConnection) {
+                this.state.addAcquiredConnectionMove(
+                        (DirectConnection) chosen); // throws if illegal
+                int id = this.graph.getConnectionId((DirectConnection) chosen);
+                this.legalMoves[seat].acquire(id);
+                for (int other : this.turnOrder) {
+                    this.legalMoves[other].taken(id);
+                }
+                this.turnOrder.addLast(seat);
+            } else {
+                this.eliminate(seat);
+            }
+        } catch (Exception e) {
+            this.eliminate(seat);
+        }
+    }
+
+    /**
+     * Removes the current player from the game and marks their seat as
+     * misbehaving.
+     */
+    private void eliminate(int seat) {
+        this.state.removePlayer();
+        this.turnOrder.remove(seat);
+        this.misbehaved[seat] = true;
+        this.resetLegalMoves();
+    }
+
+    /**
+     * Derives the legal moves of every seat still in the game from the
+     * state, when the connections a seat may acquire change other than by a
+     * move: once the destinations are chosen, and when an eliminated seat's
+     * connections are freed.
+     */
+    private void resetLegalMoves() {
+        BitSet owned = this.state.getOwnedConnectionIds();
+        Iterator<PlayerHand> hands = this.state.getAllPlayerHands().iterator();
+        for (int seat : this.turnOrder) {
+            this.legalMoves[seat] =
+                    new LegalMoves(this.graph, owned, hands.next());
+        }
+    }
+
+    /**
+     * Scores the seats that finished the game and records the winners and
+     * misbehavers in the report.
+     */
+    private void recordOutcome(SimulationReport report) {
+        report.addGame(this.turns);
+        for (int seat = 0; seat < this.misbehaved.length; seat++) {
+            if (this.misbehaved[seat]) {
+                report.addMisbehavior(seat);
+            }
+        }
+        if (this.turnOrder.isEmpty()) {
+            return;
+        }
+
+        List<PlayerHand> hands = this.state.getAllPlayerHands();
+        int[] scores = Scoring.getScores(hands);
+        int maxScore = Integer.MIN_VALUE;
+        for (int score : scores) {
+            maxScore = Math.max(maxScore, score);
+        }
+        int i = 0;
+        for (int seat : this.turnOrder) {
+            report.addScore(seat, scores[i]);
+            if (scores[i] == maxScore) {
+                report.addWin(seat);
+            }
+            i++;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package sim;
+
+import map.TrainsMap;
+import state.ColorCard;
+import strategy.IAdminStrategy;
+import strategy.IPlayerStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs many simulated games between the same seats on several threads. Each
+ * thread plays on its own GameSimulator with its own strategies from the
+ * strategy supplier, takes the next game number from a shared counter and
+ * records into its own SimulationReport; the reports are merged once all
+ * games are played.
+ * <p>
+ * Game n is played with the seed gameSeed(seed, n), so the aggregate report
+ * is the same for any number of threads and any single game can be replayed
+ * from its seed.
+ */
+public final class Simulation {
+    private final TrainsMap map;
+    private final List<ColorCard> cards;
+    private final IAdminStrategy rulebook;
+    private final Supplier<List<IPlayerStrategy>> strategies;
+    private final int rails;
+
+    /**
+     * Creates a simulation of games on the given map.
+     *
+     * @param map        TrainsMap to play on
+     * @param cards      color cards of every game
+     * @param rulebook   to order cards and destinations, shared by all threads
+     * @param strategies creates the strategy of each seat for one thread,
+     *                   called once per thread
+     * @param rails      number of rails each player starts with
+     */
+    public Simulation(TrainsMap map, List<ColorCard> cards,
+                      IAdminStrategy rulebook,
+                      Supplier<List<IPlayerStrategy>> strategies, int rails) {
+        if (strategies == null) {
+            throw new IllegalArgumentException(
+                    "Strategy supplier cannot be null.");
+        }
+        this.map = map;
+        this.cards = cards;
+        this.rulebook = rulebook;
+        this.strategies = strategies;
+        this.rails = rails;
+    }
+
+    /**
+     * Gets the seed of game number n of a simulation with the given seed.
+     */
+    public static long gameSeed(long seed, long n) {
+        return new SplittableRandom(seed + n).nextLong();
+    }
+
+    /**
+     * Plays the given number of games and reports their aggregate outcome.
+     *
+     * @param numGames   number of games to play
+     * @param seed       seed all game seeds are derived from
+     * @param numThreads number of threads to play on
+     *
+     * @return the aggregate outcome, including games per second
+     *
+     * @throws IllegalArgumentException if numGames is negative or numThreads
+     *                                  is less than 1
+     */
+    public SimulationReport run(long numGames, long seed, int numThreads) {
+        if (numGames < 0 || numThreads < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid number of games " + numGames + " or threads " +
+                    numThreads);
+        }
+        // create every simulator up front so invalid arguments fail here
+        List<GameSimulator> simulators = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            simulators.add(new GameSimulator(this.map, this.cards,
+                    this.rulebook, this.strategies.get(), this.rails));
+        }
+        int numSeats = simulators.get(0).getNumSeats();
+        AtomicLong nextGame = new AtomicLong();
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        SimulationReport total = new SimulationReport(numSeats);
+        try {
+            List<Future<SimulationReport>> workers = new ArrayList<>();
+            for (GameSimulator simulator : simulators) {
+                workers.add(executor.submit(() -> {
+                    SimulationReport report =
+                            new SimulationReport(simulator.getNumSeats());
+                    for (long n = nextGame.getAndIncrement(); n < numGames;
+                         n = nextGame.getAndIncrement()) {
+                        simulator.playGame(gameSeed(seed, n), report);
+                    }
+                    return report;
+                }));
+            }
+            for (Future<SimulationReport> worker : workers) {
+                total.merge(worker.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        total.setElapsedNanos(System.nanoTime() - start);
+        return total;
+    }
+}
@@ -0,0 +1,158 @@
+package sim;
+
+/**
+ * Aggregate outcome of simulated games between a fixed set of seats. Every
+ * game counts a win for each seat with the highest score (ties are wins for
+ * all of them) and a misbehavior for each seat that was eliminated. Scores
+ * are averaged over the games a seat finished.
+ * <p>
+ * A report is a plain accumulator and is not thread safe; each simulating
+ * thread fills its own report and the reports are merged at the end.
+ */
+public final class SimulationReport {
+    private final int numSeats;
+    private final long[] wins;
+    private final long[] misbehaviors;
+    private final long[] totalScores;
+    private final long[] gamesFinished;
+    private long games;
+    private long turns;
+    private long elapsedNanos;
+
+    /**
+     * Creates an empty report.
+     *
+     * @param numSeats number of players in every game
+     */
+    public SimulationReport(int numSeats) {
+        this.numSeats = numSeats;
+        this.wins = new long[numSeats];
+        this.misbehaviors = new long[numSeats];
+        this.totalScores = new long[numSeats];
+        this.gamesFinished = new long[numSeats];
+    }
+
+    /**
+     * Records that a game was played with the given number of turns.
+     */
+    void addGame(int numTurns) {
+        this.games++;
+        this.turns += numTurns;
+    }
+
+    /**
+     * Records the final score of a seat that finished a game.
+     */
+    void addScore(int seat, int score) {
+        this.totalScores[seat] += score;
+        this.gamesFinished[seat]++;
+    }
+
+    /**
+     * Records a win for the given seat.
+     */
+    void addWin(int seat) {
+        this.wins[seat]++;
+    }
+
+    /**
+     * Records that the given seat was eliminated from a game.
+     */
+    void addMisbehavior(int seat) {
+        this.misbehaviors[seat]++;
+    }
+
+    /**
+     * Sets the wall clock time it took to play the games of this report.
+     */
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Adds the games recorded by other to this report. The elapsed time is
+     * not added, as the games of both reports may have been played at the
+     * same time.
+     *
+     * @throws IllegalArgumentException if the reports have different seats
+     */
+    void merge(SimulationReport other) {
+        if (other.numSeats != this.numSeats) {
+            throw new IllegalArgumentException(
+                    "Cannot merge reports of " + other.numSeats + " and " +
+                    this.numSeats + " seats");
+        }
+        this.games += other.games;
+        this.turns += other.turns;
+        for (int seat = 0; seat < this.numSeats; seat++) {
+            this.wins[seat] += other.wins[seat];
+            this.misbehaviors[seat] += other.misbehaviors[seat];
+            this.totalScores[seat] += other.totalScores[seat];
+            this.gamesFinished[seat] += other.gamesFinished[seat];
+        }
+    }
+
+    public int getNumSeats() {
+        return this.numSeats;
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    public long getWins(int seat) {
+        return this.wins[seat];
+    }
+
+    public long getMisbehaviors(int seat) {
+        return this.misbehaviors[seat];
+    }
+
+    /**
+     * @return the mean score of the seat over the games it finished, 0 if it
+     * finished none
+     */
+    public double getMeanScore(int seat) {
+        return this.gamesFinished[seat] == 0 ? 0 :
+               (double) this.totalScores[seat] / this.gamesFinished[seat];
+    }
+
+    /**
+     * @return the mean number of turns per game, 0 if no games were played
+     */
+    public double getMeanTurns() {
+        return this.games == 0 ? 0 : (double) this.turns / this.games;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * @return games played per second of wall clock time, 0 if no time was
+     * recorded
+     */
+    public double getGamesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 :
+               this.games * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Overridden toString to summarize the report, one line per seat.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("%d games in %.2fs (%.1f games/sec), " +
+                                    "%.1f turns per game%n", this.games,
+                this.elapsedNanos / 1e9, this.getGamesPerSecond(),
+                this.getMeanTurns()));
+        for (int seat = 0; seat < this.numSeats; seat++) {
+            result.append(String.format(
+                    "seat %d: %d wins, %d misbehaviors, mean score %.2f%n",
+                    seat, this.wins[seat], this.misbehaviors[seat],
+                    this.getMeanScore(seat)));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package state;
+
+import map.ColorTrains;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The referee's deck of remaining color cards. Cards are stored as ColorTrains
+ * ordinals in a byte[] that is consumed from the front by a read cursor, so
+ * drawing from the top of the deck is O(1) per card and never shifts or copies
+ * the remaining cards. The order of the deck is fixed on construction (for
+ * example by IAdminStrategy.orderColorCards); random deals use a partial
+ * Fisher-Yates shuffle of only the cards that are dealt.
+ */
+public final class CardDeck {
+    private static final ColorTrains[] COLORS = ColorTrains.values();
+
+    private byte[] cards;
+    private int cursor; // index of the top card
+
+    /**
+     * Creates a deck with the given cards, the first card of the list is the
+     * top of the deck.
+     *
+     * @param orderedCards cards in the order they are drawn
+     */
+    public CardDeck(List<ColorCard> orderedCards) {
+        this.cards = new byte[orderedCards.size()];
+        this.reset(orderedCards);
+    }
+
+    /**
+     * Replaces the contents of this deck with the given cards, reusing its
+     * storage when the number of cards is unchanged.
+     *
+     * @param orderedCards cards in the order they are drawn
+     */
+    public void reset(List<ColorCard> orderedCards) {
+        if (this.cards.length != orderedCards.size()) {
+            this.cards = new byte[orderedCards.size()];
+        }
+        for (int i = 0; i < this.cards.length; i++) {
+            this.cards[i] = (byte) orderedCards.get(i).getColor().ordinal();
+        }
+        this.cursor = 0;
+    }
+
+    /**
+     * @return number of cards remaining in the deck
+     */
+    public int size() {
+        return this.cards.length - this.cursor;
+    }
+
+    /**
+     * @return true if there are no cards remaining
+     */
+    public boolean isEmpty() {
+        return this.cursor == this.cards.length;
+    }
+
+    /**
+     * @return the remaining cards in the order they are drawn
+     */
+    public List<ColorCard> toList() {
+        List<ColorCard> remaining = new ArrayList<>(this.size());
+        for (int i = this.cursor; i < this.cards.length; i++) {
+            remaining.add(ColorCard.of(COLORS[this.cards[i]]));
+        }
+        return remaining;
+    }
+
+    /**
+     * @return the position of the top card, to rewind to later
+     */
+    public int getPosition() {
+        return this.cursor;
+    }
+
+    /**
+     * Puts back every card drawn from the top of the deck since it was at the
+     * given position. Only valid if no cards were dealt at random since.
+     *
+     * @throws IllegalArgumentException if the position is after the top card
+     */
+    public void rewind(int position) {
+        if (position < 0 || position > this.cursor) {
+            throw new IllegalArgumentException(
+                    "Unable to rewind to " + position + ", top card is at " +
+                    this.cursor);
+        }
+        this.cursor = position;
+    }
+
+    /**
+     * Removes and returns the top card of the deck.
+     *
+     * @throws IllegalStateException if the deck is empty
+     */
+    public ColorCard draw() {
+        if (this.isEmpty()) {
+            throw new IllegalStateException("Unable to draw, deck is empty");
+        }
+        return ColorCard.of(COLORS[this.cards[this.cursor++]]);
+    }
+
+    /**
+     * Removes n cards chosen uniformly at random from the remaining cards and
+     * adds one to the count of each dealt card's color. Only the n dealt
+     * positions are shuffled (a partial Fisher-Yates shuffle), the relative
+     * order of the other cards may change.
+     *
+     * @param counts per color counts indexed by ColorTrains.ordinal()
+     * @param n      number of cards to deal
+     * @param random source of randomness
+     *
+     * @throws IllegalArgumentException if fewer than n cards remain
+     */
+    public void dealRandomInto(int[] counts, int n,
+                               SplittableRandom random) {
+        int remaining = this.size();
+        if (remaining < n) {
+            throw new IllegalArgumentException(
+                    "Unable to deal " + n + " cards, " + remaining +
+                    " remaining");
+        }
+        for (int i = 0; i < n; i++) {
+            int j = this.cursor + random.nextInt(remaining - i);
+            byte card = this.cards[j];
+            this.cards[j] = this.cards[this.cursor];
+            this.cards[this.cursor++] = card;
+            counts[card]++;
+        }
+    }
+}
@@ -6,6 +6,16 @@ import map.ColorTrains;
  * Class to represent Colored Card objects in the game state
  */
 public class ColorCard {
+    private static final ColorCard[] CARDS;
+
+    static {
+        ColorTrains[] colors = ColorTrains.values();
+        CARDS = new ColorCard[colors.length];
+        for (ColorTrains color : colors) {
+            CARDS[color.ordinal()] = new ColorCard(color);
+        }
+    }
+
     private final ColorTrains color;
 
     /**
@@ -20,6 +30,17 @@ public class ColorCard {
 
     }
 
+    /**
+     * Returns the shared ColorCard of the given color. ColorCards are
+     * immutable so one instance per color is enough.
+     */
+    public static ColorCard of(ColorTrains ct) {
+        if (ct == null) {
+            throw new IllegalArgumentException();
+        }
+        return CARDS[ct.ordinal()];
+    }
+
     /**
      * Getter to get this ColorCard's color as ColorTrains
      */
@@ -0,0 +1,208 @@
+package state;
+
+import map.Destination;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The referee's deck of available destinations. The deck is ordered once per
+ * game (for example by IAdminStrategy.orderDestinations) and then never
+ * reordered: destinations given to players are only marked as removed, and a
+ * cursor skips over the removed prefix. Peeking at the first n available
+ * destinations, removing a destination and drawing a random destination are
+ * therefore O(1) amortized, instead of re-ordering the whole list for every
+ * player. The relative order of the available destinations never changes, so
+ * the first n available destinations are the same as those of the ordered
+ * list with the removed destinations taken out.
+ */
+public final class DestinationDeck {
+    private Destination[] order;
+    private boolean[] removed;
+    private final Map<Destination, Integer> positions;
+    private int cursor; // index of the first available destination
+    private int size; // number of available destinations
+
+    /**
+     * Creates a deck with the given destinations, the first destination of the
+     * list is the top of the deck.
+     *
+     * @param orderedDestinations distinct destinations in the order they are
+     *                            offered
+     *
+     * @throws IllegalArgumentException if a destination occurs twice
+     */
+    public DestinationDeck(List<Destination> orderedDestinations) {
+        this.order = new Destination[orderedDestinations.size()];
+        this.removed = new boolean[this.order.length];
+        this.positions = new HashMap<>(this.order.length * 2);
+        this.fill(orderedDestinations);
+    }
+
+    /**
+     * Makes all the given destinations available again in the given order,
+     * reusing this deck's storage when the number of destinations is
+     * unchanged.
+     *
+     * @param orderedDestinations distinct destinations in the order they are
+     *                            offered
+     *
+     * @throws IllegalArgumentException if a destination occurs twice
+     */
+    public void reset(List<Destination> orderedDestinations) {
+        if (this.order.length != orderedDestinations.size()) {
+            this.order = new Destination[orderedDestinations.size()];
+            this.removed = new boolean[this.order.length];
+            this.positions.clear();
+        } else {
+            Arrays.fill(this.removed, false);
+        }
+        this.fill(orderedDestinations);
+    }
+
+    /**
+     * Copies the given destinations into the (cleared) backing arrays and
+     * indexes their positions. Position entries left from before a reset are
+     * overwritten, and dropped if any of them are stale.
+     */
+    private void fill(List<Destination> orderedDestinations) {
+        for (int i = 0; i < this.order.length; i++) {
+            this.order[i] = orderedDestinations.get(i);
+            Integer previous = this.positions.put(this.order[i], i);
+            // an earlier slot of this fill holding the same destination
+            if (previous != null && previous < i &&
+                this.order[previous].equals(this.order[i])) {
+                throw new IllegalArgumentException(
+                        "Duplicate destination in deck: " + this.order[i]);
+            }
+        }
+        if (this.positions.size() != this.order.length) { // stale entries
+            this.positions.clear();
+            for (int i = 0; i < this.order.length; i++) {
+                this.positions.put(this.order[i], i);
+            }
+        }
+        this.cursor = 0;
+        this.size = this.order.length;
+    }
+
+    /**
+     * @return number of destinations still available
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return true if the given destination is still available
+     */
+    public boolean contains(Destination destination) {
+        Integer position = this.positions.get(destination);
+        return position != null && !this.removed[position];
+    }
+
+    /**
+     * Gets the first n available destinations in deck order without removing
+     * them.
+     *
+     * @param n number of destinations to get
+     *
+     * @return the first n available destinations
+     *
+     * @throws IllegalArgumentException if fewer than n destinations remain
+     */
+    public List<Destination> peek(int n) {
+        if (this.size < n) {
+            throw new IllegalArgumentException(
+                    "Unable to get " + n + " destinations, " + this.size +
+                    " remaining");
+        }
+        List<Destination> result = new ArrayList<>(n);
+        for (int i = this.cursor; result.size() < n; i++) {
+            if (!this.removed[i]) {
+                result.add(this.order[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the given destination from the available destinations.
+     *
+     * @return true if the destination was available
+     */
+    public boolean remove(Destination destination) {
+        Integer position = this.positions.get(destination);
+        if (position == null || this.removed[position]) {
+            return false;
+        }
+        this.removed[position] = true;
+        this.size--;
+        while (this.cursor < this.order.length && this.removed[this.cursor]) {
+            this.cursor++;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all the given destinations from the available destinations.
+     */
+    public void removeAll(Collection<Destination> destinations) {
+        for (Destination d : destinations) {
+            this.remove(d);
+        }
+    }
+
+    /**
+     * Removes and returns an available destination chosen uniformly at random.
+     * Positions are sampled until an available one is found; the deck is
+     * compacted whenever fewer than half of the sampled positions are
+     * available, so the expected number of samples stays below two.
+     *
+     * @param random source of randomness
+     *
+     * @throws IllegalArgumentException if no destinations remain
+     */
+    public Destination drawRandom(SplittableRandom random) {
+        if (this.size == 0) {
+            throw new IllegalArgumentException(
+                    "Unable to draw, no destinations remaining");
+        }
+        if (this.size * 2 < this.order.length - this.cursor) {
+            this.compact();
+        }
+        int i;
+        do {
+            i = this.cursor + random.nextInt(this.order.length - this.cursor);
+        } while (this.removed[i]);
+        Destination drawn = this.order[i];
+        this.remove(drawn);
+        return drawn;
+    }
+
+    /**
+     * @return the available destinations in deck order
+     */
+    public List<Destination> toList() {
+        return this.peek(this.size);
+    }
+
+    /**
+     * Drops removed destinations from the backing arrays, keeping the order of
+     * the available ones.
+     */
+    private void compact() {
+        this.order = this.toList().toArray(new Destination[0]);
+        this.removed = new boolean[this.order.length];
+        this.positions.clear();
+        for (int i = 0; i < this.order.length; i++) {
+            this.positions.put(this.order[i], i);
+        }
+        this.cursor = 0;
+    }
+}
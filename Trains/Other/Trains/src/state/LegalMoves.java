@@ -0,0 +1,200 @@
+package state;
+
+import map.ColorTrains;
+import map.CompactGraph;
+import map.DirectConnection;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Generates the connections a player can acquire: those nobody owns, of a
+ * color the player has at least as many cards of as their length, and no
+ * longer than the player's rails.
+ * <p>
+ * Connections are kept as ids of the map's CompactGraph, which follow the
+ * natural (lexicographic) order of DirectConnection, so the first acquirable
+ * id is the first acquirable connection in lexicographic order. Whether a
+ * connection is acquirable only depends on its color and length, so the
+ * acquirable set is the union of the graph's color and length buckets the
+ * player can pay for, minus the connections that are owned.
+ * <p>
+ * A LegalMoves is updated in place as connections are acquired and cards
+ * drawn. An update only adds or removes the buckets whose affordability
+ * changed, so a strategy looking ahead need not recompute the set. Instances
+ * are not safe to share between threads, see copy().
+ */
+public final class LegalMoves {
+    private static final ColorTrains[] COLORS = ColorTrains.values();
+    private static final int MIN_LENGTH = 3;
+    private static final int MAX_LENGTH = 5;
+
+    private final CompactGraph graph;
+    private final BitSet available; // connections nobody owns
+    private final BitSet acquirable; // available and affordable connections
+    private final int[] cardCounts; // indexed by ColorTrains.ordinal()
+    private int rails;
+
+    /**
+     * Creates the legal moves of a player with the given hand, on a map whose
+     * owned connections are given.
+     *
+     * @param graph the CompactGraph of the map
+     * @param owned ids of the connections owned by any player
+     * @param hand  the hand of the player
+     */
+    public LegalMoves(CompactGraph graph, BitSet owned, PlayerHand hand) {
+        this.graph = graph;
+        this.available = new BitSet(graph.getNumConnections());
+        this.available.set(0, graph.getNumConnections());
+        this.available.andNot(owned);
+        this.acquirable = new BitSet(graph.getNumConnections());
+        this.cardCounts = new int[COLORS.length];
+        for (ColorTrains color : COLORS) {
+            this.cardCounts[color.ordinal()] = hand.getCardCount(color);
+        }
+        this.rails = hand.getRails();
+        for (int color = 0; color < COLORS.length; color++) {
+            for (int length = MIN_LENGTH; length <= MAX_LENGTH; length++) {
+                if (this.canPay(color, length)) {
+                    this.addBucket(color, length);
+                }
+            }
+        }
+    }
+
+    private LegalMoves(LegalMoves other) {
+        this.graph = other.graph;
+        this.available = (BitSet) other.available.clone();
+        this.acquirable = (BitSet) other.acquirable.clone();
+        this.cardCounts = other.cardCounts.clone();
+        this.rails = other.rails;
+    }
+
+    /**
+     * @return a copy of these legal moves, which is updated independently
+     */
+    public LegalMoves copy() {
+        return new LegalMoves(this);
+    }
+
+    /**
+     * @return ids of every acquirable connection, a copy the caller may
+     * modify
+     */
+    public BitSet getAcquirableIds() {
+        return (BitSet) this.acquirable.clone();
+    }
+
+    /**
+     * @return whether the connection with the given id is acquirable
+     */
+    public boolean isAcquirable(int connectionId) {
+        return this.acquirable.get(connectionId);
+    }
+
+    /**
+     * @return the id of the first acquirable connection at or after the given
+     * id, or -1 if there is none
+     */
+    public int nextAcquirable(int fromId) {
+        return this.acquirable.nextSetBit(fromId);
+    }
+
+    /**
+     * @return the lexicographically first acquirable connection, or null if
+     * no connection is acquirable
+     */
+    public DirectConnection getFirstAcquirable() {
+        int id = this.acquirable.nextSetBit(0);
+        return id == -1 ? null : this.graph.getConnection(id);
+    }
+
+    /**
+     * @return number of acquirable connections
+     */
+    public int getNumAcquirable() {
+        return this.acquirable.cardinality();
+    }
+
+    /**
+     * Updates these moves after the player acquired the connection with the
+     * given id, paying its length in rails and cards of its color.
+     *
+     * @throws IllegalArgumentException if the connection is not acquirable
+     */
+    public void acquire(int connectionId) {
+        if (!this.acquirable.get(connectionId)) {
+            throw new IllegalArgumentException(
+                    "Connection is not acquirable: " +
+                    this.graph.getConnection(connectionId));
+        }
+        int color = this.graph.getColor(connectionId);
+        int length = this.graph.getLength(connectionId);
+        this.taken(connectionId);
+        int[] before = this.cardCounts.clone();
+        int railsBefore = this.rails;
+        this.cardCounts[color] -= length;
+        this.rails -= length;
+        for (int c = 0; c < COLORS.length; c++) {
+            for (int l = MIN_LENGTH; l <= MAX_LENGTH; l++) {
+                if (l <= railsBefore && l <= before[c] && !this.canPay(c, l)) {
+                    this.removeBucket(c, l);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates these moves after another player acquired the connection with
+     * the given id.
+     */
+    public void taken(int connectionId) {
+        this.available.clear(connectionId);
+        this.acquirable.clear(connectionId);
+    }
+
+    /**
+     * Updates these moves after the player drew the given cards.
+     */
+    public void addCards(List<ColorCard> cards) {
+        for (ColorCard card : cards) {
+            this.addCards(card.getColor(), 1);
+        }
+    }
+
+    /**
+     * Updates these moves after the player drew the given number of cards of
+     * the given color.
+     */
+    public void addCards(ColorTrains color, int count) {
+        int c = color.ordinal();
+        int before = this.cardCounts[c];
+        this.cardCounts[c] += count;
+        for (int l = MIN_LENGTH; l <= MAX_LENGTH; l++) {
+            if (l > before && this.canPay(c, l)) {
+                this.addBucket(c, l);
+            }
+        }
+    }
+
+    private boolean canPay(int color, int length) {
+        return length <= this.rails && length <= this.cardCounts[color];
+    }
+
+    private void addBucket(int color, int length) {
+        for (int e = this.graph.nextConnectionOf(color, length, 0); e != -1;
+             e = this.graph.nextConnectionOf(color, length, e + 1)) {
+            if (this.available.get(e)) {
+                this.acquirable.set(e);
+            }
+        }
+    }
+
+    private void removeBucket(int color, int length) {
+        for (int e = this.graph.nextConnectionOf(color, length, 0); e != -1;
+             e = this.graph.nextConnectionOf(color, length, e + 1)) {
+            this.acquirable.clear(e);
+        }
+    }
+}
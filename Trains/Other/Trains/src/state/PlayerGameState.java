@@ -4,16 +4,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import map.ColorTrains;
+import map.CompactGraph;
 import map.Destination;
 import map.DirectConnection;
 import map.TrainsMap;
 import strategy.Pair;
 
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -32,9 +33,13 @@ public class PlayerGameState {
     // protocol for registering players
     private final TrainsMap trainsMap;
     private final PlayerHand playerHand;
-    private final LinkedList<HashSet<DirectConnection>> allOwnedConnections;
-    // HashSet<DirectConnection> represents the Direct Connections owned by
-    // that player
+    private final List<Set<DirectConnection>> allOwnedConnections;
+    // Set<DirectConnection> represents the Direct Connections owned by that
+    // player
+    private final BitSet ownedConnectionIds;
+    // bit e is set when connection e of the map's CompactGraph is owned
+    private volatile LegalMoves legalMoves;
+    // created on first use, or derived from the state this one was made from
 
     /**
      * Constructor for PlayerGameState, all fields are final so the Referee must
@@ -45,10 +50,37 @@ public class PlayerGameState {
      * @param allOwnedConnections given
      */
     public PlayerGameState(TrainsMap map, PlayerHand playerHand,
-                           LinkedList<HashSet<DirectConnection>> allOwnedConnections) {
+                           List<? extends Set<DirectConnection>> allOwnedConnections) {
         this.trainsMap = map;
         this.playerHand = playerHand;
-        this.allOwnedConnections = allOwnedConnections;
+        this.allOwnedConnections =
+                Collections.unmodifiableList(allOwnedConnections);
+        this.ownedConnectionIds = new BitSet();
+        CompactGraph graph = map.getCompactGraph();
+        for (Set<DirectConnection> set : allOwnedConnections) {
+            for (DirectConnection dc : set) {
+                int id = graph.getConnectionId(dc);
+                if (id != -1) {
+                    this.ownedConnectionIds.set(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor for a PlayerGameState whose owned connection ids and legal
+     * moves are already known, which it takes over rather than derives from
+     * allOwnedConnections. The caller must not modify them afterwards.
+     */
+    PlayerGameState(TrainsMap map, PlayerHand playerHand,
+                    List<? extends Set<DirectConnection>> allOwnedConnections,
+                    BitSet ownedConnectionIds, LegalMoves legalMoves) {
+        this.trainsMap = map;
+        this.playerHand = playerHand;
+        this.allOwnedConnections =
+                Collections.unmodifiableList(allOwnedConnections);
+        this.ownedConnectionIds = ownedConnectionIds;
+        this.legalMoves = legalMoves;
     }
 
     /**
@@ -56,7 +88,7 @@ public class PlayerGameState {
      * used by the referee class when creating a new updated player game state.
      */
     public PlayerGameState newPGSDefaultMap(PlayerHand playerHand,
-                                            LinkedList<HashSet<DirectConnection>> ownedConnections) {
+                                            List<? extends Set<DirectConnection>> ownedConnections) {
         return new PlayerGameState(this.trainsMap, playerHand,
                 ownedConnections);
     }
@@ -77,23 +109,26 @@ public class PlayerGameState {
      */
     public PlayerGameState addCards(List<ColorCard> cards) {
         PlayerHand withAddedCards = this.playerHand.addCards(cards);
-        return newPGSDefaultMap(withAddedCards, this.allOwnedConnections);
+        PlayerGameState withCards =
+                newPGSDefaultMap(withAddedCards, this.allOwnedConnections);
+        LegalMoves moves = this.legalMoves;
+        if (moves != null) {
+            moves = moves.copy();
+            moves.addCards(cards);
+            withCards.legalMoves = moves;
+        }
+        return withCards;
     }
 
     /**
      * Get a copy of this player game state, used to expose an unassociated copy
-     * of this method this.trainsMap is final and other getters return copies or
-     * immutable values
+     * of this method this.trainsMap is final and other getters return
+     * read-only views or immutable values
      *
      * @return copy of the PlayerGameState
      */
     public PlayerGameState getCopy() {
-        PlayerHand copyPH =
-                new PlayerHand(this.playerHand.getOwnedConnections(),
-                        this.playerHand.getColorCardCount(),
-                        this.playerHand.getRails(),
-                        this.playerHand.getDestinations());
-        return new PlayerGameState(this.trainsMap, copyPH,
+        return new PlayerGameState(this.trainsMap, this.playerHand.getCopy(),
                 this.allOwnedConnections);
     }
 
@@ -113,27 +148,41 @@ public class PlayerGameState {
      * @return unmodifiable map of Integer to HashSet of Direct Connections
      */
     public List<Set<DirectConnection>> getAllOwnedConnections() {
-        return Collections.unmodifiableList(this.allOwnedConnections);
+        return this.allOwnedConnections;
     }
 
     /**
-     * Getter for the current HashSet of owned connections by this player
+     * Getter for the current Set of owned connections by this player
      *
-     * @return HashSet
+     * @return read-only Set
      */
-    public HashSet<DirectConnection> getOwnedConnections() {
+    public Set<DirectConnection> getOwnedConnections() {
         return this.playerHand.getOwnedConnections();
     }
 
     /**
      * Getter for this.colorCardCount
      *
-     * @return a mapping of color to number of cards
+     * @return a read-only mapping of color to number of cards
      */
-    public HashMap<ColorTrains, Integer> getCardsMap() {
+    public Map<ColorTrains, Integer> getCardsMap() {
         return this.playerHand.getColorCardCount();
     }
 
+    /**
+     * @return number of cards of the given color held by this player
+     */
+    public int getCardCount(ColorTrains color) {
+        return this.playerHand.getCardCount(color);
+    }
+
+    /**
+     * @return number of cards of any color held by this player
+     */
+    public int getTotalCards() {
+        return this.playerHand.getTotalCards();
+    }
+
     /**
      * Getter for this PGS's number of remaining rails
      *
@@ -159,28 +208,59 @@ public class PlayerGameState {
      * acquired yet
      */
     public Set<DirectConnection> determineAvailableConnections() {
-        HashSet<DirectConnection> ownedConnectionsFlat = new HashSet<>();
+        CompactGraph graph = this.trainsMap.getCompactGraph();
+        Set<DirectConnection> available = new HashSet<>();
+        for (int e = this.ownedConnectionIds.nextClearBit(0);
+             e < graph.getNumConnections();
+             e = this.ownedConnectionIds.nextClearBit(e + 1)) {
+            available.add(graph.getConnection(e));
+        }
+        return available;
+    }
+
+    /**
+     * Gets the legal moves of this player, for a strategy to enumerate and
+     * update while looking ahead.
+     *
+     * @return a copy of the legal moves of this state
+     */
+    public LegalMoves getLegalMoves() {
+        return this.legalMovesOfState().copy();
+    }
+
+    /**
+     * @return ids in the map's CompactGraph of every connection this player
+     * can acquire, in a set the caller may modify
+     */
+    public BitSet getAcquirableConnectionIds() {
+        return this.legalMovesOfState().getAcquirableIds();
+    }
+
+    /**
+     * @return the lexicographically first connection this player can acquire,
+     * or null if there is none
+     */
+    public DirectConnection getFirstAcquirableConnection() {
+        return this.legalMovesOfState().getFirstAcquirable();
+    }
 
-        for (HashSet<DirectConnection> set : this.allOwnedConnections) {
-            ownedConnectionsFlat.addAll(set);
+    private LegalMoves legalMovesOfState() {
+        LegalMoves moves = this.legalMoves;
+        if (moves == null) {
+            moves = new LegalMoves(this.trainsMap.getCompactGraph(),
+                    this.ownedConnectionIds, this.playerHand);
+            this.legalMoves = moves;
         }
-        Set<DirectConnection> allConnections =
-                this.trainsMap.getDirectConnections();
-        //find the set difference between list of all connections and all
-        // owned connections to get all available
-        allConnections.removeIf(ownedConnectionsFlat::contains);
-        return allConnections;
+        return moves;
     }
 
     /**
      * Method to determine if this PlayerGameState is able to acquire the given
      */
     public boolean canAcquire(DirectConnection dc) {
-        Set<DirectConnection> openConnections = determineAvailableConnections();
-        if (!openConnections.contains(
-                dc)) {// if the connection is already owned or invalid,
-            // return false
-            return false;
+        int id = this.trainsMap.getCompactGraph().getConnectionId(dc);
+        if (id == -1 || this.ownedConnectionIds.get(id)) {
+            return false; // connection is invalid or already owned
         }
         return this.playerHand.hasSufficientRailsAndCards(dc);
     }
@@ -194,10 +274,9 @@ public class PlayerGameState {
         result.append("PGS: ");
 
         result.append("Color Cards: ");
-        Set<ColorTrains> colors = this.playerHand.getColorCardCount().keySet();
-        for (ColorTrains color : colors) {
+        for (ColorTrains color : ColorTrains.values()) {
             result.append(color + ": ");
-            result.append(this.playerHand.getColorCardCount().get(color) + " ");
+            result.append(this.playerHand.getCardCount(color) + " ");
         }
 
         result.append("rails: " + this.playerHand.getRails() + " ");
@@ -8,15 +8,14 @@ import map.Destination;
 import map.DirectConnection;
 import strategy.Pair;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Represents board game information specific to a player and not viewable to
@@ -24,15 +23,25 @@ import java.util.stream.Collectors;
  * this class will be maintained by the Referee to ensure validity of moves.
  * Represents the PRIVATE info about a player whereas PGS represents PRIVATE +
  * PUBLIC info about a player
+ * <p>
+ * A PlayerHand is immutable. Card counts are kept in an int[] indexed by
+ * ColorTrains.ordinal(), the owned connections in a read-only set and the
+ * destinations in a read-only list, all of which are shared (not copied) by
+ * every hand derived from this one that does not change them. Getters return
+ * read-only views.
  */
 public class PlayerHand {
-    // HashSet<DirectConnection> represents the Direct Connections owned by
-    // that player
-    private final HashSet<DirectConnection> ownedConnections;
-    private final HashMap<ColorTrains, Integer> colorCardCount;
+    private static final ColorTrains[] COLORS = ColorTrains.values();
+
+    // read-only Set<DirectConnection> of the Direct Connections owned by that
+    // player, shared between hands
+    private final Set<DirectConnection> ownedConnections;
+    private final int[] cardCounts; // never mutated after construction
     private final int rails;
     private final List<Destination> destinations;
-            // List to avoid null before picking destinations
+            // read-only List to avoid null before picking destinations
+    private Map<ColorTrains, Integer> colorCardCountView;
+            // created on first call to getColorCardCount
 
     /**
      * Main Constructor for a new PlayerHand
@@ -41,18 +50,38 @@ public class PlayerHand {
      * @param colorCards       map of color to num cards available to this
      * @param rails            initial number of rails
      * @param destinations     the chosen destinations, initialized as empty
-     *                         list before choosing
+     *                         list before choosing, copied unless read-only
      */
     public PlayerHand(Set<DirectConnection> ownedConnections,
                       Map<ColorTrains, Integer> colorCards, int rails,
                       List<Destination> destinations) {
-        this.ownedConnections = new HashSet<>(ownedConnections);
         if (!colorCardsIsValid(colorCards)) {
             throw new IllegalArgumentException(
                     "Colored cards input must have an entry for each " +
                     "color RED, GREEN, BLUE, or WHITE and values >= 0");
         }
-        this.colorCardCount = new HashMap<>(colorCards);
+        this.ownedConnections =
+                Collections.unmodifiableSet(new HashSet<>(ownedConnections));
+        this.cardCounts = new int[COLORS.length];
+        for (ColorTrains color : COLORS) {
+            this.cardCounts[color.ordinal()] = colorCards.get(color);
+        }
+        this.rails = rails;
+        // shares a list that is already read-only, such as one of another
+        // hand's
+        this.destinations = List.copyOf(destinations);
+    }
+
+    /**
+     * Constructor for hands derived from an existing hand, takes ownership of
+     * the given (already read-only) set, array and list without copying
+     * them.
+     */
+    private PlayerHand(Set<DirectConnection> ownedConnections,
+                       int[] cardCounts, int rails,
+                       List<Destination> destinations) {
+        this.ownedConnections = ownedConnections;
+        this.cardCounts = cardCounts;
         this.rails = rails;
         this.destinations = destinations;
     }
@@ -68,14 +97,9 @@ public class PlayerHand {
      */
     public static PlayerHand initializePlayerHand(int rails,
                                                   List<ColorCard> cards) {
-        HashMap<ColorTrains, Integer> emptyCardsMap = new HashMap<>();
-        emptyCardsMap.put(ColorTrains.RED, 0);
-        emptyCardsMap.put(ColorTrains.GREEN, 0);
-        emptyCardsMap.put(ColorTrains.BLUE, 0);
-        emptyCardsMap.put(ColorTrains.WHITE, 0);
-        return new PlayerHand(new HashSet<>(),
-                addColorCardArrayToCountMap(emptyCardsMap, cards), rails,
-                new ArrayList<>());
+        return new PlayerHand(Collections.emptySet(),
+                addCardCounts(new int[COLORS.length], cards), rails,
+                List.of());
     }
 
     /**
@@ -84,34 +108,23 @@ public class PlayerHand {
     public static HashMap<ColorTrains, Integer> addColorCardArrayToCountMap(
             HashMap<ColorTrains, Integer> initialCardsMap,
             List<ColorCard> cards) {
-
         for (ColorCard c : cards) { // for each card in the array, add1 to
             // existing count in map
-            switch (c.getColor()) {
-                case RED:
-                    initialCardsMap.put(ColorTrains.RED,
-                            initialCardsMap.get(ColorTrains.RED) + 1);
-                    break;
-                case BLUE:
-                    initialCardsMap.put(ColorTrains.BLUE,
-                            initialCardsMap.get(ColorTrains.BLUE) + 1);
-                    break;
-                case GREEN:
-                    initialCardsMap.put(ColorTrains.GREEN,
-                            initialCardsMap.get(ColorTrains.GREEN) + 1);
-                    break;
-                case WHITE:
-                    initialCardsMap.put(ColorTrains.WHITE,
-                            initialCardsMap.get(ColorTrains.WHITE) + 1);
-                    break;
-                default:
-                    throw new IllegalArgumentException(
-                            "Invalid Color passed to " +
-                            "initializePlayerHand: " + c.getColor());
-            }
+            initialCardsMap.merge(c.getColor(), 1, Integer::sum);
         }
         return initialCardsMap;
+    }
 
+    /**
+     * Adds the given cards to the given counts indexed by color ordinal.
+     *
+     * @return the given counts array
+     */
+    private static int[] addCardCounts(int[] counts, List<ColorCard> cards) {
+        for (ColorCard c : cards) {
+            counts[c.getColor().ordinal()]++;
+        }
+        return counts;
     }
 
     /**
@@ -119,10 +132,9 @@ public class PlayerHand {
      */
     public static HashMap<ColorTrains, Integer> getEmptyCardsMap() {
         HashMap<ColorTrains, Integer> cardsMap = new HashMap<>();
-        cardsMap.put(ColorTrains.RED, 0);
-        cardsMap.put(ColorTrains.GREEN, 0);
-        cardsMap.put(ColorTrains.BLUE, 0);
-        cardsMap.put(ColorTrains.WHITE, 0);
+        for (ColorTrains color : COLORS) {
+            cardsMap.put(color, 0);
+        }
         return cardsMap;
     }
 
@@ -130,22 +142,19 @@ public class PlayerHand {
      * Return a copy of this PlayerHand with the given cards array added.
      */
     public PlayerHand addCards(List<ColorCard> cards) {
-        HashMap<ColorTrains, Integer> currentCards =
-                new HashMap<>(this.colorCardCount);
-        HashMap<ColorTrains, Integer> updatedCards =
-                addColorCardArrayToCountMap(currentCards, cards);
-        return new PlayerHand(this.getOwnedConnections(), updatedCards,
-                this.rails, this.destinations);
+        int[] updatedCards = addCardCounts(this.cardCounts.clone(), cards);
+        return new PlayerHand(this.ownedConnections, updatedCards, this.rails,
+                this.destinations);
     }
 
     /**
      * Return a copy of this PlayerHand with the given destinations added.
      */
     public PlayerHand addDestinations(Pair<Destination> chosenDests) {
-        List<Destination> chosenList = new ArrayList<>(
-                Arrays.asList(chosenDests.getFirst(), chosenDests.getSecond()));
-        return new PlayerHand(this.getOwnedConnections(),
-                this.getColorCardCount(), this.rails, chosenList);
+        List<Destination> chosenList =
+                List.of(chosenDests.getFirst(), chosenDests.getSecond());
+        return new PlayerHand(this.ownedConnections, this.cardCounts,
+                this.rails, chosenList);
     }
 
     /**
@@ -154,28 +163,52 @@ public class PlayerHand {
      * are greater than or equal to zero.
      */
     private boolean colorCardsIsValid(Map<ColorTrains, Integer> colorCards) {
-        boolean result;
-        //check that we have valid map keys
-        result = colorCards.containsKey(ColorTrains.RED) &&
-                 colorCards.containsKey(ColorTrains.GREEN) &&
-                 colorCards.containsKey(ColorTrains.BLUE) &&
-                 colorCards.containsKey(ColorTrains.WHITE);
-        // check that values for keys are valid
-        result = result && colorCards.get(ColorTrains.RED) >= 0 &&
-                 colorCards.get(ColorTrains.GREEN) >= 0 &&
-                 colorCards.get(ColorTrains.BLUE) >= 0 &&
-                 colorCards.get(ColorTrains.WHITE) >= 0;
-        return result;
+        for (ColorTrains color : COLORS) {
+            Integer count = colorCards.get(color);
+            if (count == null || count < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    public HashSet<DirectConnection> getOwnedConnections() {
-        return new HashSet<>(this.ownedConnections);
-        // shallow copy because DirectConnections are immutable
+    /**
+     * @return read-only view of the connections owned by this player
+     */
+    public Set<DirectConnection> getOwnedConnections() {
+        return this.ownedConnections;
+    }
+
+    /**
+     * @return read-only map of color to number of cards
+     */
+    public Map<ColorTrains, Integer> getColorCardCount() {
+        if (this.colorCardCountView == null) {
+            Map<ColorTrains, Integer> counts = new EnumMap<>(ColorTrains.class);
+            for (ColorTrains color : COLORS) {
+                counts.put(color, this.cardCounts[color.ordinal()]);
+            }
+            this.colorCardCountView = Collections.unmodifiableMap(counts);
+        }
+        return this.colorCardCountView;
+    }
+
+    /**
+     * @return number of cards of the given color in this hand
+     */
+    public int getCardCount(ColorTrains color) {
+        return this.cardCounts[color.ordinal()];
     }
 
-    public HashMap<ColorTrains, Integer> getColorCardCount() {
-        return new HashMap<>(this.colorCardCount);
-        // shallow copy because ColorTrains and Integer are immutable
+    /**
+     * @return number of cards of any color in this hand
+     */
+    public int getTotalCards() {
+        int total = 0;
+        for (int count : this.cardCounts) {
+            total += count;
+        }
+        return total;
     }
 
     public int getRails() {
@@ -187,9 +220,9 @@ public class PlayerHand {
     }
 
     /**
-     * Mutator method in order to update the internal fields after a move.
-     * Referee will only call this after validating move, ensuring proper
-     * mutation of the internal representation of all player game states.
+     * Method to derive the hand after a move. Referee will only call this
+     * after validating move, ensuring proper mutation of the internal
+     * representation of all player game states.
      *
      * @param connection to be added
      *
@@ -201,22 +234,16 @@ public class PlayerHand {
     public PlayerHand handleAddConnection(DirectConnection connection) {
         int rails = connection.getLength();
 
-        if (this.rails >= rails &&
-            this.colorCardCount.get(connection.getColor()) >=
-            connection.getLength()) {
-            HashSet<DirectConnection> newConnect =
+        if (this.hasSufficientRailsAndCards(connection)) {
+            Set<DirectConnection> newConnect =
                     new HashSet<>(this.ownedConnections);
             newConnect.add(connection);
-            HashMap<ColorTrains, Integer> newCards =
-                    new HashMap<>(this.colorCardCount);
-            newCards.put(connection.getColor(),
-                    newCards.get(connection.getColor()) -
-                    connection.getLength());
+            int[] newCards = this.cardCounts.clone();
+            newCards[connection.getColor().ordinal()] -= connection.getLength();
             int new_rail = this.rails - rails;
 
-            this.ownedConnections.add(connection);
-            return new PlayerHand(newConnect, newCards, new_rail,
-                    this.destinations);
+            return new PlayerHand(Collections.unmodifiableSet(newConnect),
+                    newCards, new_rail, this.destinations);
 
         }
         throw new IllegalStateException(
@@ -233,33 +260,17 @@ public class PlayerHand {
      * @return true if they have sufficient game pieces.
      */
     public boolean hasSufficientRailsAndCards(DirectConnection dc) {
-        int curr_rails = this.getRails();
-        if (curr_rails <
-            dc.getLength()) { // if player doesn't have enough rails to
-            // exchange, return false
-            return false;
-        }
-        // if player doesn't have enough color cards for connection
-        return this.getColorCardCount().get(dc.getColor()) >= dc.getLength();
+        return this.rails >= dc.getLength() &&
+               this.cardCounts[dc.getColor().ordinal()] >= dc.getLength();
     }
 
     /**
-     * Get a copy of this PlayerHand by safely copying each field and
-     * constructing a new PlayerHand.
+     * Get a copy of this PlayerHand. Every field is immutable or read-only so
+     * the copy shares them.
      */
     public PlayerHand getCopy() {
-        HashMap<ColorTrains, Integer> colorCardsCopy = new HashMap<>();
-        for (ColorTrains color : this.colorCardCount.keySet()) {
-            colorCardsCopy.put(color, this.colorCardCount.get(color));
-            // no ref exposed bc java.lang.Integer is immutable
-        }
-        return new PlayerHand(new HashSet<>(this.ownedConnections),
-                colorCardsCopy, this.rails, this.destinations);
-        // no reference exposed because:
-        // ownedConns - we make a shallow copy, DC's are immutable
-        // colorCards is deep copied into a new Map
-        // rails - ints are passed by value
-        // Destinations are immutable
+        return new PlayerHand(this.ownedConnections, this.cardCounts,
+                this.rails, this.destinations);
     }
 
     /**
@@ -275,9 +286,8 @@ public class PlayerHand {
             PlayerHand other = (PlayerHand) o;
             boolean result;
 
-            result = other.getOwnedConnections().containsAll(this.ownedConnections);
-            result = result &&
-                     this.colorCardCount.equals(other.getColorCardCount());
+            result = other.ownedConnections.containsAll(this.ownedConnections);
+            result = result && Arrays.equals(this.cardCounts, other.cardCounts);
             result = result && (this.rails == other.getRails());
             result = result &&
                      (this.destinations.containsAll(other.getDestinations()));
@@ -289,8 +299,8 @@ public class PlayerHand {
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
-        for (Integer i : this.colorCardCount.values()) {
-            result.append(i.toString());
+        for (int count : this.cardCounts) {
+            result.append(count);
         }
         result.append("\n" + this.hashCode());
         return result.toString();
@@ -1,70 +1,149 @@
 package state;
 
 import map.ColorTrains;
+import map.CompactGraph;
 import map.Destination;
 import map.DirectConnection;
 import map.TrainsMap;
+import strategy.DefaultAdminStrategy;
 import strategy.IAdminStrategy;
 import strategy.Pair;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 /**
  * Class to represent the Gamestate for a Referee. Maintains true gamestates for
  * all the players and handles turns, valid moves and pieces in the control of
  * the referee (color cards not owned by players).
+ * <p>
+ * Moves (drawing cards and acquiring connections) are recorded in a journal,
+ * so that a search can try a move and undo it in constant time, or roll back
+ * to a snapshot, rather than copying the state for every branch. Hands are
+ * immutable, so the journal only keeps the hand a player had before their
+ * move. Changes to who is playing or to their destinations clear the journal.
  */
 public class RefereeGameState {
     private final LinkedList<PlayerHand> playerHands;
     // initially ordered by age, current first PlayerHand is current player
 
-    private final LinkedList<HashSet<DirectConnection>> allOwnedConnections;
+    private final LinkedList<Set<DirectConnection>> allOwnedConnections;
     // same strategy as playerHands, current HS<DC> is current player's owned
+    private final BitSet ownedConnectionIds;
+    // bit e is set when connection e of the map's CompactGraph is owned
 
-    private final List<ColorCard> remainingCards;
+    private final CardDeck remainingCards;
     private final TrainsMap map;
-    // stores available feasible destination (cards) to be given to players
-    List<Destination> availableDestinations;
-    private IAdminStrategy rulebook;
+    // stores available feasible destination (cards) to be given to players,
+    // ordered once by the rulebook
+    private final DestinationDeck availableDestinations;
+
+    // the pieces the game was created with, kept to deal them again on reset
+    private final List<ColorCard> cards;
+    private final IAdminStrategy rulebook;
+
+    private long seed;
+    // every random choice of this game is drawn from this seeded source
+    private SplittableRandom random;
+
+    // moves since the journal was last cleared, most recent last
+    private final ArrayList<Change> journal = new ArrayList<>();
+    private long journalEpoch; // number of times the journal was cleared
+    private long nextSequence; // of the next change recorded
+
+    /**
+     * Constructs a RefereeGameState with a freshly chosen seed, see
+     * getSeed() to replay the game.
+     *
+     * @param map      a TrainsMap
+     * @param cards    a List of ColorCard objects
+     * @param rulebook an IRefereeRule for optionally ordering
+     *                 cards/destinations
+     */
+    public RefereeGameState(TrainsMap map, List<ColorCard> cards,
+                            IAdminStrategy rulebook) {
+        this(map, cards, rulebook, new SplittableRandom().nextLong());
+    }
 
     /**
      * Main constructor of a RefereeGameState. It creates a new LinkedList of
      * playerHands and allOwnedConnections and stores the given TrainsMap. Then
      * it orders the cards and destinations arrays if the rulebook is not null,
-     * then assigns to remainingCards and availableDestinations.
+     * then assigns to remainingCards and availableDestinations. All randomness
+     * of the game comes from the given seed, so two games constructed with
+     * the same arguments and seed play out identically.
      *
      * @param map      a TrainsMap
      * @param cards    a List of ColorCard objects
      * @param rulebook an IRefereeRule for optionally ordering
      *                 cards/destinations
+     * @param seed     seed of this game's source of randomness
      */
     public RefereeGameState(TrainsMap map, List<ColorCard> cards,
-                            IAdminStrategy rulebook) {
+                            IAdminStrategy rulebook, long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
         this.playerHands = new LinkedList<>();
         this.allOwnedConnections = new LinkedList<>();
         if (map == null) {
             throw new IllegalArgumentException("TrainsMap must not be null.");
         }
         this.map = map;
-        if (rulebook == null) {
-            this.remainingCards = new ArrayList<>(cards);
-            this.availableDestinations =
-                    new ArrayList<>(map.getAllFeasibleDestinations());
-        } else {
-            this.remainingCards =
-                    rulebook.orderColorCards(new ArrayList<>(cards));
-            this.availableDestinations = rulebook.orderDestinations(
-                    new ArrayList<>(map.getAllFeasibleDestinations()));
-            this.rulebook = rulebook;
-        }
+        this.ownedConnectionIds =
+                new BitSet(map.getCompactGraph().getNumConnections());
+        this.cards = new ArrayList<>(cards);
+        this.rulebook = rulebook;
+        // cards are ordered before destinations, the same as in reset
+        this.remainingCards = new CardDeck(this.orderCards());
+        this.availableDestinations =
+                new DestinationDeck(this.orderDestinations());
+    }
+
+    /**
+     * Starts a new game with the same map, cards and rulebook, reusing this
+     * state's storage. Afterwards this state is the same as a newly
+     * constructed RefereeGameState with the given seed, without any players.
+     * Used to play many games in a row without allocating a new state for
+     * each.
+     *
+     * @param seed seed of the new game's source of randomness
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.clearJournal();
+        this.playerHands.clear();
+        this.allOwnedConnections.clear();
+        this.ownedConnectionIds.clear();
+        this.remainingCards.reset(this.orderCards());
+        this.availableDestinations.reset(this.orderDestinations());
+    }
 
+    /**
+     * @return a copy of the game's cards, ordered by the rulebook if there is
+     * one
+     */
+    private List<ColorCard> orderCards() {
+        List<ColorCard> ordered = new ArrayList<>(this.cards);
+        return this.rulebook == null ? ordered :
+               this.rulebook.orderColorCards(ordered, this.random);
+    }
+
+    /**
+     * @return the map's feasible destinations, ordered by the rulebook if there
+     * is one
+     */
+    private List<Destination> orderDestinations() {
+        List<Destination> ordered =
+                new ArrayList<>(this.map.getAllFeasibleDestinations());
+        return this.rulebook == null ? ordered :
+               this.rulebook.orderDestinations(ordered, this.random);
     }
 
     /**
@@ -77,27 +156,52 @@ public class RefereeGameState {
      */
     public static RefereeGameState RefereeGameStateShuffledCards(
             TrainsMap map) {
-        return new RefereeGameState(map, initializeShuffledColoredCards(),
-                null);
+        return RefereeGameStateShuffledCards(map,
+                new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Simplified RGS constructor which only takes a map and a seed, the cards
+     * are shuffled with the game's source of randomness.
+     *
+     * @param map  a TrainsMap
+     * @param seed seed of the game's source of randomness
+     *
+     * @return constructed RefereeGameState
+     */
+    public static RefereeGameState RefereeGameStateShuffledCards(TrainsMap map,
+                                                                 long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        return new RefereeGameState(map, initializeShuffledColoredCards(random),
+                null, random.nextLong());
     }
 
     /**
      * Gets a shuffled equally distributed List of 200 ColorCards
      */
     public static List<ColorCard> initializeShuffledColoredCards() {
+        return initializeShuffledColoredCards(new SplittableRandom());
+    }
+
+    /**
+     * Gets an equally distributed List of 200 ColorCards shuffled with the
+     * given source of randomness
+     */
+    public static List<ColorCard> initializeShuffledColoredCards(
+            SplittableRandom random) {
         List<ColorCard> gameCards = new ArrayList<>();
         for (int i = 0; i < 200; i++) {
             if (i % 4 == 0) {
-                gameCards.add(new ColorCard(ColorTrains.WHITE));
+                gameCards.add(ColorCard.of(ColorTrains.WHITE));
             } else if (i % 4 == 1) {
-                gameCards.add(new ColorCard(ColorTrains.RED));
+                gameCards.add(ColorCard.of(ColorTrains.RED));
             } else if (i % 4 == 2) {
-                gameCards.add(new ColorCard(ColorTrains.GREEN));
+                gameCards.add(ColorCard.of(ColorTrains.GREEN));
             } else {
-                gameCards.add(new ColorCard(ColorTrains.BLUE));
+                gameCards.add(ColorCard.of(ColorTrains.BLUE));
             }
         }
-        Collections.shuffle(gameCards);
+        DefaultAdminStrategy.shuffle(gameCards, random);
         return gameCards;
     }
 
@@ -123,6 +227,7 @@ public class RefereeGameState {
         this.availableDestinations.removeAll(chosen);
 
         // then update the current stored playerHand
+        this.clearJournal();
         Pair<Destination> chosenPair = new Pair<>(chosen.get(0), chosen.get(1));
         PlayerHand current = this.playerHands.remove(0);
         PlayerHand withDestinations = current.addDestinations(chosenPair);
@@ -142,25 +247,25 @@ public class RefereeGameState {
      * gives last card
      */
     public List<ColorCard> drawTwoColoredCardsMove() {
-        if (this.remainingCards.size() < 1) {
-            return new ArrayList<>();
+        if (this.remainingCards.isEmpty()) {
+            this.record(null, null, -1); // nothing changes
+            return List.of();
             // if there aren't enough cards
         }
-        List<ColorCard> giveCards = new ArrayList<>();
+        int deckPosition = this.remainingCards.getPosition();
+        List<ColorCard> giveCards;
         if (this.remainingCards.size() == 1) {
-            ColorCard c1 = this.remainingCards.remove(0);
-            giveCards.add(c1);
+            giveCards = List.of(this.remainingCards.draw());
         } else {
-            ColorCard c1 = this.remainingCards.remove(0);
-            ColorCard c2 = this.remainingCards.remove(0);
-            giveCards.add(c1);
-            giveCards.add(c2);
+            ColorCard c1 = this.remainingCards.draw();
+            giveCards = List.of(c1, this.remainingCards.draw());
         }
 
         // remove the current player hand set of ownedConnections from the
         // top of linked lists
         PlayerHand currentPlayer = this.playerHands.remove();
-        this.allOwnedConnections.remove();
+        this.record(currentPlayer, this.allOwnedConnections.remove(),
+                deckPosition);
 
         PlayerHand newHand = currentPlayer.addCards(giveCards);
         this.playerHands.addLast(newHand);
@@ -181,15 +286,16 @@ public class RefereeGameState {
         // remove the current player hand set of ownedConnections from the
         // top of linked lists
         PlayerHand currentPlayer = this.playerHands.remove();
-        this.allOwnedConnections.remove();
+        Set<DirectConnection> owned = this.allOwnedConnections.remove();
 
-        HashSet<DirectConnection> currentOwned =
-                currentPlayer.getOwnedConnections();
-        currentOwned.add(connection);
-        //add the new set to the end of the linked list
-        this.allOwnedConnections.addLast(currentOwned);
         // get the current player state, call handle add, put the result back
         PlayerHand updatedHand = currentPlayer.handleAddConnection(connection);
+        int id = this.map.getCompactGraph().getConnectionId(connection);
+        this.ownedConnectionIds.set(id);
+        this.record(currentPlayer, owned, this.remainingCards.getPosition(),
+                id);
+        //add the new set to the end of the linked list
+        this.allOwnedConnections.addLast(updatedHand.getOwnedConnections());
         this.playerHands.addLast(updatedHand);
     }
 
@@ -200,10 +306,100 @@ public class RefereeGameState {
      * on the next update but cards will be lost currently.
      */
     public void removePlayer() {
-        this.allOwnedConnections.remove();
+        this.clearJournal();
+        this.setOwned(this.allOwnedConnections.remove(), false);
         this.playerHands.remove();
     }
 
+    /**
+     * Takes back the most recent move, drawing cards or acquiring a
+     * connection, in constant time: the player who made it has their turn
+     * and hand back, drawn cards go back on top of the deck and an acquired
+     * connection is free again.
+     *
+     * @throws IllegalStateException if no move was made since the journal was
+     *                               last cleared
+     */
+    public void undo() {
+        if (this.journal.isEmpty()) {
+            throw new IllegalStateException("No move to undo.");
+        }
+        Change change = this.journal.remove(this.journal.size() - 1);
+        if (change.hand == null) {
+            return; // the move did not change anything
+        }
+        this.playerHands.removeLast();
+        this.allOwnedConnections.removeLast();
+        this.playerHands.addFirst(change.hand);
+        this.allOwnedConnections.addFirst(change.owned);
+        this.remainingCards.rewind(change.deckPosition);
+        if (change.connectionId != -1) {
+            this.ownedConnectionIds.clear(change.connectionId);
+        }
+    }
+
+    /**
+     * Marks the current point of the game, for rollback to return to after
+     * trying moves.
+     *
+     * @return handle of the current point of the game
+     */
+    public Snapshot snapshot() {
+        int depth = this.journal.size();
+        return new Snapshot(this.journalEpoch, depth,
+                depth == 0 ? -1 : this.journal.get(depth - 1).sequence);
+    }
+
+    /**
+     * Undoes every move made since the given snapshot was taken.
+     *
+     * @throws IllegalStateException if the moves since the snapshot cannot be
+     *                               undone, because the journal was cleared
+     *                               or rolled back past the snapshot since
+     */
+    public void rollback(Snapshot snapshot) {
+        int depth = snapshot.depth;
+        if (snapshot.epoch != this.journalEpoch ||
+            depth > this.journal.size() || depth > 0 &&
+            this.journal.get(depth - 1).sequence != snapshot.sequence) {
+            throw new IllegalStateException(
+                    "Snapshot is not a point of this game's journal.");
+        }
+        while (this.journal.size() > depth) {
+            this.undo();
+        }
+    }
+
+    private void record(PlayerHand hand, Set<DirectConnection> owned,
+                        int deckPosition) {
+        this.record(hand, owned, deckPosition, -1);
+    }
+
+    private void record(PlayerHand hand, Set<DirectConnection> owned,
+                        int deckPosition, int connectionId) {
+        this.journal.add(new Change(hand, owned, deckPosition, connectionId,
+                this.nextSequence++));
+    }
+
+    private void clearJournal() {
+        this.journal.clear();
+        this.journalEpoch++;
+    }
+
+    /**
+     * Sets or clears the ownership bits of the given connections, ignoring
+     * connections that are not on the map.
+     */
+    private void setOwned(Set<DirectConnection> connections, boolean owned) {
+        CompactGraph graph = this.map.getCompactGraph();
+        for (DirectConnection dc : connections) {
+            int id = graph.getConnectionId(dc);
+            if (id != -1) {
+                this.ownedConnectionIds.set(id, owned);
+            }
+        }
+    }
+
     /**
      * Method to determine if the next round is the final round based on the
      * current RefereeGameState. Definition of isNextRoundFinal: When one of the
@@ -220,32 +416,31 @@ public class RefereeGameState {
      * Method to determine the number of unowned connections in the current RGS
      */
     public int getNumRemainingAvailConnections() {
-        int numOwned = 0;
-        for (HashSet<DirectConnection> ownedByAPlayer :
-                this.allOwnedConnections) {
-            numOwned += ownedByAPlayer.size();
-        }
-        int numDCsOnMap = this.map.getDirectConnections().size();
+        return this.map.getCompactGraph().getNumConnections() -
+               this.ownedConnectionIds.cardinality();
+    }
 
-        return numDCsOnMap - numOwned;
+    /**
+     * Gets the seed of this game's source of randomness. Constructing a
+     * RefereeGameState with the same map, cards, rulebook and seed replays
+     * this game.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
     }
 
     /**
      * Method to yield the first five destinations in availableDestinations to
-     * be sent to players in RefereeAgent.handleDestinationChoices.
+     * be sent to players in RefereeAgent.handleDestinationChoices. The
+     * destinations were ordered by the rulebook when the game was created, and
+     * destinations chosen by earlier players have since been removed.
      *
      * @return List<Destination> choices
      */
     public List<Destination> getFirstFiveDestinations() {
-        // resort the available destinations after removing choices
-        this.availableDestinations =
-                rulebook.orderDestinations(this.availableDestinations);
-
-        List<Destination> firstFive = new ArrayList<>();
-        for (int i = 0; i < 5; i++) {
-            firstFive.add(this.availableDestinations.get(i));
-        }
-        return firstFive;
+        return this.availableDestinations.peek(5);
     }
 
     /**
@@ -269,12 +464,37 @@ public class RefereeGameState {
                 this.getAllOwnedConnections());
     }
 
+    /**
+     * Method to construct the current PlayerGameState from legal moves of the
+     * current player that the caller keeps up to date with every move, for a
+     * caller that shows a state every turn and would otherwise have each
+     * state rebuild them from the owned connections.
+     *
+     * @param currentMoves legal moves of the current player in this state,
+     *                     copied into the constructed state
+     * @return constructed PlayerGameState from the map, the current playerHand
+     * and copies of allOwnedConnections and the owned connection ids
+     */
+    public PlayerGameState getCurrentPlayerGameState(LegalMoves currentMoves) {
+        return new PlayerGameState(this.map, this.getCurrentPlayerHand(),
+                new ArrayList<>(this.allOwnedConnections),
+                this.getOwnedConnectionIds(), currentMoves.copy());
+    }
+
+    /**
+     * @return ids in the map's CompactGraph of every owned connection, in a
+     * set the caller may modify
+     */
+    public BitSet getOwnedConnectionIds() {
+        return (BitSet) this.ownedConnectionIds.clone();
+    }
+
     /**
      * Method to return a copy of this referee's allOwnedConnections Map.
      *
      * @return deep copy of this.allOwnedConnections.
      */
-    public LinkedList<HashSet<DirectConnection>> getAllOwnedConnections() {
+    public LinkedList<Set<DirectConnection>> getAllOwnedConnections() {
         return new LinkedList<>(this.allOwnedConnections);
         //Direct connections are immutable
     }
@@ -289,6 +509,21 @@ public class RefereeGameState {
         return this.remainingCards.size();
     }
 
+    /**
+     * @return the remaining color cards in the order they are drawn
+     */
+    public List<ColorCard> getRemainingCards() {
+        return this.remainingCards.toList();
+    }
+
+    /**
+     * @return the destinations not chosen by any player, in the order they
+     * are offered
+     */
+    public List<Destination> getAvailableDestinations() {
+        return this.availableDestinations.toList();
+    }
+
     /**
      * Method to return a list of Pla
      */
@@ -305,16 +540,14 @@ public class RefereeGameState {
      * acquired yet
      */
     public Set<DirectConnection> determineAvailableConnections() {
-        HashSet<DirectConnection> ownedConnectionsFlat = new HashSet<>();
-
-        for (HashSet<DirectConnection> set : this.allOwnedConnections) {
-            ownedConnectionsFlat.addAll(set);
+        CompactGraph graph = this.map.getCompactGraph();
+        Set<DirectConnection> available = new HashSet<>();
+        for (int e = this.ownedConnectionIds.nextClearBit(0);
+             e < graph.getNumConnections();
+             e = this.ownedConnectionIds.nextClearBit(e + 1)) {
+            available.add(graph.getConnection(e));
         }
-        Set<DirectConnection> allConnections = this.map.getDirectConnections();
-        //find the set difference between list of all connections and all
-        // owned connections to get all available
-        allConnections.removeIf(ownedConnectionsFlat::contains);
-        return allConnections;
+        return available;
     }
 
     /**
@@ -327,10 +560,9 @@ public class RefereeGameState {
      * @return true if the move is valid, else false
      */
     public boolean canCurrentPlayerAcquire(DirectConnection dc) {
-        Set<DirectConnection> openConnections = determineAvailableConnections();
-
-        if (!openConnections.contains(dc)) {
-            return false;
+        int id = this.map.getCompactGraph().getConnectionId(dc);
+        if (id == -1 || this.ownedConnectionIds.get(id)) {
+            return false; // connection is invalid or already owned
         }
 
         PlayerHand currentPlayerHand = this.playerHands.peek();
@@ -345,22 +577,17 @@ public class RefereeGameState {
      * initial Set<Destination> to this.allOwnedConnections
      */
     public List<ColorCard> initializePlayerWithRailsAndDraw(int rails) {
-        HashSet<DirectConnection> ownedConnections = new HashSet<>();
-        this.allOwnedConnections.addLast(
-                new HashSet<>()); // add this player to allOwnedConnections
-        // with same Set stored in our managed PlayerGameState
-
+        this.clearJournal();
         List<ColorCard> colorCards = new ArrayList<>();
         for (int i = 0; i < 4; i++) { // 4 times
-            colorCards.add(this.remainingCards.remove(0));
+            colorCards.add(this.remainingCards.draw());
         }
 
-        HashMap<ColorTrains, Integer> cardsMap =
-                PlayerHand.addColorCardArrayToCountMap(
-                        PlayerHand.getEmptyCardsMap(), colorCards);
         PlayerHand newPlayerHand =
-                new PlayerHand(ownedConnections, cardsMap, rails,
-                        new ArrayList<>());
+                PlayerHand.initializePlayerHand(rails, colorCards);
+        // add this player to allOwnedConnections with same Set stored in our
+        // managed PlayerHand
+        this.allOwnedConnections.addLast(newPlayerHand.getOwnedConnections());
         this.playerHands.addLast(newPlayerHand);
         return colorCards;
     }
@@ -382,7 +609,7 @@ public class RefereeGameState {
 
         result.append("Available Dests: \n");
 
-        for (Destination d : this.availableDestinations) {
+        for (Destination d : this.availableDestinations.toList()) {
             result.append(d.toString());
         }
         return result.toString();
@@ -396,37 +623,16 @@ public class RefereeGameState {
      * cards
      */
     private HashMap<ColorTrains, Integer> drawFourRandomColoredCards() {
-        List<ColorCard> cards = new ArrayList<>(this.remainingCards);
-        int size = cards.size();
-        if (size < 4) {
+        if (this.remainingCards.size() < 4) {
             throw new IllegalArgumentException(
                     "Unable to draw, less than 4 remaining cards");
         }
-        HashMap<ColorTrains, Integer> result = new HashMap<>();
-        result.put(ColorTrains.RED, 0); // initialize values
-        result.put(ColorTrains.GREEN, 0);
-        result.put(ColorTrains.BLUE, 0);
-        result.put(ColorTrains.WHITE, 0);
-
-        // initialize all to zero
-        int index1 = 0, index2 = 0, index3 = 0, index4 = 0;
-
-        Random rand = new Random();
-        while (index1 == index2 || index1 == index3 || index1 == index4 ||
-               index2 == index3 || index2 == index4 || index3 == index4) {
-            // reroll while indices are equal
-            index1 = rand.nextInt(size);
-            index2 = Math.max(rand.nextInt(size) - 1, 0);
-            index3 = Math.max(rand.nextInt(size) - 2, 0);
-            index4 = Math.max(rand.nextInt(size) - 3, 0); //  account for removed
-        } // indices are not equal
-
-        int[] items = new int[] {index1, index2, index3, index4};
-        for (int randomIndex : items) {
-            ColorTrains c = cards.get(randomIndex).getColor();
-            result.put(c, result.get(c) + 1);
-            this.remainingCards.remove(randomIndex);
+        int[] counts = new int[ColorTrains.values().length];
+        this.remainingCards.dealRandomInto(counts, 4, this.random);
 
+        HashMap<ColorTrains, Integer> result = new HashMap<>();
+        for (ColorTrains color : ColorTrains.values()) {
+            result.put(color, counts[color.ordinal()]);
         }
         return result;
     }
@@ -438,6 +644,7 @@ public class RefereeGameState {
      * (mainly for testing)
      */
     public PlayerHand addPlayer() {
+        this.clearJournal();
         // initialize with no owned connections
         HashSet<DirectConnection> ownedConnections = new HashSet<>();
         this.allOwnedConnections.addLast(
@@ -474,6 +681,7 @@ public class RefereeGameState {
                                     List<Destination> inputDests,
                                     HashSet<DirectConnection> ownedConnections,
                                     int rails) {
+        this.clearJournal();
         if (inputDests.size() < 2) {
             throw new IllegalArgumentException(
                     "Trying to add player, must initialize with at " +
@@ -483,7 +691,8 @@ public class RefereeGameState {
         PlayerHand newPlayerHand =
                 new PlayerHand(ownedConnections, colorCards, rails, inputDests);
 
-        this.allOwnedConnections.addLast(ownedConnections);
+        this.allOwnedConnections.addLast(newPlayerHand.getOwnedConnections());
+        this.setOwned(ownedConnections, true);
         this.playerHands.addLast(newPlayerHand);
 
         return newPlayerHand.getCopy(); // return a copy so the
@@ -500,40 +709,18 @@ public class RefereeGameState {
      * availableDestinations
      */
     public List<Destination> getTwoRandomDestinationsFromMap() {
-        Set<Destination> destinationSet =
-                new HashSet(this.availableDestinations); // get copy
-        int size = destinationSet.size();
-        if (size <
+        if (this.availableDestinations.size() <
             2) { // check size is valid because we are removing on each call
             // to this method
             throw new IllegalArgumentException(
                     "Not enough feasible destinations to draw two " +
                     "distinct random destinations. feasibleDests: " +
-                    destinationSet);
+                    this.availableDestinations.toList());
         }
 
-        List<Destination> resultTwoDestinations = new ArrayList<>();
-
-        // initialize both random picks to zero
-        int item1 = 0, item2 = 0;
-
-        while (item1 == item2) { // reroll while items are equal
-            item1 = new Random().nextInt(size);
-            item2 = new Random().nextInt(size);
-        } // items are not equal
-
-        int i = 0; // counter
-        for (Destination d : destinationSet) {
-            if (i == item1) {
-                resultTwoDestinations.add(d);
-                this.availableDestinations.remove(d);
-            } else if (i == item2) {
-                resultTwoDestinations.add(d);
-                this.availableDestinations.remove(d);
-            }
-            i++;
-        }
-        return resultTwoDestinations;
+        // each draw removes its destination, so the two are distinct
+        return List.of(this.availableDestinations.drawRandom(this.random),
+                this.availableDestinations.drawRandom(this.random));
     }
 
     /**
@@ -543,4 +730,42 @@ public class RefereeGameState {
     public int getNumPlayers() {
         return this.playerHands.size();
     }
+
+    /**
+     * A point of a game to roll back to, see snapshot().
+     */
+    public static final class Snapshot {
+        private final long epoch;
+        private final int depth;
+        private final long sequence; // of the last move before the point
+
+        private Snapshot(long epoch, int depth, long sequence) {
+            this.epoch = epoch;
+            this.depth = depth;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A move in the journal: the hand and owned connections the player who
+     * made it had before, the position of the card deck before it and the id
+     * of the connection acquired, or -1 for drawing cards. The hand is null
+     * for a move that changed nothing.
+     */
+    private static final class Change {
+        private final PlayerHand hand;
+        private final Set<DirectConnection> owned;
+        private final int deckPosition;
+        private final int connectionId;
+        private final long sequence;
+
+        private Change(PlayerHand hand, Set<DirectConnection> owned,
+                       int deckPosition, int connectionId, long sequence) {
+            this.hand = hand;
+            this.owned = owned;
+            this.deckPosition = deckPosition;
+            this.connectionId = connectionId;
+            this.sequence = sequence;
+        }
+    }
 }
@@ -1,20 +1,23 @@
 package state;
 
 import map.City;
+import map.CompactGraph;
 import map.Destination;
 import map.DirectConnection;
+import map.FeasibleDestinations;
 import map.Kruskal;
+import map.LongestPath;
 import map.WeightedGraph;
+import strategy.Pair;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Util class used to calculate the game score of a player.
@@ -38,108 +41,117 @@ public class Scoring {
     }
 
     /**
-     * Given a list of the Player's Hand's it determines their score. Initially
-     * sums the number of segments they have acquired. Then determines
-     * destination points by checking whether connected components contain none,
-     * either, or both destinations. Then determines the longest path that each
-     * player acquired and adds points to the player's score who built the
-     * longest path.
+     * Given a list of the Player's Hand's it determines their score. Each
+     * player is scored independently (in parallel on the common fork-join
+     * pool) in a single pass over the components of their owned connections:
+     * the sum of their segments, the destination points for destinations
+     * whose cities share a component, and the longest path. The players whose
+     * longest path is the longest of the game receive the longest path
+     * points.
      */
     public static Map<Integer, Set<PlayerHand>> getRanking(
             List<PlayerHand> finalPlayerHands) {
-        Map<Integer, Set<PlayerHand>> longestPathToPlayers = new HashMap<>();
-        Map<Integer, Set<PlayerHand>> ranking = new HashMap<>();
-        // currentScores.get(0) is the calculated score so far for player 0,
-        // in our Ref's LinkedList
-
-        for (PlayerHand currPlayer : finalPlayerHands) {
-            List<DirectConnection> ownedConnections =
-                    new ArrayList<>(currPlayer.getOwnedConnections());
-
-            int numSegments =
-                    getSumSegments(ownedConnections); // count segments
-
-            List<List<City>> connectedCities =
-                    getConnectedCities(ownedConnections); // run kruskal
-
-            int destPoints = getDestinationPoints(connectedCities,
-                    currPlayer.getDestinations());
-
-            int longestPath =
-                    getLengthLongestPath(ownedConnections, connectedCities);
+        List<PlayerScore> scores = finalPlayerHands
+                .parallelStream()
+                .map(Scoring::scorePlayer)
+                .collect(Collectors.toList());
 
-            Set<PlayerHand> playersSoFarPath =
-                    longestPathToPlayers.getOrDefault(longestPath,
-                            new HashSet<>());
-            playersSoFarPath.add(
-                    currPlayer); // add this player to the set of players
-            // with the same longest path length
-            longestPathToPlayers.put(longestPath, playersSoFarPath);
+        int[] totals = getTotals(scores);
+        Map<Integer, Set<PlayerHand>> ranking = new HashMap<>();
+        for (int i = 0; i < totals.length; i++) {
+            ranking.computeIfAbsent(totals[i], k -> new HashSet<>())
+                   .add(scores.get(i).player);
+        }
+        return ranking;
+    }
 
-            int scoreSoFar = destPoints + numSegments;
-            Set<PlayerHand> playersSoFarScore =
-                    ranking.getOrDefault(scoreSoFar, new HashSet<>());
-            playersSoFarScore.add(
-                    currPlayer); // add this player to the set of players
-            // with the same score
-            ranking.put(scoreSoFar, playersSoFarScore);
+    /**
+     * Gets the final score of each of the given players, in the order of the
+     * given list, scoring the players one after another on the calling
+     * thread. Unlike getRanking, players with equal hands keep separate
+     * scores.
+     *
+     * @return the final scores, indexed like finalPlayerHands
+     */
+    public static int[] getScores(List<PlayerHand> finalPlayerHands) {
+        List<PlayerScore> scores = new ArrayList<>(finalPlayerHands.size());
+        for (PlayerHand hand : finalPlayerHands) {
+            scores.add(scorePlayer(hand));
         }
+        return getTotals(scores);
+    }
+
+    /**
+     * Adds the longest path points to the players whose longest path is the
+     * longest of the game (even if it is 0).
+     */
+    private static int[] getTotals(List<PlayerScore> scores) {
         int gameMaxPath = 0;
-        // handles longest path for multiple players being the same
-        if (!longestPathToPlayers.keySet().isEmpty()) {
-            gameMaxPath = Collections.max(
-                    longestPathToPlayers.keySet()); // gets the length of
-            // longest path
-        } else {
-            // if there is no longest path (everyone cheated)
-            return ranking;
+        for (PlayerScore score : scores) {
+            gameMaxPath = Math.max(gameMaxPath, score.longestPath);
         }
 
-        Set<PlayerHand> playersWithLongestPath =
-                longestPathToPlayers.get(gameMaxPath);
+        int[] totals = new int[scores.size()];
+        for (int i = 0; i < totals.length; i++) {
+            PlayerScore score = scores.get(i);
+            totals[i] = score.points;
+            if (score.longestPath == gameMaxPath) {
+                totals[i] += LONGEST_PATH_POINTS;
+            }
+        }
+        return totals;
+    }
 
-        handleMultipleLongestPath(ranking, playersWithLongestPath);
+    /**
+     * Points of a single player before the longest path bonus, together with
+     * the length of their longest path.
+     */
+    private static final class PlayerScore {
+        private final PlayerHand player;
+        private final int points;
+        private final int longestPath;
 
-        return ranking;
+        private PlayerScore(PlayerHand player, int points, int longestPath) {
+            this.player = player;
+            this.points = points;
+            this.longestPath = longestPath;
+        }
     }
 
     /**
-     * Method to handle adding scores to multiple players with the longest path.
-     * Given a ranking and Set of players with the longest path, for each player
-     * with a longest path, it finds the player in the ranking that has a
-     * longest path and adds to its score.
+     * Scores one player from the component labels of their owned connections.
      */
-    private static void handleMultipleLongestPath(
-            Map<Integer, Set<PlayerHand>> ranking,
-            Set<PlayerHand> playersWithLongestPath) {
-        for (PlayerHand player : playersWithLongestPath) { // for each player
-            // with the longest path
-            Map<Integer, Set<PlayerHand>> ranking2 = new HashMap<>(ranking);
-            Iterator<Map.Entry<Integer, Set<PlayerHand>>> iter =
-                    ranking2.entrySet().iterator();
-            while (iter.hasNext()) {
-                Map.Entry<Integer, Set<PlayerHand>> entry = iter.next();
-                int score = entry.getKey();
-                Set<PlayerHand> playersAtScore = entry.getValue();
-                if (playersAtScore.contains(player)) {
-                    playersAtScore.remove(
-                            player); // remove player from their old place in
-                    // the ranking
-                    if (!playersAtScore.isEmpty()) {
-                        ranking.put(score, playersAtScore);
-                    } else {
-                        ranking.remove(score);
-                    }
-                    int newScore = score + LONGEST_PATH_POINTS;
-                    Set<PlayerHand> playersSoFarNewScore =
-                            ranking.getOrDefault(newScore, new HashSet<>());
-                    playersSoFarNewScore.add(
-                            player); // add player to their new place in the
-                    // ranking
-                    ranking.put(newScore, playersSoFarNewScore);
-                }
+    private static PlayerScore scorePlayer(PlayerHand currPlayer) {
+        CompactGraph ownedGraph = CompactGraph.fromConnections(
+                currPlayer.getOwnedConnections());
+        FeasibleDestinations components =
+                new FeasibleDestinations(ownedGraph);
+
+        int numSegments = 0;
+        for (int e = 0; e < ownedGraph.getNumConnections(); e++) {
+            numSegments += ownedGraph.getLength(e);
+        }
+
+        int destPoints = 0;
+        for (Destination destination : currPlayer.getDestinations()) {
+            Pair<City> cities = destination.getVertices();
+            int id0 = ownedGraph.getCityId(cities.getFirst());
+            int id1 = ownedGraph.getCityId(cities.getSecond());
+            if (id0 != -1 && id1 != -1 && components.isFeasible(id0, id1)) {
+                destPoints += 10;
+            } else {
+                destPoints -= 10;
             }
         }
+
+        int longestPath = 0;
+        for (int c = 0; c < components.getNumComponents(); c++) {
+            longestPath = Math.max(longestPath, getLongestPath(ownedGraph,
+                    components.getComponentCity(c),
+                    components.getComponentSize(c)));
+        }
+        return new PlayerScore(currPlayer, numSegments + destPoints,
+                longestPath);
     }
 
     /**
@@ -149,37 +161,39 @@ public class Scoring {
     public static int getLengthLongestPath(
             List<DirectConnection> ownedConnections,
             List<List<City>> connectedCities) {
-        List<List<DirectConnection>> connectedDCs =
-                deriveConnectedDCsFromConnectedCities(ownedConnections,
-                        connectedCities);
-        return getMaxPathFromConnectedComponents(connectedCities, connectedDCs);
+        CompactGraph ownedGraph =
+                CompactGraph.fromConnections(ownedConnections);
+        FeasibleDestinations components =
+                new FeasibleDestinations(ownedGraph);
+        int maxPath = 0;
+        for (List<City> component : connectedCities) {
+            int start = component.isEmpty() ? -1 :
+                    ownedGraph.getCityId(component.get(0));
+            if (start == -1) {
+                continue;
+            }
+            int size = components.getComponentSize(
+                    components.getComponent(start));
+            maxPath = Math.max(maxPath,
+                    getLongestPath(ownedGraph, start, size));
+        }
+        return maxPath;
     }
 
     /**
-     * Given a List of List of connectedCities and a List of List of
-     * connectedDCs it finds the MAXimum spanning tree in each connected
-     * component and determines the longest path in that spanning tree. Then
-     * returns the longest path found.
+     * Determines the exact longest path of the connected component of the
+     * given city with LongestPath. Components too large for the exact solver
+     * fall back to the longest path in their MAXimum spanning tree.
      */
-    private static int getMaxPathFromConnectedComponents(
-            List<List<City>> connectedCities,
-            List<List<DirectConnection>> connectedDCs) {
-        // Determine maximum spanning tree and longest path on those trees
-        List<Integer> longestPaths = new ArrayList<>();
-        for (int i = 0; i < connectedCities.size(); i++) {
-            Kruskal k = new Kruskal(connectedDCs.get(i));
-            List<DirectConnection> sTree = k.run(); // maximum spanning tree
-            WeightedGraph wg = WeightedGraph.makeGraphFromVerticesEdges(
-                    connectedCities.get(i), sTree);
-
-            int longestPath = wg.findAbsoluteLongestPath();
-            longestPaths.add(longestPath);
-        }
-        int maxPath = 0;
-        if (longestPaths.size() > 0) {
-            maxPath = Collections.max(longestPaths);
+    private static int getLongestPath(CompactGraph ownedGraph, int start,
+                                      int componentSize) {
+        if (componentSize <= LongestPath.MAX_CITIES) {
+            return LongestPath.findLongestPath(ownedGraph, start);
         }
-        return maxPath;
+        int n = ownedGraph.getNumCities();
+        return WeightedGraph.findAbsoluteLongestPath(ownedGraph, start,
+                Kruskal.maximumSpanningForest(ownedGraph), new int[n],
+                new int[n]);
     }
 
     /**
@@ -193,42 +207,33 @@ public class Scoring {
             List<DirectConnection> ownedConnections,
             List<List<City>> connectedCities) {
         List<List<DirectConnection>> directConnInComponents = new ArrayList<>();
-        // initialize empty list of connected DC's for each list of connected
-        // cities
         for (int x = 0; x < connectedCities.size(); x++) {
             directConnInComponents.add(new ArrayList<>());
         }
+        Map<City, Integer> componentOf = indexComponents(connectedCities);
 
-        for (DirectConnection currConn : ownedConnections) { // for each of
-            // this p's ownedConns
-            for (int i = 0;
-                 i < connectedCities.size();
-                 i++) { // for each connected component
-                if (connectedCities.get(i).contains(currConn.getCity0())) {
-                    if (!directConnInComponents
-                            .get(i)
-                            .contains(currConn)) { // dup check
-                        directConnInComponents.get(i).add(currConn);
-                        // add connection at corresponding index in list of
-                        // list of
-                        // directConnection
-                    }
-                }
+        Set<DirectConnection> seen = new HashSet<>(); // dup check
+        for (DirectConnection currConn : ownedConnections) {
+            Integer i = componentOf.get(currConn.getCity0());
+            if (i != null && seen.add(currConn)) {
+                directConnInComponents.get(i).add(currConn);
             }
         }
         return directConnInComponents;
     }
 
     /**
-     * Uses Kruskal to derive a 2d list of connected cities given owned
-     * connections. If this returns a List of two lists, those lists represent
-     * components that are not connected by the input ownedConnections.
+     * Maps every city to the index of the first component that contains it.
      */
-    private static List<List<City>> getConnectedCities(
-            List<DirectConnection> ownedConnections) {
-        Kruskal kc = new Kruskal(ownedConnections);
-        kc.run(); // run kruskals
-        return kc.deriveConnectedComponents();
+    private static Map<City, Integer> indexComponents(
+            List<List<City>> connectedCities) {
+        Map<City, Integer> componentOf = new HashMap<>();
+        for (int i = 0; i < connectedCities.size(); i++) {
+            for (City c : connectedCities.get(i)) {
+                componentOf.putIfAbsent(c, i);
+            }
+        }
+        return componentOf;
     }
 
     /**
@@ -266,21 +271,16 @@ public class Scoring {
     // TODO test this with all 3 cases none, either both
     public static int getDestinationPoints(List<List<City>> connComponents,
                                            List<Destination> playersDestinations) {
+        Map<City, Integer> componentOf = indexComponents(connComponents);
         int totalPoints = 0;
 
         for (Destination destination : playersDestinations) {
-            boolean connected = false;
-            City city1 = destination.getVertices().getFirst();
-            City city2 = destination.getVertices().getSecond();
-
-            for (List<City> component : connComponents) {
-                if (component.containsAll(
-                        new ArrayList<>(Arrays.asList(city1, city2)))) {
-                    connected = true;
-                }
-            }
+            Integer component1 =
+                    componentOf.get(destination.getVertices().getFirst());
+            Integer component2 =
+                    componentOf.get(destination.getVertices().getSecond());
 
-            if (connected) {
+            if (component1 != null && component1.equals(component2)) {
                 totalPoints += 10;
             } else {
                 totalPoints -= 10;
@@ -18,20 +18,18 @@ public abstract class AbstractStrategy implements IPlayerStrategy {
     /**
      * The strategy acquires the first connection from a list of available
      * connections for which it has enough cards and rails; if there aren’t any,
-     * it asks for additional cards. Given a PlayerGameState it determines
-     * available DirectConnections, sorts them, and iterates through attempting
-     * to acquire each, if no DC can be acquired return additionalCards Move.
+     * it asks for additional cards. Given a PlayerGameState it takes the first
+     * acquirable DirectConnection from its legal moves, which are in
+     * lexicographic order, if no DC can be acquired return additionalCards
+     * Move.
      */
     public Move<?> acquireFirstLexConnection(PlayerGameState currentPGS) {
-        List<DirectConnection> availConns =
-                new ArrayList<>(currentPGS.determineAvailableConnections());
-        Collections.sort(availConns);
-        for (DirectConnection connection : availConns) {
-            if (currentPGS.canAcquire(connection)) {
-                Move<DirectConnection> retMove = new Move<>();
-                retMove.setMove(connection);
-                return retMove;
-            }
+        DirectConnection connection =
+                currentPGS.getFirstAcquirableConnection();
+        if (connection != null) {
+            Move<DirectConnection> retMove = new Move<>();
+            retMove.setMove(connection);
+            return retMove;
         }
         Move<Boolean> retMove = new Move<>();
         retMove.setMove(true);
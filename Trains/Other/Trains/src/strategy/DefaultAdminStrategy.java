@@ -5,6 +5,7 @@ import state.ColorCard;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public abstract class DefaultAdminStrategy implements IAdminStrategy {
 
@@ -34,5 +35,46 @@ public abstract class DefaultAdminStrategy implements IAdminStrategy {
         return gameCards;
     }
 
+    /**
+     * Shuffles the given list of Destinations using the game's source of
+     * randomness.
+     *
+     * @param allDestinations all destinations derived from the TrainsMap
+     * @param random          the game's source of randomness
+     *
+     * @return shuffled list
+     */
+    List<Destination> shuffleDestinations(List<Destination> allDestinations,
+                                          SplittableRandom random) {
+        shuffle(allDestinations, random);
+        return allDestinations;
+    }
+
+    /**
+     * Shuffles the given list of ColorCard using the game's source of
+     * randomness.
+     *
+     * @param gameCards list of colored cards initialized in the Trains game
+     * @param random    the game's source of randomness
+     *
+     * @return shuffled list of colored cards
+     */
+    List<ColorCard> shuffleColoredCards(List<ColorCard> gameCards,
+                                        SplittableRandom random) {
+        shuffle(gameCards, random);
+        return gameCards;
+    }
+
+    /**
+     * Fisher-Yates shuffle of the given list, the same algorithm as
+     * Collections.shuffle but drawing from a SplittableRandom (which is not a
+     * java.util.Random).
+     */
+    public static <T> void shuffle(List<T> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            Collections.swap(list, i, random.nextInt(i + 1));
+        }
+    }
+
 }
 
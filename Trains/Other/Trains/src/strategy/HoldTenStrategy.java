@@ -51,11 +51,7 @@ public class HoldTenStrategy extends AbstractStrategy implements IPlayerStrategy
      */
     @Override
     public Move makeMove(PlayerGameState currentPGS) {
-        int totalCards = currentPGS
-                .getCardsMap()
-                .values()
-                .stream()
-                .reduce(0, Integer::sum);
+        int totalCards = currentPGS.getTotalCards();
         if (totalCards < 10) {
             Move<Boolean> cards = new Move<>();
             cards.setMove(true);
@@ -4,6 +4,7 @@ import map.Destination;
 import state.ColorCard;
 
 import java.util.List;
+import java.util.SplittableRandom;
 
 public interface IAdminStrategy {
 
@@ -25,4 +26,34 @@ public interface IAdminStrategy {
      * sequence.
      */
     List<ColorCard> orderColorCards(List<ColorCard> allCards);
+
+    /**
+     * Orders destinations drawing any randomness from the given per-game
+     * source, so that a game can be replayed from its seed. Strategies that
+     * do not use randomness need not override this.
+     *
+     * @param allFeasible all feasible destinations in the current game's map.
+     * @param random      the game's source of randomness
+     *
+     * @return ordered array of destinations based on implementation.
+     */
+    default List<Destination> orderDestinations(List<Destination> allFeasible,
+                                                SplittableRandom random) {
+        return this.orderDestinations(allFeasible);
+    }
+
+    /**
+     * Orders color cards drawing any randomness from the given per-game
+     * source. Strategies that do not use randomness need not override this.
+     *
+     * @param allCards all color cards of the current game
+     * @param random   the game's source of randomness
+     *
+     * @return ColorCard[] ordered based on implementation of selection
+     * sequence.
+     */
+    default List<ColorCard> orderColorCards(List<ColorCard> allCards,
+                                            SplittableRandom random) {
+        return this.orderColorCards(allCards);
+    }
 }
@@ -4,6 +4,7 @@ import map.Destination;
 import state.ColorCard;
 
 import java.util.List;
+import java.util.SplittableRandom;
 
 public class RandomAdminStrategy extends DefaultAdminStrategy implements IAdminStrategy {
 
@@ -16,4 +17,16 @@ public class RandomAdminStrategy extends DefaultAdminStrategy implements IAdminS
     public List<ColorCard> orderColorCards(List<ColorCard> allCards) {
         return this.shuffleColoredCards(allCards);
     }
+
+    @Override
+    public List<Destination> orderDestinations(List<Destination> allFeasible,
+                                               SplittableRandom random) {
+        return this.shuffleDestinations(allFeasible, random);
+    }
+
+    @Override
+    public List<ColorCard> orderColorCards(List<ColorCard> allCards,
+                                           SplittableRandom random) {
+        return this.shuffleColoredCards(allCards, random);
+    }
 }
@@ -0,0 +1,420 @@
+package transport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Messages as length prefixed binary frames. A frame is the varint length of
+ * its payload followed by the payload: the varint number of distinct strings
+ * in the message, each as a varint length and UTF-8 bytes, then the value.
+ * Strings in the value, object field names included, are varint indexes into
+ * that table, so the names of cities and colors repeated all over a player
+ * state are sent once per message and then take a byte each.
+ * <p>
+ * A value is a tag byte followed by its content:
+ * <ul>
+ * <li>NULL, FALSE, TRUE: nothing</li>
+ * <li>INT: the zigzag varint of the integer</li>
+ * <li>DOUBLE: the 8 bytes of the IEEE 754 double</li>
+ * <li>STRING: the string index</li>
+ * <li>ARRAY: the varint number of elements, then the elements</li>
+ * <li>OBJECT: the varint number of fields, then each field as the index of
+ * its name and its value</li>
+ * <li>CONNECTION: an array of three strings and an integer, the shape of an
+ * acquired connection, packed as three string indexes and the zigzag varint
+ * of the integer</li>
+ * </ul>
+ * Card counts and rails are small integers, so most take a single byte.
+ */
+final class BinaryWireFormat implements WireFormat {
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int INT = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+    private static final int ARRAY = 6;
+    private static final int OBJECT = 7;
+    private static final int CONNECTION = 8;
+
+    private static final int MAX_DEPTH = 64;
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public byte[] encode(Object message) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Output body = new Output();
+        writeValue(body, strings, message instanceof JsonNode ?
+                                  (JsonNode) message :
+                                  MAPPER.valueToTree(message), 0);
+
+        Output payload = new Output();
+        payload.writeVarint(strings.size());
+        for (String s : strings.keySet()) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            payload.writeVarint(utf8.length);
+            payload.write(utf8, 0, utf8.length);
+        }
+        payload.write(body.buffer(), 0, body.size());
+
+        Output frame = new Output();
+        frame.writeVarint(payload.size());
+        frame.write(payload.buffer(), 0, payload.size());
+        return frame.toByteArray();
+    }
+
+    @Override
+    public Decoder newDecoder(int maxMessageBytes) {
+        return new FrameDecoder(maxMessageBytes);
+    }
+
+    @Override
+    public Reader newReader(InputStream in) {
+        DataInputStream data = new DataInputStream(in);
+        return new Reader() {
+            @Override
+            public JsonNode read() throws IOException {
+                long length = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int b = data.read();
+                    if (b < 0) {
+                        throw new EOFException(
+                                "Stream ended before a message");
+                    }
+                    length |= (long) (b & 0x7f) << shift;
+                    if ((b & 0x80) == 0) {
+                        break;
+                    }
+                    if (shift > 28) {
+                        throw new IOException("Malformed frame length");
+                    }
+                }
+                if (length > NioTransport.DEFAULT_MAX_MESSAGE_BYTES) {
+                    throw new IOException("Frame of " + length + " bytes");
+                }
+                byte[] payload = new byte[(int) length];
+                data.readFully(payload);
+                try {
+                    return decode(payload);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public JsonParser next() throws IOException {
+                // the string table comes first, so the whole frame is decoded
+                JsonParser parser = MAPPER.treeAsTokens(this.read());
+                parser.nextToken();
+                return parser;
+            }
+        };
+    }
+
+    @Override
+    public Writer newWriter(OutputStream out) {
+        return message -> {
+            out.write(this.encode(message));
+            out.flush();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return this.getName();
+    }
+
+    /**
+     * Decodes the payload of a frame.
+     *
+     * @throws IllegalArgumentException if the payload is malformed
+     */
+    static JsonNode decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        try {
+            int numStrings = readCount(in);
+            String[] strings = new String[numStrings];
+            for (int i = 0; i < numStrings; i++) {
+                int length = readCount(in);
+                strings[i] = new String(payload, in.position(), length,
+                        StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            }
+            JsonNode value = readValue(in, strings, 0);
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException(
+                        "Trailing bytes after the value");
+            }
+            return value;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated message", e);
+        }
+    }
+
+    private static void writeValue(Output out, Map<String, Integer> strings,
+                                   JsonNode node, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Message nested too deeply");
+        }
+        if (node.isNull() || node.isMissingNode()) {
+            out.write(NULL);
+        } else if (node.isBoolean()) {
+            out.write(node.booleanValue() ? TRUE : FALSE);
+        } else if (node.isIntegralNumber()) {
+            if (!node.canConvertToLong()) {
+                throw new IllegalArgumentException(
+                        "Integer out of range: " + node);
+            }
+            out.write(INT);
+            out.writeZigzag(node.longValue());
+        } else if (node.isNumber()) {
+            out.write(DOUBLE);
+            out.writeDouble(node.doubleValue());
+        } else if (node.isTextual()) {
+            out.write(STRING);
+            out.writeVarint(indexOf(strings, node.textValue()));
+        } else if (isConnection(node)) {
+            out.write(CONNECTION);
+            for (int i = 0; i < 3; i++) {
+                out.writeVarint(indexOf(strings, node.get(i).textValue()));
+            }
+            out.writeZigzag(node.get(3).longValue());
+        } else if (node.isArray()) {
+            out.write(ARRAY);
+            out.writeVarint(node.size());
+            for (JsonNode element : node) {
+                writeValue(out, strings, element, depth + 1);
+            }
+        } else if (node.isObject()) {
+            out.write(OBJECT);
+            out.writeVarint(node.size());
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                out.writeVarint(indexOf(strings, field.getKey()));
+                writeValue(out, strings, field.getValue(), depth + 1);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot encode " + node);
+        }
+    }
+
+    private static JsonNode readValue(ByteBuffer in, String[] strings,
+                                      int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Message nested too deeply");
+        }
+        int tag = in.get();
+        switch (tag) {
+            case NULL:
+                return NODES.nullNode();
+            case FALSE:
+                return NODES.booleanNode(false);
+            case TRUE:
+                return NODES.booleanNode(true);
+            case INT:
+                return intNode(readZigzag(in));
+            case DOUBLE:
+                return NODES.numberNode(in.getDouble());
+            case STRING:
+                return NODES.textNode(readString(in, strings));
+            case ARRAY: {
+                int size = readCount(in);
+                ArrayNode array = NODES.arrayNode();
+                for (int i = 0; i < size; i++) {
+                    array.add(readValue(in, strings, depth + 1));
+                }
+                return array;
+            }
+            case OBJECT: {
+                int size = readCount(in);
+                ObjectNode object = NODES.objectNode();
+                for (int i = 0; i < size; i++) {
+                    String name = readString(in, strings);
+                    object.set(name, readValue(in, strings, depth + 1));
+                }
+                return object;
+            }
+            case CONNECTION:
+                return NODES.arrayNode()
+                        .add(readString(in, strings))
+                        .add(readString(in, strings))
+                        .add(readString(in, strings))
+                        .add(intNode(readZigzag(in)));
+            default:
+                throw new IllegalArgumentException("Unknown tag " + tag);
+        }
+    }
+
+    /**
+     * Determines whether an array has the shape of an acquired connection:
+     * two city names, a color and a length.
+     */
+    private static boolean isConnection(JsonNode node) {
+        return node.isArray() && node.size() == 4 &&
+               node.get(0).isTextual() && node.get(1).isTextual() &&
+               node.get(2).isTextual() && node.get(3).isIntegralNumber() &&
+               node.get(3).canConvertToLong();
+    }
+
+    private static int indexOf(Map<String, Integer> strings, String s) {
+        return strings.computeIfAbsent(s, key -> strings.size());
+    }
+
+    private static JsonNode intNode(long value) {
+        return value == (int) value ? NODES.numberNode((int) value) :
+               NODES.numberNode(value);
+    }
+
+    private static String readString(ByteBuffer in, String[] strings) {
+        long index = readVarint(in);
+        if (index >= strings.length) {
+            throw new IllegalArgumentException("No string " + index);
+        }
+        return strings[(int) index];
+    }
+
+    /**
+     * Reads a varint counting bytes or elements that follow in the message,
+     * each at least a byte, so it cannot be more than the bytes left.
+     */
+    private static int readCount(ByteBuffer in) {
+        long count = readVarint(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Count out of range: " + count);
+        }
+        return (int) count;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long readZigzag(ByteBuffer in) {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * A byte array output that also writes varints and doubles and exposes
+     * its buffer, so frames are assembled without extra copies.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        void writeVarint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                this.write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            this.write((int) value);
+        }
+
+        void writeZigzag(long value) {
+            this.writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                this.write((int) (bits >>> shift));
+            }
+        }
+
+        byte[] buffer() {
+            return this.buf;
+        }
+    }
+
+    /**
+     * Splits bytes into frames, reading the length prefix and then the
+     * payload, either of which may be split over any number of reads.
+     */
+    private static final class FrameDecoder implements Decoder {
+        private final int maxMessageBytes;
+        private long length; // of the payload, while reading its prefix
+        private int shift;
+        private byte[] payload; // null while reading the prefix
+        private int filled;
+
+        FrameDecoder(int maxMessageBytes) {
+            if (maxMessageBytes < 1) {
+                throw new IllegalArgumentException(
+                        "Maximum message size must be positive, given " +
+                        maxMessageBytes);
+            }
+            this.maxMessageBytes = maxMessageBytes;
+        }
+
+        @Override
+        public void feed(ByteBuffer buffer, Consumer<JsonNode> onMessage) {
+            while (buffer.hasRemaining()) {
+                if (this.payload == null) {
+                    this.readPrefix(buffer.get());
+                } else {
+                    int n = Math.min(buffer.remaining(),
+                            this.payload.length - this.filled);
+                    buffer.get(this.payload, this.filled, n);
+                    this.filled += n;
+                }
+                if (this.payload != null &&
+                    this.filled == this.payload.length) {
+                    byte[] complete = this.payload;
+                    this.payload = null;
+                    onMessage.accept(decode(complete));
+                }
+            }
+        }
+
+        private void readPrefix(byte b) {
+            this.length |= (long) (b & 0x7f) << this.shift;
+            this.shift += 7;
+            if (this.length > this.maxMessageBytes) {
+                throw new IllegalArgumentException(
+                        "Message larger than " + this.maxMessageBytes +
+                        " bytes");
+            }
+            if ((b & 0x80) != 0) {
+                if (this.shift > 28) {
+                    throw new IllegalArgumentException(
+                            "Malformed frame length");
+                }
+                return;
+            }
+            this.payload = new byte[(int) this.length];
+            this.filled = 0;
+            this.length = 0;
+            this.shift = 0;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A connection exchanging JSON values with a peer, served by an event loop
+ * of a NioTransport. Calls are made from any thread and return a future
+ * completed on the event loop; at most one call may wait for a response at
+ * a time. Values the peer sends while no call is waiting are kept, in
+ * order, for the next call.
+ * <p>
+ * A call that is not answered by its deadline fails with a TimeoutException
+ * and closes the connection, since a late response could not be told apart
+ * from the response to the next call. A peer sending malformed JSON or more
+ * than MAX_UNREQUESTED values no one asked for is disconnected.
+ * <p>
+ * Values are exchanged as textual JSON until setWireFormat switches the
+ * connection to another WireFormat.
+ */
+public final class Connection {
+    /**
+     * Number of values a peer may send ahead of the calls that read them.
+     */
+    public static final int MAX_UNREQUESTED = 16;
+
+    final NioTransport.EventLoop loop;
+    private final SocketChannel channel;
+    private final int maxMessageBytes;
+    private volatile WireFormat format = WireFormat.JSON;
+    private WireFormat.Decoder decoder; // only used on the loop
+    private final Queue<ByteBuffer> outgoing = new ArrayDeque<>();
+    private final Queue<JsonNode> unrequested = new ArrayDeque<>();
+    private SelectionKey key;
+    private CompletableFuture<JsonNode> pending;
+    private TimerWheel.Timeout pendingDeadline;
+    private volatile boolean open = true;
+
+    Connection(NioTransport.EventLoop loop, SocketChannel channel,
+               int maxMessageBytes) {
+        this.loop = loop;
+        this.channel = channel;
+        this.maxMessageBytes = maxMessageBytes;
+        this.decoder = WireFormat.JSON.newDecoder(maxMessageBytes);
+    }
+
+    /**
+     * Sends a value to the peer and waits for the next value it sends.
+     *
+     * @param message       value to send, see WireFormat.encode
+     * @param timeoutMillis time allowed for sending and the response
+     *
+     * @return a future of the response, failed with a TimeoutException if
+     * the deadline passes, with a ClosedChannelException if the connection
+     * closes first or with an IllegalStateException if another call is
+     * waiting
+     */
+    public CompletableFuture<JsonNode> request(Object message,
+                                               long timeoutMillis) {
+        CompletableFuture<JsonNode> response = new CompletableFuture<>();
+        final byte[] bytes;
+        try {
+            bytes = this.format.encode(message);
+        } catch (IllegalArgumentException e) {
+            response.completeExceptionally(e);
+            return response;
+        }
+        this.loop.execute(() -> {
+            if (this.expect(response, timeoutMillis)) {
+                this.outgoing.add(ByteBuffer.wrap(bytes));
+                this.flush();
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Waits for the next value the peer sends, without sending anything.
+     *
+     * @param timeoutMillis time allowed for the value to arrive
+     *
+     * @return a future of the value, failed the same as for request
+     */
+    public CompletableFuture<JsonNode> receive(long timeoutMillis) {
+        CompletableFuture<JsonNode> value = new CompletableFuture<>();
+        this.loop.execute(() -> this.expect(value, timeoutMillis));
+        return value;
+    }
+
+    /**
+     * Switches the format of the values exchanged. Values sent after this
+     * call are encoded in the new format, and bytes read after the value the
+     * switch was agreed on are decoded in it, so the peer must not send
+     * anything in between, such as when the switch is agreed on in the first
+     * value it sends and it then waits to be called.
+     */
+    public void setWireFormat(WireFormat format) {
+        this.format = format;
+        this.loop.execute(() -> this.decoder =
+                format.newDecoder(this.maxMessageBytes));
+    }
+
+    /**
+     * @return the format the values are exchanged in
+     */
+    public WireFormat getWireFormat() {
+        return this.format;
+    }
+
+    /**
+     * @return whether the connection is still open
+     */
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    /**
+     * Closes the connection, failing a waiting call. Values not yet written
+     * are dropped.
+     */
+    public void close() {
+        this.loop.execute(this::closeNow);
+    }
+
+    /**
+     * Called on the loop once the channel is registered.
+     */
+    void attach(SelectionKey key) {
+        this.key = key;
+        if (!this.open) {
+            key.cancel();
+        } else if (!this.outgoing.isEmpty()) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Makes the given future the waiting call, completing it right away with
+     * a value that already arrived.
+     *
+     * @return whether the call was accepted, false if the future failed
+     */
+    private boolean expect(CompletableFuture<JsonNode> future,
+                           long timeoutMillis) {
+        if (!this.open) {
+            future.completeExceptionally(new ClosedChannelException());
+            return false;
+        }
+        if (this.pending != null) {
+            future.completeExceptionally(new IllegalStateException(
+                    "Another call is waiting on this connection"));
+            return false;
+        }
+        if (!this.unrequested.isEmpty()) {
+            future.complete(this.unrequested.poll());
+            return true;
+        }
+        this.pending = future;
+        this.pendingDeadline = this.loop.wheel.schedule(
+                this.loop.now() + timeoutMillis, () -> {
+                    CompletableFuture<JsonNode> timedOut = this.pending;
+                    this.pending = null;
+                    this.closeNow();
+                    timedOut.completeExceptionally(new TimeoutException(
+                            "No response within " + timeoutMillis + "ms"));
+                });
+        return true;
+    }
+
+    /**
+     * Writes as much of the outgoing values as the socket takes, waiting for
+     * it to become writable for the rest.
+     */
+    void flush() {
+        if (this.key == null || !this.open) {
+            return; // not registered yet, attach flushes
+        }
+        try {
+            while (!this.outgoing.isEmpty()) {
+                ByteBuffer head = this.outgoing.peek();
+                this.channel.write(head);
+                if (head.hasRemaining()) {
+                    this.key.interestOps(
+                            this.key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                this.outgoing.poll();
+            }
+            this.key.interestOps(
+                    this.key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            this.closeNow();
+        }
+    }
+
+    /**
+     * Reads what the socket has, up to the given number of buffers, and
+     * frames it into values.
+     */
+    void read(ByteBuffer buffer, int maxReads) {
+        try {
+            for (int i = 0; i < maxReads && this.open; i++) {
+                buffer.clear();
+                int n = this.channel.read(buffer);
+                if (n < 0) {
+                    this.closeNow();
+                    return;
+                }
+                if (n == 0) {
+                    return;
+                }
+                buffer.flip();
+                this.decoder.feed(buffer, this::onValue);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            this.closeNow();
+        }
+    }
+
+    private void onValue(JsonNode value) {
+        if (this.pending != null) {
+            CompletableFuture<JsonNode> waiting = this.pending;
+            this.pending = null;
+            this.loop.wheel.cancel(this.pendingDeadline);
+            waiting.complete(value);
+        } else if (this.unrequested.size() < MAX_UNREQUESTED) {
+            this.unrequested.add(value);
+        } else {
+            throw new IllegalArgumentException("Too many unrequested values");
+        }
+    }
+
+    /**
+     * Closes the channel and fails the waiting call, on the loop thread.
+     */
+    void closeNow() {
+        if (!this.open) {
+            return;
+        }
+        this.open = false;
+        if (this.key != null) {
+            this.key.cancel();
+        }
+        try {
+            this.channel.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        this.outgoing.clear();
+        this.unrequested.clear();
+        if (this.pending != null) {
+            CompletableFuture<JsonNode> waiting = this.pending;
+            this.pending = null;
+            this.loop.wheel.cancel(this.pendingDeadline);
+            waiting.completeExceptionally(new ClosedChannelException());
+        }
+    }
+}
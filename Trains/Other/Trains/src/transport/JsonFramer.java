@@ -0,0 +1,126 @@
+package transport;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits a stream of bytes into top level JSON values as the bytes arrive,
+ * without parsing them. Tracks only nesting depth and whether it is inside a
+ * string, so bytes are scanned once and a value split over any number of
+ * reads is framed as soon as its last byte arrives. Values may be separated
+ * by whitespace or nothing at all. A top level number or literal ends at the
+ * next whitespace or the start of the next value, the same as for a
+ * streaming parser.
+ * <p>
+ * Quotes, backslashes and brackets are ASCII and never part of a multi-byte
+ * UTF-8 sequence, so scanning bytes rather than characters is exact. The
+ * framer does not validate JSON; a malformed value is only detected when the
+ * frame is parsed.
+ */
+public final class JsonFramer {
+    private final int maxFrameBytes;
+    private byte[] frame;
+    private int length;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private boolean inScalar; // top level number or literal
+
+    /**
+     * @param maxFrameBytes largest value accepted, in bytes
+     *
+     * @throws IllegalArgumentException if maxFrameBytes is not positive
+     */
+    public JsonFramer(int maxFrameBytes) {
+        if (maxFrameBytes < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum frame size must be positive, given " +
+                    maxFrameBytes);
+        }
+        this.maxFrameBytes = maxFrameBytes;
+        this.frame = new byte[Math.min(256, maxFrameBytes)];
+    }
+
+    /**
+     * Consumes every remaining byte of the buffer, passing each value that is
+     * completed to onFrame in order.
+     *
+     * @throws IllegalArgumentException if a value exceeds the maximum frame
+     *                                  size or closes more brackets than it
+     *                                  opened
+     */
+    public void feed(ByteBuffer buffer, Consumer<byte[]> onFrame) {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (this.inScalar) {
+                if (isWhitespace(b) || b == '"' || b == '[' || b == '{') {
+                    this.emit(onFrame);
+                } else {
+                    this.append(b);
+                    continue;
+                }
+            }
+            if (this.length == 0 && isWhitespace(b)) {
+                continue; // between values
+            }
+            this.append(b);
+            if (this.inString) {
+                if (this.escaped) {
+                    this.escaped = false;
+                } else if (b == '\\') {
+                    this.escaped = true;
+                } else if (b == '"') {
+                    this.inString = false;
+                    if (this.depth == 0) {
+                        this.emit(onFrame);
+                    }
+                }
+            } else if (b == '"') {
+                this.inString = true;
+            } else if (b == '[' || b == '{') {
+                this.depth++;
+            } else if (b == ']' || b == '}') {
+                if (--this.depth < 0) {
+                    throw new IllegalArgumentException("Unbalanced " +
+                                                       (char) b + " in input");
+                }
+                if (this.depth == 0) {
+                    this.emit(onFrame);
+                }
+            } else if (this.depth == 0) {
+                this.inScalar = true;
+            }
+        }
+    }
+
+    /**
+     * @return whether part of a value has been consumed but not framed yet
+     */
+    public boolean hasPartialFrame() {
+        return this.length > 0;
+    }
+
+    private void append(byte b) {
+        if (this.length == this.frame.length) {
+            if (this.length >= this.maxFrameBytes) {
+                throw new IllegalArgumentException(
+                        "Message exceeds " + this.maxFrameBytes + " bytes");
+            }
+            this.frame = Arrays.copyOf(this.frame,
+                    Math.min(this.maxFrameBytes, this.length * 2));
+        }
+        this.frame[this.length++] = b;
+    }
+
+    private void emit(Consumer<byte[]> onFrame) {
+        byte[] value = Arrays.copyOf(this.frame, this.length);
+        this.length = 0;
+        this.inScalar = false;
+        onFrame.accept(value);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,84 @@
+package transport;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Messages as textual JSON values, framed by a JsonFramer on connections and
+ * by a streaming parser on blocking streams, which readers get to parse each
+ * message from. The format of clients that do not request another.
+ */
+final class JsonWireFormat implements WireFormat {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = new JsonFactory(MAPPER)
+            .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    @Override
+    public String getName() {
+        return "json";
+    }
+
+    @Override
+    public byte[] encode(Object message) {
+        try {
+            return MAPPER.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public Decoder newDecoder(int maxMessageBytes) {
+        JsonFramer framer = new JsonFramer(maxMessageBytes);
+        return (buffer, onMessage) -> framer.feed(buffer, frame -> {
+            try {
+                onMessage.accept(MAPPER.readTree(frame));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed JSON", e);
+            }
+        });
+    }
+
+    @Override
+    public Reader newReader(InputStream in) {
+        return new Reader() {
+            private JsonParser parser; // created on the first read
+
+            @Override
+            public JsonParser next() throws IOException {
+                if (this.parser == null) {
+                    // detecting the encoding blocks until the first bytes
+                    this.parser = FACTORY.createParser(in);
+                }
+                if (this.parser.nextToken() == null) {
+                    throw new EOFException("Stream ended before a message");
+                }
+                return this.parser;
+            }
+        };
+    }
+
+    @Override
+    public Writer newWriter(OutputStream out) throws IOException {
+        JsonGenerator generator = FACTORY.createGenerator(out);
+        return message -> {
+            MAPPER.writeValue(generator, message);
+            generator.flush();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return this.getName();
+    }
+}
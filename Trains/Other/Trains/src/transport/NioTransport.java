@@ -0,0 +1,243 @@
+package transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Serves any number of message connections from a fixed number of
+ * event loop threads. Each loop owns a Selector, a TimerWheel for call
+ * deadlines and the connections assigned to it round robin; every read,
+ * write and deadline of a connection happens on its loop, so a connection
+ * holds no thread while it waits on its peer. Callers block only on the
+ * CompletableFuture of their own call.
+ */
+public final class NioTransport implements Closeable {
+    /**
+     * Largest message accepted from a peer by default.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_BYTES = 1 << 24;
+
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SLOTS = 512; // a revolution is ~5 seconds
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_READS_PER_WAKEUP = 16;
+
+    private final EventLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final int maxMessageBytes;
+
+    /**
+     * Creates a transport with the given number of event loops and the
+     * default maximum message size, and starts its loop threads.
+     *
+     * @throws IllegalArgumentException if numLoops is less than 1
+     */
+    public NioTransport(int numLoops) {
+        this(numLoops, DEFAULT_MAX_MESSAGE_BYTES);
+    }
+
+    /**
+     * Creates a transport with the given number of event loops and starts
+     * its loop threads, which are daemons.
+     *
+     * @param numLoops        number of event loop threads
+     * @param maxMessageBytes largest message accepted from a peer, a
+     *                        connection sending a larger one is closed
+     *
+     * @throws IllegalArgumentException if numLoops or maxMessageBytes is less
+     *                                  than 1
+     */
+    public NioTransport(int numLoops, int maxMessageBytes) {
+        if (numLoops < 1 || maxMessageBytes < 1) {
+            throw new IllegalArgumentException("Invalid number of loops " +
+                                               numLoops + " or message size " +
+                                               maxMessageBytes);
+        }
+        this.maxMessageBytes = maxMessageBytes;
+        this.loops = new EventLoop[numLoops];
+        for (int i = 0; i < numLoops; i++) {
+            this.loops[i] = new EventLoop("transport-" + i);
+        }
+    }
+
+    /**
+     * Accepts connections on the given bound server channel, passing each to
+     * onAccept on the event loop thread of the new connection. onAccept must
+     * not block.
+     *
+     * @throws UncheckedIOException if the channel cannot be made non blocking
+     */
+    public void listen(ServerSocketChannel server,
+                       Consumer<Connection> onAccept) {
+        try {
+            server.configureBlocking(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        EventLoop loop = this.loops[0];
+        loop.execute(() -> {
+            try {
+                server.register(loop.selector, SelectionKey.OP_ACCEPT,
+                        (Consumer<SelectionKey>) key ->
+                                this.accept(server, onAccept));
+            } catch (IOException e) {
+                // closed before the loop got to it, nothing to accept
+            }
+        });
+    }
+
+    /**
+     * Serves the given connected channel on one of the event loops.
+     *
+     * @return the connection, usable right away
+     */
+    public Connection register(SocketChannel channel) {
+        EventLoop loop = this.loops[Math.floorMod(
+                this.nextLoop.getAndIncrement(), this.loops.length)];
+        Connection connection = new Connection(loop, channel,
+                this.maxMessageBytes);
+        loop.execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                connection.attach(channel.register(loop.selector,
+                        SelectionKey.OP_READ, connection));
+            } catch (IOException e) {
+                connection.closeNow();
+            }
+        });
+        return connection;
+    }
+
+    /**
+     * Stops every event loop and closes all of their connections; the
+     * server channels given to listen are closed by their owners.
+     */
+    @Override
+    public void close() {
+        for (EventLoop loop : this.loops) {
+            loop.shutdown();
+        }
+    }
+
+    private void accept(ServerSocketChannel server,
+                        Consumer<Connection> onAccept) {
+        try {
+            for (SocketChannel channel = server.accept(); channel != null;
+                 channel = server.accept()) {
+                Connection connection = this.register(channel);
+                connection.loop.execute(() -> onAccept.accept(connection));
+            }
+        } catch (IOException e) {
+            // the server channel was closed, stop accepting
+        }
+    }
+
+    /**
+     * A single thread multiplexing the connections assigned to it.
+     */
+    final class EventLoop implements Runnable {
+        final Selector selector;
+        final TimerWheel wheel;
+        final ByteBuffer readBuffer =
+                ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+
+        private EventLoop(String name) {
+            try {
+                this.selector = Selector.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.wheel = new TimerWheel(TICK_MILLIS, WHEEL_SLOTS, now());
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        /**
+         * Runs the task on this loop's thread, right away if called from it.
+         */
+        void execute(Runnable task) {
+            if (Thread.currentThread() == this.thread) {
+                task.run();
+            } else {
+                this.tasks.add(task);
+                this.selector.wakeup();
+            }
+        }
+
+        long now() {
+            return System.nanoTime() / 1_000_000;
+        }
+
+        void shutdown() {
+            this.running = false;
+            this.selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (this.running) {
+                    this.selector.select(this.wheel.millisUntilNextTick(now()));
+                    for (Runnable task = this.tasks.poll(); task != null;
+                         task = this.tasks.poll()) {
+                        task.run();
+                    }
+                    for (SelectionKey key : this.selector.selectedKeys()) {
+                        this.handle(key);
+                    }
+                    this.selector.selectedKeys().clear();
+                    this.wheel.advance(now());
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                // fall through and close what is left
+            } finally {
+                for (SelectionKey key : this.selector.keys()) {
+                    if (key.attachment() instanceof Connection) {
+                        ((Connection) key.attachment()).closeNow();
+                    }
+                }
+                try {
+                    this.selector.close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void handle(SelectionKey key) {
+            if (!key.isValid()) {
+                return;
+            }
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                Connection connection = (Connection) attachment;
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    connection.read(this.readBuffer, MAX_READS_PER_WAKEUP);
+                }
+            } else {
+                ((Consumer<SelectionKey>) attachment).accept(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hashed timer wheel for the deadlines of an event loop. Timeouts are kept
+ * in one of a fixed number of slots by the tick they expire in, so
+ * scheduling and cancelling are constant time and advancing the wheel only
+ * looks at the slots of the ticks that passed. Deadlines are rounded up to
+ * the next tick, so a timeout never fires early and fires at most one tick
+ * late.
+ * <p>
+ * Not thread safe: schedule, cancel and advance from the thread that owns
+ * the wheel, and run its tasks on that thread.
+ */
+public final class TimerWheel {
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout[] slots; // sentinel heads of circular lists
+    private final int mask;
+    private long currentTick; // next tick to expire
+    private int size;
+    private final List<Timeout> expired = new ArrayList<>();
+
+    /**
+     * A scheduled task that can be cancelled until it runs.
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private boolean expiring; // unlinked by advance, about to run
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return whether the task is still waiting to run
+         */
+        public boolean isPending() {
+            return this.next != null || this.expiring;
+        }
+    }
+
+    /**
+     * Creates a wheel whose first tick ends tickMillis after startMillis.
+     *
+     * @param tickMillis  granularity of deadlines in milliseconds
+     * @param numSlots    number of slots, rounded up to a power of two; a
+     *                    revolution should span the usual deadline
+     * @param startMillis current time in milliseconds
+     *
+     * @throws IllegalArgumentException if tickMillis or numSlots is not
+     *                                  positive
+     */
+    public TimerWheel(long tickMillis, int numSlots, long startMillis) {
+        if (tickMillis < 1 || numSlots < 1 || numSlots > 1 << 30) {
+            throw new IllegalArgumentException(
+                    "Invalid tick " + tickMillis + " or slots " + numSlots);
+        }
+        int n = Integer.highestOneBit(numSlots);
+        if (n < numSlots) {
+            n <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.slots = new Timeout[n];
+        for (int i = 0; i < n; i++) {
+            Timeout head = new Timeout(null, Long.MAX_VALUE);
+            head.prev = head;
+            head.next = head;
+            this.slots[i] = head;
+        }
+        this.mask = n - 1;
+        this.currentTick = 1;
+    }
+
+    /**
+     * Schedules a task to run once the given time has passed.
+     *
+     * @param deadlineMillis time to run the task at, in milliseconds
+     * @param task           to run on the next advance past the deadline
+     *
+     * @return a handle to cancel the task with
+     */
+    public Timeout schedule(long deadlineMillis, Runnable task) {
+        long elapsed = Math.max(0, deadlineMillis - this.startMillis);
+        long tick = Math.max(this.currentTick,
+                (elapsed + this.tickMillis - 1) / this.tickMillis);
+        Timeout timeout = new Timeout(task, tick);
+        Timeout head = this.slots[(int) (tick & this.mask)];
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+        this.size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels the given timeout if it has not run yet.
+     *
+     * @return whether the timeout was pending
+     */
+    public boolean cancel(Timeout timeout) {
+        if (timeout.expiring) { // expired in the tick being advanced
+            timeout.expiring = false;
+            return true;
+        }
+        if (timeout.next == null) {
+            return false;
+        }
+        this.unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Runs every task whose deadline is at or before the given time, in order
+     * of their ticks. Tasks must not throw.
+     *
+     * @param nowMillis current time in milliseconds
+     *
+     * @return number of tasks run
+     */
+    public int advance(long nowMillis) {
+        long lastTick = (nowMillis - this.startMillis) / this.tickMillis;
+        int run = 0;
+        while (this.currentTick <= lastTick) {
+            if (this.size == 0) { // nothing to expire, skip ahead
+                this.currentTick = lastTick + 1;
+                break;
+            }
+            // unlink first, so tasks may schedule and cancel freely
+            Timeout head = this.slots[(int) (this.currentTick & this.mask)];
+            Timeout timeout = head.next;
+            while (timeout != head) {
+                Timeout next = timeout.next;
+                if (timeout.deadlineTick <= this.currentTick) {
+                    this.unlink(timeout);
+                    timeout.expiring = true;
+                    this.expired.add(timeout);
+                }
+                timeout = next;
+            }
+            this.currentTick++;
+            for (Timeout toRun : this.expired) {
+                if (toRun.expiring) { // not cancelled by an earlier task
+                    toRun.expiring = false;
+                    toRun.task.run();
+                    run++;
+                }
+            }
+            this.expired.clear();
+        }
+        return run;
+    }
+
+    /**
+     * Gets how long an event loop may block before the wheel needs to be
+     * advanced again.
+     *
+     * @param nowMillis current time in milliseconds
+     *
+     * @return milliseconds until the end of the current tick, or 0 if no
+     * timeouts are pending and the loop may block indefinitely
+     */
+    public long millisUntilNextTick(long nowMillis) {
+        if (this.size == 0) {
+            return 0;
+        }
+        long next = this.startMillis + this.currentTick * this.tickMillis;
+        return Math.max(1, next - nowMillis);
+    }
+
+    /**
+     * @return number of pending timeouts
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private void unlink(Timeout timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+        this.size--;
+    }
+}
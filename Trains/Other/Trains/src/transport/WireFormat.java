@@ -0,0 +1,127 @@
+package transport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * An encoding of the messages exchanged with players on the wire. Every
+ * format carries the same messages, JSON values, so the protocol does not
+ * depend on the format a client speaks; a format only decides how they are
+ * turned into bytes and split back out of a stream.
+ * <p>
+ * A message to send is a JsonNode or any value an ObjectMapper serializes,
+ * such as the streaming values of JsonCodec, which JSON writes without
+ * building a tree.
+ * <p>
+ * Formats are stateless and shared. Each message is encoded on its own, so
+ * encoding may happen on any thread.
+ */
+public interface WireFormat {
+    /**
+     * Textual JSON, values following each other on the stream.
+     */
+    WireFormat JSON = new JsonWireFormat();
+
+    /**
+     * Length prefixed binary frames with varints, see BinaryWireFormat.
+     */
+    WireFormat BINARY = new BinaryWireFormat();
+
+    /**
+     * @return the name clients request the format by
+     */
+    String getName();
+
+    /**
+     * Encodes a message into the bytes sent for it.
+     *
+     * @throws IllegalArgumentException if the format cannot encode the value
+     */
+    byte[] encode(Object message);
+
+    /**
+     * Creates a decoder for the messages arriving on one connection.
+     *
+     * @param maxMessageBytes largest message accepted
+     */
+    Decoder newDecoder(int maxMessageBytes);
+
+    /**
+     * Creates a reader of the messages arriving on a blocking stream.
+     */
+    Reader newReader(InputStream in);
+
+    /**
+     * Creates a writer of messages to a blocking stream.
+     */
+    Writer newWriter(OutputStream out) throws IOException;
+
+    /**
+     * Gets the format with the given name.
+     *
+     * @throws IllegalArgumentException if there is no such format
+     */
+    static WireFormat forName(String name) {
+        if (JSON.getName().equals(name)) {
+            return JSON;
+        }
+        if (BINARY.getName().equals(name)) {
+            return BINARY;
+        }
+        throw new IllegalArgumentException("Unknown wire format: " + name);
+    }
+
+    /**
+     * Splits bytes into messages as they arrive, keeping a partial message
+     * between calls.
+     */
+    interface Decoder {
+        /**
+         * Consumes every remaining byte of the buffer, passing each message
+         * that is completed to onMessage in order.
+         *
+         * @throws IllegalArgumentException if a message is too large or
+         *                                  malformed
+         */
+        void feed(ByteBuffer buffer, Consumer<JsonNode> onMessage);
+    }
+
+    /**
+     * Reads messages from a blocking stream.
+     */
+    interface Reader {
+        /**
+         * Blocks until the next message has arrived.
+         *
+         * @throws IOException if the stream fails or ends before a message
+         */
+        default JsonNode read() throws IOException {
+            return this.next().readValueAsTree();
+        }
+
+        /**
+         * Blocks until the next message has started to arrive and returns a
+         * parser on its first token. The caller reads the message token by
+         * token, up to its last token, before reading the next one.
+         *
+         * @throws IOException if the stream fails or ends before a message
+         */
+        JsonParser next() throws IOException;
+    }
+
+    /**
+     * Writes messages to a blocking stream.
+     */
+    interface Writer {
+        /**
+         * Writes the message and flushes the stream.
+         */
+        void write(Object message) throws IOException;
+    }
+}
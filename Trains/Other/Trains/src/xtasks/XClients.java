@@ -9,10 +9,13 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import concurrent.Threads;
 import json.JsonConverter;
 import map.TrainsMap;
+import transport.WireFormat;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.Socket;
@@ -20,6 +23,12 @@ import java.util.*;
 
 public class XClients {
 
+    /**
+     * System property naming the wire format clients request, "json" by
+     * default.
+     */
+    public static final String WIRE_FORMAT_PROPERTY = "trains.wireFormat";
+
     public static void main(String[] args) throws IOException, InterruptedException {
         TrainsMap map;
         LinkedList<IPlayer> players;
@@ -50,7 +59,11 @@ public class XClients {
         }
         final int port = Integer.parseInt(args[1]);
         final String host = args.length > 2 ? args[2] : "127.0.0.1";
+        final WireFormat format = WireFormat.forName(
+                System.getProperty(WIRE_FORMAT_PROPERTY, "json"));
 
+        // virtual threads are daemons, so wait for every client to finish
+        List<Thread> clients = new ArrayList<>();
         players.forEach(player -> {
             // Uncomment the following to ensure deterministic(ish) signup order.
             /*try {
@@ -58,14 +71,14 @@ public class XClients {
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }*/
-            new Thread(() -> {
+            clients.add(Threads.start("client-" + player.getName(), () -> {
                 var runAgain = true;
                 while (runAgain) {
                     runAgain = false;
                     // open a new socket for each player
                     try (Socket socket = new Socket(host, port)) {
                         new PlayerCommandExecutor(player, socket.getInputStream(),
-                                socket.getOutputStream()).start();
+                                socket.getOutputStream(), format).start();
                     } catch (ConnectException e) {
                         runAgain = true;
                         try {
@@ -73,15 +86,18 @@ public class XClients {
                         } catch (InterruptedException ignored) {
                             // don't worry about what happens here
                         }
-                    } catch (JsonMappingException ignored) {
+                    } catch (JsonMappingException | EOFException ignored) {
                         // cheaters will be stuck waiting for JSON when their
                         // sockets close, so we ignore those exceptions here
                     } catch (IOException e) {
                         throw new RuntimeException(e);
                     }
                 }
-            }).start();
+            }));
         });
+        for (Thread client : clients) {
+            client.join();
+        }
     }
 
     /**
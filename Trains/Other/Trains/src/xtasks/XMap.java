@@ -4,7 +4,6 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import json.JsonConverter;
-import map.City;
 import map.TrainsMap;
 
 import java.io.BufferedInputStream;
@@ -19,26 +18,24 @@ public class XMap {
         BufferedInputStream inputStream = new BufferedInputStream(System.in);
         JsonFactory factory = new JsonFactory();
         JsonParser parser;
-        City city0;
-        City city1;
+        String city0Name;
+        String city1Name;
         TrainsMap map;
         try {
             parser = factory.createParser(inputStream);
             parser.setCodec(new ObjectMapper());
             parser.nextToken();
-            String city0Name = parser.readValueAs(String.class);
+            city0Name = parser.readValueAs(String.class);
             parser.nextToken();
-            String city1Name = parser.readValueAs(String.class);
+            city1Name = parser.readValueAs(String.class);
             parser.nextToken();
             map = JsonConverter.jsonToMap(parser.readValueAsTree());
-            city0 = JsonConverter.findCityByName(map.getCities(), city0Name);
-            city1 = JsonConverter.findCityByName(map.getCities(), city1Name);
         } catch (IOException e) {
             throw new IllegalArgumentException(
                     "JSON input invalid, must be 2 strings for city and a " +
                             "JSON representation of a TrainsMap");
         }
 
-        System.out.println(map.areCitiesConnected(city0, city1));
+        System.out.println(map.areCitiesConnected(city0Name, city1Name));
     }
 }
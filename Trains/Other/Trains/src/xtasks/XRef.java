@@ -108,7 +108,7 @@ public class XRef {
         for (Object cardObj : cardsObjects) {
             ColorTrains colorTrains =
                     ColorTrains.valueOf(String.valueOf(cardObj).toUpperCase());
-            colorCards.add(new ColorCard(colorTrains));
+            colorCards.add(ColorCard.of(colorTrains));
         }
 
         return colorCards;
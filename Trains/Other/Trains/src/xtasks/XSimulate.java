@@ -0,0 +1,119 @@
+package xtasks;
+
+import agent.RefereeAgent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import json.JsonConverter;
+import map.TrainsMap;
+import sim.Simulation;
+import sim.SimulationReport;
+import state.ColorCard;
+import strategy.BuyNowStrategy;
+import strategy.CheaterStrategy;
+import strategy.HoldTenStrategy;
+import strategy.IPlayerStrategy;
+import strategy.RandomAdminStrategy;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays many headless games between the given players and prints their
+ * aggregate outcome. Reads the same input as XRef (a map, an array of 2-8
+ * players in descending order of age and an array of colors) and takes the
+ * number of games, threads and the seed as optional arguments:
+ * <p>
+ * XSimulate [games [threads [seed]]]
+ * <p>
+ * Destinations and cards are shuffled for every game with the game's seed.
+ */
+public class XSimulate {
+    private static final long DEFAULT_GAMES = 10000;
+
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_GAMES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) :
+                      Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+
+        TrainsMap map;
+        List<String> names = new ArrayList<>();
+        List<String> strategyNames = new ArrayList<>();
+        List<ColorCard> cards;
+        try {
+            JsonFactory factory = new JsonFactory();
+            ObjectMapper objectMapper = new ObjectMapper();
+            JsonParser parser = factory.createParser(
+                    new BufferedInputStream(System.in));
+            parser.setCodec(objectMapper);
+            ObjectReader objectReader = objectMapper.reader();
+            parser.nextToken();
+            map = JsonConverter.jsonToMap(parser.readValueAsTree());
+            parser.nextToken();
+            ArrayList<Object> players =
+                    objectReader.forType(ArrayList.class).readValue(parser);
+            for (Object playerObj : players) {
+                List<?> single = (List<?>) playerObj;
+                names.add(String.valueOf(single.get(0)));
+                strategyNames.add(String.valueOf(single.get(1)));
+            }
+            parser.nextToken();
+            cards = XRef.parseColorCards(
+                    objectReader.forType(ArrayList.class).readValue(parser));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("JSON input invalid: " + e);
+        }
+
+        Simulation simulation = new Simulation(map, cards,
+                new RandomAdminStrategy(), () -> {
+            List<IPlayerStrategy> strategies = new ArrayList<>();
+            for (String strategyName : strategyNames) {
+                strategies.add(createStrategy(strategyName));
+            }
+            return strategies;
+        }, RefereeAgent.DEFAULT_RAILS);
+        SimulationReport report = simulation.run(games, seed, threads);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("games", report.getGames());
+        result.put("seconds", report.getElapsedNanos() / 1e9);
+        result.put("games-per-second", report.getGamesPerSecond());
+        result.put("mean-turns", report.getMeanTurns());
+        ArrayNode players = result.putArray("players");
+        for (int seat = 0; seat < names.size(); seat++) {
+            ObjectNode player = players.addObject();
+            player.put("name", names.get(seat));
+            player.put("wins", report.getWins(seat));
+            player.put("misbehaviors", report.getMisbehaviors(seat));
+            player.put("mean-score", report.getMeanScore(seat));
+        }
+        System.out.println(objectMapper.writeValueAsString(result));
+    }
+
+    /**
+     * Creates one of the test input strategy options: "Buy-Now", "Hold-10" or
+     * "Cheat".
+     *
+     * @throws IllegalArgumentException if the strategy is unknown
+     */
+    private static IPlayerStrategy createStrategy(String strategyName) {
+        switch (strategyName) {
+            case "Buy-Now":
+                return new BuyNowStrategy();
+            case "Hold-10":
+                return new HoldTenStrategy();
+            case "Cheat":
+                return new CheaterStrategy();
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown strategy: " + strategyName);
+        }
+    }
+}
@@ -2,20 +2,29 @@ package agent;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import strategy.BuyNowStrategy;
 import strategy.CheaterStrategy;
 import strategy.HoldTenStrategy;
 import strategy.OrderedDestSameCards;
+import strategy.RandomAdminStrategy;
 import strategy.SuggestSmallMapStrategy;
 import strategy.ThrowMoveException;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ManagerTest {
 
@@ -329,4 +338,147 @@ public class ManagerTest {
         Assertions.assertThrows(IllegalArgumentException.class,
                 manager::playTournament);
     }
+
+    /**
+     * Creates 100 players playing as cheaters, Buy-Now and Hold-10.
+     */
+    private static List<IPlayer> createMixedPlayers() {
+        List<IPlayer> players = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 7 == 0) {
+                players.add(new PlayerAgent("player" + toAlphabetic(i),
+                        new CheaterStrategy()));
+            } else if (i % 2 == 0) {
+                players.add(new PlayerAgent("player" + toAlphabetic(i),
+                        new BuyNowStrategy()));
+            } else {
+                players.add(new PlayerAgent("player" + toAlphabetic(i),
+                        new HoldTenStrategy()));
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Creates a manager of a tournament of the 100 mixed players with a
+     * fixed seed.
+     */
+    private static Manager createSeededManager() {
+        return new Manager(createMixedPlayers(),
+                RefereeAgentTest.getConstantCardListLengthN(250),
+                new RandomAdminStrategy(), 4500L);
+    }
+
+    /**
+     * Gets the names of the winners and misbehavers of a tournament.
+     */
+    private static Map<String, Set<String>> getNames(
+            Map<String, Set<IPlayer>> result) {
+        Map<String, Set<String>> names = new HashMap<>();
+        result.forEach((group, players) -> {
+            Set<String> groupNames = new TreeSet<>();
+            for (IPlayer p : players) {
+                groupNames.add(p.getName());
+            }
+            names.put(group, groupNames);
+        });
+        return names;
+    }
+
+    /**
+     * Plays a seeded 100 player tournament allowing the given number of
+     * concurrent games, returns the names of the winners and misbehavers.
+     */
+    private static List<Set<String>> playSeededTournament(
+            int maxConcurrentGames) {
+        Manager manager = createSeededManager();
+        manager.setMaxConcurrentGames(maxConcurrentGames);
+
+        List<Set<String>> result = new ArrayList<>();
+        for (Set<IPlayer> group : manager.playTournament().values()) {
+            Set<String> names = new TreeSet<>();
+            for (IPlayer p : group) {
+                names.add(p.getName());
+            }
+            result.add(names);
+        }
+        return result;
+    }
+
+    @Test
+    public void testShouldPlayRoundConcurrentlyWithSequentialResults() {
+        List<Set<String>> sequential = playSeededTournament(1);
+        assertEquals(sequential, playSeededTournament(4));
+        assertEquals(sequential, playSeededTournament(16));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new Manager(new ArrayList<>(List.of(
+                        new PlayerAgent("a", new BuyNowStrategy()),
+                        new PlayerAgent("b", new BuyNowStrategy()))),
+                        RefereeAgentTest.getConstantCardListLengthN(250),
+                        new OrderedDestSameCards()).setMaxConcurrentGames(0));
+    }
+
+    @Test
+    public void testShouldResumeTournamentFromRoundCheckpoint(
+            @TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tournament.json");
+        Manager manager = createSeededManager();
+        manager.setCheckpointFile(file, false);
+        Map<String, Set<String>> played = getNames(manager.playTournament());
+
+        TournamentCheckpoint checkpoint = TournamentCheckpoint.read(file);
+        assertEquals(4500L, checkpoint.getSeed());
+        assertTrue(checkpoint.getRound() > 0);
+        assertTrue(checkpoint.getGameSeedsDrawn() > 0);
+        assertTrue(checkpoint.getStandingPlayers().size() >= 2);
+        assertTrue(checkpoint.getFinishedGames().isEmpty());
+        assertFalse(Files.exists(directory.resolve("tournament.json.tmp")));
+
+        // the players reconnect to a new manager, which plays the last round
+        Map<String, Set<String>> resumed = getNames(
+                createSeededManager().resumeTournament(checkpoint));
+        assertEquals(played.get("winners"), resumed.get("winners"));
+        assertTrue(played.get("misbehavers").containsAll(
+                resumed.get("misbehavers")));
+    }
+
+    @Test
+    public void testShouldResumeTournamentFromGameCheckpoint(
+            @TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tournament.json");
+        Manager manager = createSeededManager();
+        manager.setCheckpointFile(file, true);
+        Map<String, Set<String>> played = getNames(manager.playTournament());
+
+        // the last games checkpointed are the ones of the final round
+        TournamentCheckpoint checkpoint = TournamentCheckpoint.read(file);
+        assertFalse(checkpoint.getFinishedGames().isEmpty());
+        Map<String, Set<String>> resumed = getNames(
+                createSeededManager().resumeTournament(checkpoint));
+        assertEquals(played.get("winners"), resumed.get("winners"));
+    }
+
+    @Test
+    public void testShouldNotResumeWithOtherSeedOrMissingPlayer(
+            @TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tournament.json");
+        Manager manager = createSeededManager();
+        manager.setCheckpointFile(file, false);
+        manager.playTournament();
+        TournamentCheckpoint checkpoint = TournamentCheckpoint.read(file);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new Manager(createMixedPlayers(),
+                        RefereeAgentTest.getConstantCardListLengthN(250),
+                        new RandomAdminStrategy(), 4501L)
+                        .resumeTournament(checkpoint));
+        List<IPlayer> players = createMixedPlayers();
+        players.removeIf(p -> p.getName().equals(
+                checkpoint.getStandingPlayers().get(0)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new Manager(players,
+                        RefereeAgentTest.getConstantCardListLengthN(250),
+                        new RandomAdminStrategy(), 4500L)
+                        .resumeTournament(checkpoint));
+    }
 }
@@ -1,32 +1,51 @@
 package agent;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import json.JsonConverter;
 import map.City;
 import map.ColorTrains;
 import map.Coord;
 import map.Destination;
 import map.DirectConnection;
+import map.ExampleMap;
 import map.TrainsMap;
+import metrics.InMemoryMetricsSink;
+import metrics.PlayerCall;
 import org.junit.jupiter.api.Test;
 import state.ColorCard;
+import state.ExampleStates;
 import state.PlayerGameState;
 import state.PlayerHand;
+import transport.Connection;
+import transport.NioTransport;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PlayerProxyTest {
 
@@ -57,6 +76,50 @@ public class PlayerProxyTest {
         assertEquals("[\"end\",[false]]", out.toString());
     }
 
+    @Test
+    public void testShouldCallOverConnection() throws Exception {
+        BlockingQueue<Connection> accepted = new LinkedBlockingQueue<>();
+        try (NioTransport transport = new NioTransport(1);
+             ServerSocketChannel server = ServerSocketChannel.open().bind(
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                             0))) {
+            transport.listen(server, accepted::add);
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(),
+                    server.socket().getLocalPort())) {
+                PlayerProxy proxy = new PlayerProxy(
+                        accepted.poll(5, TimeUnit.SECONDS), "alice");
+                client.getOutputStream().write(
+                        "\"void\"".getBytes(StandardCharsets.UTF_8));
+                proxy.end(true); // the response may arrive before the call
+                byte[] call = new byte["[\"end\",[true]]".length()];
+                new DataInputStream(client.getInputStream())
+                        .readFully(call);
+                assertEquals("[\"end\",[true]]",
+                        new String(call, StandardCharsets.UTF_8));
+
+                client.getOutputStream().write(
+                        "\"nope\"".getBytes(StandardCharsets.UTF_8));
+                assertThrows(IllegalArgumentException.class,
+                        () -> proxy.win(false));
+            }
+        }
+    }
+
+    @Test
+    public void testShouldRecordRemoteCalls() {
+        InMemoryMetricsSink metrics = new InMemoryMetricsSink();
+        PlayerProxy proxy = new PlayerProxy(createIn("void"), createOut());
+        proxy.setMetricsSink(metrics);
+        proxy.end(true);
+        assertThrows(RuntimeException.class, () -> proxy.win(true));
+        assertEquals(1, metrics.getRemoteCallLatency(null, PlayerCall.END)
+                .getCount());
+        assertEquals(1, metrics.getRemoteCallLatency(null, PlayerCall.WIN)
+                .getCount());
+        assertEquals(0, metrics.getPlayerCallLatency(PlayerCall.END)
+                .getCount());
+    }
+
     @Test
     public void testSetup() throws IOException {
         this.mapper = new ObjectMapper();
@@ -77,6 +140,76 @@ public class PlayerProxyTest {
                 mapper.readTree(out.toString()));
     }
 
+    @Test
+    public void testShouldReferenceMapCachedByClient() throws IOException {
+        this.mapper = new ObjectMapper();
+        TrainsMap map = this.createSmallTrainsMap();
+        JsonNode mapJson = JsonConverter.mapToJson(map);
+        JsonNode reference = JsonConverter.mapReference(
+                JsonConverter.mapHash(mapJson));
+        var in = new ByteArrayInputStream(
+                (reference.toString() + reference).getBytes());
+        var out = createOut();
+        PlayerProxy proxy = new PlayerProxy(in, out);
+        proxy.setMapCacheEnabled(true);
+        proxy.setup(map, 5, List.of(new ColorCard(ColorTrains.BLUE)));
+        proxy.setup(map, 5, List.of(new ColorCard(ColorTrains.BLUE)));
+
+        List<JsonNode> calls = this.readAll(out);
+        assertEquals(List.of(
+                createFunctionCall("setup", mapJson, 5, List.of("blue"),
+                        reference),
+                createFunctionCall("setup", reference, 5, List.of("blue"),
+                        reference)), calls);
+    }
+
+    @Test
+    public void testShouldSendMapToClientNotCachingIt() throws IOException {
+        this.mapper = new ObjectMapper();
+        TrainsMap map = this.createSmallTrainsMap();
+        JsonNode mapJson = JsonConverter.mapToJson(map);
+        var in = new ByteArrayInputStream("\"void\" \"void\"".getBytes());
+        var out = createOut();
+        PlayerProxy proxy = new PlayerProxy(in, out);
+        proxy.setMapCacheEnabled(true);
+        proxy.setup(map, 5, List.of(new ColorCard(ColorTrains.BLUE)));
+        proxy.setup(map, 5, List.of(new ColorCard(ColorTrains.BLUE)));
+
+        for (JsonNode call : this.readAll(out)) {
+            assertEquals(mapJson, call.get(1).get(0));
+        }
+    }
+
+    @Test
+    public void testShouldSendStateDeltasToClientAcceptingThem()
+            throws IOException {
+        this.mapper = new ObjectMapper();
+        var in = new ByteArrayInputStream(
+                "{\"state-delta\":true} \"more cards\" \"more cards\""
+                        .getBytes());
+        var out = createOut();
+        PlayerProxy proxy = new PlayerProxy(in, out);
+        proxy.setStateDeltaEnabled(true);
+        List<JsonNode> plays = this.setupAndPlayTwice(proxy, out);
+        assertEquals(JsonConverter.playerStateToJson(this.createState(1)),
+                plays.get(0));
+        assertTrue(JsonConverter.isPlayerStateDelta(plays.get(1)));
+    }
+
+    @Test
+    public void testShouldSendFullStatesToClientNotAcceptingDeltas()
+            throws IOException {
+        this.mapper = new ObjectMapper();
+        var in = new ByteArrayInputStream(
+                "\"void\" \"more cards\" \"more cards\"".getBytes());
+        var out = createOut();
+        PlayerProxy proxy = new PlayerProxy(in, out);
+        proxy.setStateDeltaEnabled(true);
+        List<JsonNode> plays = this.setupAndPlayTwice(proxy, out);
+        assertEquals(JsonConverter.playerStateToJson(this.createState(2)),
+                plays.get(1));
+    }
+
     @Test
     public void testSetupNoVoid() {
         var in = createIn("voi");
@@ -293,6 +426,37 @@ public class PlayerProxyTest {
                 () -> new PlayerProxy(in, out).play(gs));
     }
 
+    /**
+     * Sets up the proxy and has it play on the states with one and with two
+     * connections acquired, returning the states sent in the play calls.
+     */
+    private List<JsonNode> setupAndPlayTwice(PlayerProxy proxy,
+                                             ByteArrayOutputStream out)
+            throws IOException {
+        proxy.setup(this.createSmallTrainsMap(), 5,
+                List.of(new ColorCard(ColorTrains.BLUE)));
+        proxy.play(this.createState(1));
+        proxy.play(this.createState(2));
+        List<JsonNode> calls = this.readAll(out);
+        assertEquals(JsonConverter.STATE_DELTA,
+                calls.get(0).get(1).get(3).fieldNames().next());
+        return List.of(calls.get(1).get(1).get(0), calls.get(2).get(1).get(0));
+    }
+
+    /**
+     * Creates the state of a player on the ExampleMap whose opponent has
+     * acquired the given number of its connections.
+     */
+    private PlayerGameState createState(int acquired) {
+        TrainsMap map = ExampleMap.createExampleMap();
+        List<DirectConnection> conns =
+                new ArrayList<>(map.getDirectConnections());
+        conns.sort(Comparator.comparing(DirectConnection::toString));
+        return ExampleStates.createState(map, Set.of(),
+                new HashSet<>(conns.subList(0, acquired)),
+                ExampleStates.cards(0, 4, 3, 0), 45);
+    }
+
     private TrainsMap createSmallTrainsMap() {
         var bos = new City("boston", new Coord(0.4f, 0.6f));
         var chi = new City("chicago", new Coord(0.2f, 0.8f));
@@ -310,10 +474,21 @@ public class PlayerProxyTest {
         }
     }
 
-    private OutputStream createOut() {
+    private ByteArrayOutputStream createOut() {
         return new ByteArrayOutputStream();
     }
 
+    private List<JsonNode> readAll(ByteArrayOutputStream out)
+            throws IOException {
+        List<JsonNode> nodes = new ArrayList<>();
+        JsonParser parser = this.mapper.getFactory()
+                .createParser(out.toByteArray());
+        while (parser.nextToken() != null) {
+            nodes.add(parser.readValueAsTree());
+        }
+        return nodes;
+    }
+
     private JsonNode createFunctionCall(String command, Object... args) {
         final var node = mapper.createArrayNode();
         node.add(command);
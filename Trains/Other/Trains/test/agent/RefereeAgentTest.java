@@ -7,6 +7,9 @@ import map.Destination;
 import map.DirectConnection;
 import map.ExampleMap;
 import map.TrainsMap;
+import metrics.InMemoryMetricsSink;
+import metrics.PlayerCall;
+import metrics.RefereeOperation;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import state.ColorCard;
@@ -30,6 +33,7 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RefereeAgentTest {
@@ -193,7 +197,7 @@ public class RefereeAgentTest {
 
         referee.runTurns();
         referee.sendGameResult();
-        LinkedList<HashSet<DirectConnection>> allOwned =
+        LinkedList<Set<DirectConnection>> allOwned =
                 referee.getAllOwnedConnections();
         boolean someoneOwnsAConnection = allOwned.peekFirst().size() > 0;
         someoneOwnsAConnection =
@@ -240,7 +244,7 @@ public class RefereeAgentTest {
 
         referee.runTurns();
 
-        LinkedList<HashSet<DirectConnection>> allOwned =
+        LinkedList<Set<DirectConnection>> allOwned =
                 referee.getAllOwnedConnections();
         boolean someoneOwnsAConnection = allOwned.peekFirst().size() > 0;
         someoneOwnsAConnection =
@@ -282,7 +286,7 @@ public class RefereeAgentTest {
         referee.handleDestinationChoices();
 
         referee.runTurns();
-        LinkedList<HashSet<DirectConnection>> allOwned =
+        LinkedList<Set<DirectConnection>> allOwned =
                 referee.getAllOwnedConnections();
         boolean someoneOwnsAConnection = allOwned.peekFirst().size() > 0;
         someoneOwnsAConnection =
@@ -321,7 +325,7 @@ public class RefereeAgentTest {
         referee.handleDestinationChoices();
 
         referee.runTurns();
-        LinkedList<HashSet<DirectConnection>> allOwned =
+        LinkedList<Set<DirectConnection>> allOwned =
                 referee.getAllOwnedConnections();
         boolean someoneOwnsAConnection = allOwned.peekFirst().size() > 0;
         someoneOwnsAConnection =
@@ -600,4 +604,52 @@ public class RefereeAgentTest {
         assertTrue(result.get(null).contains(two));
 
     }
+
+    @Test
+    public void testShouldRecordPlayerCallsAndRefereeWork() {
+        TrainsMap map = ExampleMap.createBostonMap();
+        LinkedList<IPlayer> players = new LinkedList<>();
+        players.add(new PlayerAgent("zero", new BuyNowStrategy()));
+        players.add(new PlayerAgent("one", new HoldTenStrategy()));
+        players.add(new PlayerAgent("two", new CheaterStrategy()));
+
+        RefereeAgent referee =
+                new RefereeAgent(map, players, getConstantCardListLengthN(250),
+                        new OrderedDestSameCards());
+        InMemoryMetricsSink metrics = new InMemoryMetricsSink();
+        referee.setMetricsSink(metrics);
+        referee.playGame();
+
+        assertEquals(Set.of("zero", "one", "two"), metrics.getPlayers());
+        for (String name : metrics.getPlayers()) {
+            assertEquals(1, metrics.getPlayerCallLatency(name, PlayerCall.SETUP)
+                    .getCount());
+            assertEquals(1, metrics.getPlayerCallLatency(name, PlayerCall.PICK)
+                    .getCount());
+            assertTrue(metrics.getPlayerCallLatency(name, PlayerCall.PLAY)
+                               .getCount() > 0);
+        }
+        // the cheater is eliminated and never told the result
+        assertEquals(0, metrics.getPlayerCallLatency("two", PlayerCall.WIN)
+                .getCount());
+        assertEquals(2, metrics.getPlayerCallLatency(PlayerCall.WIN)
+                .getCount());
+        assertEquals(metrics.getPlayerCallLatency(PlayerCall.PLAY).getCount(),
+                metrics.getRefereeLatency(RefereeOperation.PLAYER_STATE)
+                        .getCount());
+        assertEquals(3, metrics.getRefereeLatency(
+                RefereeOperation.SETUP_PLAYER).getCount());
+        assertEquals(3, metrics.getRefereeLatency(
+                RefereeOperation.OFFER_DESTINATIONS).getCount());
+        assertEquals(3, metrics.getRefereeLatency(
+                RefereeOperation.CHOOSE_DESTINATIONS).getCount());
+        assertEquals(1, metrics.getRefereeLatency(RefereeOperation.ELIMINATE)
+                .getCount());
+        assertEquals(2, metrics.getRefereeLatency(RefereeOperation.SCORING)
+                .getCount());
+        assertEquals(0, metrics.getRemoteCallLatency("zero", PlayerCall.PLAY)
+                .getCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> referee.setMetricsSink(null));
+    }
 }
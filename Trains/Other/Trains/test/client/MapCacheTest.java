@@ -0,0 +1,51 @@
+package client;
+
+import map.ExampleMap;
+import map.TrainsMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MapCacheTest {
+
+    @Test
+    public void testShouldGetCachedMaps() {
+        MapCache cache = new MapCache();
+        TrainsMap map = ExampleMap.createExampleMap();
+        assertNull(cache.get("a"));
+        cache.put("a", map);
+        assertSame(map, cache.get("a"));
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertEquals(1, cache.size());
+        assertEquals(MapCache.DEFAULT_CAPACITY, cache.getCapacity());
+    }
+
+    @Test
+    public void testShouldEvictLeastRecentlyUsedMap() {
+        MapCache cache = new MapCache(2);
+        cache.put("a", ExampleMap.createExampleMap());
+        cache.put("b", ExampleMap.createBostonMap());
+        cache.get("a");
+        cache.put("c", ExampleMap.createCaliforniaMap());
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+    }
+
+    @Test
+    public void testShouldRejectBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MapCache(0));
+        MapCache cache = new MapCache();
+        assertThrows(IllegalArgumentException.class,
+                () -> cache.put(null, ExampleMap.createExampleMap()));
+        assertThrows(IllegalArgumentException.class,
+                () -> cache.put("a", null));
+    }
+}
@@ -0,0 +1,195 @@
+package client;
+
+import agent.PlayerAgent;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import json.JsonConverter;
+import map.DirectConnection;
+import map.ExampleMap;
+import map.TrainsMap;
+import org.junit.jupiter.api.Test;
+import state.ExampleStates;
+import state.PlayerGameState;
+import strategy.HoldTenStrategy;
+import transport.WireFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PlayerCommandExecutorTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testShouldCacheOfferedMap() throws IOException {
+        TrainsMap map = ExampleMap.createExampleMap();
+        JsonNode mapJson = JsonConverter.mapToJson(map);
+        String hash = JsonConverter.mapHash(mapJson);
+        JsonNode reference = JsonConverter.mapReference(hash);
+        MapCache cache = new MapCache();
+        PlayerAgent player = new PlayerAgent("alice", new HoldTenStrategy());
+
+        List<JsonNode> responses = this.run(player, cache,
+                this.setup(mapJson, reference),
+                this.setup(reference, reference),
+                this.call("end", true));
+
+        assertEquals(List.of(this.mapper.valueToTree("alice"), reference,
+                        reference, this.mapper.valueToTree("void")),
+                responses);
+        assertTrue(cache.contains(hash));
+        assertEquals(map, player.getGameState().getTrainsMap());
+        assertSame(cache.get(hash), player.getGameState().getTrainsMap());
+    }
+
+    @Test
+    public void testShouldAnswerVoidWithoutOffer() throws IOException {
+        MapCache cache = new MapCache();
+        List<JsonNode> responses = this.run(
+                new PlayerAgent("alice", new HoldTenStrategy()), cache,
+                this.setup(JsonConverter.mapToJson(
+                        ExampleMap.createExampleMap()), null),
+                this.call("end", true));
+        assertEquals(this.mapper.valueToTree("void"), responses.get(1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testShouldNotCacheMapNotMatchingOffer() throws IOException {
+        MapCache cache = new MapCache();
+        JsonNode offer = JsonConverter.mapReference("0123");
+        List<JsonNode> responses = this.run(
+                new PlayerAgent("alice", new HoldTenStrategy()), cache,
+                this.setup(JsonConverter.mapToJson(
+                        ExampleMap.createExampleMap()), offer),
+                this.call("end", true));
+        assertEquals(this.mapper.valueToTree("void"), responses.get(1));
+        assertFalse(cache.contains("0123"));
+    }
+
+    @Test
+    public void testShouldRejectUnknownMapReference() {
+        JsonNode reference = JsonConverter.mapReference("0123");
+        assertThrows(IllegalArgumentException.class, () -> this.run(
+                new PlayerAgent("alice", new HoldTenStrategy()),
+                new MapCache(), this.setup(reference, reference)));
+    }
+
+    @Test
+    public void testShouldApplyPlayerStateDeltas() throws IOException {
+        TrainsMap map = ExampleMap.createExampleMap();
+        List<DirectConnection> connections =
+                new ArrayList<>(map.getDirectConnections());
+        PlayerGameState first = ExampleStates.createState(map, Set.of(),
+                Set.of(connections.get(0)), ExampleStates.cards(3, 2, 1, 0),
+                40);
+        PlayerGameState second = ExampleStates.createState(map,
+                Set.of(connections.get(1)), Set.of(connections.get(0),
+                        connections.get(2)), ExampleStates.cards(3, 2, 1, 0),
+                40);
+        JsonNode options = this.mapper.createObjectNode()
+                .put(JsonConverter.STATE_DELTA, true);
+        PlayerAgent player = new PlayerAgent("alice", new HoldTenStrategy());
+
+        List<JsonNode> responses = this.run(player, new MapCache(),
+                this.setup(JsonConverter.mapToJson(map), options),
+                this.call("play", JsonConverter.playerStateToJson(first)),
+                this.call("play", JsonConverter.playerStateDeltaToJson(first,
+                        second)),
+                this.call("end", true));
+
+        assertEquals(options, responses.get(1));
+        assertEquals(second.getAllOwnedConnections(),
+                player.getGameState().getAllOwnedConnections());
+        assertEquals(second.getOwnedConnections(),
+                player.getGameState().getOwnedConnections());
+    }
+
+    @Test
+    public void testShouldRejectDeltaWithoutPreviousState() {
+        TrainsMap map = ExampleMap.createExampleMap();
+        PlayerGameState state = ExampleStates.createState(map, Set.of(),
+                Set.of(), ExampleStates.cards(3, 2, 1, 0), 40);
+        assertThrows(IllegalArgumentException.class, () -> this.run(
+                new PlayerAgent("alice", new HoldTenStrategy()),
+                new MapCache(),
+                this.setup(JsonConverter.mapToJson(map), null),
+                this.call("play", JsonConverter.playerStateDeltaToJson(state,
+                        state))));
+    }
+
+    @Test
+    public void testShouldRegisterAndPlayInBinary() throws IOException {
+        ByteArrayOutputStream in = new ByteArrayOutputStream();
+        WireFormat.Writer commands = WireFormat.BINARY.newWriter(in);
+        commands.write(this.setup(JsonConverter.mapToJson(
+                ExampleMap.createExampleMap()), null));
+        commands.write(this.call("end", true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PlayerCommandExecutor(new PlayerAgent("alice",
+                new HoldTenStrategy()), new ByteArrayInputStream(
+                in.toByteArray()), out, new MapCache(), WireFormat.BINARY)
+                .start();
+
+        byte[] registration = "{\"name\":\"alice\",\"wire-format\":\"binary\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] written = out.toByteArray();
+        assertEquals(new String(registration, StandardCharsets.UTF_8),
+                new String(written, 0, registration.length,
+                        StandardCharsets.UTF_8));
+        WireFormat.Reader responses = WireFormat.BINARY.newReader(
+                new ByteArrayInputStream(written, registration.length,
+                        written.length - registration.length));
+        assertEquals("void", responses.read().asText());
+        assertEquals("void", responses.read().asText());
+    }
+
+    /**
+     * Runs an executor on the given commands and returns everything it
+     * wrote, starting with the player's name.
+     */
+    private List<JsonNode> run(PlayerAgent player, MapCache cache,
+                               JsonNode... commands) throws IOException {
+        StringBuilder in = new StringBuilder();
+        for (JsonNode command : commands) {
+            in.append(command);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PlayerCommandExecutor(player,
+                new ByteArrayInputStream(in.toString().getBytes()), out, cache)
+                .start();
+        List<JsonNode> responses = new ArrayList<>();
+        JsonParser parser = this.mapper.getFactory()
+                .createParser(out.toByteArray());
+        while (parser.nextToken() != null) {
+            responses.add(parser.readValueAsTree());
+        }
+        return responses;
+    }
+
+    private JsonNode setup(JsonNode mapArg, JsonNode option) {
+        List<Object> args = new ArrayList<>(List.of(mapArg, 45,
+                List.of("red", "blue", "green", "white", "red")));
+        if (option != null) {
+            args.add(option);
+        }
+        return this.call("setup", args.toArray());
+    }
+
+    private JsonNode call(String command, Object... args) {
+        return this.mapper.createArrayNode().add(command)
+                .add(this.mapper.valueToTree(args));
+    }
+}
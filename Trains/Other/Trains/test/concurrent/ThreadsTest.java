@@ -0,0 +1,65 @@
+package concurrent;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ThreadsTest {
+
+    @Test
+    public void testShouldCreateNamedThreadsOfTheConfiguredKind() {
+        ThreadFactory factory = Threads.newThreadFactory("game", false);
+        Thread first = factory.newThread(() -> {
+        });
+        Thread second = factory.newThread(() -> {
+        });
+        assertEquals("game-1", first.getName());
+        assertEquals("game-2", second.getName());
+        // virtual threads are always daemons
+        assertEquals(Threads.isVirtual(), first.isDaemon());
+        assertTrue(Threads.newThreadFactory("game", true)
+                .newThread(() -> {
+                }).isDaemon());
+    }
+
+    @Test
+    public void testShouldRunTasks() throws Exception {
+        AtomicReference<String> ranOn = new AtomicReference<>();
+        Thread thread = Threads.start("client-alice",
+                () -> ranOn.set(Thread.currentThread().getName()));
+        thread.join();
+        assertEquals("client-alice", ranOn.get());
+
+        ExecutorService executor = Threads.newTaskExecutor();
+        try {
+            Future<Integer> result = executor.submit(() -> 6 * 7);
+            assertEquals(42, result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testShouldCreateVirtualThreadsOnlyWhereSupported() {
+        if (Threads.isVirtualSupported()) {
+            Thread thread = Threads.virtualThreadFactory("bot")
+                    .newThread(() -> {
+                    });
+            assertEquals("bot-1", thread.getName());
+            assertTrue(thread.isDaemon());
+        } else {
+            assertFalse(Threads.isVirtual());
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> Threads.virtualThreadFactory("bot"));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import map.City;
+import map.Destination;
+import map.DirectConnection;
+import map.ExampleMap;
+import map.TrainsMap;
+import org.junit.jupiter.api.Test;
+import state.ExampleStates;
+import state.PlayerGameState;
+import strategy.Move;
+import strategy.Pair;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonCodecTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = new JsonFactory(MAPPER);
+
+    private final TrainsMap map = ExampleMap.createBigBostonMap();
+    private final List<DirectConnection> connections =
+            new ArrayList<>(this.map.getDirectConnections());
+
+    /**
+     * Creates a parser on the first token of the given JSON.
+     */
+    private static JsonParser parse(String json) throws IOException {
+        JsonParser in = FACTORY.createParser(json);
+        in.nextToken();
+        return in;
+    }
+
+    private static String write(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator out = FACTORY.createGenerator(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testShouldRoundTripMap() throws IOException {
+        TrainsMap read = JsonCodec.readMap(parse(write(JsonCodec.map(
+                this.map))));
+        assertEquals(this.map, read);
+        assertEquals(this.map.getDirectConnections(),
+                read.getDirectConnections());
+        assertEquals(JsonConverter.mapHash(JsonConverter.mapToJson(this.map)),
+                JsonConverter.mapHash(MAPPER.readTree(write(
+                        JsonCodec.map(this.map)))));
+    }
+
+    @Test
+    public void testShouldNormalizeLocationsInPixels() throws IOException {
+        TrainsMap read = JsonCodec.readMap(parse("{\"width\":200," +
+                "\"height\":100,\"cities\":[[\"A\",[50,50]],[\"B\",[1,0]]]," +
+                "\"connections\":{\"A\":{\"B\":{\"red\":3}}}}"));
+        City a = read.getCities().stream()
+                .filter(city -> city.getName().equals("A"))
+                .findFirst().orElseThrow();
+        assertEquals(0.25f, a.getLocation().getX());
+        assertEquals(0.5f, a.getLocation().getY());
+        assertEquals(1, read.getDirectConnections().size());
+    }
+
+    @Test
+    public void testShouldRoundTripPlayerStateAndDelta() throws IOException {
+        PlayerGameState previous = ExampleStates.createState(this.map,
+                Set.of(), Set.of(this.connections.get(0)),
+                ExampleStates.cards(2, 1, 1, 1), 45);
+        PlayerGameState current = ExampleStates.createState(this.map,
+                Set.of(this.connections.get(1)),
+                Set.of(this.connections.get(0), this.connections.get(2)),
+                ExampleStates.cards(5, 1, 1, 1), 40);
+
+        PlayerGameState full = JsonCodec.readPlayerState(parse(write(
+                JsonCodec.playerState(previous))), this.map, null);
+        assertEquals(previous.getOwnedConnections(),
+                full.getOwnedConnections());
+        assertEquals(previous.getAllOwnedConnections(),
+                full.getAllOwnedConnections());
+        assertEquals(previous.getCardsMap(), full.getCardsMap());
+        assertEquals(previous.getDestinations(), full.getDestinations());
+
+        PlayerGameState applied = JsonCodec.readPlayerState(parse(write(
+                JsonCodec.playerStateDelta(full, current))), this.map, full);
+        assertEquals(current.getOwnedConnections(),
+                applied.getOwnedConnections());
+        assertEquals(current.getAllOwnedConnections(),
+                applied.getAllOwnedConnections());
+        assertEquals(current.getCardsMap(), applied.getCardsMap());
+        assertEquals(40, applied.getRails());
+        assertSame(full.getDestinations(), applied.getDestinations());
+    }
+
+    @Test
+    public void testShouldNotReadDeltaWithoutPreviousState()
+            throws IOException {
+        PlayerGameState state = ExampleStates.createState(this.map, Set.of(),
+                Set.of(), ExampleStates.cards(2, 1, 1, 1), 45);
+        String delta = write(JsonCodec.playerStateDelta(state, state));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonCodec.readPlayerState(parse(delta), this.map, null));
+        List<City> cities = new ArrayList<>(this.map.getCities());
+        cities.sort(City::compareTo);
+        assertNull(JsonCodec.playerStateDelta(state,
+                state.addChosenDestinations(new Pair<>(
+                        new Destination(cities.get(1), cities.get(2)),
+                        new Destination(cities.get(1), cities.get(3))))));
+    }
+
+    @Test
+    public void testShouldRoundTripMoves() throws IOException {
+        Move more = new Move();
+        more.setMove(true);
+        assertEquals("\"more cards\"", write(JsonCodec.move(more)));
+        assertEquals(true, JsonCodec.readMove(parse("\"more cards\""),
+                this.map).getMove());
+
+        Move acquire = new Move();
+        acquire.setMove(this.connections.get(3));
+        assertEquals(this.connections.get(3), JsonCodec.readMove(parse(write(
+                JsonCodec.move(acquire))), this.map).getMove());
+
+        assertThrows(NoSuchElementException.class, () -> JsonCodec.readMove(
+                parse("[\"Nowhere\",\"Boston\",\"red\",3]"), this.map));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonCodec.readMove(parse("\"less cards\""), this.map));
+    }
+
+    @Test
+    public void testShouldRejectMalformedValues() {
+        assertThrows(IOException.class,
+                () -> JsonCodec.readMap(parse("[1,2]")));
+        assertThrows(IOException.class, () -> JsonCodec.readPlayerState(
+                parse("{\"this\":{}}"), this.map, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonCodec.readCards(parse("[\"red\",\"pink\"]")));
+    }
+}
@@ -0,0 +1,131 @@
+package json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import map.DirectConnection;
+import map.ExampleMap;
+import map.TrainsMap;
+import org.junit.jupiter.api.Test;
+import state.ExampleStates;
+import state.PlayerGameState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonConverterTest {
+
+    private final TrainsMap map = ExampleMap.createExampleMap();
+    private final List<DirectConnection> connections =
+            new ArrayList<>(this.map.getDirectConnections());
+
+    @Test
+    public void testShouldHashMapsByContent() {
+        TrainsMap copy = new TrainsMap(this.map.getCities(),
+                this.map.getDirectConnections(), this.map.getWidth(),
+                this.map.getHeight());
+        assertEquals(JsonConverter.mapHash(JsonConverter.mapToJson(this.map)),
+                JsonConverter.mapHash(JsonConverter.mapToJson(copy)));
+        assertNotEquals(
+                JsonConverter.mapHash(JsonConverter.mapToJson(this.map)),
+                JsonConverter.mapHash(JsonConverter.mapToJson(
+                        ExampleMap.createBostonMap())));
+        // the hash of a map is computed once and kept by the map
+        String hash = JsonConverter.mapHash(this.map);
+        assertEquals(JsonConverter.mapHash(JsonConverter.mapToJson(this.map)),
+                hash);
+        JsonConverter.mapHash(copy);
+        assertSame(hash, JsonConverter.mapHash(this.map));
+    }
+
+    @Test
+    public void testShouldGetMapHashOfReferencesOnly() {
+        assertEquals("abc", JsonConverter.getMapHash(
+                JsonConverter.mapReference("abc")));
+        assertNull(JsonConverter.getMapHash(
+                JsonConverter.mapToJson(this.map)));
+        assertNull(JsonConverter.getMapHash(null));
+    }
+
+    @Test
+    public void testShouldApplyPlayerStateDelta() {
+        DirectConnection c0 = this.connections.get(0);
+        DirectConnection c1 = this.connections.get(1);
+        DirectConnection c2 = this.connections.get(2);
+        PlayerGameState previous = ExampleStates.createState(this.map,
+                Set.of(), Set.of(c0), ExampleStates.cards(2, 1, 1, 1), 45);
+        PlayerGameState current = ExampleStates.createState(this.map,
+                Set.of(c1), Set.of(c0, c2), ExampleStates.cards(3, 1, 1, 1),
+                45 - c1.getLength());
+
+        JsonNode delta = JsonConverter.playerStateDeltaToJson(previous,
+                current);
+        assertTrue(JsonConverter.isPlayerStateDelta(delta));
+        assertFalse(JsonConverter.isPlayerStateDelta(
+                JsonConverter.playerStateToJson(current)));
+        assertEquals(1, delta.get("delta").get("this").get("cards").size());
+        assertEquals(1, delta.get("delta").get("acquired").get(0).size());
+        assertEquals(1, delta.get("delta").get("acquired").get(1).size());
+
+        PlayerGameState applied =
+                JsonConverter.applyPlayerStateDelta(previous, delta);
+        assertEquals(current.getOwnedConnections(),
+                applied.getOwnedConnections());
+        assertEquals(current.getAllOwnedConnections(),
+                applied.getAllOwnedConnections());
+        assertEquals(current.getCardsMap(), applied.getCardsMap());
+        assertEquals(current.getRails(), applied.getRails());
+        assertEquals(current.getDestinations(), applied.getDestinations());
+    }
+
+    @Test
+    public void testShouldKeepUnchangedPartsOfPlayerState() {
+        PlayerGameState previous = ExampleStates.createState(this.map,
+                Set.of(), Set.of(this.connections.get(0)),
+                ExampleStates.cards(2, 1, 1, 1), 45);
+        PlayerGameState applied = JsonConverter.applyPlayerStateDelta(
+                previous, JsonConverter.playerStateDeltaToJson(previous,
+                        previous));
+        assertSame(previous.getAllOwnedConnections().get(1),
+                applied.getAllOwnedConnections().get(1));
+        assertEquals(previous.getCardsMap(), applied.getCardsMap());
+        assertEquals(45, applied.getRails());
+    }
+
+    @Test
+    public void testShouldNotEncodeDeltaOfMoreThanAcquisitions() {
+        DirectConnection c0 = this.connections.get(0);
+        PlayerGameState previous = ExampleStates.createState(this.map,
+                Set.of(), Set.of(c0), ExampleStates.cards(2, 1, 1, 1), 45);
+        PlayerGameState lost = ExampleStates.createState(this.map, Set.of(),
+                Set.of(), ExampleStates.cards(2, 1, 1, 1), 45);
+        PlayerGameState left = new PlayerGameState(this.map,
+                ExampleStates.createHand(this.map, Set.of(),
+                        ExampleStates.cards(2, 1, 1, 1), 45),
+                List.of(Set.of()));
+        assertNull(JsonConverter.playerStateDeltaToJson(previous, lost));
+        assertNull(JsonConverter.playerStateDeltaToJson(previous, left));
+    }
+
+    @Test
+    public void testShouldRejectDeltaForOtherPlayers() {
+        PlayerGameState previous = ExampleStates.createState(this.map,
+                Set.of(), Set.of(this.connections.get(0)),
+                ExampleStates.cards(2, 1, 1, 1), 45);
+        PlayerGameState other = new PlayerGameState(this.map,
+                ExampleStates.createHand(this.map, Set.of(),
+                        ExampleStates.cards(2, 1, 1, 1), 45),
+                List.of(Set.of()));
+        JsonNode delta = JsonConverter.playerStateDeltaToJson(other, other);
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonConverter.applyPlayerStateDelta(previous, delta));
+    }
+
+}
@@ -0,0 +1,183 @@
+package map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import strategy.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class to run tests on the CompactGraph class
+ */
+public class CompactGraphTest {
+
+    @Test
+    public void testShouldAssignCityIdsInNameOrder() {
+        TrainsMap map = ExampleMap.createExampleMap();
+        CompactGraph g = map.getCompactGraph();
+        List<City> sorted = new ArrayList<>(map.getCities());
+        Collections.sort(sorted);
+
+        assertEquals(sorted.size(), g.getNumCities());
+        for (int id = 0; id < sorted.size(); id++) {
+            assertEquals(sorted.get(id), g.getCity(id));
+            assertEquals(id, g.getCityId(sorted.get(id)));
+            assertEquals(id, g.getCityIdByName(sorted.get(id).getName()));
+        }
+        assertEquals(-1, g.getCityIdByName("Nowhere"));
+    }
+
+    @Test
+    public void testShouldAssignConnectionIdsInLexicographicOrder() {
+        TrainsMap map = ExampleMap.createBigBostonMap();
+        CompactGraph g = map.getCompactGraph();
+        List<DirectConnection> sorted =
+                new ArrayList<>(map.getDirectConnections());
+        Collections.sort(sorted);
+
+        assertEquals(sorted.size(), g.getNumConnections());
+        for (int e = 0; e < sorted.size(); e++) {
+            DirectConnection dc = sorted.get(e);
+            assertEquals(dc, g.getConnection(e));
+            assertEquals(e, g.getConnectionId(dc));
+            assertEquals(g.getCityId(dc.getCity0()), g.getCity0(e));
+            assertEquals(g.getCityId(dc.getCity1()), g.getCity1(e));
+            assertEquals(dc.getLength(), g.getLength(e));
+            assertEquals(dc.getColor().ordinal(), g.getColor(e));
+        }
+    }
+
+    @Test
+    public void testShouldStoreEveryEdgeInBothAdjacencies() {
+        TrainsMap map = ExampleMap.createExampleMultipleConnectionMap();
+        CompactGraph g = map.getCompactGraph();
+        int totalDegree = 0;
+        for (int v = 0; v < g.getNumCities(); v++) {
+            for (int i = g.getAdjacencyStart(v); i < g.getAdjacencyEnd(v);
+                 i++) {
+                int e = g.getAdjacentEdge(i);
+                assertTrue(g.getCity0(e) == v || g.getCity1(e) == v);
+                assertEquals(v, g.getOtherCity(e, g.getOtherCity(e, v)));
+            }
+            totalDegree += g.getDegree(v);
+        }
+        assertEquals(2 * g.getNumConnections(), totalDegree);
+    }
+
+    @Test
+    public void testShouldBuildFromConnectionEndpoints() {
+        City la = new City("LA", new Coord(.1f, .1f));
+        City sf = new City("SF", new Coord(.1f, .4f));
+        City sac = new City("Sac", new Coord(.4f, .1f));
+        List<DirectConnection> conns = new ArrayList<>();
+        conns.add(new DirectConnection(la, sf, 3, ColorTrains.RED));
+        conns.add(new DirectConnection(sf, sac, 4, ColorTrains.BLUE));
+
+        CompactGraph g = CompactGraph.fromConnections(conns);
+        assertEquals(3, g.getNumCities());
+        assertEquals(2, g.getNumConnections());
+        assertEquals(2, g.getDegree(g.getCityId(sf)));
+    }
+
+    @Test
+    public void testShouldThrowWhenConnectionCityMissing() {
+        City la = new City("LA", new Coord(.1f, .1f));
+        City sf = new City("SF", new Coord(.1f, .4f));
+        Set<City> cities = new HashSet<>();
+        cities.add(la);
+        Set<DirectConnection> conns = new HashSet<>();
+        conns.add(new DirectConnection(la, sf, 3, ColorTrains.RED));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> CompactGraph.of(cities, conns));
+    }
+
+    @Test
+    public void testShouldComputeWeightedDistancesWithMask() {
+        TrainsMap map = ExampleMap.createExampleMap();
+        CompactGraph g = map.getCompactGraph();
+        int n = g.getNumCities();
+        int[] dist = new int[n];
+        int[] queue = new int[n];
+        int la = g.getCityIdByName("LA");
+        int farthest = g.weightedBFS(la, null, dist, queue);
+        for (int v = 0; v < n; v++) {
+            assertTrue(dist[v] >= 0);
+            assertTrue(dist[v] <= dist[farthest]);
+        }
+
+        boolean[] noEdges = new boolean[g.getNumConnections()];
+        assertEquals(la, g.weightedBFS(la, noEdges, dist, queue));
+        for (int v = 0; v < n; v++) {
+            assertEquals(v == la ? 0 : -1, dist[v]);
+        }
+    }
+
+    @Test
+    public void testShouldInternCitiesAndConnectionsOfMap() {
+        TrainsMap map = ExampleMap.createBigBostonMap();
+        CompactGraph g = map.getCompactGraph();
+        for (City city : map.getCities()) {
+            assertSame(city, g.getCity(g.getCityId(city)));
+            City copy = new City(city.getName(), city.getLocation());
+            assertNotSame(city, copy);
+            assertEquals(city, copy);
+            assertEquals(city.hashCode(), copy.hashCode());
+            assertSame(city, g.getCity(g.getCityId(copy)));
+        }
+        for (DirectConnection dc : map.getDirectConnections()) {
+            int e = g.getConnectionId(dc);
+            assertSame(dc, g.getConnection(e));
+            assertSame(g.getCity(g.getCity0(e)), dc.getCity0());
+            assertSame(g.getCity(g.getCity1(e)), dc.getCity1());
+            assertEquals(e, g.findConnectionId(g.getCity1(e), g.getCity0(e),
+                    dc.getColor(), dc.getLength()));
+            DirectConnection copy = new DirectConnection(
+                    new City(dc.getCity1().getName(), new Coord(.5f, .5f)),
+                    new City(dc.getCity0().getName(), new Coord(.5f, .5f)),
+                    dc.getLength(), dc.getColor());
+            assertEquals(dc.hashCode(), copy.hashCode());
+            assertNotEquals(dc, copy); // its cities are elsewhere
+        }
+        assertEquals(-1, g.findConnectionId(0, 0, ColorTrains.RED, 3));
+    }
+
+    @Test
+    public void testShouldHandOutCanonicalDestinations() {
+        TrainsMap map = ExampleMap.createExampleMap();
+        CompactGraph g = map.getCompactGraph();
+        Set<Integer> hashes = new HashSet<>();
+        for (int c0 = 0; c0 < g.getNumCities(); c0++) {
+            for (int c1 = 0; c1 < c0; c1++) {
+                Destination d = g.getDestination(c0, c1);
+                assertSame(d, g.getDestination(c1, c0));
+                assertEquals(new Destination(g.getCity(c0), g.getCity(c1)),
+                        d);
+                assertEquals(new Destination(g.getCity(c1), g.getCity(c0))
+                        .hashCode(), d.hashCode());
+                hashes.add(d.hashCode());
+            }
+        }
+        int n = g.getNumCities();
+        assertEquals(n * (n - 1) / 2, hashes.size());
+        for (Destination d : map.getAllFeasibleDestinations()) {
+            Pair<City> cities = d.getVertices();
+            assertSame(d, g.getDestination(g.getCityId(cities.getFirst()),
+                    g.getCityId(cities.getSecond())));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> g.getDestination(1, 1));
+        CompactGraph plain = CompactGraph.fromConnections(
+                map.getDirectConnections());
+        assertNotSame(plain.getDestination(0, 1), plain.getDestination(0, 1));
+    }
+}
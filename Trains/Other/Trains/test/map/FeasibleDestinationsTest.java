@@ -0,0 +1,99 @@
+package map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class to run tests on the FeasibleDestinations index
+ */
+public class FeasibleDestinationsTest {
+
+    /**
+     * Reference implementation using the recursive Graph DFS from every city.
+     */
+    private static Set<Destination> bruteForce(TrainsMap map) {
+        Graph graph = new Graph();
+        for (City c : map.getCities()) {
+            graph.addDisconnectedCity(c);
+        }
+        for (DirectConnection dc : map.getDirectConnections()) {
+            graph.addEdge(dc.getCity0(), dc.getCity1());
+        }
+        Set<Destination> feasibles = new HashSet<>();
+        for (City c : map.getCities()) {
+            Graph.getFeasibleDestinationsDFSUtil(graph, c, new HashSet<>(),
+                    feasibles);
+        }
+        return feasibles;
+    }
+
+    @Test
+    public void testShouldMatchBruteForceOnExampleMaps() {
+        List<TrainsMap> maps = List.of(ExampleMap.createExampleMap(),
+                ExampleMap.createExampleDisconnectedMap(),
+                ExampleMap.createExampleMultipleConnectionMap(),
+                ExampleMap.createBostonMap(), ExampleMap.createBigBostonMap(),
+                ExampleMap.createCaliforniaMap(), ExampleMap.createTinyMap());
+        for (TrainsMap map : maps) {
+            Set<Destination> expected = bruteForce(map);
+            Set<Destination> index = map.getAllFeasibleDestinations();
+
+            List<Destination> iterated = new ArrayList<>(index);
+            assertEquals(expected.size(), index.size());
+            assertEquals(expected.size(), iterated.size());
+            assertEquals(expected, new HashSet<>(iterated)); // no duplicates
+            for (Destination d : expected) {
+                assertTrue(index.contains(d));
+            }
+        }
+    }
+
+    @Test
+    public void testShouldSkipSingleCityComponents() {
+        Set<City> cities = new HashSet<>();
+        Set<DirectConnection> connections = new HashSet<>();
+        City a = new City("A", new Coord(.1f, .1f));
+        City b = new City("B", new Coord(.2f, .1f));
+        City c = new City("C", new Coord(.3f, .1f));
+        City d = new City("D", new Coord(.4f, .1f));
+        City e = new City("E", new Coord(.5f, .1f));
+        cities.addAll(List.of(a, b, c, d, e));
+        connections.add(new DirectConnection(b, d, 3, ColorTrains.RED));
+        TrainsMap map =
+                TrainsMap.createTrainsMapWithDefaultSize(cities, connections);
+        FeasibleDestinations index =
+                new FeasibleDestinations(map.getCompactGraph());
+        CompactGraph g = map.getCompactGraph();
+
+        assertEquals(4, index.getNumComponents());
+        assertEquals(1, index.size());
+        Iterator<Destination> it = index.iterator();
+        assertEquals(new Destination(b, d), it.next());
+        assertFalse(it.hasNext());
+        assertTrue(index.isFeasible(g.getCityId(d), g.getCityId(b)));
+        assertFalse(index.isFeasible(g.getCityId(a), g.getCityId(b)));
+        assertFalse(index.isFeasible(g.getCityId(b), g.getCityId(b)));
+        assertFalse(index.contains(new Destination(a, e)));
+    }
+
+    @Test
+    public void testShouldBeReadOnly() {
+        TrainsMap map = ExampleMap.createExampleMap();
+        Set<Destination> index = map.getAllFeasibleDestinations();
+        Destination any = index.iterator().next();
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> index.add(any));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> index.remove(any));
+    }
+}
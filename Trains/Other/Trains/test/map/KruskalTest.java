@@ -67,17 +67,16 @@ public class KruskalTest {
         DirectConnection d3 =
                 new DirectConnection(common, chinatown, 3, ColorTrains.WHITE);
         DirectConnection d6 =
-                new DirectConnection(common, financial_district, 4,
-                        ColorTrains.WHITE);
+                new DirectConnection(brookline, common, 4, ColorTrains.BLUE);
         DirectConnection d7 =
-                new DirectConnection(financial_district, seaport, 4,
-                        ColorTrains.WHITE);
+                new DirectConnection(common, seaport, 4, ColorTrains.BLUE);
 
         Kruskal k = new Kruskal(new ArrayList<>(tester.getDirectConnections()));
 
+        // edges of equal length are visited in lexicographic order
         List<DirectConnection> expectedSpanningTree = new ArrayList<>();
-        expectedSpanningTree.add(d5);
         expectedSpanningTree.add(d8);
+        expectedSpanningTree.add(d5);
         expectedSpanningTree.add(d6);
         expectedSpanningTree.add(d7);
         expectedSpanningTree.add(d3);
@@ -168,9 +167,10 @@ public class KruskalTest {
 
         Kruskal k = new Kruskal(givenOwnedDisjoint);
 
+        // edges of equal length are visited in lexicographic order
         List<DirectConnection> expectedSpanningTree = new ArrayList<>();
-        expectedSpanningTree.add(d5);
         expectedSpanningTree.add(d8);
+        expectedSpanningTree.add(d5);
         expectedSpanningTree.add(d7);
 
         List<DirectConnection> result = k.run();
@@ -205,4 +205,28 @@ public class KruskalTest {
         assertEquals(4, list.get(0).size());
     }
 
+    @Test
+    public void testShouldProduceSpanningForestOnCompactGraph() {
+        TrainsMap tester = ExampleMap.createExampleMultipleConnectionMap();
+        CompactGraph g = tester.getCompactGraph();
+        boolean[] forest = Kruskal.maximumSpanningForest(g);
+
+        int numTreeEdges = 0;
+        int treeLength = 0;
+        for (int e = 0; e < forest.length; e++) {
+            if (forest[e]) {
+                numTreeEdges++;
+                treeLength += g.getLength(e);
+            }
+        }
+        // connected map so the forest is a single tree over every city
+        assertEquals(g.getNumCities() - 1, numTreeEdges);
+        Kruskal k = new Kruskal(new ArrayList<>(tester.getDirectConnections()));
+        int expectedLength = k
+                .run()
+                .stream()
+                .mapToInt(DirectConnection::getLength)
+                .sum();
+        assertEquals(expectedLength, treeLength);
+    }
 }
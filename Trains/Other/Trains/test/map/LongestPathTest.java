@@ -0,0 +1,119 @@
+package map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Class to run tests on the LongestPath solver
+ */
+public class LongestPathTest {
+    private static final ColorTrains[] COLORS = ColorTrains.values();
+
+    private static List<City> makeCities(int n) {
+        List<City> cities = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            cities.add(new City("c" + i, new Coord((i + 1) / (n + 2f), .5f)));
+        }
+        return cities;
+    }
+
+    /**
+     * Reference implementation, plain depth first search over every simple
+     * path without memoization or pruning.
+     */
+    private static int bruteForce(CompactGraph g, int v, boolean[] visited) {
+        visited[v] = true;
+        int best = 0;
+        for (int i = g.getAdjacencyStart(v); i < g.getAdjacencyEnd(v); i++) {
+            int e = g.getAdjacentEdge(i);
+            int to = g.getOtherCity(e, v);
+            if (!visited[to]) {
+                best = Math.max(best,
+                        g.getLength(e) + bruteForce(g, to, visited));
+            }
+        }
+        visited[v] = false;
+        return best;
+    }
+
+    @Test
+    public void testShouldTakeLongWayAroundCycle() {
+        List<City> c = makeCities(4);
+        List<DirectConnection> conns = new ArrayList<>();
+        conns.add(new DirectConnection(c.get(0), c.get(1), 5, ColorTrains.RED));
+        conns.add(new DirectConnection(c.get(1), c.get(2), 5, ColorTrains.RED));
+        conns.add(new DirectConnection(c.get(2), c.get(3), 5, ColorTrains.RED));
+        conns.add(new DirectConnection(c.get(3), c.get(0), 3, ColorTrains.RED));
+        CompactGraph g = CompactGraph.fromConnections(conns);
+
+        assertEquals(15, LongestPath.findLongestPath(g, 0));
+    }
+
+    @Test
+    public void testShouldUseLongerOfParallelConnections() {
+        List<City> c = makeCities(3);
+        List<DirectConnection> conns = new ArrayList<>();
+        conns.add(new DirectConnection(c.get(0), c.get(1), 3, ColorTrains.RED));
+        conns.add(new DirectConnection(c.get(0), c.get(1), 5,
+                ColorTrains.BLUE));
+        conns.add(new DirectConnection(c.get(1), c.get(2), 4, ColorTrains.RED));
+        CompactGraph g = CompactGraph.fromConnections(conns);
+
+        assertEquals(9, LongestPath.findLongestPath(g, 2));
+    }
+
+    @Test
+    public void testShouldMatchBruteForceOnRandomGraphs() {
+        Random random = new Random(4500);
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 2 + random.nextInt(9);
+            List<City> cities = makeCities(n);
+            List<DirectConnection> conns = new ArrayList<>();
+            for (int i = 1; i < n; i++) { // random spanning tree
+                conns.add(new DirectConnection(cities.get(random.nextInt(i)),
+                        cities.get(i), 3 + random.nextInt(3),
+                        COLORS[random.nextInt(COLORS.length)]));
+            }
+            int extra = random.nextInt(2 * n);
+            for (int i = 0; i < extra; i++) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                if (a != b) {
+                    conns.add(new DirectConnection(cities.get(a),
+                            cities.get(b), 3 + random.nextInt(3),
+                            COLORS[random.nextInt(COLORS.length)]));
+                }
+            }
+            CompactGraph g = CompactGraph.fromConnections(conns);
+
+            int expected = 0;
+            for (int v = 0; v < g.getNumCities(); v++) {
+                expected = Math.max(expected,
+                        bruteForce(g, v, new boolean[g.getNumCities()]));
+            }
+            assertEquals(expected, LongestPath.findLongestPath(g,
+                    random.nextInt(g.getNumCities())));
+        }
+    }
+
+    @Test
+    public void testShouldThrowWhenComponentTooLarge() {
+        List<City> c = makeCities(LongestPath.MAX_CITIES + 1);
+        List<DirectConnection> conns = new ArrayList<>();
+        for (int i = 1; i < c.size(); i++) {
+            conns.add(new DirectConnection(c.get(i - 1), c.get(i), 3,
+                    ColorTrains.RED));
+        }
+        CompactGraph g = CompactGraph.fromConnections(conns);
+
+        assertEquals(c.size(), LongestPath.getComponentSize(g, 0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> LongestPath.findLongestPath(g, 0));
+    }
+}
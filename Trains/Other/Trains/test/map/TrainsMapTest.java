@@ -6,6 +6,7 @@ import strategy.Pair;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -240,6 +241,35 @@ public class TrainsMapTest {
         assertFalse(m.areCitiesConnected(LA, SF));
     }
 
+    // test of TrainsMap.areCitiesConnected
+    @Test
+    public void testShouldAnswerConnectivityByName() {
+        TrainsMap m = createExampleDisconnectedMap();
+        assertTrue(m.areCitiesConnected("SF", "Sac"));
+        assertFalse(m.areCitiesConnected("LA", "SF"));
+        assertFalse(m.areCitiesConnected("SF", "SF"));
+        assertFalse(m.areCitiesConnected("SF", "Nowhere"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> m.areCitiesConnected("Nowhere", "SF"));
+    }
+
+    // test of TrainsMap.areCitiesConnected
+    @Test
+    public void testShouldAnswerBatchConnectivityQueries() {
+        TrainsMap m = createExampleDisconnectedMap();
+        String[][] queries = {{"SF", "Sac"}, {"LA", "SF"}, {"Sac", "SF"},
+                {"Nowhere", "SF"}, {"LA", "LA"}};
+        BitSet connected = m.areCitiesConnected(queries);
+        assertEquals(BitSet.valueOf(new long[]{0b101}), connected);
+        for (int i = 0; i < queries.length; i++) {
+            if (connected.get(i)) {
+                assertTrue(m.areCitiesConnected(queries[i][0], queries[i][1]));
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> m.areCitiesConnected(new String[][]{{"SF"}}));
+    }
+
     @Test
     public void testShouldThrowWhenMapWidthSmallerThan10Pixels() {
         Set<City> cities = new HashSet<>(4);
@@ -4,6 +4,7 @@ import map.WeightedGraph.DistHolder;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -66,4 +67,18 @@ public class WeightedGraphTest {
         int longestPath = newG.findAbsoluteLongestPath();
         assertEquals(12, longestPath);
     }
+
+    @Test
+    public void testShouldFindAbsoluteLongestPathOnCompactGraph() {
+        TrainsMap map = ExampleMap.createExampleMap();
+        CompactGraph g = map.getCompactGraph();
+        boolean[] allEdges = new boolean[g.getNumConnections()];
+        Arrays.fill(allEdges, true);
+        int[] dist = new int[g.getNumCities()];
+        int[] queue = new int[g.getNumCities()];
+        for (int start = 0; start < g.getNumCities(); start++) {
+            assertEquals(12, WeightedGraph.findAbsoluteLongestPath(g, start,
+                    allEdges, dist, queue));
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryMetricsSinkTest {
+
+    @Test
+    public void testShouldKeepHistogramsPerPlayerAndCall() {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        sink.recordPlayerCall("alice", PlayerCall.PLAY, 100);
+        sink.recordPlayerCall("alice", PlayerCall.PLAY, 300);
+        sink.recordPlayerCall("bob", PlayerCall.PLAY, 50);
+        sink.recordPlayerCall("bob", PlayerCall.PICK, 70);
+        sink.recordRemoteCall(null, PlayerCall.START, 1000);
+        sink.recordReferee(RefereeOperation.SCORING, 20);
+
+        assertEquals(Set.of("alice", "bob", InMemoryMetricsSink.UNNAMED),
+                sink.getPlayers());
+        assertEquals(2, sink.getPlayerCallLatency("alice", PlayerCall.PLAY)
+                .getCount());
+        assertEquals(400, sink.getPlayerCallLatency("alice", PlayerCall.PLAY)
+                .getTotalNanos());
+        assertEquals(0, sink.getPlayerCallLatency("alice", PlayerCall.PICK)
+                .getCount());
+        assertEquals(0, sink.getPlayerCallLatency("carol", PlayerCall.PLAY)
+                .getCount());
+        assertEquals(3, sink.getPlayerCallLatency(PlayerCall.PLAY).getCount());
+        assertEquals(1000, sink.getRemoteCallLatency(null, PlayerCall.START)
+                .getMaxNanos());
+        assertEquals(1, sink.getRefereeLatency(RefereeOperation.SCORING)
+                .getCount());
+        assertEquals(0, sink.getRefereeLatency(RefereeOperation.DRAW)
+                .getCount());
+
+        String report = sink.toString();
+        assertTrue(report.contains("referee SCORING: count=1"));
+        assertTrue(report.contains("bob pick: count=1"));
+        assertTrue(report.contains(" start (remote): count=1"));
+        assertEquals(5, report.split("\n").length);
+    }
+}
@@ -0,0 +1,85 @@
+package metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testShouldBoundEveryValueByItsBucket() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789,
+                         Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(value <= upper);
+            // within one eighth of the value
+            assertTrue(upper - value <= value / 8, "value " + value);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void testShouldReportPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050 * 1000L, histogram.getTotalNanos());
+        assertEquals(50500, histogram.getMeanNanos(), 1e-9);
+        assertEquals(100000, histogram.getMaxNanos());
+        assertEquals(100000, histogram.getPercentileNanos(100));
+
+        long median = histogram.getPercentileNanos(50);
+        assertTrue(median >= 50000 && median <= 50000 * 9 / 8, "" + median);
+        long p99 = histogram.getPercentileNanos(99);
+        assertTrue(p99 >= 99000 && p99 <= 100000, "" + p99);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> histogram.getPercentileNanos(101));
+    }
+
+    @Test
+    public void testShouldAddHistograms() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(10);
+        b.record(20);
+        b.record(-5); // counts as zero
+        a.add(b);
+        assertEquals(3, a.getCount());
+        assertEquals(30, a.getTotalNanos());
+        assertEquals(20, a.getMaxNanos());
+        assertEquals(0, a.getPercentileNanos(0));
+    }
+
+    @Test
+    public void testShouldRecordFromManyThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(4L * 9999 * 10000 / 2, histogram.getTotalNanos());
+        assertEquals(9999, histogram.getMaxNanos());
+    }
+}
@@ -0,0 +1,138 @@
+package replay;
+
+import agent.IPlayer;
+import agent.PlayerAgent;
+import agent.RefereeAgent;
+import map.ExampleMap;
+import map.TrainsMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import state.PlayerHand;
+import state.RefereeGameState;
+import state.Scoring;
+import strategy.BuyNowStrategy;
+import strategy.CheaterStrategy;
+import strategy.HoldTenStrategy;
+import strategy.RandomAdminStrategy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameReplayTest {
+
+    private final TrainsMap map = ExampleMap.createBigBostonMap();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Plays a game of three players, one of which cheats, logging it to the
+     * given file.
+     */
+    private Map<Integer, Set<IPlayer>> playGame(Path file) throws IOException {
+        LinkedList<IPlayer> players = new LinkedList<>();
+        players.add(new PlayerAgent("buyNow", new BuyNowStrategy()));
+        players.add(new PlayerAgent("holdTen", new HoldTenStrategy()));
+        players.add(new PlayerAgent("cheater", new CheaterStrategy()));
+        RefereeAgent referee = new RefereeAgent(this.map, players,
+                RefereeGameState.initializeShuffledColoredCards(
+                        new SplittableRandom(1)), new RandomAdminStrategy(),
+                RefereeAgent.DEFAULT_RAILS, 42);
+        try (GameLogWriter log = GameLogWriter.create(file)) {
+            referee.setGameLog(log);
+            return referee.playGame();
+        }
+    }
+
+    @Test
+    public void testShouldReplayGameToItsFinalScores() throws IOException {
+        Path file = this.directory.resolve("game.log");
+        Map<Integer, Set<IPlayer>> result = this.playGame(file);
+        GameReplay replay = GameReplay.open(file, this.map);
+
+        assertEquals(42, replay.getSeed());
+        assertEquals(3, replay.getPlayers().size());
+        Map<String, Integer> expected = new HashMap<>();
+        result.forEach((score, players) -> {
+            if (score != null) {
+                players.forEach(p -> expected.put(p.getName(), score));
+            }
+        });
+        assertEquals(expected, replay.getScores());
+        assertTrue(replay.getNumMoves() > 0);
+
+        RefereeGameState end =
+                replay.getStateBeforeMove(replay.getNumMoves());
+        assertEquals(replay.getScores().size(), end.getNumPlayers());
+        List<Integer> replayed = new ArrayList<>();
+        Scoring.getRanking(end.getAllPlayerHands()).forEach(
+                (score, hands) -> hands.forEach(h -> replayed.add(score)));
+        List<Integer> logged = new ArrayList<>(replay.getScores().values());
+        Collections.sort(replayed);
+        Collections.sort(logged);
+        assertEquals(logged, replayed);
+    }
+
+    @Test
+    public void testShouldRebuildStateAtEveryMove() throws IOException {
+        Path file = this.directory.resolve("game.log");
+        this.playGame(file);
+        GameReplay replay = GameReplay.open(file, this.map);
+
+        int previousCards = Integer.MAX_VALUE;
+        int previousFree = Integer.MAX_VALUE;
+        for (int move = 0; move <= replay.getNumMoves(); move++) {
+            RefereeGameState state = replay.getStateBeforeMove(move);
+            assertTrue(state.getNumRemainingCards() <= previousCards);
+            assertTrue(state.getNumRemainingAvailConnections() <=
+                       previousFree);
+            previousCards = state.getNumRemainingCards();
+            previousFree = state.getNumRemainingAvailConnections();
+            for (PlayerHand hand : state.getAllPlayerHands()) {
+                assertEquals(2, hand.getDestinations().size());
+            }
+        }
+        assertEquals(0, replay.getStateAfterEvents(0).getNumPlayers());
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> replay.getStateBeforeMove(replay.getNumMoves() + 1));
+    }
+
+    @Test
+    public void testShouldRejectLogOfOtherMapOrTruncatedLog()
+            throws IOException {
+        Path file = this.directory.resolve("game.log");
+        this.playGame(file);
+        assertThrows(IllegalArgumentException.class,
+                () -> GameReplay.open(file, ExampleMap.createBostonMap()));
+
+        // a log cut anywhere either holds the events before the cut or is
+        // reported as truncated, including inside the header and events
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = this.directory.resolve("truncated.log");
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            try {
+                GameReplay.open(truncated, this.map);
+            } catch (IllegalArgumentException e) {
+                assertEquals("Game log is truncated.", e.getMessage());
+            }
+        }
+        Files.write(truncated, Arrays.copyOf(bytes, 40));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameReplay.open(truncated, this.map));
+    }
+}
@@ -0,0 +1,108 @@
+package sim;
+
+import agent.IPlayer;
+import agent.PlayerAgent;
+import agent.RefereeAgent;
+import agent.RefereeAgentTest;
+import map.ExampleMap;
+import map.TrainsMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import state.ColorCard;
+import strategy.BuyNowStrategy;
+import strategy.CheaterStrategy;
+import strategy.HoldTenStrategy;
+import strategy.IPlayerStrategy;
+import strategy.RandomAdminStrategy;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GameSimulatorTest {
+
+    private static List<IPlayerStrategy> strategies() {
+        return List.of(new BuyNowStrategy(), new HoldTenStrategy(),
+                new CheaterStrategy(), new HoldTenStrategy(),
+                new BuyNowStrategy());
+    }
+
+    @Test
+    public void testShouldMatchRefereeAgentGames() {
+        TrainsMap map = ExampleMap.createBigBostonMap();
+        List<ColorCard> cards =
+                RefereeAgentTest.getConstantCardListLengthN(250);
+        GameSimulator simulator = new GameSimulator(map, cards,
+                new RandomAdminStrategy(), strategies(), 45);
+
+        for (long seed = 0; seed < 30; seed++) {
+            SimulationReport report =
+                    new SimulationReport(simulator.getNumSeats());
+            simulator.playGame(seed, report);
+
+            // the same game through the agent layer, seated in the same order
+            LinkedList<IPlayer> players = new LinkedList<>();
+            List<IPlayerStrategy> strategies = strategies();
+            for (int seat = 0; seat < strategies.size(); seat++) {
+                players.add(new PlayerAgent("seat" + (char) ('a' + seat),
+                        strategies.get(seat)));
+            }
+            Map<Integer, Set<IPlayer>> refereeResult = new RefereeAgent(map,
+                    new LinkedList<>(players), cards,
+                    new RandomAdminStrategy(), 45, seed).playGame();
+            Set<IPlayer> misbehavers = refereeResult.remove(null);
+            Integer maxScore = refereeResult.isEmpty() ? null :
+                               Collections.max(refereeResult.keySet());
+
+            assertEquals(1, report.getGames());
+            for (int seat = 0; seat < players.size(); seat++) {
+                IPlayer player = players.get(seat);
+                assertEquals(misbehavers.contains(player) ? 1 : 0,
+                        report.getMisbehaviors(seat));
+                for (Map.Entry<Integer, Set<IPlayer>> entry :
+                        refereeResult.entrySet()) {
+                    if (entry.getValue().contains(player)) {
+                        assertEquals((double) entry.getKey(),
+                                report.getMeanScore(seat));
+                        assertEquals(entry.getKey().equals(maxScore) ? 1 : 0,
+                                report.getWins(seat));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testShouldReplayGameAfterReset() {
+        TrainsMap map = ExampleMap.createBostonMap();
+        List<ColorCard> cards =
+                RefereeAgentTest.getConstantCardListLengthN(250);
+        GameSimulator simulator = new GameSimulator(map, cards,
+                new RandomAdminStrategy(), strategies(), 45);
+
+        SimulationReport first = new SimulationReport(5);
+        simulator.playGame(99, first);
+        simulator.playGame(3, new SimulationReport(5));
+        SimulationReport replay = new SimulationReport(5);
+        simulator.playGame(99, replay);
+        assertEquals(first.toString().replaceAll("in .*\\)", ""),
+                replay.toString().replaceAll("in .*\\)", ""));
+    }
+
+    @Test
+    public void testShouldRejectInvalidGames() {
+        List<ColorCard> cards =
+                RefereeAgentTest.getConstantCardListLengthN(250);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new GameSimulator(ExampleMap.createBostonMap(), cards,
+                        new RandomAdminStrategy(),
+                        List.of(new BuyNowStrategy()), 45));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new GameSimulator(ExampleMap.createTinyMap(), cards,
+                        new RandomAdminStrategy(), strategies(), 45));
+    }
+}
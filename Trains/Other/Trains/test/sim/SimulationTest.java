@@ -0,0 +1,56 @@
+package sim;
+
+import agent.RefereeAgentTest;
+import map.ExampleMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import strategy.BuyNowStrategy;
+import strategy.CheaterStrategy;
+import strategy.HoldTenStrategy;
+import strategy.RandomAdminStrategy;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulationTest {
+
+    private static Simulation createSimulation() {
+        return new Simulation(ExampleMap.createBigBostonMap(),
+                RefereeAgentTest.getConstantCardListLengthN(250),
+                new RandomAdminStrategy(),
+                () -> List.of(new BuyNowStrategy(), new HoldTenStrategy(),
+                        new CheaterStrategy()), 45);
+    }
+
+    @Test
+    public void testShouldReportSameOutcomeForAnyNumberOfThreads() {
+        SimulationReport single = createSimulation().run(200, 4500L, 1);
+        SimulationReport parallel = createSimulation().run(200, 4500L, 4);
+
+        assertEquals(200, single.getGames());
+        assertEquals(200, parallel.getGames());
+        assertEquals(single.getMeanTurns(), parallel.getMeanTurns());
+        for (int seat = 0; seat < 3; seat++) {
+            assertEquals(single.getWins(seat), parallel.getWins(seat));
+            assertEquals(single.getMisbehaviors(seat),
+                    parallel.getMisbehaviors(seat));
+            assertEquals(single.getMeanScore(seat),
+                    parallel.getMeanScore(seat));
+        }
+        assertEquals(200, single.getMisbehaviors(2)); // the cheater
+        assertTrue(single.getWins(0) + single.getWins(1) >= 200);
+        assertTrue(parallel.getGamesPerSecond() > 0);
+    }
+
+    @Test
+    public void testShouldRejectInvalidRuns() {
+        Simulation simulation = createSimulation();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> simulation.run(-1, 0L, 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> simulation.run(10, 0L, 0));
+        assertEquals(0, simulation.run(0, 0L, 2).getGames());
+    }
+}
@@ -0,0 +1,81 @@
+package state;
+
+import map.ColorTrains;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CardDeckTest {
+
+    private static List<ColorCard> cardsOf(ColorTrains... colors) {
+        List<ColorCard> cards = new ArrayList<>();
+        for (ColorTrains color : colors) {
+            cards.add(new ColorCard(color));
+        }
+        return cards;
+    }
+
+    @Test
+    public void testShouldDrawInGivenOrder() {
+        CardDeck deck = new CardDeck(cardsOf(ColorTrains.BLUE, ColorTrains.RED,
+                ColorTrains.RED, ColorTrains.WHITE));
+        assertEquals(4, deck.size());
+        assertSame(ColorCard.of(ColorTrains.BLUE), deck.draw());
+
+        assertSame(ColorCard.of(ColorTrains.RED), deck.draw());
+        assertSame(ColorCard.of(ColorTrains.RED), deck.draw());
+        assertEquals(1, deck.size());
+        assertSame(ColorCard.of(ColorTrains.WHITE), deck.draw());
+        assertTrue(deck.isEmpty());
+        Assertions.assertThrows(IllegalStateException.class, deck::draw);
+    }
+
+    @Test
+    public void testShouldDealRandomCardsWithoutReplacement() {
+        List<ColorCard> cards = new ArrayList<>();
+        for (ColorTrains color : ColorTrains.values()) {
+            for (int i = 0; i < 3; i++) {
+                cards.add(ColorCard.of(color));
+            }
+        }
+        CardDeck deck = new CardDeck(cards);
+        int[] counts = new int[ColorTrains.values().length];
+        SplittableRandom random = new SplittableRandom(7);
+        deck.dealRandomInto(counts, 4, random);
+        assertEquals(8, deck.size());
+        deck.dealRandomInto(counts, 8, random);
+        for (int count : counts) {
+            assertEquals(3, count); // every card dealt exactly once
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> deck.dealRandomInto(counts, 1, random));
+    }
+
+    @Test
+    public void testShouldDealEveryCardWithEqualChance() {
+        int[] firstDealt = new int[4];
+        SplittableRandom random = new SplittableRandom(4500);
+        int trials = 40000;
+        for (int t = 0; t < trials; t++) {
+            CardDeck deck = new CardDeck(cardsOf(ColorTrains.RED,
+                    ColorTrains.GREEN, ColorTrains.BLUE, ColorTrains.WHITE));
+            deck.draw(); // RED is gone, deal from the remaining three
+            int[] counts = new int[4];
+            deck.dealRandomInto(counts, 1, random);
+            for (int c = 0; c < 4; c++) {
+                firstDealt[c] += counts[c];
+            }
+        }
+        assertEquals(0, firstDealt[ColorTrains.RED.ordinal()]);
+        for (int c = 1; c < 4; c++) {
+            assertEquals(trials / 3.0, firstDealt[c], trials * 0.02);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package state;
+
+import map.City;
+import map.Coord;
+import map.Destination;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DestinationDeckTest {
+
+    private static List<Destination> makeDestinations(int n) {
+        City hub = new City("hub", new Coord(.5f, .5f));
+        List<Destination> destinations = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            destinations.add(new Destination(hub,
+                    new City("c" + i, new Coord((i + 1) / (n + 2f), .1f))));
+        }
+        return destinations;
+    }
+
+    @Test
+    public void testShouldPeekFirstAvailableInOrder() {
+        List<Destination> dests = makeDestinations(8);
+        DestinationDeck deck = new DestinationDeck(dests);
+        assertEquals(dests.subList(0, 5), deck.peek(5));
+
+        // a player keeps the first and fourth, rejecting the other three
+        deck.removeAll(List.of(dests.get(0), dests.get(3)));
+        assertEquals(6, deck.size());
+        assertFalse(deck.contains(dests.get(3)));
+        assertEquals(List.of(dests.get(1), dests.get(2), dests.get(4),
+                dests.get(5), dests.get(6)), deck.peek(5));
+
+        List<Destination> remaining = new ArrayList<>(dests);
+        remaining.remove(3);
+        remaining.remove(0);
+        assertEquals(remaining, deck.toList());
+        assertFalse(deck.remove(dests.get(0))); // already removed
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> deck.peek(7));
+    }
+
+    @Test
+    public void testShouldDrawEveryDestinationOnceAtRandom() {
+        List<Destination> dests = makeDestinations(50);
+        DestinationDeck deck = new DestinationDeck(dests);
+        deck.remove(dests.get(10));
+        SplittableRandom random = new SplittableRandom(4500);
+        Set<Destination> drawn = new HashSet<>();
+        while (deck.size() > 0) {
+            assertTrue(drawn.add(deck.drawRandom(random)));
+        }
+        assertEquals(49, drawn.size());
+        assertFalse(drawn.contains(dests.get(10)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> deck.drawRandom(random));
+    }
+
+    @Test
+    public void testShouldRejectDuplicateDestinations() {
+        List<Destination> dests = makeDestinations(2);
+        dests.add(dests.get(0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new DestinationDeck(dests));
+    }
+
+    @Test
+    public void testShouldResetToGivenOrder() {
+        List<Destination> dests = makeDestinations(6);
+        DestinationDeck deck = new DestinationDeck(dests);
+        deck.drawRandom(new SplittableRandom(1));
+        deck.removeAll(dests.subList(0, 3));
+
+        List<Destination> reversed = new ArrayList<>(dests);
+        Collections.reverse(reversed);
+        deck.reset(reversed);
+        assertEquals(6, deck.size());
+        assertEquals(reversed, deck.toList());
+        assertTrue(deck.remove(dests.get(0)));
+        assertEquals(reversed.subList(0, 5), deck.toList());
+
+        deck.reset(dests.subList(1, 4)); // fewer destinations than before
+        assertEquals(dests.subList(1, 4), deck.toList());
+        assertFalse(deck.contains(dests.get(5)));
+    }
+}
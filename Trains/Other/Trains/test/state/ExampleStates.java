@@ -0,0 +1,56 @@
+package state;
+
+import map.City;
+import map.ColorTrains;
+import map.Destination;
+import map.DirectConnection;
+import map.TrainsMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Player game states for the tests of several packages. The player holds
+ * destinations from the first city of the map, by name, to the second and
+ * third.
+ */
+public final class ExampleStates {
+
+    /**
+     * Creates the state of a player owning the given connections, followed
+     * by one opponent owning the others given.
+     */
+    public static PlayerGameState createState(TrainsMap map,
+                                              Set<DirectConnection> owned,
+                                              Set<DirectConnection> opponent,
+                                              Map<ColorTrains, Integer> cards,
+                                              int rails) {
+        return new PlayerGameState(map, createHand(map, owned, cards, rails),
+                List.of(owned, opponent));
+    }
+
+    public static PlayerHand createHand(TrainsMap map,
+                                        Set<DirectConnection> owned,
+                                        Map<ColorTrains, Integer> cards,
+                                        int rails) {
+        List<City> cities = new ArrayList<>(map.getCities());
+        cities.sort(Comparator.naturalOrder());
+        return new PlayerHand(owned, cards, rails,
+                List.of(new Destination(cities.get(0), cities.get(1)),
+                        new Destination(cities.get(0), cities.get(2))));
+    }
+
+    public static Map<ColorTrains, Integer> cards(int red, int green,
+                                                  int blue, int white) {
+        Map<ColorTrains, Integer> cards = new EnumMap<>(ColorTrains.class);
+        cards.put(ColorTrains.RED, red);
+        cards.put(ColorTrains.GREEN, green);
+        cards.put(ColorTrains.BLUE, blue);
+        cards.put(ColorTrains.WHITE, white);
+        return cards;
+    }
+}
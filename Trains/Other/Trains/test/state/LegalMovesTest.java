@@ -0,0 +1,134 @@
+package state;
+
+import map.ColorTrains;
+import map.CompactGraph;
+import map.DirectConnection;
+import map.ExampleMap;
+import map.TrainsMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LegalMovesTest {
+
+    private final TrainsMap map = ExampleMap.createBigBostonMap();
+    private final CompactGraph graph = this.map.getCompactGraph();
+
+    @Test
+    public void testShouldMatchCanAcquireOfEveryConnection() {
+        Random random = new Random(7);
+        List<DirectConnection> connections =
+                new ArrayList<>(this.map.getDirectConnections());
+        for (int round = 0; round < 50; round++) {
+            Collections.shuffle(connections, random);
+            Set<DirectConnection> owned = new HashSet<>(connections.subList(
+                    0, random.nextInt(connections.size())));
+            PlayerGameState state = ExampleStates.createState(this.map,
+                    Set.of(), owned, this.randomCards(random),
+                    random.nextInt(12));
+            this.assertMatchesCanAcquire(state, state.getLegalMoves());
+        }
+    }
+
+    @Test
+    public void testShouldFindFirstConnectionInLexicographicOrder() {
+        PlayerGameState state = ExampleStates.createState(this.map,
+                Set.of(), Set.of(), ExampleStates.cards(4, 0, 4, 0), 45);
+        List<DirectConnection> sorted =
+                new ArrayList<>(state.determineAvailableConnections());
+        Collections.sort(sorted);
+        DirectConnection first = sorted.stream()
+                .filter(state::canAcquire)
+                .findFirst().orElseThrow();
+        assertEquals(first, state.getFirstAcquirableConnection());
+
+        assertNull(ExampleStates.createState(this.map, Set.of(), Set.of(),
+                ExampleStates.cards(2, 2, 2, 2), 45)
+                .getFirstAcquirableConnection());
+    }
+
+    @Test
+    public void testShouldUpdateIncrementally() {
+        Random random = new Random(11);
+        PlayerGameState state = ExampleStates.createState(this.map,
+                Set.of(), Set.of(), ExampleStates.cards(1, 2, 0, 3), 20);
+        LegalMoves moves = state.getLegalMoves();
+        Set<DirectConnection> mine = new HashSet<>();
+        Set<DirectConnection> theirs = new HashSet<>();
+        Map<ColorTrains, Integer> cards = new EnumMap<>(state.getCardsMap());
+        int rails = 20;
+        for (int step = 0; step < 40; step++) {
+            int choice = random.nextInt(3);
+            if (choice == 0) {
+                ColorTrains color = ColorTrains.values()[random.nextInt(4)];
+                moves.addCards(color, 1);
+                cards.merge(color, 1, Integer::sum);
+            } else if (choice == 1 && moves.getNumAcquirable() > 0) {
+                int e = moves.nextAcquirable(0);
+                DirectConnection dc = this.graph.getConnection(e);
+                moves.acquire(e);
+                mine.add(dc);
+                cards.merge(dc.getColor(), -dc.getLength(), Integer::sum);
+                rails -= dc.getLength();
+            } else {
+                int e = random.nextInt(this.graph.getNumConnections());
+                if (!mine.contains(this.graph.getConnection(e))) {
+                    moves.taken(e);
+                    theirs.add(this.graph.getConnection(e));
+                }
+            }
+            PlayerGameState expected = new PlayerGameState(this.map,
+                    new PlayerHand(mine, cards, rails, List.of()),
+                    List.of(mine, theirs));
+            this.assertMatchesCanAcquire(expected, moves);
+        }
+    }
+
+    @Test
+    public void testShouldDeriveMovesWhenCardsAreAdded() {
+        PlayerGameState state = ExampleStates.createState(this.map,
+                Set.of(), Set.of(), ExampleStates.cards(0, 0, 0, 0), 45);
+        assertEquals(0, state.getAcquirableConnectionIds().cardinality());
+        PlayerGameState more = state.addCards(List.of(
+                new ColorCard(ColorTrains.RED), new ColorCard(ColorTrains.RED),
+                new ColorCard(ColorTrains.RED)));
+        this.assertMatchesCanAcquire(more, more.getLegalMoves());
+        assertEquals(0, state.getAcquirableConnectionIds().cardinality());
+    }
+
+    @Test
+    public void testShouldNotAcquireUnaffordableConnection() {
+        LegalMoves moves = ExampleStates.createState(this.map, Set.of(),
+                Set.of(), ExampleStates.cards(0, 0, 0, 0), 45).getLegalMoves();
+        assertThrows(IllegalArgumentException.class, () -> moves.acquire(0));
+    }
+
+    private void assertMatchesCanAcquire(PlayerGameState state,
+                                         LegalMoves moves) {
+        BitSet expected = new BitSet();
+        for (DirectConnection dc : this.map.getDirectConnections()) {
+            if (state.canAcquire(dc)) {
+                expected.set(this.graph.getConnectionId(dc));
+            }
+        }
+        assertEquals(expected, moves.getAcquirableIds());
+        assertEquals(expected, state.getAcquirableConnectionIds());
+    }
+
+    private Map<ColorTrains, Integer> randomCards(Random random) {
+        return ExampleStates.cards(random.nextInt(7), random.nextInt(7),
+                random.nextInt(7), random.nextInt(7));
+    }
+}
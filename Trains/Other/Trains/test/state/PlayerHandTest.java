@@ -18,6 +18,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class PlayerHandTest {
 
@@ -123,4 +124,45 @@ public class PlayerHandTest {
         assertEquals(40, newPH.getRails());
         assertEquals(expectedCardsMap, newPH.getColorCardCount());
     }
+
+    @Test
+    public void testShouldShareUnchangedStateAndExposeReadOnlyViews() {
+        City LA = new City("LA", new Coord(.1f, .1f));
+        City SF = new City("SF", new Coord(.9f, .1f));
+        City SLO = new City("SLO", new Coord(.9f, .9f));
+        HashSet<DirectConnection> ownedConnections = new HashSet<>();
+        ownedConnections.add(new DirectConnection(LA, SLO, 3, ColorTrains.RED));
+
+        HashMap<ColorTrains, Integer> colorCards = new HashMap<>();
+        colorCards.put(ColorTrains.RED, 5);
+        colorCards.put(ColorTrains.GREEN, 1);
+        colorCards.put(ColorTrains.BLUE, 0);
+        colorCards.put(ColorTrains.WHITE, 2);
+        PlayerHand pH =
+                new PlayerHand(ownedConnections, colorCards, 45,
+                        new ArrayList<>());
+        ownedConnections.clear(); // hand keeps its own copy
+        assertEquals(1, pH.getOwnedConnections().size());
+
+        PlayerHand withCards = pH.addCards(
+                List.of(new ColorCard(ColorTrains.BLUE),
+                        new ColorCard(ColorTrains.BLUE)));
+        assertSame(pH.getOwnedConnections(), withCards.getOwnedConnections());
+        assertEquals(0, pH.getCardCount(ColorTrains.BLUE));
+        assertEquals(2, withCards.getCardCount(ColorTrains.BLUE));
+        assertEquals(8, pH.getTotalCards());
+        assertEquals(10, withCards.getTotalCards());
+
+        PlayerHand acquired = withCards.handleAddConnection(
+                new DirectConnection(LA, SF, 5, ColorTrains.RED));
+        assertEquals(1, withCards.getOwnedConnections().size());
+        assertEquals(2, acquired.getOwnedConnections().size());
+        assertEquals(0, acquired.getCardCount(ColorTrains.RED));
+        assertEquals(5, withCards.getColorCardCount().get(ColorTrains.RED));
+
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> acquired.getOwnedConnections().clear());
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> acquired.getColorCardCount().put(ColorTrains.RED, 9));
+    }
 }
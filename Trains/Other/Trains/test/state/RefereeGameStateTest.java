@@ -9,16 +9,20 @@ import map.ExampleMap;
 import map.TrainsMap;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import strategy.RandomAdminStrategy;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RefereeGameStateTest {
@@ -99,6 +103,52 @@ public class RefereeGameStateTest {
         assertTrue(rgs.canCurrentPlayerAcquire(acquire));
     }
 
+    @Test
+    public void testShouldFreeConnectionsOfRemovedPlayer() {
+        TrainsMap map = ExampleMap.createExampleMultipleConnectionMap();
+
+        City SF = new City("SF", new Coord(.3f, .2f));
+        City SAC = new City("Sac", new Coord(.4f, .24f));
+        City LA = new City("LA", new Coord(.4f, .8f));
+        City SLO = new City("SLO", new Coord(.31f, .65f));
+        City vegas = new City("Las Vegas", new Coord(.8f, .65f));
+
+        List<Destination> fixedDestinations = new ArrayList<>();
+        fixedDestinations.add(new Destination(SF, SAC));
+        fixedDestinations.add(new Destination(LA, SLO));
+
+        HashMap<ColorTrains, Integer> fixedColorCardsInput = new HashMap<>();
+        fixedColorCardsInput.put(ColorTrains.RED, 4); // initialize values
+        fixedColorCardsInput.put(ColorTrains.GREEN, 0);
+        fixedColorCardsInput.put(ColorTrains.BLUE, 0);
+        fixedColorCardsInput.put(ColorTrains.WHITE, 0);
+
+        RefereeGameState rgs =
+                RefereeGameState.RefereeGameStateShuffledCards(map);
+        int numConnections = map.getDirectConnections().size();
+        DirectConnection acquire =
+                new DirectConnection(vegas, SLO, 3, ColorTrains.RED);
+
+        rgs.addPlayerTest(fixedColorCardsInput, fixedDestinations,
+                new HashSet<>(), 45);
+        rgs.addPlayerTest(new HashMap<>(fixedColorCardsInput),
+                fixedDestinations, new HashSet<>(), 45);
+        rgs.addAcquiredConnectionMove(acquire); // first player, now last
+        assertEquals(numConnections - 1,
+                rgs.getNumRemainingAvailConnections());
+        assertFalse(rgs.canCurrentPlayerAcquire(acquire));
+        assertFalse(rgs.getCurrentPlayerGameState().canAcquire(acquire));
+        assertFalse(rgs.determineAvailableConnections().contains(acquire));
+
+        rgs.drawTwoColoredCardsMove(); // second player, first is current
+        rgs.removePlayer();
+        assertEquals(numConnections, rgs.getNumRemainingAvailConnections());
+        assertTrue(rgs.canCurrentPlayerAcquire(acquire));
+        assertTrue(rgs.getCurrentPlayerGameState().canAcquire(acquire));
+        assertEquals(map.getDirectConnections(),
+                rgs.determineAvailableConnections());
+    }
+
     @Test
     public void testShouldRejectMoveWithNotEnoughRails() {
         TrainsMap map = ExampleMap.createExampleMultipleConnectionMap();
@@ -524,4 +574,141 @@ public class RefereeGameStateTest {
         //assertTrue(rgs.isNextRoundFinal());
     }
 
+    @Test
+    public void testShouldReplayGameFromSeed() {
+        TrainsMap map = ExampleMap.createBostonMap();
+        List<ColorCard> cards = RefereeGameState.initializeShuffledColoredCards();
+        RefereeGameState first =
+                new RefereeGameState(map, cards, new RandomAdminStrategy(), 42L);
+        RefereeGameState replay = new RefereeGameState(map, cards,
+                new RandomAdminStrategy(), first.getSeed());
+
+        assertEquals(42L, replay.getSeed());
+        assertEquals(first.getFirstFiveDestinations(),
+                replay.getFirstFiveDestinations());
+        assertEquals(first.initializePlayerWithRailsAndDraw(45),
+                replay.initializePlayerWithRailsAndDraw(45));
+        assertEquals(first.addPlayer(), replay.addPlayer());
+        assertEquals(first.addPlayer(), replay.addPlayer());
+
+        RefereeGameState shuffled =
+                RefereeGameState.RefereeGameStateShuffledCards(map, 7L);
+        RefereeGameState shuffledReplay =
+                RefereeGameState.RefereeGameStateShuffledCards(map, 7L);
+        assertEquals(shuffled.addPlayer(), shuffledReplay.addPlayer());
+        assertEquals(shuffled.getTwoRandomDestinationsFromMap(),
+                shuffledReplay.getTwoRandomDestinationsFromMap());
+    }
+
+    @Test
+    public void testShouldResetToNewlyConstructedGame() {
+        TrainsMap map = ExampleMap.createBostonMap();
+        List<ColorCard> cards = RefereeGameState.initializeShuffledColoredCards();
+        RefereeGameState reused =
+                new RefereeGameState(map, cards, new RandomAdminStrategy(), 1L);
+        reused.addPlayer();
+        reused.drawTwoColoredCardsMove();
+        HashMap<ColorTrains, Integer> noCards = new HashMap<>();
+        for (ColorTrains color : ColorTrains.values()) {
+            noCards.put(color, 0);
+        }
+        HashSet<DirectConnection> owned = new HashSet<>();
+        owned.add(reused.determineAvailableConnections().iterator().next());
+        reused.addPlayerTest(noCards,
+                reused.getFirstFiveDestinations().subList(0, 2), owned, 45);
+        reused.reset(2L);
+
+        RefereeGameState fresh =
+                new RefereeGameState(map, cards, new RandomAdminStrategy(), 2L);
+        assertEquals(2L, reused.getSeed());
+        assertEquals(0, reused.getNumPlayers());
+        assertEquals(fresh.getNumRemainingCards(),
+                reused.getNumRemainingCards());
+        assertEquals(fresh.getNumRemainingAvailConnections(),
+                reused.getNumRemainingAvailConnections());
+        assertEquals(fresh.getFirstFiveDestinations(),
+                reused.getFirstFiveDestinations());
+        assertEquals(fresh.initializePlayerWithRailsAndDraw(45),
+                reused.initializePlayerWithRailsAndDraw(45));
+        assertEquals(fresh.addPlayer(), reused.addPlayer());
+    }
+
+
+    @Test
+    public void testShouldUndoMovesAndRollBackToSnapshots() {
+        RefereeGameState rgs = RefereeGameState.RefereeGameStateShuffledCards(
+                ExampleMap.createBigBostonMap(), 3);
+        for (int p = 0; p < 3; p++) {
+            rgs.initializePlayerWithRailsAndDraw(20);
+        }
+        SplittableRandom random = new SplittableRandom(5);
+        List<String> states = new ArrayList<>();
+        List<RefereeGameState.Snapshot> snapshots = new ArrayList<>();
+        for (int move = 0; move < 60; move++) {
+            states.add(describe(rgs));
+            snapshots.add(rgs.snapshot());
+            DirectConnection dc = rgs.getCurrentPlayerGameState()
+                    .getFirstAcquirableConnection();
+            if (dc != null && random.nextBoolean()) {
+                rgs.addAcquiredConnectionMove(dc);
+            } else {
+                rgs.drawTwoColoredCardsMove();
+            }
+        }
+        String last = describe(rgs);
+
+        rgs.undo();
+        assertEquals(states.get(59), describe(rgs));
+        rgs.rollback(snapshots.get(40));
+        assertEquals(states.get(40), describe(rgs));
+        assertThrows(IllegalStateException.class,
+                () -> rgs.rollback(snapshots.get(50)));
+        rgs.rollback(snapshots.get(0));
+        assertEquals(states.get(0), describe(rgs));
+        assertThrows(IllegalStateException.class, rgs::undo);
+
+        // replaying the same moves reaches the same state
+        random = new SplittableRandom(5);
+        for (int move = 0; move < 60; move++) {
+            DirectConnection dc = rgs.getCurrentPlayerGameState()
+                    .getFirstAcquirableConnection();
+            if (dc != null && random.nextBoolean()) {
+                rgs.addAcquiredConnectionMove(dc);
+            } else {
+                rgs.drawTwoColoredCardsMove();
+            }
+        }
+        assertEquals(last, describe(rgs));
+    }
+
+    @Test
+    public void testShouldNotUndoPastRemovedPlayer() {
+        RefereeGameState rgs = RefereeGameState.RefereeGameStateShuffledCards(
+                ExampleMap.createBigBostonMap(), 3);
+        rgs.initializePlayerWithRailsAndDraw(45);
+        rgs.initializePlayerWithRailsAndDraw(45);
+        RefereeGameState.Snapshot start = rgs.snapshot();
+        rgs.drawTwoColoredCardsMove();
+        rgs.removePlayer();
+        assertThrows(IllegalStateException.class, rgs::undo);
+        assertThrows(IllegalStateException.class, () -> rgs.rollback(start));
+        assertEquals(1, rgs.getNumPlayers());
+    }
+
+    /**
+     * Describes every part of a game state that moves change, in turn order.
+     */
+    private static String describe(RefereeGameState rgs) {
+        StringBuilder result = new StringBuilder();
+        for (PlayerHand hand : rgs.getAllPlayerHands()) {
+            result.append(hand.getColorCardCount()).append(hand.getRails())
+                    .append(new TreeSet<>(
+                            hand.getOwnedConnections())).append('|');
+        }
+        return result.append(rgs.getAllOwnedConnections())
+                .append(rgs.getNumRemainingCards())
+                .append(rgs.getNumRemainingAvailConnections())
+                .append(rgs.determineAvailableConnections().size())
+                .toString();
+    }
 }
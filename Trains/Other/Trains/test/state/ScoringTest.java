@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class ScoringTest {
@@ -73,6 +74,41 @@ public class ScoringTest {
         assertEquals(new HashSet<>(List.of(50)), ranking.keySet());
     }
 
+    @Test
+    public void testShouldGiveLongestPathPointsToEveryTiedPlayer() {
+        City SF = new City("SF", new Coord(.3f, .2f));
+        City SAC = new City("Sac", new Coord(.4f, .24f));
+        City LA = new City("LA", new Coord(.4f, .8f));
+        City SLO = new City("SLO", new Coord(.31f, .65f));
+        Map<ColorTrains, Integer> cards = new HashMap<>();
+        for (ColorTrains color : ColorTrains.values()) {
+            cards.put(color, 0);
+        }
+        List<Destination> noDestinations = new ArrayList<>();
+
+        PlayerHand first = new PlayerHand(Set.of(
+                new DirectConnection(SF, SAC, 4, ColorTrains.RED)), cards, 41,
+                noDestinations);
+        PlayerHand second = new PlayerHand(Set.of(
+                new DirectConnection(LA, SLO, 4, ColorTrains.BLUE)), cards, 41,
+                noDestinations);
+        PlayerHand third = new PlayerHand(Set.of(
+                new DirectConnection(SLO, SF, 3, ColorTrains.RED)), cards, 42,
+                List.of(new Destination(SF, SLO)));
+
+        Map<Integer, Set<PlayerHand>> ranking =
+                Scoring.getRanking(List.of(first, second, third));
+        assertEquals(Set.of(24, 13), ranking.keySet());
+        assertEquals(Set.of(first, second), ranking.get(24));
+        assertEquals(Set.of(third), ranking.get(13));
+
+        // scores by position keep the two equal hands apart
+        PlayerHand firstAgain = new PlayerHand(first.getOwnedConnections(),
+                cards, 41, noDestinations);
+        assertArrayEquals(new int[]{24, 24, 13, 24}, Scoring.getScores(
+                List.of(first, second, third, firstAgain)));
+    }
+
     @Test
     public void testShouldGetScoreOfSimpleGameWithoutDest() {
 
@@ -438,7 +474,8 @@ public class ScoringTest {
                 Arrays.asList(common, brookline, cambridge, financial_district,
                         seaport, chinatown)));
 
-        assertEquals(17, Scoring.getLengthLongestPath(ownedConnections,
+        // Chinatown, Common, Brookline, Cambridge, Financial District, Seaport
+        assertEquals(21, Scoring.getLengthLongestPath(ownedConnections,
                 givenConnectedComponents));
     }
 
@@ -0,0 +1,86 @@
+package transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryWireFormatTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static JsonNode roundTrip(JsonNode message) {
+        List<JsonNode> decoded = new ArrayList<>();
+        WireFormat.BINARY.newDecoder(1 << 20).feed(
+                ByteBuffer.wrap(WireFormat.BINARY.encode(message)),
+                decoded::add);
+        assertEquals(1, decoded.size());
+        return decoded.get(0);
+    }
+
+    @Test
+    public void testShouldRoundTripEveryKindOfValue() throws Exception {
+        JsonNode message = MAPPER.readTree("[null,true,false,0,-1,63,-64," +
+                "2147483648,-9223372036854775808,0.25,-1.5e300,\"\"," +
+                "\"café\",[],{},{\"a\":{\"b\":[1,[2,[3]]]}}," +
+                "[\"x\",\"y\",\"z\",-7],[\"x\",\"y\",3,4]]");
+        assertEquals(message, roundTrip(message));
+    }
+
+    @Test
+    public void testShouldSendRepeatedStringsOnce() throws Exception {
+        JsonNode connections = MAPPER.readTree(
+                "[[\"Boston\",\"Chicago\",\"red\",3]," +
+                "[\"Boston\",\"Chicago\",\"blue\",3]," +
+                "[\"Chicago\",\"Boston\",\"red\",5]]");
+        byte[] binary = WireFormat.BINARY.encode(connections);
+        byte[] json = WireFormat.JSON.encode(connections);
+        // 1 length + 1 count + 4 strings + 2 array header + 3 * 5 packed
+        assertEquals(2 + (1 + 6) + (1 + 7) + (1 + 3) + (1 + 4) + 2 + 15,
+                binary.length);
+        assertTrue(binary.length * 2 < json.length);
+        assertEquals(connections, roundTrip(connections));
+    }
+
+    @Test
+    public void testShouldRejectMalformedMessages() {
+        WireFormat.Decoder decoder = WireFormat.BINARY.newDecoder(1024);
+        // unknown tag
+        assertThrows(IllegalArgumentException.class, () -> decoder.feed(
+                ByteBuffer.wrap(new byte[]{2, 0, 42}), value -> {
+                }));
+        // string index beyond the table
+        assertThrows(IllegalArgumentException.class, () -> WireFormat.BINARY
+                .newDecoder(1024).feed(ByteBuffer.wrap(new byte[]{3, 0, 5, 0}),
+                        value -> {
+                        }));
+        // array longer than the message
+        assertThrows(IllegalArgumentException.class, () -> WireFormat.BINARY
+                .newDecoder(1024).feed(ByteBuffer.wrap(new byte[]{3, 0, 6, 9}),
+                        value -> {
+                        }));
+        // frame larger than allowed
+        assertThrows(IllegalArgumentException.class, () -> WireFormat.BINARY
+                .newDecoder(16).feed(ByteBuffer.wrap(new byte[]{17}),
+                        value -> {
+                        }));
+    }
+
+    @Test
+    public void testShouldReportEndOfStream() throws Exception {
+        byte[] frame = WireFormat.BINARY.encode(MAPPER.readTree("[1,2]"));
+        WireFormat.Reader reader = WireFormat.BINARY.newReader(
+                new ByteArrayInputStream(frame, 0, frame.length - 1));
+        assertThrows(EOFException.class, reader::read);
+        assertThrows(EOFException.class, WireFormat.BINARY.newReader(
+                new ByteArrayInputStream(new byte[0]))::read);
+    }
+}
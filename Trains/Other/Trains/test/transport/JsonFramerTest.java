@@ -0,0 +1,72 @@
+package transport;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonFramerTest {
+
+    private static List<String> feedAll(JsonFramer framer, String... chunks) {
+        List<String> frames = new ArrayList<>();
+        for (String chunk : chunks) {
+            framer.feed(ByteBuffer.wrap(
+                    chunk.getBytes(StandardCharsets.UTF_8)),
+                    frame -> frames.add(
+                            new String(frame, StandardCharsets.UTF_8)));
+        }
+        return frames;
+    }
+
+    @Test
+    public void testShouldFrameValuesInOneBuffer() {
+        assertEquals(List.of("\"void\"", "[\"end\",[true]]", "{\"a\":{}}",
+                        "\"x\""),
+                feedAll(new JsonFramer(100),
+                        " \"void\"\n[\"end\",[true]]{\"a\":{}} \"x\""));
+    }
+
+    @Test
+    public void testShouldFrameValuesSplitAcrossBuffers() {
+        JsonFramer framer = new JsonFramer(100);
+        List<String> frames =
+                feedAll(framer, "[\"pi", "ck\",[[\"a\"", ",\"b\"]]", "]");
+        assertEquals(List.of("[\"pick\",[[\"a\",\"b\"]]]"), frames);
+        assertFalse(framer.hasPartialFrame());
+
+        assertEquals(List.of(), feedAll(framer, "{\"k\":"));
+        assertTrue(framer.hasPartialFrame());
+    }
+
+    @Test
+    public void testShouldIgnoreBracketsAndQuotesInStrings() {
+        String value = "[\"a]\\\"}\",\"\\\\\",\"é[\"]";
+        assertEquals(List.of(value, "\"}\""),
+                feedAll(new JsonFramer(100), value, "\"}\""));
+    }
+
+    @Test
+    public void testShouldEndTopLevelScalarsAtDelimiters() {
+        assertEquals(List.of("12", "true", "[1]", "null"),
+                feedAll(new JsonFramer(100), "12 tr", "ue[1]null", " "));
+    }
+
+    @Test
+    public void testShouldRejectOversizedAndUnbalancedInput() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> feedAll(new JsonFramer(8), "[\"0123456789\"]"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> feedAll(new JsonFramer(8), "]"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new JsonFramer(0));
+        assertEquals(List.of("[\"012\"]"),
+                feedAll(new JsonFramer(7), "[\"012\"]"));
+    }
+}
@@ -0,0 +1,200 @@
+package transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NioTransportTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private NioTransport transport;
+    private ServerSocketChannel server;
+    private BlockingQueue<Connection> accepted;
+
+    @BeforeEach
+    public void listen() throws IOException {
+        this.transport = new NioTransport(2);
+        this.server = ServerSocketChannel.open().bind(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.accepted = new LinkedBlockingQueue<>();
+        this.transport.listen(this.server, this.accepted::add);
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        this.server.close();
+        this.transport.close();
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(),
+                this.server.socket().getLocalPort());
+    }
+
+    private Connection nextConnection() throws InterruptedException {
+        return this.accepted.poll(5, TimeUnit.SECONDS);
+    }
+
+    private static void send(Socket socket, String json) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(json.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static String readValue(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        StringBuilder value = new StringBuilder();
+        int depth = 0;
+        do {
+            char c = (char) in.read();
+            value.append(c);
+            depth += c == '[' ? 1 : c == ']' ? -1 : 0;
+        } while (depth > 0);
+        return value.toString();
+    }
+
+    @Test
+    public void testShouldReceiveAndAnswerCalls() throws Exception {
+        try (Socket client = this.connect()) {
+            send(client, "\"al");
+            Connection connection = this.nextConnection();
+            CompletableFuture<JsonNode> name = connection.receive(5000);
+            send(client, "ice\"");
+            assertEquals("alice", name.get(5, TimeUnit.SECONDS).asText());
+
+            CompletableFuture<JsonNode> response = connection.request(
+                    MAPPER.readTree("[\"end\",[true]]"), 5000);
+            assertEquals("[\"end\",[true]]", readValue(client));
+            send(client, "\"vo");
+            send(client, "id\" ");
+            assertEquals("void", response.get(5, TimeUnit.SECONDS).asText());
+            assertTrue(connection.isOpen());
+        }
+    }
+
+    @Test
+    public void testShouldSwitchWireFormat() throws Exception {
+        try (Socket client = this.connect()) {
+            send(client, "{\"name\":\"alice\",\"wire-format\":\"binary\"}");
+            Connection connection = this.nextConnection();
+            assertEquals("binary", connection.receive(5000)
+                    .get(5, TimeUnit.SECONDS).get("wire-format").asText());
+            connection.setWireFormat(WireFormat.BINARY);
+            assertEquals(WireFormat.BINARY, connection.getWireFormat());
+
+            JsonNode call = MAPPER.readTree("[\"win\",[true]]");
+            CompletableFuture<JsonNode> response = connection.request(call,
+                    5000);
+            assertEquals(call, WireFormat.BINARY
+                    .newReader(client.getInputStream()).read());
+            WireFormat.BINARY.newWriter(client.getOutputStream())
+                    .write(MAPPER.readTree("\"void\""));
+            assertEquals("void", response.get(5, TimeUnit.SECONDS).asText());
+        }
+    }
+
+    @Test
+    public void testShouldKeepValuesSentAhead() throws Exception {
+        try (Socket client = this.connect()) {
+            send(client, "\"bob\"[1]");
+            Connection connection = this.nextConnection();
+            assertEquals("bob",
+                    connection.receive(5000).get(5, TimeUnit.SECONDS)
+                            .asText());
+            assertEquals(MAPPER.readTree("[1]"),
+                    connection.receive(5000).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testShouldTimeOutAndCloseSilentPeers() throws Exception {
+        try (Socket client = this.connect()) {
+            Connection connection = this.nextConnection();
+            CompletableFuture<JsonNode> response =
+                    connection.request(MAPPER.readTree("[\"play\",[]]"), 50);
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> response.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertFalse(connection.isOpen());
+            // the peer sees the connection close after the call
+            assertEquals("[\"play\",[]]", readValue(client));
+            assertEquals(-1, client.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void testShouldFailCallsWhenPeerDisconnects() throws Exception {
+        Connection connection;
+        try (Socket client = this.connect()) {
+            connection = this.nextConnection();
+        }
+        CompletableFuture<JsonNode> response = connection.receive(5000);
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> response.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof ClosedChannelException);
+    }
+
+    @Test
+    public void testShouldDisconnectMalformedPeers() throws Exception {
+        try (Socket client = this.connect()) {
+            Connection connection = this.nextConnection();
+            CompletableFuture<JsonNode> response = connection.receive(5000);
+            send(client, "[1,}");
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> response.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof ClosedChannelException);
+        }
+    }
+
+    @Test
+    public void testShouldServeManyConnectionsOnFewThreads() throws Exception {
+        List<Socket> clients = new ArrayList<>();
+        List<CompletableFuture<JsonNode>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                clients.add(this.connect());
+                responses.add(this.nextConnection().request(
+                        MAPPER.readTree("[\"win\",[" + i + "]]"), 5000));
+            }
+            for (int i = clients.size() - 1; i >= 0; i--) {
+                Socket client = clients.get(i);
+                JsonNode call = MAPPER.readTree(readValue(client));
+                send(client, String.valueOf(call.get(1).get(0).asInt() * 2) +
+                             " ");
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals(2 * i,
+                        responses.get(i).get(5, TimeUnit.SECONDS).asInt());
+            }
+        } finally {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package transport;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testShouldRunTasksInDeadlineOrderNeverEarly() {
+        TimerWheel wheel = new TimerWheel(10, 4, 1000);
+        List<String> ran = new ArrayList<>();
+        wheel.schedule(1025, () -> ran.add("b"));
+        wheel.schedule(1005, () -> ran.add("a"));
+        wheel.schedule(1200, () -> ran.add("c")); // several revolutions out
+        assertEquals(3, wheel.size());
+
+        assertEquals(0, wheel.advance(1009));
+        assertEquals(1, wheel.advance(1010));
+        assertEquals(List.of("a"), ran);
+        assertEquals(0, wheel.advance(1029));
+        assertEquals(1, wheel.advance(1030));
+        assertEquals(0, wheel.advance(1199));
+        assertEquals(1, wheel.advance(5000));
+        assertEquals(List.of("a", "b", "c"), ran);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testShouldCancelPendingTimeouts() {
+        TimerWheel wheel = new TimerWheel(10, 8, 0);
+        List<String> ran = new ArrayList<>();
+        TimerWheel.Timeout first = wheel.schedule(20, () -> ran.add("first"));
+        TimerWheel.Timeout second =
+                wheel.schedule(20, () -> ran.add("second"));
+        assertTrue(wheel.cancel(first));
+        assertFalse(wheel.cancel(first));
+        assertFalse(first.isPending());
+        assertTrue(second.isPending());
+
+        assertEquals(1, wheel.advance(100));
+        assertEquals(List.of("second"), ran);
+        assertFalse(wheel.cancel(second));
+    }
+
+    @Test
+    public void testShouldRunPastDeadlinesOnNextTick() {
+        TimerWheel wheel = new TimerWheel(10, 8, 0);
+        wheel.advance(95);
+        assertEquals(0, wheel.millisUntilNextTick(95));
+        List<String> ran = new ArrayList<>();
+        wheel.schedule(0, () -> ran.add("late"));
+        assertEquals(5, wheel.millisUntilNextTick(95));
+        assertEquals(0, wheel.advance(99));
+        assertEquals(1, wheel.advance(100));
+        assertEquals(List.of("late"), ran);
+    }
+
+    @Test
+    public void testShouldLetTasksScheduleAndCancel() {
+        TimerWheel wheel = new TimerWheel(10, 2, 0);
+        List<String> ran = new ArrayList<>();
+        TimerWheel.Timeout[] other = new TimerWheel.Timeout[1];
+        wheel.schedule(10, () -> {
+            ran.add("first");
+            wheel.cancel(other[0]);
+            wheel.schedule(30, () -> ran.add("rescheduled"));
+        });
+        other[0] = wheel.schedule(10, () -> ran.add("cancelled"));
+        assertEquals(2, wheel.advance(40));
+        assertEquals(List.of("first", "rescheduled"), ran);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new TimerWheel(0, 8, 0));
+    }
+}
@@ -0,0 +1,67 @@
+package transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WireFormatTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testShouldFindFormatsByName() {
+        assertSame(WireFormat.JSON, WireFormat.forName("json"));
+        assertSame(WireFormat.BINARY, WireFormat.forName("binary"));
+        assertThrows(IllegalArgumentException.class,
+                () -> WireFormat.forName("xml"));
+    }
+
+    @Test
+    public void testShouldRoundTripMessagesInEveryFormat() throws IOException {
+        JsonNode message = MAPPER.readTree("[\"play\",[{\"this\":{" +
+                "\"destination1\":[\"Boston\",\"Chicago\"],\"rails\":45," +
+                "\"cards\":{\"red\":3,\"blue\":0},\"acquired\":" +
+                "[[\"Boston\",\"Chicago\",\"red\",3]]},\"acquired\":" +
+                "[[[\"Boston\",\"Chicago\",\"red\",3]],[]]}]]");
+        for (WireFormat format : List.of(WireFormat.JSON,
+                WireFormat.BINARY)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            WireFormat.Writer writer = format.newWriter(out);
+            writer.write(message);
+            writer.write(MAPPER.readTree("\"void\""));
+
+            WireFormat.Reader reader = format.newReader(
+                    new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(message, reader.read(), format.getName());
+            assertEquals("void", reader.read().asText(), format.getName());
+        }
+    }
+
+    @Test
+    public void testShouldDecodeMessagesSplitAcrossReads() throws IOException {
+        JsonNode first = MAPPER.readTree("[\"more\",[[\"red\",\"red\"]]]");
+        JsonNode second = MAPPER.readTree("{\"map-hash\":\"abc\"}");
+        for (WireFormat format : List.of(WireFormat.JSON,
+                WireFormat.BINARY)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(format.encode(first));
+            bytes.write(format.encode(second));
+            List<JsonNode> decoded = new ArrayList<>();
+            WireFormat.Decoder decoder = format.newDecoder(1024);
+            for (byte b : bytes.toByteArray()) {
+                decoder.feed(ByteBuffer.wrap(new byte[]{b}), decoded::add);
+            }
+            assertEquals(List.of(first, second), decoded, format.getName());
+        }
+    }
+}